@@ -0,0 +1,46 @@
+package com.shintadev.shop_dev_be.cache;
+
+/**
+ * Message broadcast between nodes to invalidate local (L1) cache entries
+ *
+ * @param origin    the id of the node that published the message
+ * @param cacheName the name of the cache
+ * @param key       the cache key, or null to clear the whole cache
+ */
+public record CacheInvalidationMessage(String origin, String cacheName, String key) {
+
+  private static final String SEPARATOR = "|";
+
+  /**
+   * Encode the message as a compact string, the key goes last so it may
+   * contain the separator
+   *
+   * @return the encoded message
+   */
+  public String encode() {
+    return origin + SEPARATOR + cacheName + SEPARATOR + (key != null ? key : "");
+  }
+
+  /**
+   * Decode a message produced by {@link #encode()}
+   *
+   * @param body the encoded message
+   * @return the message
+   */
+  public static CacheInvalidationMessage decode(String body) {
+    String[] parts = body.split("\\" + SEPARATOR, 3);
+    if (parts.length < 3) {
+      throw new IllegalArgumentException("Malformed cache invalidation message: " + body);
+    }
+    return new CacheInvalidationMessage(parts[0], parts[1], parts[2].isEmpty() ? null : parts[2]);
+  }
+
+  /**
+   * Check if the message clears the whole cache
+   *
+   * @return true if the message has no key
+   */
+  public boolean isClear() {
+    return key == null;
+  }
+}
@@ -0,0 +1,56 @@
+package com.shintadev.shop_dev_be.cache;
+
+import java.util.UUID;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes L1 cache invalidations to the other nodes over Redis pub/sub
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+  private final StringRedisTemplate redisTemplate;
+
+  @Getter
+  private final String channel;
+
+  @Getter
+  private final String nodeId = UUID.randomUUID().toString();
+
+  public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel) {
+    this.redisTemplate = redisTemplate;
+    this.channel = channel;
+  }
+
+  /**
+   * Publish an eviction of a single key
+   *
+   * @param cacheName the name of the cache
+   * @param key       the cache key
+   */
+  public void publishEvict(String cacheName, String key) {
+    publish(new CacheInvalidationMessage(nodeId, cacheName, key));
+  }
+
+  /**
+   * Publish a clear of a whole cache
+   *
+   * @param cacheName the name of the cache
+   */
+  public void publishClear(String cacheName) {
+    publish(new CacheInvalidationMessage(nodeId, cacheName, null));
+  }
+
+  private void publish(CacheInvalidationMessage message) {
+    try {
+      redisTemplate.convertAndSend(channel, message.encode());
+    } catch (Exception e) {
+      // The L1 TTL bounds staleness on the other nodes, so never fail the write
+      log.warn("Failed to publish cache invalidation for {}: {}", message.cacheName(), e.getMessage());
+    }
+  }
+}
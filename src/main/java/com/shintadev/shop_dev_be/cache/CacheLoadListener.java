@@ -0,0 +1,28 @@
+package com.shintadev.shop_dev_be.cache;
+
+/**
+ * Notified around the loads of a {@link TwoLevelCache}, so that what depends
+ * on a loaded value is recorded once the value is in the cache, and can tell
+ * whether it was invalidated while it was being loaded
+ */
+public interface CacheLoadListener {
+
+  /**
+   * Called before the loader runs
+   *
+   * @param cacheName the name of the cache
+   * @param key       the cache key
+   * @return a marker handed back to {@link #afterPut}
+   */
+  long beforeLoad(String cacheName, Object key);
+
+  /**
+   * Called once a loaded value has been written to both levels
+   *
+   * @param cacheName the name of the cache
+   * @param key       the cache key
+   * @param value     the loaded value
+   * @param marker    the marker returned by {@link #beforeLoad}
+   */
+  void afterPut(String cacheName, Object key, Object value, long marker);
+}
@@ -0,0 +1,151 @@
+package com.shintadev.shop_dev_be.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks which cache entries depend on which tags (e.g. a product id), using
+ * one Redis set per tag, so that writes can evict only the affected entries.
+ * <p>
+ * Every invalidation advances a generation first, so an entry loaded while
+ * one ran, and tagged too late for it, can tell it may be stale.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CacheTagRegistry {
+
+  private static final String TAG_PREFIX = "cache:tags:";
+  private static final String ENTRY_SEPARATOR = "::";
+  private static final String GENERATION_KEY = "cache:tags:generation";
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final CacheManager cacheManager;
+
+  @Value("${app.cache.product.ttl}")
+  private long tagTimeToLive;
+
+  /**
+   * Record that a cache entry depends on each of the given tags
+   *
+   * @param cacheName the name of the cache
+   * @param key       the cache key
+   * @param tags      the tags the entry depends on
+   */
+  public void tag(String cacheName, String key, Collection<String> tags) {
+    if (tags.isEmpty()) {
+      return;
+    }
+
+    String entry = new CacheEntry(cacheName, key).encode();
+    try {
+      stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+        StringRedisConnection stringConnection = (StringRedisConnection) connection;
+        for (String tag : tags) {
+          stringConnection.sAdd(TAG_PREFIX + tag, entry);
+          // Tags never need to outlive the entries they point to
+          stringConnection.pExpire(TAG_PREFIX + tag, tagTimeToLive);
+        }
+        return null;
+      });
+    } catch (Exception e) {
+      // An untracked entry only lives until its TTL, never fail the read
+      log.warn("Failed to tag cache entry {}: {}", entry, e.getMessage());
+    }
+  }
+
+  /**
+   * Get the cache entries depending on a tag
+   *
+   * @param tag the tag
+   * @return the entries
+   */
+  public Set<CacheEntry> entries(String tag) {
+    Set<String> members = stringRedisTemplate.opsForSet().members(TAG_PREFIX + tag);
+    if (members == null || members.isEmpty()) {
+      return Collections.emptySet();
+    }
+    return members.stream()
+        .map(CacheEntry::decode)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Get the current generation, advanced by every invalidation
+   *
+   * @return the generation, or -1 if it could not be read
+   */
+  public long generation() {
+    try {
+      String generation = stringRedisTemplate.opsForValue().get(GENERATION_KEY);
+      return generation != null ? Long.parseLong(generation) : 0;
+    } catch (Exception e) {
+      log.warn("Failed to read the cache tag generation: {}", e.getMessage());
+      return -1;
+    }
+  }
+
+  /**
+   * Evict every cache entry depending on a tag, then drop the tag
+   *
+   * @param tag the tag
+   */
+  public void invalidate(String tag) {
+    stringRedisTemplate.opsForValue().increment(GENERATION_KEY);
+    entries(tag).forEach(this::evict);
+    stringRedisTemplate.delete(TAG_PREFIX + tag);
+  }
+
+  /**
+   * Evict a single cache entry, at once even inside a transaction
+   *
+   * @param entry the entry
+   */
+  public void evict(CacheEntry entry) {
+    Cache cache = cacheManager.getCache(entry.cacheName());
+    if (cache != null) {
+      cache.evictIfPresent(entry.key());
+    }
+  }
+
+  /**
+   * Remove an entry from a tag without evicting it
+   *
+   * @param tag   the tag
+   * @param entry the entry
+   */
+  public void untag(String tag, CacheEntry entry) {
+    stringRedisTemplate.opsForSet().remove(TAG_PREFIX + tag, entry.encode());
+  }
+
+  /**
+   * A cache entry referenced by a tag
+   *
+   * @param cacheName the name of the cache
+   * @param key       the cache key
+   */
+  public record CacheEntry(String cacheName, String key) {
+
+    String encode() {
+      return cacheName + ENTRY_SEPARATOR + key;
+    }
+
+    static CacheEntry decode(String value) {
+      int separator = value.indexOf(ENTRY_SEPARATOR);
+      return new CacheEntry(value.substring(0, separator), value.substring(separator + ENTRY_SEPARATOR.length()));
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package com.shintadev.shop_dev_be.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.shintadev.shop_dev_be.cache.CacheTagRegistry.CacheEntry;
+import com.shintadev.shop_dev_be.domain.dto.response.product.ProductResponse;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps track of which cached product pages contain which products and
+ * categories, and evicts only the pages affected by a product write instead of
+ * flushing every listing.
+ * <p>
+ * Page keys follow the {@code @Cacheable} keys in {@code ProductServiceImpl}:
+ * {@code <page>_<size>} and {@code <categoryId>_<page>_<size>}.
+ * <p>
+ * A page is tagged once it is in the cache, then evicted again if an
+ * invalidation ran since its load started, as it may hold what the
+ * invalidation was meant to remove. Invalidations run after the write
+ * commits, so a page loaded after one cannot read the old rows.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCacheInvalidator implements CacheLoadListener {
+
+  public static final String PRODUCTS = "products";
+  public static final String ACTIVE_PRODUCTS = "activeProducts";
+  public static final String PRODUCTS_BY_CATEGORY = "productsByCategory";
+  public static final String PRODUCT_DETAILS = "productDetails";
+
+  private static final String PRODUCT_TAG = "product:";
+  private static final String CATEGORY_TAG = "category:";
+  private static final String LISTING_TAG = "listing:";
+
+  private final CacheTagRegistry cacheTagRegistry;
+  private final TwoLevelCacheManager cacheManager;
+
+  @PostConstruct
+  void registerLoadListener() {
+    cacheManager.registerLoadListener(PRODUCTS, this);
+    cacheManager.registerLoadListener(ACTIVE_PRODUCTS, this);
+    cacheManager.registerLoadListener(PRODUCTS_BY_CATEGORY, this);
+  }
+
+  /**
+   * Build the cache key of a page
+   *
+   * @param pageable the pageable object
+   * @return the cache key
+   */
+  public static String pageKey(Pageable pageable) {
+    return pageable.getPageNumber() + "_" + pageable.getPageSize();
+  }
+
+  /**
+   * Build the cache key of a page of a category
+   *
+   * @param categoryId the id of the category
+   * @param pageable   the pageable object
+   * @return the cache key
+   */
+  public static String categoryPageKey(Long categoryId, Pageable pageable) {
+    return categoryId + "_" + pageKey(pageable);
+  }
+
+  @Override
+  public long beforeLoad(String cacheName, Object key) {
+    return cacheTagRegistry.generation();
+  }
+
+  /**
+   * Tag a page once it is in the cache, with the products on it and its
+   * listing or category
+   */
+  @Override
+  public void afterPut(String cacheName, Object key, Object value, long marker) {
+    if (!(value instanceof Page<?> page)) {
+      return;
+    }
+
+    List<String> tags = productTags(page.getContent());
+    tags.add(PRODUCTS_BY_CATEGORY.equals(cacheName)
+        ? CATEGORY_TAG + PageKey.parse(key.toString()).prefix()
+        : LISTING_TAG + cacheName);
+    cacheTagRegistry.tag(cacheName, key.toString(), tags);
+
+    long generation = cacheTagRegistry.generation();
+    if (marker < 0 || generation != marker) {
+      cacheTagRegistry.evict(new CacheEntry(cacheName, key.toString()));
+    }
+  }
+
+  /**
+   * A new product is listed first, so it shifts every page of the active and
+   * admin listings, but only the pages of its own category
+   *
+   * @param categoryId the id of the category of the product
+   */
+  public void onProductCreated(Long categoryId) {
+    afterCommit(() -> {
+      cacheTagRegistry.invalidate(LISTING_TAG + ACTIVE_PRODUCTS);
+      cacheTagRegistry.invalidate(LISTING_TAG + PRODUCTS);
+      cacheTagRegistry.invalidate(CATEGORY_TAG + categoryId);
+    });
+  }
+
+  /**
+   * An update that keeps the product in the same listings only touches the
+   * pages that contain it. Moving it between categories shifts the pages of
+   * both categories.
+   *
+   * @param productId     the id of the product
+   * @param oldCategoryId the id of the category before the update
+   * @param newCategoryId the id of the category after the update
+   */
+  public void onProductUpdated(Long productId, Long oldCategoryId, Long newCategoryId) {
+    afterCommit(() -> {
+      if (!oldCategoryId.equals(newCategoryId)) {
+        cacheTagRegistry.invalidate(CATEGORY_TAG + oldCategoryId);
+        cacheTagRegistry.invalidate(CATEGORY_TAG + newCategoryId);
+      }
+      cacheTagRegistry.invalidate(PRODUCT_TAG + productId);
+    });
+  }
+
+  /**
+   * A deleted product leaves the active listings, so the pages containing it
+   * and every later page of the same size shift by one. The admin listing
+   * keeps deleted products and only needs the containing pages evicted.
+   *
+   * @param productId  the id of the product
+   * @param slug       the slug of the product
+   * @param categoryId the id of the category of the product
+   */
+  public void onProductDeleted(Long productId, String slug, Long categoryId) {
+    afterCommit(() -> {
+      cacheTagRegistry.evict(new CacheEntry(PRODUCT_DETAILS, slug));
+
+      // Invalidated before the following pages are read, so a page tagged too
+      // late to be read here sees the generation move
+      Set<CacheEntry> containing = cacheTagRegistry.entries(PRODUCT_TAG + productId);
+      cacheTagRegistry.invalidate(PRODUCT_TAG + productId);
+
+      evictFollowingPages(containing, ACTIVE_PRODUCTS, LISTING_TAG + ACTIVE_PRODUCTS);
+      evictFollowingPages(containing, PRODUCTS_BY_CATEGORY, CATEGORY_TAG + categoryId);
+    });
+  }
+
+  /**
+   * Run once the current transaction commits, or now outside of one
+   */
+  private void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  /**
+   * Evict, in one listing, every page at or after the first page that
+   * contained the product, for each page size seen
+   */
+  private void evictFollowingPages(Set<CacheEntry> containing, String cacheName, String listingTag) {
+    Map<String, Integer> firstPageBySize = new HashMap<>();
+    for (CacheEntry entry : containing) {
+      if (entry.cacheName().equals(cacheName)) {
+        PageKey pageKey = PageKey.parse(entry.key());
+        firstPageBySize.merge(pageKey.prefixAndSize(), pageKey.page(), Math::min);
+      }
+    }
+    if (firstPageBySize.isEmpty()) {
+      return;
+    }
+
+    for (CacheEntry entry : cacheTagRegistry.entries(listingTag)) {
+      PageKey pageKey = PageKey.parse(entry.key());
+      Integer firstPage = firstPageBySize.get(pageKey.prefixAndSize());
+      if (firstPage != null && pageKey.page() >= firstPage) {
+        cacheTagRegistry.evict(entry);
+        cacheTagRegistry.untag(listingTag, entry);
+      }
+    }
+  }
+
+  private List<String> productTags(Collection<?> products) {
+    List<String> tags = new ArrayList<>(products.size() + 1);
+    for (Object product : products) {
+      if (product instanceof ProductResponse response) {
+        tags.add(PRODUCT_TAG + response.getId());
+      }
+    }
+    return tags;
+  }
+
+  /**
+   * A parsed page key, {@code prefix} is the category id for category pages
+   */
+  private record PageKey(String prefix, int page, int size) {
+
+    static PageKey parse(String key) {
+      int sizeSeparator = key.lastIndexOf('_');
+      int pageSeparator = key.lastIndexOf('_', sizeSeparator - 1);
+      return new PageKey(
+          pageSeparator < 0 ? "" : key.substring(0, pageSeparator),
+          Integer.parseInt(key.substring(pageSeparator + 1, sizeSeparator)),
+          Integer.parseInt(key.substring(sizeSeparator + 1)));
+    }
+
+    String prefixAndSize() {
+      return prefix + "_" + size;
+    }
+  }
+}
@@ -0,0 +1,505 @@
+package com.shintadev.shop_dev_be.cache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache with a per-node Caffeine L1 in front of a shared Redis L2.
+ * <p>
+ * Reads are served from L1 when possible and fall back to L2, populating L1 on
+ * the way back. Writes go to L2 first, then L1, and every write or eviction is
+ * broadcast so that other nodes drop their now stale L1 entry.
+ * <p>
+ * Loads through {@link #get(Object, Callable)} (i.e. {@code @Cacheable(sync =
+ * true)}) are protected against stampedes: concurrent misses for a key are
+ * coalesced into one load per node, and nodes take a Redisson lock so only one
+ * of them runs the loader. Fresh entries may be refreshed early in the
+ * background, and stale entries may be served while they are reloaded.
+ * <p>
+ * L2 entries carry their expiry and how long the loader took to compute them,
+ * so that one node recomputes an entry ahead of its expiry (XFetch) instead
+ * of every node missing it at once when the Redis key expires.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+  private static final String LOCK_PREFIX = "cache:lock:";
+
+  private final String name;
+  private final com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> l1;
+  private final Cache l2;
+  private final RedisCacheWriter.TtlFunction l2Ttl;
+  private final CacheInvalidationPublisher publisher;
+  private final RedissonClient redissonClient;
+  private final Executor refreshExecutor;
+  private final TwoLevelCacheSettings settings;
+
+  private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+  @Nullable
+  private volatile CacheLoadListener loadListener;
+
+  private final Counter l2Hits;
+  private final Counter l2Misses;
+  private final Counter staleHits;
+  private final Counter refreshes;
+
+  public TwoLevelCache(
+      String name,
+      com.github.benmanes.caffeine.cache.Cache<String, LocalEntry> l1,
+      Cache l2,
+      RedisCacheWriter.TtlFunction l2Ttl,
+      CacheInvalidationPublisher publisher,
+      RedissonClient redissonClient,
+      Executor refreshExecutor,
+      TwoLevelCacheSettings settings,
+      MeterRegistry meterRegistry) {
+    this.name = name;
+    this.l1 = l1;
+    this.l2 = l2;
+    this.l2Ttl = l2Ttl;
+    this.publisher = publisher;
+    this.redissonClient = redissonClient;
+    this.refreshExecutor = refreshExecutor;
+    this.settings = settings;
+
+    // L1 exposes cache.gets/puts/evictions with tier=l1, L2 only has what we count
+    CaffeineCacheMetrics.monitor(meterRegistry, l1, name, Tags.of("tier", "l1"));
+    this.l2Hits = Counter.builder("cache.gets")
+        .tags("cache", name, "tier", "l2", "result", "hit")
+        .register(meterRegistry);
+    this.l2Misses = Counter.builder("cache.gets")
+        .tags("cache", name, "tier", "l2", "result", "miss")
+        .register(meterRegistry);
+    this.staleHits = Counter.builder("cache.gets")
+        .tags("cache", name, "tier", "l1", "result", "stale")
+        .register(meterRegistry);
+    this.refreshes = Counter.builder("cache.refreshes")
+        .tags("cache", name)
+        .register(meterRegistry);
+  }
+
+  @Override
+  @NonNull
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  @NonNull
+  public Object getNativeCache() {
+    return l2.getNativeCache();
+  }
+
+  @Override
+  @Nullable
+  public ValueWrapper get(@NonNull Object key) {
+    String localKey = toLocalKey(key);
+    LocalEntry entry = l1.getIfPresent(localKey);
+    if (entry != null && !entry.isStale(System.currentTimeMillis(), settings)) {
+      return new SimpleValueWrapper(entry.value());
+    }
+
+    SharedEntry shared = getShared(key);
+    if (shared == null) {
+      l2Misses.increment();
+      return null;
+    }
+    l2Hits.increment();
+    l1.put(localKey, LocalEntry.of(shared));
+    return new SimpleValueWrapper(shared.value());
+  }
+
+  @Override
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public <T> T get(@NonNull Object key, @Nullable Class<T> type) {
+    ValueWrapper wrapper = get(key);
+    Object value = wrapper != null ? wrapper.get() : null;
+    if (value != null && type != null && !type.isInstance(value)) {
+      throw new IllegalStateException(
+          "Cached value is not of required type [" + type.getName() + "]: " + value);
+    }
+    return (T) value;
+  }
+
+  @Override
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+    String localKey = toLocalKey(key);
+    LocalEntry entry = l1.getIfPresent(localKey);
+    if (entry != null) {
+      long now = System.currentTimeMillis();
+      if (!entry.isStale(now, settings)) {
+        if (entry.shouldRefreshEarly(now, settings)) {
+          refreshInBackground(key, localKey, valueLoader, false);
+        }
+        return (T) entry.value();
+      }
+      if (settings.staleWhileRevalidate()) {
+        staleHits.increment();
+        refreshInBackground(key, localKey, valueLoader, false);
+        return (T) entry.value();
+      }
+    }
+
+    return (T) loadSingleFlight(key, localKey, valueLoader);
+  }
+
+  @Override
+  public void put(@NonNull Object key, @Nullable Object value) {
+    String localKey = toLocalKey(key);
+    if (value != null) {
+      SharedEntry shared = share(key, value, 0);
+      l2.put(key, shared);
+      l1.put(localKey, LocalEntry.of(shared));
+    } else {
+      l2.put(key, null);
+      l1.invalidate(localKey);
+    }
+    publisher.publishEvict(name, localKey);
+  }
+
+  @Override
+  @Nullable
+  public ValueWrapper putIfAbsent(@NonNull Object key, @Nullable Object value) {
+    ValueWrapper existing = l2.putIfAbsent(key, value != null ? share(key, value, 0) : null);
+    String localKey = toLocalKey(key);
+    l1.invalidate(localKey);
+    publisher.publishEvict(name, localKey);
+    SharedEntry shared = unwrap(existing);
+    return shared != null ? new SimpleValueWrapper(shared.value()) : existing;
+  }
+
+  @Override
+  public void evict(@NonNull Object key) {
+    String localKey = toLocalKey(key);
+    l2.evict(key);
+    l1.invalidate(localKey);
+    publisher.publishEvict(name, localKey);
+  }
+
+  @Override
+  public boolean evictIfPresent(@NonNull Object key) {
+    String localKey = toLocalKey(key);
+    boolean evicted = l2.evictIfPresent(key);
+    l1.invalidate(localKey);
+    publisher.publishEvict(name, localKey);
+    return evicted;
+  }
+
+  @Override
+  public void clear() {
+    l2.clear();
+    l1.invalidateAll();
+    publisher.publishClear(name);
+  }
+
+  @Override
+  public boolean invalidate() {
+    boolean invalidated = l2.invalidate();
+    l1.invalidateAll();
+    publisher.publishClear(name);
+    return invalidated;
+  }
+
+  /**
+   * Set the listener notified around the loads of this cache
+   *
+   * @param loadListener the listener, or null for none
+   */
+  public void setLoadListener(@Nullable CacheLoadListener loadListener) {
+    this.loadListener = loadListener;
+  }
+
+  /**
+   * Drop an entry from this node's L1 only, used when another node changed it
+   *
+   * @param key the cache key, or null to drop every entry
+   */
+  public void evictLocal(@Nullable String key) {
+    if (key == null) {
+      l1.invalidateAll();
+    } else {
+      l1.invalidate(key);
+    }
+  }
+
+  /**
+   * Refresh an entry on the refresh executor, unless a refresh of it is
+   * already running on this node
+   *
+   * @param recompute whether to run the loader even if L2 is not due
+   */
+  private void refreshInBackground(Object key, String localKey, Callable<?> valueLoader, boolean recompute) {
+    if (!refreshing.add(localKey)) {
+      return;
+    }
+    try {
+      refreshExecutor.execute(() -> {
+        try {
+          refreshes.increment();
+          refresh(key, localKey, valueLoader, recompute);
+        } catch (Exception e) {
+          log.warn("Failed to refresh cache entry {}::{}: {}", name, localKey, e.getMessage());
+        } finally {
+          refreshing.remove(localKey);
+        }
+      });
+    } catch (TaskRejectedException e) {
+      // The current value is still served, the next read will try again
+      refreshing.remove(localKey);
+      log.debug("Refresh of cache entry {}::{} rejected: {}", name, localKey, e.getMessage());
+    }
+  }
+
+  /**
+   * Refresh L1 from L2, recomputing the entry first if L2 is missing it or
+   * about to expire it. A node that finds another one recomputing leaves it
+   * to that node and keeps serving the current value.
+   */
+  private void refresh(Object key, String localKey, Callable<?> valueLoader, boolean recompute) {
+    SharedEntry seen = getShared(key);
+    if (seen != null && !recompute && !seen.shouldRecomputeEarly(System.currentTimeMillis(), settings)) {
+      l1.put(localKey, LocalEntry.of(seen));
+      return;
+    }
+
+    RLock lock = redissonClient.getLock(LOCK_PREFIX + name + ":" + localKey);
+    boolean locked = false;
+    try {
+      locked = lock.tryLock(0, settings.lockLeaseTime().toMillis(), TimeUnit.MILLISECONDS);
+      if (!locked) {
+        return;
+      }
+
+      // Another node may have recomputed the entry since it was read
+      SharedEntry current = getShared(key);
+      if (current != null && (seen == null || current.expiresAt() != seen.expiresAt())) {
+        l1.put(localKey, LocalEntry.of(current));
+        return;
+      }
+      compute(key, localKey, valueLoader);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (locked && lock.isHeldByCurrentThread()) {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Load an entry from L2, or from the loader on an L2 miss. Concurrent calls
+   * for the same key on this node share a single load.
+   */
+  private Object loadSingleFlight(Object key, String localKey, Callable<?> valueLoader) {
+    CompletableFuture<Object> load = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(localKey, load);
+    if (existing != null) {
+      try {
+        return existing.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw e;
+      }
+    }
+
+    try {
+      Object value = load(key, localKey, valueLoader);
+      load.complete(value);
+      return value;
+    } catch (RuntimeException e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(localKey, load);
+    }
+  }
+
+  /**
+   * Load an entry, taking the distributed lock before running the loader so
+   * that only one node hits the database for a key. An L2 entry about to
+   * expire is served and recomputed in the background.
+   */
+  private Object load(Object key, String localKey, Callable<?> valueLoader) {
+    SharedEntry shared = getShared(key);
+    if (shared != null) {
+      l2Hits.increment();
+      l1.put(localKey, LocalEntry.of(shared));
+      if (shared.shouldRecomputeEarly(System.currentTimeMillis(), settings)) {
+        refreshInBackground(key, localKey, valueLoader, true);
+      }
+      return shared.value();
+    }
+    l2Misses.increment();
+
+    RLock lock = redissonClient.getLock(LOCK_PREFIX + name + ":" + localKey);
+    boolean locked = false;
+    try {
+      locked = lock.tryLock(
+          settings.lockWaitTime().toMillis(), settings.lockLeaseTime().toMillis(), TimeUnit.MILLISECONDS);
+
+      // Another node may have loaded the entry while we were waiting
+      if (locked) {
+        shared = getShared(key);
+        if (shared != null) {
+          l1.put(localKey, LocalEntry.of(shared));
+          return shared.value();
+        }
+      } else {
+        log.debug("Timed out waiting for load lock of {}::{}, loading without it", name, localKey);
+      }
+
+      return compute(key, localKey, valueLoader);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return callLoader(key, valueLoader);
+    } finally {
+      if (locked && lock.isHeldByCurrentThread()) {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Run the loader and write its value to both levels, with how long it took.
+   * The load listener hears of the value only once it is in the cache.
+   */
+  private Object compute(Object key, String localKey, Callable<?> valueLoader) {
+    CacheLoadListener listener = loadListener;
+    long marker = listener != null ? listener.beforeLoad(name, key) : 0;
+    long start = System.currentTimeMillis();
+    Object value = callLoader(key, valueLoader);
+    if (value != null) {
+      SharedEntry shared = share(key, value, System.currentTimeMillis() - start);
+      l2.put(key, shared);
+      l1.put(localKey, LocalEntry.of(shared));
+      publisher.publishEvict(name, localKey);
+      if (listener != null) {
+        listener.afterPut(name, key, value, marker);
+      }
+    }
+    return value;
+  }
+
+  private Object callLoader(Object key, Callable<?> valueLoader) {
+    try {
+      return valueLoader.call();
+    } catch (Exception e) {
+      throw new ValueRetrievalException(key, valueLoader, e);
+    }
+  }
+
+  /**
+   * Wrap a value for L2, expiring when the Redis key does
+   */
+  private SharedEntry share(Object key, Object value, long recomputeMillis) {
+    Duration ttl = l2Ttl.getTimeToLive(key, value);
+    long expiresAt = ttl.isZero() || ttl.isNegative()
+        ? Long.MAX_VALUE
+        : System.currentTimeMillis() + ttl.toMillis();
+    return new SharedEntry(value, expiresAt, recomputeMillis);
+  }
+
+  @Nullable
+  private SharedEntry getShared(Object key) {
+    return unwrap(l2.get(key));
+  }
+
+  @Nullable
+  private static SharedEntry unwrap(@Nullable ValueWrapper wrapper) {
+    Object stored = wrapper != null ? wrapper.get() : null;
+    if (stored == null) {
+      return null;
+    }
+    // Values written before L2 entries were wrapped are never recomputed early
+    return stored instanceof SharedEntry shared ? shared : new SharedEntry(stored, Long.MAX_VALUE, 0);
+  }
+
+  /**
+   * Probabilistic early expiration (XFetch): the closer the entry is to
+   * expiring and the longer it took to compute, the likelier a refresh
+   */
+  private static boolean expiresEarly(long now, long expiresAt, long computeMillis, double beta) {
+    if (beta <= 0 || computeMillis <= 0 || expiresAt == Long.MAX_VALUE) {
+      return false;
+    }
+    double gap = computeMillis * beta * -Math.log(ThreadLocalRandom.current().nextDouble());
+    return now + gap >= expiresAt;
+  }
+
+  /**
+   * Redis keys are strings, so L1 uses the same string form to make keys
+   * received over pub/sub match the ones stored locally
+   */
+  private String toLocalKey(Object key) {
+    return String.valueOf(key);
+  }
+
+  /**
+   * An L2 entry with what is needed to recompute it before it expires
+   *
+   * @param value           the cached value
+   * @param expiresAt       when the Redis key expires, in epoch millis
+   * @param recomputeMillis how long the loader took to compute the value, zero
+   *                        if unknown
+   */
+  public record SharedEntry(Object value, long expiresAt, long recomputeMillis) {
+
+    boolean shouldRecomputeEarly(long now, TwoLevelCacheSettings settings) {
+      return expiresEarly(now, expiresAt, recomputeMillis, settings.earlyRefreshBeta());
+    }
+  }
+
+  /**
+   * An L1 entry with what is needed to decide when to refresh it
+   *
+   * @param value           the cached value
+   * @param loadedAt        when the value was loaded, in epoch millis
+   * @param recomputeMillis how long the loader took to compute the value, zero
+   *                        if unknown
+   */
+  public record LocalEntry(Object value, long loadedAt, long recomputeMillis) {
+
+    static LocalEntry of(SharedEntry shared) {
+      return new LocalEntry(shared.value(), System.currentTimeMillis(), shared.recomputeMillis());
+    }
+
+    boolean isStale(long now, TwoLevelCacheSettings settings) {
+      return now >= loadedAt + settings.localTtl().toMillis();
+    }
+
+    boolean shouldRefreshEarly(long now, TwoLevelCacheSettings settings) {
+      return expiresEarly(now, loadedAt + settings.localTtl().toMillis(), recomputeMillis,
+          settings.earlyRefreshBeta());
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.shintadev.shop_dev_be.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.redisson.api.RedissonClient;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache manager combining a per-node Caffeine L1 with the Redis L2 cache
+ * manager, and listening for invalidations published by the other nodes
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+  private final CacheManager redisCacheManager;
+  private final CacheInvalidationPublisher publisher;
+  private final RedissonClient redissonClient;
+  private final Executor refreshExecutor;
+  private final MeterRegistry meterRegistry;
+  private final TwoLevelCacheSettings settings;
+  private final boolean transactionAware;
+
+  private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, CacheLoadListener> loadListeners = new ConcurrentHashMap<>();
+
+  public TwoLevelCacheManager(
+      CacheManager redisCacheManager,
+      CacheInvalidationPublisher publisher,
+      RedissonClient redissonClient,
+      Executor refreshExecutor,
+      MeterRegistry meterRegistry,
+      TwoLevelCacheSettings settings,
+      boolean transactionAware) {
+    this.redisCacheManager = redisCacheManager;
+    this.publisher = publisher;
+    this.redissonClient = redissonClient;
+    this.refreshExecutor = refreshExecutor;
+    this.meterRegistry = meterRegistry;
+    this.settings = settings;
+    this.transactionAware = transactionAware;
+  }
+
+  @Override
+  @Nullable
+  public Cache getCache(@NonNull String name) {
+    TwoLevelCache cache = caches.computeIfAbsent(name, this::createCache);
+    if (cache == null) {
+      return null;
+    }
+    return transactionAware ? new TransactionAwareCacheDecorator(cache) : cache;
+  }
+
+  @Override
+  @NonNull
+  public Collection<String> getCacheNames() {
+    return Collections.unmodifiableSet(caches.keySet());
+  }
+
+  /**
+   * Notify a listener around the loads of a cache
+   *
+   * @param cacheName the name of the cache
+   * @param listener  the listener
+   */
+  public void registerLoadListener(String cacheName, CacheLoadListener listener) {
+    loadListeners.put(cacheName, listener);
+    TwoLevelCache cache = caches.get(cacheName);
+    if (cache != null) {
+      cache.setLoadListener(listener);
+    }
+  }
+
+  /**
+   * Handle an invalidation published by another node
+   *
+   * @param message the pub/sub message
+   * @param pattern the channel pattern
+   */
+  @Override
+  public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+    try {
+      CacheInvalidationMessage invalidation = CacheInvalidationMessage.decode(new String(message.getBody()));
+      if (publisher.getNodeId().equals(invalidation.origin())) {
+        return;
+      }
+
+      TwoLevelCache cache = caches.get(invalidation.cacheName());
+      if (cache != null) {
+        cache.evictLocal(invalidation.key());
+      }
+    } catch (Exception e) {
+      log.warn("Failed to handle cache invalidation message: {}", e.getMessage());
+    }
+  }
+
+  private TwoLevelCache createCache(String name) {
+    Cache l2 = redisCacheManager.getCache(name);
+    if (l2 == null) {
+      return null;
+    }
+
+    // Entries are kept past their TTL for as long as they may be served stale
+    com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.LocalEntry> l1 = Caffeine.newBuilder()
+        .maximumSize(settings.localMaxSize())
+        .expireAfterWrite(settings.localTtl().plus(settings.staleTtl()))
+        .recordStats()
+        .build();
+
+    // Entries of other caches never expire from L2
+    RedisCacheWriter.TtlFunction l2Ttl = l2 instanceof RedisCache redisCache
+        ? redisCache.getCacheConfiguration().getTtlFunction()
+        : RedisCacheWriter.TtlFunction.persistent();
+
+    TwoLevelCache cache = new TwoLevelCache(name, l1, l2, l2Ttl, publisher, redissonClient, refreshExecutor,
+        settings, meterRegistry);
+    cache.setLoadListener(loadListeners.get(name));
+    return cache;
+  }
+}
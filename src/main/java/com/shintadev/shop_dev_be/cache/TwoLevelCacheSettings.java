@@ -0,0 +1,35 @@
+package com.shintadev.shop_dev_be.cache;
+
+import java.time.Duration;
+
+/**
+ * Settings shared by every {@link TwoLevelCache}
+ *
+ * @param localMaxSize     the maximum number of L1 entries per cache
+ * @param localTtl         how long an L1 entry is fresh
+ * @param staleTtl         how long an L1 entry may still be served while it is
+ *                         reloaded in the background, zero disables
+ *                         stale-while-revalidate
+ * @param earlyRefreshBeta the weight of probabilistic early refresh, zero
+ *                         disables it, higher values refresh earlier
+ * @param lockWaitTime     how long a node waits for the distributed load lock
+ *                         before loading on its own
+ * @param lockLeaseTime    how long the distributed load lock is held at most
+ */
+public record TwoLevelCacheSettings(
+    long localMaxSize,
+    Duration localTtl,
+    Duration staleTtl,
+    double earlyRefreshBeta,
+    Duration lockWaitTime,
+    Duration lockLeaseTime) {
+
+  /**
+   * Check if stale-while-revalidate is enabled
+   *
+   * @return true if stale entries may be served
+   */
+  public boolean staleWhileRevalidate() {
+    return !staleTtl.isZero() && !staleTtl.isNegative();
+  }
+}
@@ -1,17 +1,27 @@
 package com.shintadev.shop_dev_be.config;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.github.slugify.Slugify;
+import com.shintadev.shop_dev_be.security.BoundedPasswordEncoder;
 
 import lombok.RequiredArgsConstructor;
 
@@ -22,40 +32,62 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class AppConfig {
 
+  private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}");
+
   private final UserDetailsService userDetailsService;
+  private final UserDetailsPasswordService userDetailsPasswordService;
 
   /**
-   * Creates a new BCryptPasswordEncoder bean
+   * Creates a new PasswordEncoder bean hashing with BCrypt on the password
+   * hashing executor. Passwords still stored in plain text are accepted and
+   * hashed on the next login of their user.
    * 
-   * @return the BCryptPasswordEncoder bean
+   * @param passwordHashingExecutor the executor to hash on
+   * @param strength                the BCrypt strength
+   * @param timeout                 how long a request waits for a hash, in
+   *                                milliseconds
+   * @return the PasswordEncoder bean
    */
   @Bean
-  public BCryptPasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder() {
+  public PasswordEncoder passwordEncoder(
+      @Qualifier("passwordHashingExecutor") Executor passwordHashingExecutor,
+      @Value("${app.security.password.bcrypt-strength:10}") int strength,
+      @Value("${app.security.password.hash-timeout:5000}") long timeout) {
+    BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength) {
 
-    // Uncomment this block to use plain text password
       @Override
-      public String encode(CharSequence rawPassword) {
-        return rawPassword.toString();
+      public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (encodedPassword == null || BCRYPT_PATTERN.matcher(encodedPassword).matches()) {
+          return super.matches(rawPassword, encodedPassword);
+        }
+        return MessageDigest.isEqual(
+            rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+            encodedPassword.getBytes(StandardCharsets.UTF_8));
       }
 
       @Override
-      public boolean matches(CharSequence rawPassword, String encodedPassword) {
-        return rawPassword.toString().equals(encodedPassword);
+      public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+          return false;
+        }
+        return !BCRYPT_PATTERN.matcher(encodedPassword).matches() || super.upgradeEncoding(encodedPassword);
       }
     };
+    return new BoundedPasswordEncoder(bcrypt, passwordHashingExecutor, Duration.ofMillis(timeout));
   }
 
   /**
    * Creates a new AuthenticationProvider bean
    * 
+   * @param passwordEncoder the password encoder
    * @return the AuthenticationProvider bean
    */
   @Bean
-  public AuthenticationProvider authenticationProvider() {
+  public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
     DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
     authProvider.setUserDetailsService(userDetailsService);
-    authProvider.setPasswordEncoder(passwordEncoder());
+    authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
+    authProvider.setPasswordEncoder(passwordEncoder);
     return authProvider;
   }
 
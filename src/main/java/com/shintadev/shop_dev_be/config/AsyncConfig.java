@@ -1,48 +1,150 @@
 package com.shintadev.shop_dev_be.config;
 
+import java.time.Duration;
 import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.shintadev.shop_dev_be.executor.MonitoredTaskExecutor;
+import com.shintadev.shop_dev_be.executor.RejectionPolicy;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
- * Configuration for asynchronous tasks
+ * Configuration for asynchronous tasks.
+ * <p>
+ * Tasks run on bounded pools exporting their metrics and resized from their
+ * queue wait, see {@link MonitoredTaskExecutor}. With
+ * {@code spring.threads.virtual.enabled} on a Java 21 runtime, tasks run on
+ * virtual threads instead, like the Tomcat requests and the Kafka listeners.
+ * Virtual threads need a driver that does not pin its carrier thread while
+ * waiting on the database: Connector/J 8.x holds the connection monitor
+ * across every statement, 9.x uses locks instead, hence the pinned version
+ * in the build.
  */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
   /**
-   * Creates a new task executor bean
+   * Creates a new task executor bean. Tasks the pool cannot take are rejected
+   * by default: its callers, such as the cache refreshes, fall back on the
+   * rejection rather than running the task on their own thread.
    * 
+   * @param environment     the environment
+   * @param meterRegistry   the meter registry
+   * @param coreSize        the initial core pool size
+   * @param maxSize         the maximum pool size
+   * @param queueCapacity   the capacity of the queue
+   * @param rejectionPolicy what to do with a task once the pool and queue are
+   *                        full
+   * @param targetQueueWait the mean queue wait above which the pool grows, in
+   *                        milliseconds
+   * @param virtualLimit    the maximum number of tasks running at once on
+   *                        virtual threads
    * @return the task executor bean
    */
   @Bean(name = "taskExecutor")
-  public Executor taskExecutor() {
-    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-    executor.setCorePoolSize(5);
-    executor.setMaxPoolSize(10);
-    executor.setQueueCapacity(25);
+  public Executor taskExecutor(
+      Environment environment,
+      MeterRegistry meterRegistry,
+      @Value("${app.async.task.core-size:5}") int coreSize,
+      @Value("${app.async.task.max-size:10}") int maxSize,
+      @Value("${app.async.task.queue-capacity:25}") int queueCapacity,
+      @Value("${app.async.task.rejection-policy:abort}") RejectionPolicy rejectionPolicy,
+      @Value("${app.async.task.target-queue-wait:100}") long targetQueueWait,
+      @Value("${app.async.task.virtual-concurrency-limit:10}") int virtualLimit) {
+    if (Threading.VIRTUAL.isActive(environment)) {
+      // Sized to the connection pool, tasks beyond it would only queue for a
+      // connection while holding their memory
+      return virtualThreadExecutor("ShopDev-AsyncTask-", virtualLimit);
+    }
+
+    MonitoredTaskExecutor executor = new MonitoredTaskExecutor("task", coreSize, maxSize, queueCapacity,
+        rejectionPolicy, Duration.ofMillis(targetQueueWait), meterRegistry);
     executor.setThreadNamePrefix("ShopDev-AsyncTask-");
     executor.initialize();
     return executor;
   }
 
   /**
-   * Creates a new email executor bean
+   * Creates the executor recalculating carts once their orders are placed. A
+   * recalculation the pool cannot take runs on the caller, after the commit of
+   * the order, so that no cart is left with a stale total.
    * 
-   * @return the email executor bean
+   * @param environment     the environment
+   * @param meterRegistry   the meter registry
+   * @param coreSize        the initial core pool size
+   * @param maxSize         the maximum pool size, and the concurrency limit on
+   *                        virtual threads
+   * @param queueCapacity   the capacity of the queue
+   * @param targetQueueWait the mean queue wait above which the pool grows, in
+   *                        milliseconds
+   * @return the cart executor bean
    */
-  @Bean(name = "emailExecutor")
-  public Executor emailExecutor() {
-    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-    executor.setCorePoolSize(2);
-    executor.setMaxPoolSize(5);
-    executor.setQueueCapacity(100);
-    executor.setThreadNamePrefix("ShopDev-EmailTask-");
+  @Bean(name = "cartExecutor")
+  public Executor cartExecutor(
+      Environment environment,
+      MeterRegistry meterRegistry,
+      @Value("${app.async.cart.core-size:2}") int coreSize,
+      @Value("${app.async.cart.max-size:4}") int maxSize,
+      @Value("${app.async.cart.queue-capacity:100}") int queueCapacity,
+      @Value("${app.async.cart.target-queue-wait:100}") long targetQueueWait) {
+    if (Threading.VIRTUAL.isActive(environment)) {
+      // Submissions past the limit wait for a slot, like callers running them
+      return virtualThreadExecutor("ShopDev-Cart-", maxSize);
+    }
+
+    MonitoredTaskExecutor executor = new MonitoredTaskExecutor("cart", coreSize, maxSize, queueCapacity,
+        RejectionPolicy.CALLER_RUNS, Duration.ofMillis(targetQueueWait), meterRegistry);
+    executor.setThreadNamePrefix("ShopDev-Cart-");
     executor.initialize();
     return executor;
   }
-}
\ No newline at end of file
+
+  /**
+   * Creates the executor hashing passwords. Hashing is CPU bound, so it runs
+   * on a fixed pool of platform threads, one per core by default, even with
+   * virtual threads enabled. A hash the pool cannot queue is rejected rather
+   * than run by the caller.
+   * 
+   * @param meterRegistry the meter registry
+   * @param threads       the number of threads, 0 for one per core
+   * @param queueCapacity the capacity of the queue
+   * @return the password hashing executor bean
+   */
+  @Bean(name = "passwordHashingExecutor")
+  public Executor passwordHashingExecutor(
+      MeterRegistry meterRegistry,
+      @Value("${app.async.password-hashing.threads:0}") int threads,
+      @Value("${app.async.password-hashing.queue-capacity:100}") int queueCapacity) {
+    // Never resized, the core and maximum sizes are the same
+    int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    MonitoredTaskExecutor executor = new MonitoredTaskExecutor("password-hashing", size, size, queueCapacity,
+        RejectionPolicy.ABORT, Duration.ZERO, meterRegistry);
+    executor.setThreadNamePrefix("ShopDev-PasswordHashing-");
+    executor.initialize();
+    return executor;
+  }
+
+  /**
+   * Create an executor starting a virtual thread per task
+   * 
+   * @param threadNamePrefix the prefix of the thread names
+   * @param concurrencyLimit the maximum number of tasks running at once,
+   *                         further submissions wait for a slot
+   * @return the executor
+   */
+  static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, int concurrencyLimit) {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+    executor.setVirtualThreads(true);
+    executor.setConcurrencyLimit(concurrencyLimit);
+    return executor;
+  }
+}
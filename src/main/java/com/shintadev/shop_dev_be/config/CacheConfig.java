@@ -3,23 +3,34 @@ package com.shintadev.shop_dev_be.config;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import com.shintadev.shop_dev_be.cache.CacheInvalidationPublisher;
+import com.shintadev.shop_dev_be.cache.TwoLevelCacheManager;
+import com.shintadev.shop_dev_be.cache.TwoLevelCacheSettings;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 /**
- * Configuration for Redis caching
+ * Configuration for two-level caching: a per-node Caffeine L1 in front of the
+ * shared Redis L2
  */
 @Configuration
 @RequiredArgsConstructor
@@ -28,6 +39,27 @@ public class CacheConfig {
   @Value("${app.cache.product.ttl}")
   private long timeToLive;
 
+  @Value("${app.cache.local.max-size:10000}")
+  private long localMaxSize;
+
+  @Value("${app.cache.local.ttl:60000}")
+  private long localTimeToLive;
+
+  @Value("${app.cache.local.stale-ttl:0}")
+  private long localStaleTimeToLive;
+
+  @Value("${app.cache.early-refresh-beta:1.0}")
+  private double earlyRefreshBeta;
+
+  @Value("${app.cache.lock.wait-time:3000}")
+  private long lockWaitTime;
+
+  @Value("${app.cache.lock.lease-time:10000}")
+  private long lockLeaseTime;
+
+  @Value("${app.cache.invalidation-channel:cache:invalidation}")
+  private String invalidationChannel;
+
   /**
    * Creates a new RedisTemplate bean
    * 
@@ -49,13 +81,33 @@ public class CacheConfig {
   }
 
   /**
-   * Creates a new CacheManager bean
+   * Creates a new CacheInvalidationPublisher bean
    * 
    * @param redisConnectionFactory the RedisConnectionFactory
+   * @return the CacheInvalidationPublisher bean
+   */
+  @Bean
+  public CacheInvalidationPublisher cacheInvalidationPublisher(RedisConnectionFactory redisConnectionFactory) {
+    return new CacheInvalidationPublisher(new StringRedisTemplate(redisConnectionFactory), invalidationChannel);
+  }
+
+  /**
+   * Creates a new CacheManager bean
+   * 
+   * @param redisConnectionFactory     the RedisConnectionFactory
+   * @param cacheInvalidationPublisher the CacheInvalidationPublisher
+   * @param redissonClient             the RedissonClient used for load locks
+   * @param taskExecutor               the executor running background refreshes
+   * @param meterRegistry              the MeterRegistry
    * @return the CacheManager bean
    */
   @Bean
-  public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+  public TwoLevelCacheManager cacheManager(
+      RedisConnectionFactory redisConnectionFactory,
+      CacheInvalidationPublisher cacheInvalidationPublisher,
+      RedissonClient redissonClient,
+      @Qualifier("taskExecutor") Executor taskExecutor,
+      MeterRegistry meterRegistry) {
     // Default cache configuration
     RedisCacheConfiguration defaultCacheConfig = RedisCacheConfiguration.defaultCacheConfig()
         .entryTtl(Duration.ofMillis(timeToLive))
@@ -77,10 +129,49 @@ public class CacheConfig {
     // Product by category: frequently updated cache
     cacheConfigs.put("product-by-category", defaultCacheConfig.entryTtl(Duration.ofHours(1)));
 
-    return RedisCacheManager.builder(redisConnectionFactory)
+    // L2: transaction awareness is applied on top of both levels instead
+    RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
         .cacheDefaults(defaultCacheConfig)
         .withInitialCacheConfigurations(cacheConfigs)
-        .transactionAware()
         .build();
+    redisCacheManager.afterPropertiesSet();
+
+    TwoLevelCacheSettings settings = new TwoLevelCacheSettings(
+        localMaxSize,
+        Duration.ofMillis(localTimeToLive),
+        Duration.ofMillis(localStaleTimeToLive),
+        earlyRefreshBeta,
+        Duration.ofMillis(lockWaitTime),
+        Duration.ofMillis(lockLeaseTime));
+
+    return new TwoLevelCacheManager(
+        redisCacheManager,
+        cacheInvalidationPublisher,
+        redissonClient,
+        taskExecutor,
+        meterRegistry,
+        settings,
+        true);
+  }
+
+  /**
+   * Creates a new RedisMessageListenerContainer bean listening for L1
+   * invalidations published by the other nodes, other components add their own
+   * listeners to it
+   * 
+   * @param redisConnectionFactory     the RedisConnectionFactory
+   * @param cacheManager               the TwoLevelCacheManager
+   * @param cacheInvalidationPublisher the CacheInvalidationPublisher
+   * @return the RedisMessageListenerContainer bean
+   */
+  @Bean
+  public RedisMessageListenerContainer redisMessageListenerContainer(
+      RedisConnectionFactory redisConnectionFactory,
+      TwoLevelCacheManager cacheManager,
+      CacheInvalidationPublisher cacheInvalidationPublisher) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(redisConnectionFactory);
+    container.addMessageListener(cacheManager, new ChannelTopic(cacheInvalidationPublisher.getChannel()));
+    return container;
   }
 }
@@ -6,12 +6,16 @@ import java.util.Map;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.KafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
@@ -23,12 +27,15 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.util.backoff.FixedBackOff;
 
 import com.shintadev.shop_dev_be.constant.kafka.KafkaTopic;
+import com.shintadev.shop_dev_be.kafka.event.KafkaEventCodec;
+import com.shintadev.shop_dev_be.kafka.event.KafkaEventDeserializer;
+import com.shintadev.shop_dev_be.kafka.event.KafkaEventSerializer;
 
 /**
  * Configuration for Kafka
@@ -38,6 +45,10 @@ public class KafkaConfig {
   @Value("${spring.kafka.bootstrap-servers}")
   private String bootstrapServers;
 
+  // Must cover the consumers of a factory, its listeners times its concurrency
+  @Value("${app.kafka.listener.virtual-concurrency-limit:16}")
+  private int listenerConcurrencyLimit;
+
   /**
    * Creates a new KafkaAdmin bean
    * 
@@ -50,12 +61,20 @@ public class KafkaConfig {
     return new KafkaAdmin(configs);
   }
 
+  /**
+   * Creates the codec of the Kafka events
+   * 
+   * @return the codec
+   */
+  @Bean
+  public KafkaEventCodec kafkaEventCodec() {
+    return new KafkaEventCodec();
+  }
+
   @Bean
-  public ProducerFactory<String, Map<String, Object>> producerFactory() {
+  public ProducerFactory<String, Object> producerFactory() {
     Map<String, Object> configProps = new HashMap<>();
     configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-    configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-    configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
     // Retry
     configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
     configProps.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 1000);
@@ -67,38 +86,145 @@ public class KafkaConfig {
     configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy"); // snappy is the fastest compression algorithm
     // ACKS
     configProps.put(ProducerConfig.ACKS_CONFIG, "all");
-    return new DefaultKafkaProducerFactory<>(configProps);
+    // Idempotence: a partition never takes a message whose predecessor was not
+    // written, which the outbox relay relies on to keep the order of a key
+    configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+    return new DefaultKafkaProducerFactory<>(configProps,
+        new StringSerializer(), new KafkaEventSerializer(kafkaEventCodec()));
   }
 
   @Bean
-  public ConsumerFactory<String, Map<String, Object>> consumerFactory() {
+  public ConsumerFactory<String, Object> consumerFactory() {
     Map<String, Object> configProps = new HashMap<>();
     configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-    configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-    configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
     configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
     configProps.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 300000);
     configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 60000);
     configProps.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, 20000);
-    return new DefaultKafkaConsumerFactory<>(configProps);
+    // Records that cannot be decoded are handed to the error handler instead
+    // of failing every poll
+    return new DefaultKafkaConsumerFactory<>(configProps,
+        new StringDeserializer(), new ErrorHandlingDeserializer<>(new KafkaEventDeserializer(kafkaEventCodec())));
   }
 
   @Bean
-  public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, Map<String, Object>>> kafkaListenerContainerFactory(
-      ConsumerFactory<String, Map<String, Object>> consumerFactory) {
-    ConcurrentKafkaListenerContainerFactory<String, Map<String, Object>> factory = new ConcurrentKafkaListenerContainerFactory<>();
+  public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, Object>> kafkaListenerContainerFactory(
+      ConsumerFactory<String, Object> consumerFactory, Environment environment) {
+    ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
     factory.setConsumerFactory(consumerFactory);
     factory.setConcurrency(3);
+    configureListenerThreads(factory, environment);
     factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
 
-    // Configure the error handling with retry
-    factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(5000, 3)));
+    // Retry a failed record, then move it to the dead letter topic rather than
+    // losing it: an inventory adjustment dropped would leave the stock wrong
+    factory.setCommonErrorHandler(deadLetterErrorHandler());
+
+    return factory;
+  }
+
+  /**
+   * Creates a container factory for listeners consuming a batch of records at
+   * a time, acknowledged once per batch
+   * 
+   * @param consumerFactory the consumer factory
+   * @param environment     the environment
+   * @return the container factory
+   */
+  @Bean
+  public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, Object>> batchKafkaListenerContainerFactory(
+      ConsumerFactory<String, Object> consumerFactory, Environment environment) {
+    ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory);
+    factory.setConcurrency(3);
+    configureListenerThreads(factory, environment);
+    factory.setBatchListener(true);
+    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+    // Redeliver the whole batch when it fails as a whole, then move its
+    // records to the dead letter topic
+    factory.setCommonErrorHandler(deadLetterErrorHandler());
 
     return factory;
   }
 
+  /**
+   * Creates a container factory for batch listeners that wait between polls,
+   * so that each batch holds the records of a whole window and the records of
+   * a key can be coalesced
+   * 
+   * @param consumerFactory the consumer factory
+   * @param environment     the environment
+   * @param coalesceWindow  the time between two polls, in milliseconds
+   * @return the container factory
+   */
   @Bean
-  public KafkaTemplate<String, Map<String, Object>> kafkaTemplate() {
+  public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, Object>> coalescingKafkaListenerContainerFactory(
+      ConsumerFactory<String, Object> consumerFactory, Environment environment,
+      @Value("${app.notification.order.coalesce-window:10000}") long coalesceWindow) {
+    ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory);
+    factory.setConcurrency(3);
+    configureListenerThreads(factory, environment);
+    factory.setBatchListener(true);
+    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+    // Must stay well below max.poll.interval.ms
+    factory.getContainerProperties().setIdleBetweenPolls(coalesceWindow);
+
+    factory.setCommonErrorHandler(deadLetterErrorHandler());
+
+    return factory;
+  }
+
+  /**
+   * Create an error handler retrying a failed batch, then publishing its
+   * records to the dead letter topic of their topic instead of skipping them
+   * 
+   * @return the error handler
+   */
+  private DefaultErrorHandler deadLetterErrorHandler() {
+    DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate(),
+        KafkaConfig::deadLetterTopicOf);
+    return new DefaultErrorHandler(recoverer, new FixedBackOff(5000, 3));
+  }
+
+  /**
+   * Get the dead letter topic of a record, the notifications share the one of
+   * the emails
+   * 
+   * @param record    the record
+   * @param exception the failure
+   * @return the dead letter topic, on any partition
+   */
+  private static TopicPartition deadLetterTopicOf(ConsumerRecord<?, ?> record, Exception exception) {
+    String topic = switch (record.topic()) {
+      case KafkaTopic.PAYMENT_PROCESSING_TOPIC -> KafkaTopic.PAYMENT_PROCESSING_DLT_TOPIC;
+      case KafkaTopic.INVENTORY_ADJUSTMENTS_TOPIC -> KafkaTopic.INVENTORY_ADJUSTMENTS_DLT_TOPIC;
+      case KafkaTopic.EMAIL_NOTIFICATIONS_TOPIC, KafkaTopic.EMAIL_NOTIFICATIONS_RETRY_TOPIC,
+          KafkaTopic.ORDER_NOTIFICATIONS_TOPIC -> KafkaTopic.EMAIL_NOTIFICATIONS_DLT_TOPIC;
+      default -> record.topic() + "-dlt";
+    };
+    return new TopicPartition(topic, -1);
+  }
+
+  /**
+   * Run the listener containers on virtual threads when enabled, at most
+   * {@code app.kafka.listener.virtual-concurrency-limit} consumers per factory
+   * 
+   * @param factory     the container factory
+   * @param environment the environment
+   */
+  private void configureListenerThreads(ConcurrentKafkaListenerContainerFactory<String, Object> factory,
+      Environment environment) {
+    if (Threading.VIRTUAL.isActive(environment)) {
+      factory.getContainerProperties().setListenerTaskExecutor(
+          AsyncConfig.virtualThreadExecutor("ShopDev-KafkaListener-", listenerConcurrencyLimit));
+    }
+  }
+
+  @Bean
+  public KafkaTemplate<String, Object> kafkaTemplate() {
     return new KafkaTemplate<>(producerFactory());
   }
 
@@ -115,6 +241,32 @@ public class KafkaConfig {
         .build();
   }
 
+  /**
+   * Creates a new NewTopic bean for the email notifications retry topic
+   * 
+   * @return the NewTopic bean
+   */
+  @Bean
+  public NewTopic emailNotificationsRetryTopic() {
+    return TopicBuilder.name(KafkaTopic.EMAIL_NOTIFICATIONS_RETRY_TOPIC)
+        .partitions(3)
+        .replicas(1)
+        .build();
+  }
+
+  /**
+   * Creates a new NewTopic bean for the email notifications dead letter topic
+   * 
+   * @return the NewTopic bean
+   */
+  @Bean
+  public NewTopic emailNotificationsDltTopic() {
+    return TopicBuilder.name(KafkaTopic.EMAIL_NOTIFICATIONS_DLT_TOPIC)
+        .partitions(1)
+        .replicas(1)
+        .build();
+  }
+
   /**
    * Creates a new NewTopic bean for the payment processing topic
    * 
@@ -127,4 +279,58 @@ public class KafkaConfig {
         .replicas(1)
         .build();
   }
+
+  /**
+   * Creates a new NewTopic bean for the payment processing dead letter topic
+   * 
+   * @return the NewTopic bean
+   */
+  @Bean
+  public NewTopic paymentProcessingDltTopic() {
+    return TopicBuilder.name(KafkaTopic.PAYMENT_PROCESSING_DLT_TOPIC)
+        .partitions(1)
+        .replicas(1)
+        .build();
+  }
+
+  /**
+   * Creates a new NewTopic bean for the order notifications topic, keyed by
+   * user
+   * 
+   * @return the NewTopic bean
+   */
+  @Bean
+  public NewTopic orderNotificationsTopic() {
+    return TopicBuilder.name(KafkaTopic.ORDER_NOTIFICATIONS_TOPIC)
+        .partitions(3)
+        .replicas(1)
+        .build();
+  }
+
+  /**
+   * Creates a new NewTopic bean for the inventory adjustments topic
+   * 
+   * @return the NewTopic bean
+   */
+  @Bean
+  public NewTopic inventoryAdjustmentsTopic() {
+    return TopicBuilder.name(KafkaTopic.INVENTORY_ADJUSTMENTS_TOPIC)
+        .partitions(3)
+        .replicas(1)
+        .build();
+  }
+
+  /**
+   * Creates a new NewTopic bean for the inventory adjustments dead letter
+   * topic
+   * 
+   * @return the NewTopic bean
+   */
+  @Bean
+  public NewTopic inventoryAdjustmentsDltTopic() {
+    return TopicBuilder.name(KafkaTopic.INVENTORY_ADJUSTMENTS_DLT_TOPIC)
+        .partitions(1)
+        .replicas(1)
+        .build();
+  }
 }
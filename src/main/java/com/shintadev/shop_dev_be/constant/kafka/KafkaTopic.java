@@ -2,5 +2,11 @@ package com.shintadev.shop_dev_be.constant.kafka;
 
 public record KafkaTopic() {
   public static final String EMAIL_NOTIFICATIONS_TOPIC = "email-notifications";
+  public static final String EMAIL_NOTIFICATIONS_RETRY_TOPIC = "email-notifications-retry";
+  public static final String EMAIL_NOTIFICATIONS_DLT_TOPIC = "email-notifications-dlt";
   public static final String PAYMENT_PROCESSING_TOPIC = "payment-processing";
+  public static final String PAYMENT_PROCESSING_DLT_TOPIC = "payment-processing-dlt";
+  public static final String INVENTORY_ADJUSTMENTS_TOPIC = "inventory-adjustments";
+  public static final String INVENTORY_ADJUSTMENTS_DLT_TOPIC = "inventory-adjustments-dlt";
+  public static final String ORDER_NOTIFICATIONS_TOPIC = "order-notifications";
 }
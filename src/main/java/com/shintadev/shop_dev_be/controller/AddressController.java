@@ -14,7 +14,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.shintadev.shop_dev_be.domain.dto.request.user.AddressRequest;
 import com.shintadev.shop_dev_be.domain.dto.response.ApiResponse;
-import com.shintadev.shop_dev_be.domain.model.entity.user.User;
+import com.shintadev.shop_dev_be.security.AuthenticatedUser;
 import com.shintadev.shop_dev_be.service.user.AddressService;
 
 import jakarta.validation.Valid;
@@ -41,7 +41,7 @@ public class AddressController {
    * @return the list of addresses
    */
   @GetMapping
-  public ResponseEntity<ApiResponse> getAllUserAddresses(@AuthenticationPrincipal User user) {
+  public ResponseEntity<ApiResponse> getAllUserAddresses(@AuthenticationPrincipal AuthenticatedUser user) {
     var addresses = addressService.getAllUserAddresses(user.getId());
     return ResponseEntity.status(HttpStatus.OK)
         .body(ApiResponse.builder()
@@ -75,7 +75,7 @@ public class AddressController {
    * @return the default address
    */
   @GetMapping("/default")
-  public ResponseEntity<ApiResponse> getDefaultAddress(@AuthenticationPrincipal User user) {
+  public ResponseEntity<ApiResponse> getDefaultAddress(@AuthenticationPrincipal AuthenticatedUser user) {
     var address = addressService.getDefaultAddress(user.getId());
     return ResponseEntity.status(HttpStatus.OK)
         .body(ApiResponse.builder()
@@ -94,7 +94,7 @@ public class AddressController {
    */
   @PostMapping
   public ResponseEntity<ApiResponse> createAddress(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @Valid @RequestBody AddressRequest request) {
     var address = addressService.createAddress(user.getId(), request);
     return ResponseEntity.status(HttpStatus.CREATED)
@@ -115,7 +115,7 @@ public class AddressController {
    */
   @PutMapping("/{id}")
   public ResponseEntity<ApiResponse> updateAddress(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @PathVariable Long id,
       @Valid @RequestBody AddressRequest request) {
     var address = addressService.updateAddress(user.getId(), id, request);
@@ -136,7 +136,7 @@ public class AddressController {
    */
   @PutMapping("/{id}/default")
   public ResponseEntity<ApiResponse> setDefaultAddress(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @PathVariable Long id) {
     var address = addressService.setDefaultAddress(user.getId(), id);
     return ResponseEntity.status(HttpStatus.OK)
@@ -156,7 +156,7 @@ public class AddressController {
    */
   @DeleteMapping("/{id}")
   public ResponseEntity<ApiResponse> deleteAddress(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @PathVariable Long id) {
     addressService.deleteAddress(user.getId(), id);
     return ResponseEntity.status(HttpStatus.OK)
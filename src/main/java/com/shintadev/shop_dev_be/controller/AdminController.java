@@ -0,0 +1,69 @@
+package com.shintadev.shop_dev_be.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.shintadev.shop_dev_be.domain.dto.response.ApiResponse;
+import com.shintadev.shop_dev_be.service.product.InventoryService;
+import com.shintadev.shop_dev_be.service.product.ProductService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * AdminController
+ *
+ * @author Shintadev
+ * @version 1.0
+ * @since 2025-03-02
+ */
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+  private final ProductService productService;
+  private final InventoryService inventoryService;
+
+  /**
+   * Rebuild the product search index from the database
+   *
+   * @return the number of products indexed
+   */
+  @PostMapping("/search/rebuild")
+  public ResponseEntity<ApiResponse> rebuildSearchIndex() {
+    var indexed = productService.rebuildSearchIndex();
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(new ApiResponse(true, "Search index rebuilt successfully", indexed));
+  }
+
+  /**
+   * Serve the stock of a product from Redis, e.g. before a flash sale starts
+   *
+   * @param id the id of the product
+   * @return false if the product was already hot
+   */
+  @PostMapping("/inventory/{id}/hot")
+  public ResponseEntity<ApiResponse> markHot(@PathVariable Long id) {
+    var marked = inventoryService.markHot(id);
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(new ApiResponse(true, "Product marked as hot successfully", marked));
+  }
+
+  /**
+   * Serve the stock of a product from the database again
+   *
+   * @param id the id of the product
+   * @return false if the product was not hot
+   */
+  @DeleteMapping("/inventory/{id}/hot")
+  public ResponseEntity<ApiResponse> unmarkHot(@PathVariable Long id) {
+    var unmarked = inventoryService.unmarkHot(id);
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(new ApiResponse(true, "Product marked as cold successfully", unmarked));
+  }
+}
@@ -9,9 +9,11 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.shintadev.shop_dev_be.domain.dto.response.ApiResponse;
-import com.shintadev.shop_dev_be.domain.model.entity.user.User;
+import com.shintadev.shop_dev_be.security.AuthenticatedUser;
+import com.shintadev.shop_dev_be.service.user.UserService;
 
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 
 /**
  * AppController
@@ -22,8 +24,11 @@ import jakarta.servlet.http.HttpServletRequest;
  */
 @RestController
 @RequestMapping("/app")
+@RequiredArgsConstructor
 public class AppController {
 
+  private final UserService userService;
+
   /**
    * Say hello world
    * 
@@ -66,8 +71,8 @@ public class AppController {
    */
   @GetMapping("/profile")
   public ResponseEntity<ApiResponse> getProfile() {
-    var user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    var user = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
     return ResponseEntity.status(HttpStatus.OK)
-        .body(new ApiResponse(true, "Profile fetched successfully", user));
+        .body(new ApiResponse(true, "Profile fetched successfully", userService.getUserById(user.getId())));
   }
 }
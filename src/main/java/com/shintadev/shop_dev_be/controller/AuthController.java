@@ -7,16 +7,21 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.shintadev.shop_dev_be.domain.dto.request.auth.ChangePasswordRequest;
 import com.shintadev.shop_dev_be.domain.dto.request.auth.LoginRequest;
+import com.shintadev.shop_dev_be.domain.dto.request.auth.RefreshTokenRequest;
 import com.shintadev.shop_dev_be.domain.dto.request.auth.RegisterRequest;
 import com.shintadev.shop_dev_be.domain.dto.response.ApiResponse;
+import com.shintadev.shop_dev_be.security.LoginRateLimiter;
+import com.shintadev.shop_dev_be.security.jwt.JwtTokenProvider;
 import com.shintadev.shop_dev_be.service.common.AuthService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -37,6 +42,8 @@ import lombok.RequiredArgsConstructor;
 public class AuthController {
 
   private final AuthService authService;
+  private final JwtTokenProvider jwtTokenProvider;
+  private final LoginRateLimiter loginRateLimiter;
 
   /**
    * Register a new user
@@ -80,17 +87,53 @@ public class AuthController {
   /**
    * Login a user
    * 
-   * @param request the login request
+   * @param request     the login request
+   * @param httpRequest the HTTP request
    * @return the response entity
    */
   @PostMapping("/login")
-  public ResponseEntity<ApiResponse> login(@Valid @RequestBody LoginRequest request) {
-    var token = authService.login(request);
+  public ResponseEntity<ApiResponse> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+    loginRateLimiter.acquire(httpRequest.getRemoteAddr(), request.getEmail());
+    var tokens = authService.login(request);
     var headers = new HttpHeaders();
-    headers.set("Authorization", "Bearer " + token);
+    headers.set("Authorization", "Bearer " + tokens.getToken());
     return ResponseEntity.status(HttpStatus.OK)
         .headers(headers)
-        .body(new ApiResponse(true, "Login successfully!", null));
+        .body(new ApiResponse(true, "Login successfully!", tokens));
+  }
+
+  /**
+   * Exchange a refresh token for new tokens
+   * 
+   * @param request the refresh token request
+   * @return the response entity
+   */
+  @PostMapping("/refresh")
+  public ResponseEntity<ApiResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+    var tokens = authService.refresh(request.getRefreshToken());
+    var headers = new HttpHeaders();
+    headers.set("Authorization", "Bearer " + tokens.getToken());
+    return ResponseEntity.status(HttpStatus.OK)
+        .headers(headers)
+        .body(new ApiResponse(true, "Refresh token successfully!", tokens));
+  }
+
+  /**
+   * Logout, revoking the tokens of the session
+   * 
+   * @param authorization the authorization header
+   * @param request       the refresh token request
+   * @return the response entity
+   */
+  @PostMapping("/logout")
+  public ResponseEntity<ApiResponse> logout(
+      @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+      @RequestBody(required = false) RefreshTokenRequest request) {
+    authService.logout(
+        jwtTokenProvider.resolveToken(authorization),
+        request != null ? request.getRefreshToken() : null);
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(new ApiResponse(true, "Logout successfully!", null));
   }
 
   /**
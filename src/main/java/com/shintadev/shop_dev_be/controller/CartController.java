@@ -14,7 +14,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.shintadev.shop_dev_be.domain.dto.request.cart.CartItemRequest;
 import com.shintadev.shop_dev_be.domain.dto.response.ApiResponse;
-import com.shintadev.shop_dev_be.domain.model.entity.user.User;
+import com.shintadev.shop_dev_be.security.AuthenticatedUser;
 import com.shintadev.shop_dev_be.service.cart.CartService;
 
 import jakarta.validation.Valid;
@@ -41,7 +41,7 @@ public class CartController {
    * @return the cart of the user
    */
   @GetMapping
-  public ResponseEntity<ApiResponse> getCart(@AuthenticationPrincipal User user) {
+  public ResponseEntity<ApiResponse> getCart(@AuthenticationPrincipal AuthenticatedUser user) {
     var cart = cartService.getCart(user.getId());
     return ResponseEntity.status(HttpStatus.OK)
         .body(ApiResponse.builder()
@@ -59,7 +59,7 @@ public class CartController {
    */
   @PostMapping("/add")
   public ResponseEntity<ApiResponse> addItemToCart(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @Valid @RequestBody CartItemRequest request) {
     var cartItem = cartService.addItemToCart(user.getId(), request);
     return ResponseEntity.status(HttpStatus.CREATED)
@@ -78,7 +78,7 @@ public class CartController {
    */
   @PutMapping("/update")
   public ResponseEntity<ApiResponse> updateItemInCart(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @Valid @RequestBody CartItemRequest request) {
     var cartItem = cartService.updateItemInCart(user.getId(), request);
     return ResponseEntity.status(HttpStatus.OK)
@@ -97,7 +97,7 @@ public class CartController {
    */
   @DeleteMapping("/remove")
   public ResponseEntity<ApiResponse> removeItemFromCart(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @RequestParam Long productId) {
     var cart = cartService.removeItemFromCart(user.getId(), productId);
     return ResponseEntity.status(HttpStatus.OK)
@@ -114,7 +114,7 @@ public class CartController {
    * @return the updated cart
    */
   @DeleteMapping("/clear")
-  public ResponseEntity<ApiResponse> clearCart(@AuthenticationPrincipal User user) {
+  public ResponseEntity<ApiResponse> clearCart(@AuthenticationPrincipal AuthenticatedUser user) {
     var cart = cartService.clearCart(user.getId());
     return ResponseEntity.status(HttpStatus.OK)
         .body(ApiResponse.builder()
@@ -130,7 +130,7 @@ public class CartController {
    * @return the number of items in the cart
    */
   @GetMapping("/count")
-  public ResponseEntity<ApiResponse> getCartItemCount(@AuthenticationPrincipal User user) {
+  public ResponseEntity<ApiResponse> getCartItemCount(@AuthenticationPrincipal AuthenticatedUser user) {
     var count = cartService.getCartItemCount(user.getId());
     return ResponseEntity.status(HttpStatus.OK)
         .body(ApiResponse.builder()
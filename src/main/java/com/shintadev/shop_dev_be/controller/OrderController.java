@@ -17,7 +17,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.shintadev.shop_dev_be.domain.dto.request.order.OrderRequest;
 import com.shintadev.shop_dev_be.domain.dto.response.ApiResponse;
-import com.shintadev.shop_dev_be.domain.model.entity.user.User;
+import com.shintadev.shop_dev_be.security.AuthenticatedUser;
 import com.shintadev.shop_dev_be.service.order.OrderService;
 
 import jakarta.validation.Valid;
@@ -47,7 +47,7 @@ public class OrderController {
    */
   @GetMapping
   public ResponseEntity<ApiResponse> getAllUserOrders(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @RequestParam(defaultValue = "1") Integer page,
       @RequestParam(defaultValue = "10") Integer size,
       @RequestParam(defaultValue = "createdAt") String sortBy,
@@ -63,6 +63,31 @@ public class OrderController {
             .build());
   }
 
+  /**
+   * Get the orders of a user, newest first, by cursor instead of page number
+   * 
+   * @param user      the authenticated user
+   * @param cursor    the cursor returned with the previous page, omitted for
+   *                  the first page
+   * @param size      the page size
+   * @param withTotal whether to count all orders of the user
+   * @return the list of orders after the cursor
+   */
+  @GetMapping("/cursor")
+  public ResponseEntity<ApiResponse> getUserOrdersByCursor(
+      @AuthenticationPrincipal AuthenticatedUser user,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") Integer size,
+      @RequestParam(defaultValue = "false") Boolean withTotal) {
+    var orders = orderService.getOrdersByUserIdByCursor(user.getId(), cursor, size, withTotal);
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(ApiResponse.builder()
+            .success(true)
+            .message("Orders fetched successfully")
+            .data(orders)
+            .build());
+  }
+
   /**
    * Get an order by its id
    * 
@@ -91,7 +116,7 @@ public class OrderController {
    */
   @GetMapping("/status/{status}")
   public ResponseEntity<ApiResponse> getOrdersByStatus(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @PathVariable String status,
       @RequestParam(defaultValue = "1") Integer page,
       @RequestParam(defaultValue = "10") Integer size,
@@ -135,7 +160,7 @@ public class OrderController {
    */
   @GetMapping("/recent")
   public ResponseEntity<ApiResponse> getRecentOrders(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @RequestParam(defaultValue = "5") Integer limit) {
     var orders = orderService.getUserRecentOrders(user.getId(), limit);
     return ResponseEntity.status(HttpStatus.OK)
@@ -155,7 +180,7 @@ public class OrderController {
    */
   @PostMapping
   public ResponseEntity<ApiResponse> createOrder(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @Valid @RequestBody OrderRequest orderRequest) {
     var order = orderService.createOrder(user.getId(), orderRequest);
     return ResponseEntity.status(HttpStatus.CREATED)
@@ -175,7 +200,7 @@ public class OrderController {
    */
   @PutMapping("/{id}/cancel")
   public ResponseEntity<ApiResponse> cancelOrder(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @PathVariable Long id) {
     var order = orderService.cancelOrder(user.getId(), id);
     return ResponseEntity.status(HttpStatus.OK)
@@ -193,7 +218,7 @@ public class OrderController {
    * @return the count of orders
    */
   @GetMapping("/count")
-  public ResponseEntity<ApiResponse> getOrderCount(@AuthenticationPrincipal User user) {
+  public ResponseEntity<ApiResponse> getOrderCount(@AuthenticationPrincipal AuthenticatedUser user) {
     var count = orderService.getOrderCount(user.getId());
     return ResponseEntity.status(HttpStatus.OK)
         .body(ApiResponse.builder()
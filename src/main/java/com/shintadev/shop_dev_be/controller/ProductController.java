@@ -54,6 +54,25 @@ public class ProductController {
         .body(new ApiResponse(true, "Products fetched successfully", products));
   }
 
+  /**
+   * Get active products, newest first, by cursor instead of page number
+   * 
+   * @param cursor    the cursor returned with the previous page, omitted for
+   *                  the first page
+   * @param size      the number of products per page
+   * @param withTotal whether to count all products
+   * @return the list of products after the cursor
+   */
+  @GetMapping("/cursor")
+  public ResponseEntity<ApiResponse> getProductsByCursor(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") Integer size,
+      @RequestParam(defaultValue = "false") Boolean withTotal) {
+    var products = productService.getActiveProductsByCursor(cursor, size, withTotal);
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(new ApiResponse(true, "Products fetched successfully", products));
+  }
+
   /**
    * Get featured products
    * 
@@ -99,6 +118,28 @@ public class ProductController {
         .body(new ApiResponse(true, "Products fetched successfully", products));
   }
 
+  /**
+   * Get products by category id, newest first, by cursor instead of page
+   * number
+   * 
+   * @param id        the id of the category
+   * @param cursor    the cursor returned with the previous page, omitted for
+   *                  the first page
+   * @param size      the number of products per page
+   * @param withTotal whether to count all products of the category
+   * @return the list of products by category after the cursor
+   */
+  @GetMapping("/categories/{id}/cursor")
+  public ResponseEntity<ApiResponse> getProductsByCategoryByCursor(
+      @PathVariable Long id,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") Integer size,
+      @RequestParam(defaultValue = "false") Boolean withTotal) {
+    var products = productService.getProductsByCategoryByCursor(id, cursor, size, withTotal);
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(new ApiResponse(true, "Products fetched successfully", products));
+  }
+
   /**
    * Get products related to the product by id
    * 
@@ -117,9 +158,11 @@ public class ProductController {
   /**
    * Search products
    * 
-   * @param keyword the keyword to search for
-   * @param page    the page number
-   * @param size    the number of products per page
+   * @param keyword   the keyword to search for
+   * @param page      the page number
+   * @param size      the number of products per page
+   * @param sortBy    the field to sort by, "relevance" for best match first
+   * @param sortOrder the order to sort by
    * @return the list of products by keyword
    */
   @GetMapping("/search")
@@ -127,7 +170,7 @@ public class ProductController {
       @RequestParam String keyword,
       @RequestParam(defaultValue = "1") Integer page,
       @RequestParam(defaultValue = "10") Integer size,
-      @RequestParam(defaultValue = "createdAt") String sortBy,
+      @RequestParam(defaultValue = "relevance") String sortBy,
       @RequestParam(defaultValue = "desc") String sortOrder) {
     int pageNumber = Math.max(0, page - 1);
     Pageable pageable = PageRequest.of(pageNumber, size, Sort.by(Sort.Direction.fromString(sortOrder), sortBy));
@@ -136,6 +179,22 @@ public class ProductController {
         .body(new ApiResponse(true, "Products fetched successfully", products));
   }
 
+  /**
+   * Suggest categories and products as the user types
+   * 
+   * @param keyword the text typed so far
+   * @param limit   the maximum number of categories and of products
+   * @return the list of suggestions
+   */
+  @GetMapping("/suggest")
+  public ResponseEntity<ApiResponse> suggest(
+      @RequestParam String keyword,
+      @RequestParam(defaultValue = "10") Integer limit) {
+    var suggestions = productService.suggest(keyword, limit);
+    return ResponseEntity.status(HttpStatus.OK)
+        .body(new ApiResponse(true, "Suggestions fetched successfully", suggestions));
+  }
+
   /**
    * Filter products
    * 
@@ -144,7 +203,8 @@ public class ProductController {
    * @param size           the number of products per page
    * @param sortBy         the field to sort by
    * @param sortOrder      the order to sort by
-   * @return the list of products by search criteria
+   * @return the list of products by search criteria, with the number of
+   *         products per category, price range, in stock and on sale
    */
   @GetMapping("/filter")
   public ResponseEntity<ApiResponse> filterProducts(
@@ -13,7 +13,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.shintadev.shop_dev_be.domain.dto.response.ApiResponse;
-import com.shintadev.shop_dev_be.domain.model.entity.user.User;
+import com.shintadev.shop_dev_be.security.AuthenticatedUser;
 import com.shintadev.shop_dev_be.service.wishlist.WishlistService;
 
 import lombok.RequiredArgsConstructor;
@@ -39,7 +39,7 @@ public class WishlistController {
    * @return the wishlist of the user
    */
   @GetMapping
-  public ResponseEntity<ApiResponse> getWishlist(@AuthenticationPrincipal User user) {
+  public ResponseEntity<ApiResponse> getWishlist(@AuthenticationPrincipal AuthenticatedUser user) {
     var wishlist = wishlistService.getWishlist(user.getId());
     return ResponseEntity.status(HttpStatus.OK)
         .body(ApiResponse.builder()
@@ -50,7 +50,7 @@ public class WishlistController {
 
   @GetMapping("/paged")
   public ResponseEntity<ApiResponse> getPagedWishlist(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @RequestParam(defaultValue = "1") int page,
       @RequestParam(defaultValue = "10") int size) {
     int pageNumber = Math.max(0, page - 1);
@@ -72,7 +72,7 @@ public class WishlistController {
    */
   @PostMapping("/add")
   public ResponseEntity<ApiResponse> addProductToWishlist(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @RequestParam Long productId) {
     var wishlist = wishlistService.addProductToWishlist(user.getId(), productId);
     return ResponseEntity.status(HttpStatus.CREATED)
@@ -84,7 +84,7 @@ public class WishlistController {
 
   @GetMapping("/check")
   public ResponseEntity<ApiResponse> isProductInWishlist(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @RequestParam Long productId) {
     var isInWishlist = wishlistService.isProductInWishlist(user.getId(), productId);
     return ResponseEntity.status(HttpStatus.OK)
@@ -103,7 +103,7 @@ public class WishlistController {
    */
   @DeleteMapping("/remove")
   public ResponseEntity<ApiResponse> removeProductFromWishlist(
-      @AuthenticationPrincipal User user,
+      @AuthenticationPrincipal AuthenticatedUser user,
       @RequestParam Long productId) {
     wishlistService.removeProductFromWishlist(user.getId(), productId);
     return ResponseEntity.status(HttpStatus.OK)
@@ -119,7 +119,7 @@ public class WishlistController {
    * @return the response entity
    */
   @DeleteMapping("/clear")
-  public ResponseEntity<ApiResponse> clearWishlist(@AuthenticationPrincipal User user) {
+  public ResponseEntity<ApiResponse> clearWishlist(@AuthenticationPrincipal AuthenticatedUser user) {
     wishlistService.clearWishlist(user.getId());
     return ResponseEntity.status(HttpStatus.OK)
         .body(ApiResponse.builder()
@@ -134,7 +134,7 @@ public class WishlistController {
    * @return the number of items in the wishlist
    */
   @GetMapping("/count")
-  public ResponseEntity<ApiResponse> getWishlistCount(@AuthenticationPrincipal User user) {
+  public ResponseEntity<ApiResponse> getWishlistCount(@AuthenticationPrincipal AuthenticatedUser user) {
     var count = wishlistService.getWishlistCount(user.getId());
     return ResponseEntity.status(HttpStatus.OK)
         .body(ApiResponse.builder()
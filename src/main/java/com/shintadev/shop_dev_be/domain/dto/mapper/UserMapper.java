@@ -26,6 +26,7 @@ public interface UserMapper {
   @Mapping(target = "cart", ignore = true)
   @Mapping(target = "wishlist", ignore = true)
   @Mapping(target = "orders", ignore = true)
+  @Mapping(target = "statusVersion", ignore = true)
   User toUser(UserRequest request);
 
   UserResponse toUserResponse(User user);
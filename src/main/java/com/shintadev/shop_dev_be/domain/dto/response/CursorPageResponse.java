@@ -0,0 +1,27 @@
+package com.shintadev.shop_dev_be.domain.dto.response;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CursorPageResponse<T> {
+  /**
+   * Items of the page.
+   */
+  private List<T> content;
+  /**
+   * Cursor to pass to get the next page, null on the last page.
+   */
+  private String nextCursor;
+  /**
+   * True if there is a next page.
+   */
+  private boolean hasNext;
+  /**
+   * Total number of items, only counted when requested.
+   */
+  private Long totalElements;
+}
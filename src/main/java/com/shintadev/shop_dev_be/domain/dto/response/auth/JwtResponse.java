@@ -16,8 +16,10 @@ import lombok.NoArgsConstructor;
 public class JwtResponse {
 
   private String token;
+  private String refreshToken;
   @Builder.Default
   private String type = "Bearer";
+  private Long expiresIn;
   private Long id;
   private String email;
   private String firstName;
@@ -0,0 +1,12 @@
+package com.shintadev.shop_dev_be.domain.dto.response.product;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class FacetCountResponse {
+  private String value;
+  private String label;
+  private long count;
+}
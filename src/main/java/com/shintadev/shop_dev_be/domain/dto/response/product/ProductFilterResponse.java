@@ -0,0 +1,18 @@
+package com.shintadev.shop_dev_be.domain.dto.response.product;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ProductFilterResponse {
+  private Page<ProductResponse> products;
+  private List<FacetCountResponse> categories;
+  private List<FacetCountResponse> priceRanges;
+  private Long inStockCount;
+  private Long onSaleCount;
+}
@@ -0,0 +1,15 @@
+package com.shintadev.shop_dev_be.domain.dto.response.product;
+
+import com.shintadev.shop_dev_be.domain.model.enums.product.SuggestionType;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SuggestionResponse {
+  private SuggestionType type;
+  private Long id;
+  private String name;
+  private String slug;
+}
@@ -0,0 +1,51 @@
+package com.shintadev.shop_dev_be.domain.model.entity.inventory;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A stock change of a hot product, written in the same transaction as its
+ * Kafka message and marked applied in the same transaction as the stock, so
+ * that a redelivered adjustment is applied once and the adjustments still
+ * pending for a product are known
+ */
+@Data
+@Builder
+@Entity
+@Table(name = "inventory_adjustments", indexes = {
+    @Index(name = "idx_inventory_adjustments_product_applied", columnList = "product_id, applied_at")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryAdjustment implements Serializable {
+
+  @Id
+  @Column(name = "adjustment_id", length = 36)
+  private String adjustmentId;
+
+  @Column(name = "product_id", nullable = false)
+  private Long productId;
+
+  @Column(name = "delta", nullable = false)
+  private int delta;
+
+  @CreationTimestamp
+  @Column(name = "created_at", updatable = false)
+  private LocalDateTime createdAt;
+
+  // Null while pending
+  @Column(name = "applied_at")
+  private LocalDateTime appliedAt;
+}
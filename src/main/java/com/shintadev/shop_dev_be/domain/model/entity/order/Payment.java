@@ -19,7 +19,9 @@ import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @Builder
@@ -39,7 +41,7 @@ public class Payment implements Serializable {
   @Column(name = "status", nullable = false)
   private PaymentStatus status;
 
-  @Column(name = "transaction_id", length = 128)
+  @Column(name = "transaction_id", length = 128, unique = true)
   private String transactionId;
 
   @Column(name = "payment_details", length = 255)
@@ -48,6 +50,8 @@ public class Payment implements Serializable {
   @Column(name = "payment_date")
   private LocalDateTime paymentDate;
 
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
   @ManyToOne
   @JoinColumn(name = "order_id")
   private Order order;
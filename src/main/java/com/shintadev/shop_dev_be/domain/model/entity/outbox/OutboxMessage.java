@@ -0,0 +1,47 @@
+package com.shintadev.shop_dev_be.domain.model.entity.outbox;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A Kafka message written with the transaction that produced it, waiting to
+ * be published. The payload is already encoded.
+ */
+@Data
+@Builder
+@Entity
+@Table(name = "outbox_messages")
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage implements Serializable {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "topic", nullable = false)
+  private String topic;
+
+  @Column(name = "message_key", nullable = false)
+  private String messageKey;
+
+  @Column(name = "payload", nullable = false, columnDefinition = "BLOB")
+  private byte[] payload;
+
+  @CreationTimestamp
+  @Column(name = "created_at", updatable = false)
+  private LocalDateTime createdAt;
+}
@@ -37,7 +37,9 @@ import lombok.NoArgsConstructor;
 @Builder
 @Entity
 @Table(name = "products", indexes = {
-    @Index(name = "idx_product_slug", columnList = "slug")
+    @Index(name = "idx_product_slug", columnList = "slug"),
+    @Index(name = "idx_product_status_created_at_id", columnList = "status, created_at, id"),
+    @Index(name = "idx_product_category_status_created_at_id", columnList = "category_id, status, created_at, id")
 })
 @NoArgsConstructor
 @AllArgsConstructor
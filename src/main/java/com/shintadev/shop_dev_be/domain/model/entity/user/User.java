@@ -88,6 +88,14 @@ public class User implements UserDetails {
   @Builder.Default
   private UserStatus status = UserStatus.INACTIVE;
 
+  /**
+   * Incremented whenever the tokens issued to the user must stop being
+   * accepted: status, password or role changes
+   */
+  @Column(name = "status_version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+  @Builder.Default
+  private Long statusVersion = 0L;
+
   @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
   @Builder.Default
   private List<Address> addresses = new ArrayList<>();
@@ -0,0 +1,8 @@
+package com.shintadev.shop_dev_be.domain.model.enums.order;
+
+public enum ReservationStatus {
+  ACTIVE,
+  CONFIRMED,
+  RELEASED,
+  EXPIRED
+}
@@ -0,0 +1,6 @@
+package com.shintadev.shop_dev_be.domain.model.enums.product;
+
+public enum SuggestionType {
+  PRODUCT,
+  CATEGORY
+}
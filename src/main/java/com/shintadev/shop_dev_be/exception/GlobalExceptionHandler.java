@@ -1,5 +1,6 @@
 package com.shintadev.shop_dev_be.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -110,6 +111,28 @@ public class GlobalExceptionHandler {
             .build());
   }
 
+  /**
+   * Handle TooManyRequestsException
+   */
+  @ExceptionHandler(TooManyRequestsException.class)
+  public ResponseEntity<ApiResponse> handleTooManyRequestsException(
+      TooManyRequestsException ex, WebRequest request) {
+
+    ErrorResponse errorResponse = ErrorResponse.builder()
+        .status(HttpStatus.TOO_MANY_REQUESTS.value())
+        .path(request.getDescription(false))
+        .timestamp(LocalDateTime.now())
+        .build();
+
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+        .body(ApiResponse.builder()
+            .success(false)
+            .message(ex.getMessage())
+            .data(errorResponse)
+            .build());
+  }
+
   /**
    * Handle AccessDeniedException
    */
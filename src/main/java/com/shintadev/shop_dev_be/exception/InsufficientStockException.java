@@ -0,0 +1,28 @@
+package com.shintadev.shop_dev_be.exception;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when the stock of some products cannot cover an order
+ */
+@Getter
+public class InsufficientStockException extends BadRequestException {
+
+  /**
+   * The ids of the products whose stock could not be reserved
+   */
+  private final List<Long> productIds;
+
+  /**
+   * Create a new InsufficientStockException
+   *
+   * @param productIds the ids of the products whose stock could not be reserved
+   * @param message    the error message
+   */
+  public InsufficientStockException(List<Long> productIds, String message) {
+    super(message);
+    this.productIds = List.copyOf(productIds);
+  }
+}
@@ -0,0 +1,42 @@
+package com.shintadev.shop_dev_be.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when a client must slow down
+ */
+@Getter
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyRequestsException extends RuntimeException {
+
+  /**
+   * Seconds to wait before trying again
+   */
+  private final long retryAfterSeconds;
+
+  /**
+   * Create a new TooManyRequestsException with a message
+   *
+   * @param message           the error message
+   * @param retryAfterSeconds the seconds to wait before trying again
+   */
+  public TooManyRequestsException(String message, long retryAfterSeconds) {
+    super(message);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  /**
+   * Create a new TooManyRequestsException with a message and cause
+   *
+   * @param message           the error message
+   * @param retryAfterSeconds the seconds to wait before trying again
+   * @param cause             the cause of the exception
+   */
+  public TooManyRequestsException(String message, long retryAfterSeconds, Throwable cause) {
+    super(message, cause);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+}
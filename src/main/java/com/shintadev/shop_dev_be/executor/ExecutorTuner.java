@@ -0,0 +1,32 @@
+package com.shintadev.shop_dev_be.executor;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Periodically resizes the monitored executors from their observed queue wait
+ */
+@Component
+@RequiredArgsConstructor
+public class ExecutorTuner {
+
+  private final List<Executor> executors;
+
+  /**
+   * Resize every monitored executor
+   */
+  @Scheduled(initialDelayString = "${app.async.tuning-interval:10000}",
+      fixedDelayString = "${app.async.tuning-interval:10000}")
+  public void tune() {
+    for (Executor executor : executors) {
+      if (executor instanceof MonitoredTaskExecutor monitored) {
+        monitored.adjustPoolSize();
+      }
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.shintadev.shop_dev_be.executor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Thread pool executor exporting its metrics and resizing itself.
+ * <p>
+ * Besides the pool gauges of {@link ExecutorServiceMetrics}
+ * ({@code executor.active}, {@code executor.queued}, ...), it records how
+ * long tasks wait in the queue and run, and counts the rejected tasks, all
+ * tagged with the executor name. The core pool size grows by one thread when
+ * the mean queue wait exceeds the target, and shrinks back towards its
+ * configured size when the queue wait is well below the target.
+ */
+@Slf4j
+public class MonitoredTaskExecutor extends ThreadPoolTaskExecutor {
+
+  private final String name;
+  private final int minPoolSize;
+  private final Duration targetQueueWait;
+  private final MeterRegistry meterRegistry;
+
+  private final Timer queueWait;
+  private final Timer execution;
+  private final Counter rejected;
+
+  // Queue wait observed since the last resize
+  private final LongAdder windowWaitNanos = new LongAdder();
+  private final LongAdder windowTasks = new LongAdder();
+
+  /**
+   * @param name            the name of the executor, tagging its metrics
+   * @param corePoolSize    the initial and minimum core pool size
+   * @param maxPoolSize     the maximum pool size
+   * @param queueCapacity   the capacity of the queue
+   * @param rejectionPolicy what to do with a task once the pool and queue are
+   *                        full
+   * @param targetQueueWait the mean queue wait above which the pool grows
+   * @param meterRegistry   the meter registry
+   */
+  public MonitoredTaskExecutor(
+      String name,
+      int corePoolSize,
+      int maxPoolSize,
+      int queueCapacity,
+      RejectionPolicy rejectionPolicy,
+      Duration targetQueueWait,
+      MeterRegistry meterRegistry) {
+    this.name = name;
+    this.minPoolSize = corePoolSize;
+    this.targetQueueWait = targetQueueWait;
+    this.meterRegistry = meterRegistry;
+
+    this.queueWait = Timer.builder("executor.queue.wait")
+        .tag("name", name)
+        .description("Time tasks spend in the queue before running")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+    this.execution = Timer.builder("executor.execution")
+        .tag("name", name)
+        .description("Time tasks spend running")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+    this.rejected = Counter.builder("executor.rejected")
+        .tag("name", name)
+        .tag("policy", rejectionPolicy.name().toLowerCase())
+        .description("Tasks submitted while the pool and queue were full")
+        .register(meterRegistry);
+
+    setCorePoolSize(corePoolSize);
+    setMaxPoolSize(maxPoolSize);
+    setQueueCapacity(queueCapacity);
+    setRejectedExecutionHandler(rejectionHandler(rejectionPolicy));
+    setTaskDecorator(this::monitor);
+  }
+
+  @Override
+  protected ExecutorService initializeExecutor(ThreadFactory threadFactory,
+      RejectedExecutionHandler rejectedExecutionHandler) {
+    ExecutorService executor = super.initializeExecutor(threadFactory, rejectedExecutionHandler);
+    new ExecutorServiceMetrics(executor, name, List.of()).bindTo(meterRegistry);
+    return executor;
+  }
+
+  /**
+   * Resize the core pool from the mean queue wait observed since the last call
+   */
+  public void adjustPoolSize() {
+    long tasks = windowTasks.sumThenReset();
+    long waitNanos = windowWaitNanos.sumThenReset();
+    long meanWaitNanos = tasks == 0 ? 0 : waitNanos / tasks;
+    int corePoolSize = getCorePoolSize();
+
+    if (meanWaitNanos > targetQueueWait.toNanos() && corePoolSize < getMaxPoolSize()) {
+      setCorePoolSize(corePoolSize + 1);
+      log.info("Executor {} grown to {} core threads, mean queue wait {} ms",
+          name, corePoolSize + 1, TimeUnit.NANOSECONDS.toMillis(meanWaitNanos));
+    } else if (meanWaitNanos < targetQueueWait.toNanos() / 2 && corePoolSize > minPoolSize
+        && getActiveCount() < corePoolSize) {
+      setCorePoolSize(corePoolSize - 1);
+      log.debug("Executor {} shrunk to {} core threads", name, corePoolSize - 1);
+    }
+  }
+
+  private Runnable monitor(Runnable task) {
+    long submittedAt = System.nanoTime();
+    return () -> {
+      long startedAt = System.nanoTime();
+      long waitNanos = startedAt - submittedAt;
+      queueWait.record(waitNanos, TimeUnit.NANOSECONDS);
+      windowWaitNanos.add(waitNanos);
+      windowTasks.increment();
+      try {
+        task.run();
+      } finally {
+        execution.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+      }
+    };
+  }
+
+  private RejectedExecutionHandler rejectionHandler(RejectionPolicy rejectionPolicy) {
+    RejectedExecutionHandler delegate = rejectionPolicy == RejectionPolicy.CALLER_RUNS
+        ? new ThreadPoolExecutor.CallerRunsPolicy()
+        : new ThreadPoolExecutor.AbortPolicy();
+    return (task, executor) -> {
+      rejected.increment();
+      delegate.rejectedExecution(task, executor);
+    };
+  }
+}
@@ -0,0 +1,16 @@
+package com.shintadev.shop_dev_be.executor;
+
+/**
+ * What an executor does with a task once its threads and queue are full
+ */
+public enum RejectionPolicy {
+  /**
+   * Reject the task with a {@code TaskRejectedException}, for callers that
+   * hand it over elsewhere, e.g. to a Kafka retry topic
+   */
+  ABORT,
+  /**
+   * Run the task on the submitting thread, slowing down the submitter
+   */
+  CALLER_RUNS
+}
@@ -0,0 +1,57 @@
+package com.shintadev.shop_dev_be.inventory;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.shintadev.shop_dev_be.search.ProductChangedEvent;
+import com.shintadev.shop_dev_be.service.product.InventoryService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Makes the frozen hot products cold.
+ * <p>
+ * A product leaving the active products is drained as soon as its
+ * transaction commits. A periodic pass retries the products that could not be
+ * drained yet, and those frozen on other nodes or before a restart.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotStockDrainer {
+
+  private final HotStockStore hotStockStore;
+  private final InventoryService inventoryService;
+
+  /**
+   * Drain a product once it is no longer active
+   *
+   * @param event the event
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onProductChanged(ProductChangedEvent event) {
+    if (event.document() == null) {
+      drain(event.productId());
+    }
+  }
+
+  /**
+   * Drain every frozen product
+   */
+  @Scheduled(fixedDelayString = "${app.inventory.hot.drain-interval:5000}")
+  public void drainFrozen() {
+    hotStockStore.frozenProductIds().forEach(this::drain);
+  }
+
+  private void drain(Long productId) {
+    try {
+      inventoryService.drainHot(productId);
+    } catch (Exception e) {
+      // Left to the next pass
+      log.error("Failed to drain the hot stock of product {}: {}", productId, e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,228 @@
+package com.shintadev.shop_dev_be.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Available stock of hot products, kept in Redis while they are hot.
+ * <p>
+ * While a product is hot its Redis counter is the source of truth: checkouts
+ * decrement it atomically, without touching the product row, and
+ * {@code products.stock} catches up asynchronously. Products without a
+ * counter are cold and use the database.
+ * <p>
+ * A product is made cold in two steps. It is first frozen: its counter stops
+ * serving reservations but still takes the stock given back. It is dropped
+ * once the database has caught up with it, see
+ * {@link com.shintadev.shop_dev_be.service.product.InventoryService#drainHot}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotStockStore {
+
+  /**
+   * Result of a line whose product is not hot
+   */
+  public static final long COLD = -1;
+
+  // Hash tag so that every counter of a multi-line order lives in the same slot
+  private static final String KEY_PREFIX = "inventory:{hot}:stock:";
+
+  // Ids of the frozen products, in the same slot as the counters
+  private static final String FROZEN_KEY = "inventory:{hot}:frozen";
+
+  /**
+   * For each line: -1 if cold, -2 - stock if short or frozen, otherwise the
+   * stock left. Nothing is decremented unless every hot line can be served.
+   * The last key is the set of frozen products, the last arguments their ids.
+   */
+  private static final RedisScript<List> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+      local results = {}
+      local short = false
+      local lines = #KEYS - 1
+      for i = 1, lines do
+        local stock = redis.call('GET', KEYS[i])
+        if not stock then
+          results[i] = -1
+        elseif tonumber(stock) < tonumber(ARGV[i])
+            or redis.call('SISMEMBER', KEYS[#KEYS], ARGV[lines + i]) == 1 then
+          results[i] = -2 - tonumber(stock)
+          short = true
+        else
+          results[i] = 0
+        end
+      end
+      if short then
+        return results
+      end
+      for i = 1, lines do
+        if results[i] == 0 then
+          results[i] = redis.call('DECRBY', KEYS[i], ARGV[i])
+        end
+      end
+      return results
+      """, List.class);
+
+  /**
+   * For each line: -1 if cold, otherwise the stock after adding the delta
+   */
+  private static final RedisScript<List> ADJUST_SCRIPT = new DefaultRedisScript<>("""
+      local results = {}
+      for i, key in ipairs(KEYS) do
+        if redis.call('EXISTS', key) == 1 then
+          results[i] = redis.call('INCRBY', key, ARGV[i])
+        else
+          results[i] = -1
+        end
+      end
+      return results
+      """, List.class);
+
+  /**
+   * 1 if the product was hot and is now frozen, 0 if cold or already frozen
+   */
+  private static final RedisScript<Long> FREEZE_SCRIPT = new DefaultRedisScript<>("""
+      if redis.call('EXISTS', KEYS[1]) == 0 then
+        return 0
+      end
+      return redis.call('SADD', KEYS[2], ARGV[1])
+      """, Long.class);
+
+  private final StringRedisTemplate stringRedisTemplate;
+
+  /**
+   * Decrement the counters of the hot products of an order, all or nothing
+   *
+   * @param productIds the ids of the products
+   * @param quantities the quantities, in the same order
+   * @return for each line {@link #COLD}, the stock left, or {@code -2 - stock}
+   *         if the stock is short
+   */
+  @SuppressWarnings("unchecked")
+  public List<Long> reserve(List<Long> productIds, List<Integer> quantities) {
+    List<String> keys = new ArrayList<>(productIds.stream().map(this::keyOf).toList());
+    keys.add(FROZEN_KEY);
+    Object[] args = Stream.concat(quantities.stream(), productIds.stream()).map(String::valueOf).toArray();
+    return (List<Long>) stringRedisTemplate.execute(RESERVE_SCRIPT, keys, args);
+  }
+
+  /**
+   * Add to the counters of the hot products, cold lines are left untouched
+   *
+   * @param productIds the ids of the products
+   * @param deltas     the quantities to add, in the same order
+   * @return for each line {@link #COLD} or the stock after the update
+   */
+  public List<Long> adjust(List<Long> productIds, List<Integer> deltas) {
+    return execute(ADJUST_SCRIPT, productIds, deltas);
+  }
+
+  /**
+   * Undo a reservation or an adjustment of hot products
+   *
+   * @param deltas the quantity to add by product id
+   */
+  public void adjust(Map<Long, Integer> deltas) {
+    if (!deltas.isEmpty()) {
+      List<Long> productIds = new ArrayList<>(deltas.keySet());
+      adjust(productIds, productIds.stream().map(deltas::get).toList());
+    }
+  }
+
+  /**
+   * Make a product hot, the counter starts from its current stock
+   *
+   * @param productId the id of the product
+   * @param stock     the current stock
+   * @return false if the product was already hot
+   */
+  public boolean markHot(Long productId, int stock) {
+    return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(keyOf(productId), String.valueOf(stock)));
+  }
+
+  /**
+   * Stop serving reservations of a hot product, the stock given back is still
+   * counted
+   *
+   * @param productId the id of the product
+   * @return false if the product was cold or already frozen
+   */
+  public boolean freeze(Long productId) {
+    return Long.valueOf(1).equals(stringRedisTemplate.execute(FREEZE_SCRIPT,
+        List.of(keyOf(productId), FROZEN_KEY), String.valueOf(productId)));
+  }
+
+  /**
+   * Serve reservations of a frozen product again
+   *
+   * @param productId the id of the product
+   */
+  public void thaw(Long productId) {
+    stringRedisTemplate.opsForSet().remove(FROZEN_KEY, String.valueOf(productId));
+  }
+
+  /**
+   * Check whether a product is frozen
+   *
+   * @param productId the id of the product
+   * @return true if frozen
+   */
+  public boolean isFrozen(Long productId) {
+    return Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(FROZEN_KEY, String.valueOf(productId)));
+  }
+
+  /**
+   * Get the frozen products
+   *
+   * @return the ids of the frozen products
+   */
+  public Set<Long> frozenProductIds() {
+    Set<String> members = stringRedisTemplate.opsForSet().members(FROZEN_KEY);
+    return members == null ? Set.of() : members.stream().map(Long::valueOf).collect(Collectors.toSet());
+  }
+
+  /**
+   * Get the counter of a hot product
+   *
+   * @param productId the id of the product
+   * @return the stock, or null if the product is cold
+   */
+  public Long stock(Long productId) {
+    String stock = stringRedisTemplate.opsForValue().get(keyOf(productId));
+    return stock == null ? null : Long.valueOf(stock);
+  }
+
+  /**
+   * Make a frozen product cold, dropping its counter
+   *
+   * @param productId the id of the product
+   */
+  public void unmarkHot(Long productId) {
+    stringRedisTemplate.delete(keyOf(productId));
+    thaw(productId);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Long> execute(RedisScript<List> script, List<Long> productIds, List<Integer> values) {
+    List<String> keys = productIds.stream().map(this::keyOf).toList();
+    Object[] args = values.stream().map(String::valueOf).toArray();
+    return (List<Long>) stringRedisTemplate.execute(script, keys, args);
+  }
+
+  private String keyOf(Long productId) {
+    return KEY_PREFIX + productId;
+  }
+}
@@ -0,0 +1,35 @@
+package com.shintadev.shop_dev_be.inventory;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a stock reservation is created or closed, handled once the
+ * transaction commits
+ *
+ * @param reservationId the id of the reservation
+ * @param expiresAt     when the reservation expires, or null if it is no
+ *                      longer active
+ */
+public record ReservationChangedEvent(Long reservationId, LocalDateTime expiresAt) {
+
+  /**
+   * Create an event for a new reservation
+   *
+   * @param reservationId the id of the reservation
+   * @param expiresAt     when the reservation expires
+   * @return the event
+   */
+  public static ReservationChangedEvent created(Long reservationId, LocalDateTime expiresAt) {
+    return new ReservationChangedEvent(reservationId, expiresAt);
+  }
+
+  /**
+   * Create an event for a reservation confirmed, released or expired
+   *
+   * @param reservationId the id of the reservation
+   * @return the event
+   */
+  public static ReservationChangedEvent closed(Long reservationId) {
+    return new ReservationChangedEvent(reservationId, null);
+  }
+}
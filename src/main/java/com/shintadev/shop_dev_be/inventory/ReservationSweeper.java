@@ -0,0 +1,98 @@
+package com.shintadev.shop_dev_be.inventory;
+
+import java.time.ZoneId;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.shintadev.shop_dev_be.service.order.StockReservationService;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Expires the stock reservations of unpaid orders.
+ * <p>
+ * Reservations made on this node are tracked on a timing wheel and expired as
+ * soon as they are due, without querying the database. A periodic sweep of the
+ * due reservations catches the rest: those of other nodes, of a restart, or
+ * whose expiry failed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationSweeper {
+
+  private final StockReservationService stockReservationService;
+
+  @Value("${app.inventory.reservation.tick:1000}")
+  private long tick;
+
+  @Value("${app.inventory.reservation.wheel-size:512}")
+  private int wheelSize;
+
+  @Value("${app.inventory.reservation.batch-size:100}")
+  private int batchSize;
+
+  private TimingWheel wheel;
+
+  @PostConstruct
+  void init() {
+    wheel = new TimingWheel(tick, wheelSize, System.currentTimeMillis());
+  }
+
+  /**
+   * Track a reservation made on this node, or stop tracking a closed one
+   *
+   * @param event the event
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onReservationChanged(ReservationChangedEvent event) {
+    if (event.expiresAt() != null) {
+      wheel.schedule(event.reservationId(),
+          event.expiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    } else {
+      wheel.cancel(event.reservationId());
+    }
+  }
+
+  /**
+   * Expire the reservations of the elapsed ticks
+   */
+  @Scheduled(fixedDelayString = "${app.inventory.reservation.tick:1000}")
+  public void advance() {
+    List<Long> due = wheel.advance(System.currentTimeMillis());
+    for (int from = 0; from < due.size(); from += batchSize) {
+      expire(due.subList(from, Math.min(from + batchSize, due.size())));
+    }
+  }
+
+  /**
+   * Expire every due reservation left in the database, a batch at a time
+   */
+  @Scheduled(initialDelayString = "${app.inventory.reservation.sweep-interval:60000}",
+      fixedDelayString = "${app.inventory.reservation.sweep-interval:60000}")
+  public void sweep() {
+    List<Long> due;
+    int expired;
+    do {
+      due = stockReservationService.findExpiredIds(batchSize);
+      expired = expire(due);
+    } while (due.size() == batchSize && expired > 0);
+  }
+
+  private int expire(List<Long> reservationIds) {
+    try {
+      return stockReservationService.expire(reservationIds);
+    } catch (Exception e) {
+      // Left to the next sweep
+      log.error("Failed to expire stock reservations {}: {}", reservationIds, e.getMessage(), e);
+      return 0;
+    }
+  }
+}
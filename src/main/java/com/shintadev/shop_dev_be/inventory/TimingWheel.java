@@ -0,0 +1,102 @@
+package com.shintadev.shop_dev_be.inventory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel of ids to expire.
+ * <p>
+ * Deadlines are rounded up to a tick and hashed into one of a fixed number of
+ * slots. Scheduling and cancelling are O(1), and advancing the wheel only
+ * looks at the slots of the ticks elapsed, instead of at every pending id.
+ * Deadlines further than a turn away stay in their slot until their tick.
+ */
+public class TimingWheel {
+
+  private final long tickMillis;
+  private final long startMillis;
+  private final List<Map<Long, Long>> slots;
+  private final Map<Long, Integer> slotById = new HashMap<>();
+  private long currentTick;
+
+  /**
+   * @param tickMillis the resolution of the wheel
+   * @param slotCount  the number of slots, a turn lasts
+   *                   {@code tickMillis * slotCount}
+   * @param nowMillis  the current time
+   */
+  public TimingWheel(long tickMillis, int slotCount, long nowMillis) {
+    if (tickMillis <= 0 || slotCount <= 0) {
+      throw new IllegalArgumentException("Tick and slot count must be positive");
+    }
+    this.tickMillis = tickMillis;
+    this.startMillis = nowMillis;
+    this.slots = new ArrayList<>(slotCount);
+    for (int i = 0; i < slotCount; i++) {
+      slots.add(new HashMap<>());
+    }
+  }
+
+  /**
+   * Schedule an id, replacing its previous deadline if any
+   *
+   * @param id             the id
+   * @param deadlineMillis when the id expires, a past deadline expires on the
+   *                       next tick
+   */
+  public synchronized void schedule(Long id, long deadlineMillis) {
+    cancel(id);
+    long tick = Math.max(Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis), currentTick + 1);
+    int slot = (int) (tick % slots.size());
+    slots.get(slot).put(id, tick);
+    slotById.put(id, slot);
+  }
+
+  /**
+   * Cancel an id
+   *
+   * @param id the id
+   * @return false if the id was not scheduled
+   */
+  public synchronized boolean cancel(Long id) {
+    Integer slot = slotById.remove(id);
+    return slot != null && slots.get(slot).remove(id) != null;
+  }
+
+  /**
+   * Advance the wheel to the current time
+   *
+   * @param nowMillis the current time
+   * @return the ids expired since the last call
+   */
+  public synchronized List<Long> advance(long nowMillis) {
+    long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+    List<Long> expired = new ArrayList<>();
+    // After a full turn every slot has been visited
+    long steps = Math.min(targetTick - currentTick, slots.size());
+    for (long step = 1; step <= steps; step++) {
+      Map<Long, Long> slot = slots.get((int) ((currentTick + step) % slots.size()));
+      Iterator<Map.Entry<Long, Long>> it = slot.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<Long, Long> entry = it.next();
+        if (entry.getValue() <= targetTick) {
+          expired.add(entry.getKey());
+          slotById.remove(entry.getKey());
+          it.remove();
+        }
+      }
+    }
+    currentTick = Math.max(currentTick, targetTick);
+    return expired;
+  }
+
+  /**
+   * @return the number of ids scheduled
+   */
+  public synchronized int size() {
+    return slotById.size();
+  }
+}
@@ -1,89 +1,196 @@
 package com.shintadev.shop_dev_be.kafka.consumer;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
 import com.shintadev.shop_dev_be.constant.kafka.EmailNotificationType;
-import com.shintadev.shop_dev_be.constant.kafka.KafkaMessageDataAttribute;
 import com.shintadev.shop_dev_be.constant.kafka.KafkaTopic;
+import com.shintadev.shop_dev_be.kafka.event.EmailNotificationEvent;
 import com.shintadev.shop_dev_be.service.common.EmailService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Consumer for email events
+ * Consumer for email events.
+ * <p>
+ * Records are consumed a batch at a time: the emails of a batch are sent in
+ * parallel and the batch is acknowledged once. An email that fails is handed
+ * over to the retry topic, and to the dead letter topic after
+ * {@link #MAX_ATTEMPTS} attempts. A record that cannot be decoded fails the
+ * batch at its index, so that the error handler commits the records before it
+ * and moves it to the dead letter topic.
  */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class EmailNotificationConsumer {
 
+  private static final int MAX_ATTEMPTS = 3;
+  private static final Duration RETRY_BACKOFF = Duration.ofSeconds(30);
+  private static final Duration SEND_TIMEOUT = Duration.ofSeconds(60);
+  private static final Duration FORWARD_TIMEOUT = Duration.ofSeconds(10);
+
   private final EmailService emailService;
+  private final KafkaTemplate<String, Object> kafkaTemplate;
 
   /**
    * Consumes email notification messages from the email notifications topic
-   * 
-   * @param messageData the message data
+   *
+   * @param events         the email notifications of the batch
+   * @param acknowledgment the acknowledgment of the batch
    */
-  @KafkaListener(topics = KafkaTopic.EMAIL_NOTIFICATIONS_TOPIC, groupId = "${spring.kafka.consumer.group-id}", containerFactory = "kafkaListenerContainerFactory")
-  public void consume(Map<String, Object> messageData, Acknowledgment acknowledgment) {
-    try {
-      log.info("Consuming email notification: {}", messageData.get(KafkaMessageDataAttribute.EMAIL_TYPE_KEY));
+  @KafkaListener(topics = KafkaTopic.EMAIL_NOTIFICATIONS_TOPIC, groupId = "${spring.kafka.consumer.group-id}", containerFactory = "batchKafkaListenerContainerFactory")
+  public void consume(List<EmailNotificationEvent> events, Acknowledgment acknowledgment) {
+    int undecodable = events.indexOf(null);
+    process(undecodable < 0 ? events : events.subList(0, undecodable));
+    if (undecodable >= 0) {
+      throw new BatchListenerFailedException("Failed to decode email notification", undecodable);
+    }
+    acknowledgment.acknowledge();
+  }
+
+  /**
+   * Consumes the email notifications to retry once their backoff is over. The
+   * batch is cut at the first retry still backing off: it is redelivered once
+   * due while the consumer is paused, without blocking its poll loop.
+   *
+   * @param events         the email notifications of the batch
+   * @param acknowledgment the acknowledgment of the batch
+   */
+  @KafkaListener(topics = KafkaTopic.EMAIL_NOTIFICATIONS_RETRY_TOPIC, groupId = "${spring.kafka.consumer.group-id}", containerFactory = "batchKafkaListenerContainerFactory")
+  public void consumeRetries(List<EmailNotificationEvent> events, Acknowledgment acknowledgment) {
+    int undecodable = events.indexOf(null);
+    List<EmailNotificationEvent> decoded = undecodable < 0 ? events : events.subList(0, undecodable);
+
+    // 1. Send the retries already due, they are queued in order
+    long now = System.currentTimeMillis();
+    int due = 0;
+    while (due < decoded.size() && decoded.get(due).retryAt() <= now) {
+      due++;
+    }
+    process(decoded.subList(0, due));
+
+    // 2. Commit them and seek back to the first one still backing off
+    if (due < decoded.size()) {
+      acknowledgment.nack(due, Duration.ofMillis(decoded.get(due).retryAt() - now));
+      return;
+    }
+    if (undecodable >= 0) {
+      throw new BatchListenerFailedException("Failed to decode email notification", undecodable);
+    }
+    acknowledgment.acknowledge();
+  }
+
+  private void process(List<EmailNotificationEvent> events) {
+    // 1. Group the events by type
+    Map<String, List<EmailNotificationEvent>> eventsByType = events.stream()
+        .collect(Collectors.groupingBy(
+            event -> String.valueOf(event.type()),
+            LinkedHashMap::new,
+            Collectors.toList()));
+
+    // 2. Send every email of the batch in parallel
+    List<EmailNotificationEvent> dispatched = new ArrayList<>(events.size());
+    List<CompletableFuture<Void>> futures = new ArrayList<>(events.size());
+    eventsByType.forEach((type, group) -> {
+      log.info("Consuming {} email notifications of type {}", group.size(), type);
+      for (EmailNotificationEvent event : group) {
+        dispatched.add(event);
+        futures.add(dispatch(type, event));
+      }
+    });
+
+    // 3. Wait for them, handing the failures over to the retry topic
+    long deadline = System.nanoTime() + SEND_TIMEOUT.toNanos();
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      } catch (ExecutionException | TimeoutException e) {
+        retry(dispatched.get(i), e.getCause() != null ? e.getCause() : e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while sending email notifications", e);
+      }
+    }
+  }
 
-      String type = (String) messageData.get(KafkaMessageDataAttribute.EMAIL_TYPE_KEY);
-      String recipientEmail = (String) messageData.get(KafkaMessageDataAttribute.RECIPIENT_EMAIL_KEY);
-      String recipientName = (String) messageData.get(KafkaMessageDataAttribute.RECIPIENT_NAME_KEY);
-      String subject = (String) messageData.get(KafkaMessageDataAttribute.SUBJECT_KEY);
+  private CompletableFuture<Void> dispatch(String type, EmailNotificationEvent event) {
+    String recipientEmail = event.recipientEmail();
+    String recipientName = event.recipientName();
+    String subject = event.subject();
 
+    try {
       switch (type) {
         case EmailNotificationType.VERIFICATION:
-          emailService.sendVerificationEmail(
+          return emailService.sendVerificationEmail(
               recipientEmail,
               recipientName,
               subject,
-              (String) messageData.get(KafkaMessageDataAttribute.VERIFICATION_LINK_KEY));
-          break;
+              event.verificationLink());
         case EmailNotificationType.PASSWORD_RESET:
-          emailService.sendPasswordResetEmail(
+          return emailService.sendPasswordResetEmail(
               recipientEmail,
               recipientName,
               subject,
-              (String) messageData.get(KafkaMessageDataAttribute.RESET_LINK_KEY));
-          break;
+              event.resetLink());
         case EmailNotificationType.WELCOME:
-          emailService.sendWelcomeEmail(recipientEmail, recipientName, subject);
-          break;
-        case EmailNotificationType.ORDER_CONFIRMATION:
-          emailService.sendOrderConfirmationEmail(
-              recipientEmail,
-              recipientName,
-              subject);
-          break;
-        case EmailNotificationType.ORDER_STATUS_UPDATE:
-          emailService.sendOrderStatusUpdateEmail(
-              recipientEmail,
-              recipientName,
-              subject,
-              (String) messageData.get(KafkaMessageDataAttribute.ORDER_STATUS_KEY));
-          break;
-        case EmailNotificationType.ORDER_CANCELLED:
-          emailService.sendOrderCancelledEmail(
-              recipientEmail,
-              recipientName,
-              subject);
-          break;
+          return emailService.sendWelcomeEmail(recipientEmail, recipientName, subject);
         default:
           log.warn("Invalid email type: {}", type);
+          return CompletableFuture.completedFuture(null);
       }
-
-      acknowledgment.acknowledge();
     } catch (Exception e) {
-      log.error("Error consuming email notification: {}", e.getMessage(), e);
-      // acknowledgment.nack(Duration.ofMillis(1000)); // Nack the message after 1 sec
+      // e.g. the template cannot be rendered
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Hand a failed email over to the retry topic, or to the dead letter topic
+   * once out of attempts. An email rejected by the saturated mail dispatcher
+   * is spilled to the retry topic without using an attempt.
+   */
+  private void retry(EmailNotificationEvent event, Throwable cause) {
+    boolean spilled = cause instanceof TaskRejectedException;
+    int attempts = spilled ? event.attempts() : event.attempts() + 1;
+    EmailNotificationEvent.EmailNotificationEventBuilder retried = event.toBuilder().attempts(attempts);
+
+    String topic;
+    if (attempts >= MAX_ATTEMPTS) {
+      topic = KafkaTopic.EMAIL_NOTIFICATIONS_DLT_TOPIC;
+      log.error("Email notification {} failed {} times, moving it to the dead letter topic: {}",
+          event.type(), attempts, cause.getMessage());
+    } else {
+      topic = KafkaTopic.EMAIL_NOTIFICATIONS_RETRY_TOPIC;
+      retried.retryAt(System.currentTimeMillis() + RETRY_BACKOFF.toMillis() * Math.max(attempts, 1));
+      log.warn("Email notification {} failed, retrying it: {}", event.type(), cause.getMessage());
+    }
+
+    // The batch is redelivered if the failure cannot be recorded
+    String key = String.valueOf(event.recipientEmail());
+    try {
+      kafkaTemplate.send(topic, key, retried.build()).get(FORWARD_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      throw new IllegalStateException("Failed to forward email notification to " + topic, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while forwarding email notification to " + topic, e);
     }
   }
 }
@@ -0,0 +1,58 @@
+package com.shintadev.shop_dev_be.kafka.consumer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.shintadev.shop_dev_be.constant.kafka.KafkaTopic;
+import com.shintadev.shop_dev_be.kafka.event.InventoryAdjustmentEvent;
+import com.shintadev.shop_dev_be.service.product.InventoryService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumer applying the stock changes of hot products to the database
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class InventoryAdjustmentConsumer {
+
+  private final InventoryService inventoryService;
+
+  @Value("${app.inventory.adjustment.retention:86400000}")
+  private long retention;
+
+  /**
+   * Consumes inventory adjustment messages from the inventory adjustments topic
+   * 
+   * @param event          the inventory adjustment
+   * @param acknowledgment the acknowledgment of the record
+   */
+  @KafkaListener(topics = KafkaTopic.INVENTORY_ADJUSTMENTS_TOPIC, groupId = "${spring.kafka.consumer.group-id}", containerFactory = "kafkaListenerContainerFactory")
+  public void consume(InventoryAdjustmentEvent event, Acknowledgment acknowledgment) {
+    // Redeliveries of an adjustment already applied are skipped, failures are
+    // retried by the container error handler, then dead-lettered
+    if (!inventoryService.applyAdjustment(event.adjustmentId(), event.productId(), event.quantity())) {
+      log.debug("Inventory adjustment {} already applied", event.adjustmentId());
+    }
+    acknowledgment.acknowledge();
+  }
+
+  /**
+   * Forget the adjustments applied long enough ago not to be redelivered
+   */
+  @Scheduled(fixedDelayString = "${app.inventory.adjustment.purge-interval:3600000}")
+  public void purgeAppliedAdjustments() {
+    int purged = inventoryService.purgeAppliedAdjustments(LocalDateTime.now().minus(Duration.ofMillis(retention)));
+    if (purged > 0) {
+      log.info("Purged {} applied inventory adjustments", purged);
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.shintadev.shop_dev_be.kafka.consumer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import com.shintadev.shop_dev_be.constant.kafka.EmailNotificationType;
+import com.shintadev.shop_dev_be.constant.kafka.KafkaTopic;
+import com.shintadev.shop_dev_be.kafka.event.OrderNotificationEvent;
+import com.shintadev.shop_dev_be.kafka.event.OrderSnapshot;
+import com.shintadev.shop_dev_be.service.common.EmailService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumer for order notifications.
+ * <p>
+ * Records are consumed a window at a time, keyed by user, so that the status
+ * updates of a customer within the window are coalesced: only the latest
+ * status of each order is kept, none for the orders cancelled meanwhile, and
+ * the customer gets a single email for all of them. Confirmations and
+ * cancellations are always sent on their own. The orders are read from the
+ * events, never from the database. A record that cannot be decoded ends the
+ * window at its index, so that the error handler commits the records before
+ * it and moves it to the dead letter topic.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class OrderNotificationConsumer {
+
+  private static final int MAX_ATTEMPTS = 3;
+  private static final Duration SEND_TIMEOUT = Duration.ofSeconds(60);
+  private static final Duration FORWARD_TIMEOUT = Duration.ofSeconds(10);
+
+  private final EmailService emailService;
+  private final KafkaTemplate<String, Object> kafkaTemplate;
+
+  /**
+   * Consumes the order notifications of a window
+   *
+   * @param events         the order notifications of the window
+   * @param acknowledgment the acknowledgment of the batch
+   */
+  @KafkaListener(topics = KafkaTopic.ORDER_NOTIFICATIONS_TOPIC, groupId = "${spring.kafka.consumer.group-id}", containerFactory = "coalescingKafkaListenerContainerFactory")
+  public void consume(List<OrderNotificationEvent> events, Acknowledgment acknowledgment) {
+    int undecodable = events.indexOf(null);
+    List<Notification> notifications = coalesce(undecodable < 0 ? events : events.subList(0, undecodable));
+
+    // 1. Send every email of the window in parallel
+    List<CompletableFuture<Void>> futures = new ArrayList<>(notifications.size());
+    for (Notification notification : notifications) {
+      futures.add(send(notification));
+    }
+
+    // 2. Wait for them, publishing the failures again
+    long deadline = System.nanoTime() + SEND_TIMEOUT.toNanos();
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      } catch (ExecutionException | TimeoutException e) {
+        retry(notifications.get(i), e.getCause() != null ? e.getCause() : e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while sending order notifications", e);
+      }
+    }
+
+    if (undecodable >= 0) {
+      throw new BatchListenerFailedException("Failed to decode order notification", undecodable);
+    }
+    acknowledgment.acknowledge();
+  }
+
+  private List<Notification> coalesce(List<OrderNotificationEvent> events) {
+    List<Notification> notifications = new ArrayList<>();
+
+    // 1. Confirmations and cancellations are sent one per order
+    Set<Long> cancelledOrderIds = new HashSet<>();
+    for (OrderNotificationEvent event : events) {
+      if (EmailNotificationType.ORDER_CANCELLED.equals(event.type())) {
+        cancelledOrderIds.add(event.order().id());
+      }
+      if (!EmailNotificationType.ORDER_STATUS_UPDATE.equals(event.type())) {
+        notifications.add(new Notification(event.type(), List.of(event)));
+      }
+    }
+
+    // 2. Keep the latest update of each order not cancelled meanwhile
+    Map<Long, OrderNotificationEvent> latestByOrder = new LinkedHashMap<>();
+    for (OrderNotificationEvent event : events) {
+      if (EmailNotificationType.ORDER_STATUS_UPDATE.equals(event.type())
+          && !cancelledOrderIds.contains(event.order().id())) {
+        latestByOrder.merge(event.order().id(), event,
+            (previous, current) -> current.occurredAt() >= previous.occurredAt() ? current : previous);
+      }
+    }
+
+    // 3. Send a single update per customer
+    Map<Long, List<OrderNotificationEvent>> updatesByUser = new LinkedHashMap<>();
+    for (OrderNotificationEvent event : latestByOrder.values()) {
+      updatesByUser.computeIfAbsent(event.userId(), userId -> new ArrayList<>()).add(event);
+    }
+    updatesByUser.values().forEach(updates -> {
+      updates.sort(Comparator.comparingLong(OrderNotificationEvent::occurredAt));
+      notifications.add(new Notification(EmailNotificationType.ORDER_STATUS_UPDATE, updates));
+    });
+
+    log.info("Coalesced {} order notifications into {} emails", events.size(), notifications.size());
+    return notifications;
+  }
+
+  private CompletableFuture<Void> send(Notification notification) {
+    OrderNotificationEvent first = notification.events().get(0);
+    String recipientEmail = first.recipientEmail();
+    String recipientName = first.recipientName();
+
+    try {
+      switch (notification.type()) {
+        case EmailNotificationType.ORDER_CONFIRMATION:
+          return emailService.sendOrderConfirmationEmail(
+              recipientEmail,
+              recipientName,
+              "Order confirmation - " + first.order().orderNumber(),
+              first.order());
+        case EmailNotificationType.ORDER_CANCELLED:
+          return emailService.sendOrderCancelledEmail(
+              recipientEmail,
+              recipientName,
+              "Order cancelled - " + first.order().orderNumber(),
+              first.order());
+        case EmailNotificationType.ORDER_STATUS_UPDATE:
+          List<OrderSnapshot> orders = notification.events().stream()
+              .map(OrderNotificationEvent::order)
+              .toList();
+          return emailService.sendOrderStatusUpdateEmail(
+              recipientEmail,
+              recipientName,
+              orders.size() == 1
+                  ? "Order update - " + first.order().orderNumber()
+                  : "Updates on " + orders.size() + " of your orders",
+              orders);
+        default:
+          log.warn("Invalid order notification type: {}", notification.type());
+          return CompletableFuture.completedFuture(null);
+      }
+    } catch (Exception e) {
+      // e.g. the template cannot be rendered
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Publish the events of a failed email again, to be coalesced with the next
+   * window, or to the dead letter topic once out of attempts. An email
+   * rejected by the saturated mail dispatcher is published again without
+   * using an attempt.
+   */
+  private void retry(Notification notification, Throwable cause) {
+    boolean spilled = cause instanceof TaskRejectedException;
+    for (OrderNotificationEvent event : notification.events()) {
+      int attempts = spilled ? event.attempts() : event.attempts() + 1;
+
+      String topic;
+      if (attempts >= MAX_ATTEMPTS) {
+        topic = KafkaTopic.EMAIL_NOTIFICATIONS_DLT_TOPIC;
+        log.error("Order notification {} of order {} failed {} times, moving it to the dead letter topic: {}",
+            event.type(), event.order().id(), attempts, cause.getMessage());
+      } else {
+        topic = KafkaTopic.ORDER_NOTIFICATIONS_TOPIC;
+        log.warn("Order notification {} of order {} failed, retrying it: {}",
+            event.type(), event.order().id(), cause.getMessage());
+      }
+
+      // The batch is redelivered if the failure cannot be recorded
+      String key = String.valueOf(event.userId());
+      try {
+        kafkaTemplate.send(topic, key, event.toBuilder().attempts(attempts).build())
+            .get(FORWARD_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+      } catch (ExecutionException | TimeoutException e) {
+        throw new IllegalStateException("Failed to forward order notification to " + topic, e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while forwarding order notification to " + topic, e);
+      }
+    }
+  }
+
+  /**
+   * An email to send
+   *
+   * @param type   the type of the email
+   * @param events the events it covers, all of the same customer
+   */
+  private record Notification(String type, List<OrderNotificationEvent> events) {
+  }
+}
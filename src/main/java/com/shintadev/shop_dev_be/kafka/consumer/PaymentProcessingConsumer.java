@@ -1,5 +1,173 @@
 package com.shintadev.shop_dev_be.kafka.consumer;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import com.shintadev.shop_dev_be.constant.kafka.KafkaTopic;
+import com.shintadev.shop_dev_be.kafka.event.PaymentProcessingEvent;
+import com.shintadev.shop_dev_be.payment.ChargeRequest;
+import com.shintadev.shop_dev_be.payment.ChargeResult;
+import com.shintadev.shop_dev_be.payment.PaymentGateway;
+import com.shintadev.shop_dev_be.service.order.PaymentService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumer charging the payments of new orders.
+ * <p>
+ * Messages are keyed by order, so the payments of an order are handled in
+ * order by a single consumer while partitions are processed in parallel.
+ * Within a batch the charges are made concurrently and their outcomes
+ * recorded together. Redeliveries are harmless: settled payments are skipped
+ * and the gateway dedupes charges on the transaction id of the payment.
+ * Charges approved once their payment stopped processing are refunded. A
+ * record that cannot be decoded fails the batch at its index, so that the
+ * error handler commits the records before it and moves it to the dead letter
+ * topic.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
 public class PaymentProcessingConsumer {
 
+  private static final Duration CHARGE_TIMEOUT = Duration.ofSeconds(30);
+
+  private final PaymentService paymentService;
+  private final PaymentGateway paymentGateway;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Consumes payment processing messages from the payment processing topic
+   *
+   * @param events         the payments of the batch
+   * @param acknowledgment the acknowledgment of the batch
+   */
+  @KafkaListener(topics = KafkaTopic.PAYMENT_PROCESSING_TOPIC, groupId = "${spring.kafka.consumer.group-id}", containerFactory = "batchKafkaListenerContainerFactory")
+  public void consume(List<PaymentProcessingEvent> events, Acknowledgment acknowledgment) {
+    // 1. Claim the payments still to charge, up to the first record that
+    // cannot be decoded
+    int undecodable = events.indexOf(null);
+    List<PaymentProcessingEvent> payments = undecodable < 0 ? events : events.subList(0, undecodable);
+    Set<String> transactionIds = payments.stream()
+        .map(PaymentProcessingEvent::transactionId)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+    Set<Long> orderIds = payments.stream()
+        .map(PaymentProcessingEvent::orderId)
+        .collect(Collectors.toSet());
+    List<ChargeRequest> charges = paymentService.startProcessing(orderIds, transactionIds);
+
+    // 2. Charge them all before waiting for any outcome
+    List<CompletableFuture<ChargeResult>> futures = new ArrayList<>(charges.size());
+    for (ChargeRequest charge : charges) {
+      futures.add(charge(charge));
+    }
+
+    // 3. Collect the outcomes
+    Map<ChargeRequest, ChargeResult> results = new LinkedHashMap<>();
+    Throwable failure = null;
+    long deadline = System.nanoTime() + CHARGE_TIMEOUT.toNanos();
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        results.put(charges.get(i), futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+      } catch (ExecutionException | TimeoutException e) {
+        failure = e.getCause() != null ? e.getCause() : e;
+        log.warn("Failed to charge payment {} of order {}: {}",
+            charges.get(i).idempotencyKey(), charges.get(i).orderId(), failure.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = e;
+        break;
+      }
+    }
+
+    // 4. Record the known outcomes at once, and refund the charges that can
+    // no longer be recorded
+    if (!results.isEmpty()) {
+      refund(paymentService.completeProcessing(results));
+    }
+
+    // 5. Payments with an unknown outcome stay processing and the batch is
+    // redelivered to charge them again
+    if (failure != null) {
+      throw new IllegalStateException("Failed to charge " + (charges.size() - results.size()) + " payments", failure);
+    }
+    if (undecodable >= 0) {
+      throw new BatchListenerFailedException("Failed to decode payment processing event", undecodable);
+    }
+    acknowledgment.acknowledge();
+  }
+
+  private CompletableFuture<ChargeResult> charge(ChargeRequest charge) {
+    try {
+      return paymentGateway.charge(charge);
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Refund charges, those that cannot be refunded are left to be refunded by
+   * hand
+   */
+  private void refund(Map<ChargeRequest, ChargeResult> charges) {
+    if (charges.isEmpty()) {
+      return;
+    }
+
+    // 1. Refund them all before waiting for any outcome
+    Map<ChargeRequest, CompletableFuture<ChargeResult>> futures = new LinkedHashMap<>();
+    charges.forEach((charge, result) -> {
+      CompletableFuture<ChargeResult> future;
+      try {
+        future = paymentGateway.refund(charge, result.reference());
+      } catch (Exception e) {
+        future = CompletableFuture.failedFuture(e);
+      }
+      futures.put(charge, future);
+    });
+
+    // 2. Record the refunds, flag the others
+    List<String> refunded = new ArrayList<>();
+    long deadline = System.nanoTime() + CHARGE_TIMEOUT.toNanos();
+    for (Map.Entry<ChargeRequest, CompletableFuture<ChargeResult>> entry : futures.entrySet()) {
+      ChargeRequest charge = entry.getKey();
+      String failure;
+      try {
+        ChargeResult refund = entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        failure = refund.approved() ? null : refund.message();
+      } catch (ExecutionException | TimeoutException e) {
+        failure = (e.getCause() != null ? e.getCause() : e).getMessage();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = "interrupted";
+      }
+
+      if (failure == null) {
+        refunded.add(charge.idempotencyKey());
+        meterRegistry.counter("payment.refunds", "result", "refunded").increment();
+      } else {
+        log.error("Failed to refund payment {} of order {}, it must be refunded by hand: {}",
+            charge.idempotencyKey(), charge.orderId(), failure);
+        meterRegistry.counter("payment.refunds", "result", "failed").increment();
+      }
+    }
+    paymentService.recordRefunds(refunded);
+  }
 }
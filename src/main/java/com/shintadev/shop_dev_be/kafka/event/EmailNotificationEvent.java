@@ -0,0 +1,29 @@
+package com.shintadev.shop_dev_be.kafka.event;
+
+import lombok.Builder;
+
+/**
+ * An email to send, the fields used depend on its type
+ *
+ * @param type             the type, one of {@code EmailNotificationType}
+ * @param recipientEmail   the email address of the recipient
+ * @param recipientName    the name of the recipient
+ * @param subject          the subject
+ * @param verificationLink the verification link of a verification email
+ * @param resetLink        the reset link of a password reset email
+ * @param orderStatus      the order status of an order status update email
+ * @param attempts         the number of failed attempts to send it
+ * @param retryAt          when to retry it, in epoch milliseconds
+ */
+@Builder(toBuilder = true)
+public record EmailNotificationEvent(
+    String type,
+    String recipientEmail,
+    String recipientName,
+    String subject,
+    String verificationLink,
+    String resetLink,
+    String orderStatus,
+    int attempts,
+    long retryAt) {
+}
@@ -0,0 +1,11 @@
+package com.shintadev.shop_dev_be.kafka.event;
+
+/**
+ * A stock change of a hot product to apply to the database
+ *
+ * @param adjustmentId the id of the adjustment, to skip redeliveries
+ * @param productId    the id of the product
+ * @param quantity     the quantity to add, negative to remove
+ */
+public record InventoryAdjustmentEvent(String adjustmentId, Long productId, int quantity) {
+}
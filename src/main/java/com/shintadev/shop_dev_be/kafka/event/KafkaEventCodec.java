@@ -0,0 +1,106 @@
+package com.shintadev.shop_dev_be.kafka.event;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+
+/**
+ * Binary encoding of the Kafka events.
+ * <p>
+ * Events are written as Avro, with schemas derived from the event records at
+ * startup, so no field name goes on the wire. Each message starts with a magic
+ * byte and the id of its schema in {@link #EVENT_TYPES}, which stands in for a
+ * schema registry.
+ */
+public class KafkaEventCodec {
+
+  private static final byte MAGIC_BYTE = 0;
+  private static final int HEADER_SIZE = 2;
+
+  /**
+   * The event types, the position of a type is its schema id: append new
+   * types, and give a changed record a new type rather than editing it
+   */
+  private static final List<Class<?>> EVENT_TYPES = List.of(
+      EmailNotificationEvent.class,
+      PaymentProcessingEvent.class,
+      InventoryAdjustmentEvent.class,
+      OrderNotificationEvent.class);
+
+  private final Map<Class<?>, Integer> schemaIds = new HashMap<>();
+  private final Map<Class<?>, ObjectWriter> writers = new HashMap<>();
+  private final List<ObjectReader> readers = new ArrayList<>();
+
+  public KafkaEventCodec() {
+    AvroMapper mapper = new AvroMapper();
+    for (int schemaId = 0; schemaId < EVENT_TYPES.size(); schemaId++) {
+      Class<?> type = EVENT_TYPES.get(schemaId);
+      AvroSchema schema;
+      try {
+        schema = mapper.schemaFor(type);
+      } catch (JsonMappingException e) {
+        throw new IllegalStateException("Cannot derive the Avro schema of " + type.getName(), e);
+      }
+      schemaIds.put(type, schemaId);
+      writers.put(type, mapper.writer(schema));
+      readers.add(mapper.readerFor(type).with(schema));
+    }
+  }
+
+  /**
+   * Encode an event
+   *
+   * @param event the event
+   * @return the encoded event
+   * @throws IllegalArgumentException if the event type is unknown
+   */
+  public byte[] encode(Object event) {
+    Integer schemaId = schemaIds.get(event.getClass());
+    if (schemaId == null) {
+      throw new IllegalArgumentException("Unknown Kafka event type " + event.getClass().getName());
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+    out.write(MAGIC_BYTE);
+    out.write(schemaId);
+    try {
+      writers.get(event.getClass()).writeValue(out, event);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot encode " + event.getClass().getSimpleName(), e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Decode an event
+   *
+   * @param data the encoded event
+   * @return the event
+   * @throws IllegalArgumentException if the data is not an encoded event
+   */
+  public Object decode(byte[] data) {
+    if (data.length < HEADER_SIZE || data[0] != MAGIC_BYTE) {
+      throw new IllegalArgumentException("Not an encoded Kafka event");
+    }
+    int schemaId = data[1] & 0xff;
+    if (schemaId >= readers.size()) {
+      throw new IllegalArgumentException("Unknown Kafka event schema " + schemaId);
+    }
+
+    try {
+      return readers.get(schemaId).readValue(data, HEADER_SIZE, data.length - HEADER_SIZE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot decode " + EVENT_TYPES.get(schemaId).getSimpleName(), e);
+    }
+  }
+}
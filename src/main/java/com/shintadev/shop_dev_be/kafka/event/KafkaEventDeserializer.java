@@ -0,0 +1,28 @@
+package com.shintadev.shop_dev_be.kafka.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka deserializer of the events
+ */
+public class KafkaEventDeserializer implements Deserializer<Object> {
+
+  private final KafkaEventCodec codec;
+
+  public KafkaEventDeserializer(KafkaEventCodec codec) {
+    this.codec = codec;
+  }
+
+  @Override
+  public Object deserialize(String topic, byte[] data) {
+    if (data == null) {
+      return null;
+    }
+    try {
+      return codec.decode(data);
+    } catch (RuntimeException e) {
+      throw new SerializationException("Cannot deserialize event from topic " + topic, e);
+    }
+  }
+}
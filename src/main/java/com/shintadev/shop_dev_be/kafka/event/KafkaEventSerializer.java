@@ -0,0 +1,32 @@
+package com.shintadev.shop_dev_be.kafka.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka serializer of the events, payloads already encoded (e.g. by the
+ * outbox) are sent as is
+ */
+public class KafkaEventSerializer implements Serializer<Object> {
+
+  private final KafkaEventCodec codec;
+
+  public KafkaEventSerializer(KafkaEventCodec codec) {
+    this.codec = codec;
+  }
+
+  @Override
+  public byte[] serialize(String topic, Object data) {
+    if (data == null) {
+      return null;
+    }
+    if (data instanceof byte[] encoded) {
+      return encoded;
+    }
+    try {
+      return codec.encode(data);
+    } catch (RuntimeException e) {
+      throw new SerializationException("Cannot serialize event for topic " + topic, e);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.shintadev.shop_dev_be.kafka.event;
+
+import lombok.Builder;
+
+/**
+ * An email to send to a customer about one of their orders
+ *
+ * @param type           the type, one of the order types of
+ *                       {@code EmailNotificationType}
+ * @param userId         the id of the customer
+ * @param recipientEmail the email address of the customer
+ * @param recipientName  the name of the customer
+ * @param order          the order, as of the event
+ * @param occurredAt     when the event occurred, in epoch milliseconds
+ * @param attempts       the number of failed attempts to send it
+ */
+@Builder(toBuilder = true)
+public record OrderNotificationEvent(
+    String type,
+    Long userId,
+    String recipientEmail,
+    String recipientName,
+    OrderSnapshot order,
+    long occurredAt,
+    int attempts) {
+}
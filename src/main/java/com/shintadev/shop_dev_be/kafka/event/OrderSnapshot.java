@@ -0,0 +1,38 @@
+package com.shintadev.shop_dev_be.kafka.event;
+
+import java.util.List;
+
+/**
+ * The state of an order when a notification about it was published, so that
+ * the notification can be sent without reading the order again. Amounts are
+ * formatted.
+ *
+ * @param id          the id of the order
+ * @param orderNumber the order number
+ * @param status      the status of the order
+ * @param subtotal    the subtotal
+ * @param shippingFee the shipping fee
+ * @param tax         the tax
+ * @param totalPrice  the total price
+ * @param items       the items of the order
+ */
+public record OrderSnapshot(
+    Long id,
+    String orderNumber,
+    String status,
+    String subtotal,
+    String shippingFee,
+    String tax,
+    String totalPrice,
+    List<Item> items) {
+
+  /**
+   * An item of the order
+   *
+   * @param productName the name of the product
+   * @param quantity    the quantity
+   * @param subtotal    the subtotal of the item
+   */
+  public record Item(String productName, int quantity, String subtotal) {
+  }
+}
@@ -0,0 +1,11 @@
+package com.shintadev.shop_dev_be.kafka.event;
+
+/**
+ * A payment to process
+ *
+ * @param orderId       the id of the order
+ * @param transactionId the transaction id of the payment, which deduplicates
+ *                      its processing
+ */
+public record PaymentProcessingEvent(Long orderId, String transactionId) {
+}
@@ -1,61 +1,138 @@
 package com.shintadev.shop_dev_be.kafka.producer;
 
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.List;
 
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
-import com.shintadev.shop_dev_be.constant.kafka.KafkaMessageDataAttribute;
 import com.shintadev.shop_dev_be.constant.kafka.KafkaTopic;
+import com.shintadev.shop_dev_be.domain.model.entity.order.Order;
+import com.shintadev.shop_dev_be.domain.model.entity.outbox.OutboxMessage;
+import com.shintadev.shop_dev_be.domain.model.entity.user.User;
+import com.shintadev.shop_dev_be.domain.model.enums.order.OrderStatus;
+import com.shintadev.shop_dev_be.kafka.event.EmailNotificationEvent;
+import com.shintadev.shop_dev_be.kafka.event.InventoryAdjustmentEvent;
+import com.shintadev.shop_dev_be.kafka.event.KafkaEventCodec;
+import com.shintadev.shop_dev_be.kafka.event.OrderNotificationEvent;
+import com.shintadev.shop_dev_be.kafka.event.OrderSnapshot;
+import com.shintadev.shop_dev_be.kafka.event.PaymentProcessingEvent;
+import com.shintadev.shop_dev_be.repository.outbox.OutboxMessageRepo;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Producer for email events
+ * Producer for Kafka messages.
+ * <p>
+ * Messages are encoded and written to the outbox, within the current
+ * transaction if any, and published by the {@link OutboxRelay} once committed:
+ * a rolled back transaction sends nothing, and a slow broker does not block
+ * the caller.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class MessageProducer {
 
-  private final KafkaTemplate<String, Map<String, Object>> kafkaTemplate;
+  private final OutboxMessageRepo outboxMessageRepo;
+  private final KafkaEventCodec kafkaEventCodec;
 
   /**
    * Sends an email notification message
    * 
-   * @param messageData the message data
+   * @param event the email notification
    */
-  public void sendEmailNotification(Map<String, Object> messageData) {
-    log.info("Sending email notification to: {}", messageData.get(KafkaMessageDataAttribute.EMAIL_TYPE_KEY));
-    sendMessageWithCallback(KafkaTopic.EMAIL_NOTIFICATIONS_TOPIC,
-        messageData.get(KafkaMessageDataAttribute.RECIPIENT_EMAIL_KEY), messageData);
+  public void sendEmailNotification(EmailNotificationEvent event) {
+    log.info("Sending email notification to: {}", event.type());
+    enqueue(KafkaTopic.EMAIL_NOTIFICATIONS_TOPIC, event.recipientEmail(), event);
   }
 
   /**
    * Sends a payment processing message
    * 
-   * @param messageData the message data
+   * @param event the payment to process
    */
-  public void sendPaymentProcessingMessage(Map<String, Object> messageData) {
-    log.info("Sending payment processing message to: {}", messageData.get(KafkaMessageDataAttribute.ORDER_ID_KEY));
-    sendMessageWithCallback(KafkaTopic.PAYMENT_PROCESSING_TOPIC,
-        messageData.get(KafkaMessageDataAttribute.ORDER_ID_KEY), messageData);
-  }
-
-  private void sendMessageWithCallback(String topic, Object key, Map<String, Object> messageData) {
-    CompletableFuture<SendResult<String, Map<String, Object>>> future = kafkaTemplate.send(topic, key.toString(),
-        messageData);
-
-    future.whenComplete((result, ex) -> {
-      if (ex == null) {
-        log.debug("Message sent successfully to topic {}: key={}, partition={}, offset={}",
-            topic, key, result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
-      } else {
-        log.error("Failed to send message to topic {} with key {}", topic, key, ex);
-      }
-    });
+  public void sendPaymentProcessingMessage(PaymentProcessingEvent event) {
+    log.info("Sending payment processing message to: {}", event.orderId());
+    enqueue(KafkaTopic.PAYMENT_PROCESSING_TOPIC, event.orderId(), event);
+  }
+
+  /**
+   * Sends an inventory adjustment message, keyed by product so that the
+   * adjustments of a product are applied in order
+   * 
+   * @param event the inventory adjustment
+   */
+  public void sendInventoryAdjustment(InventoryAdjustmentEvent event) {
+    log.debug("Sending inventory adjustment for product: {}", event.productId());
+    enqueue(KafkaTopic.INVENTORY_ADJUSTMENTS_TOPIC, event.productId(), event);
+  }
+
+  /**
+   * Sends an order notification message, keyed by user so that the
+   * notifications of a user can be coalesced
+   * 
+   * @param event the order notification
+   */
+  public void sendOrderNotification(OrderNotificationEvent event) {
+    log.debug("Sending order notification {} for order: {}", event.type(), event.order().id());
+    enqueue(KafkaTopic.ORDER_NOTIFICATIONS_TOPIC, event.userId(), event);
+  }
+
+  /**
+   * Email the customer about an order, once the order is committed. The order
+   * travels with the notification so that sending it reads nothing back.
+   * 
+   * @param type  the type of the notification
+   * @param order the order
+   */
+  public void sendOrderNotification(String type, Order order) {
+    sendOrderNotification(type, order, order.getStatus());
+  }
+
+  /**
+   * Email the customer about an order whose status was changed by a bulk
+   * update, which the loaded order does not reflect
+   * 
+   * @param type   the type of the notification
+   * @param order  the order
+   * @param status the status of the order
+   */
+  public void sendOrderNotification(String type, Order order, OrderStatus status) {
+    User user = order.getUser();
+    sendOrderNotification(OrderNotificationEvent.builder()
+        .type(type)
+        .userId(user.getId())
+        .recipientEmail(user.getEmail())
+        .recipientName(user.getDisplayName())
+        .order(toSnapshot(order, status))
+        .occurredAt(System.currentTimeMillis())
+        .build());
+  }
+
+  private OrderSnapshot toSnapshot(Order order, OrderStatus status) {
+    List<OrderSnapshot.Item> items = order.getItems().stream()
+        .map(item -> new OrderSnapshot.Item(
+            item.getProduct().getName(),
+            item.getQuantity(),
+            item.getSubtotal().toPlainString()))
+        .toList();
+
+    return new OrderSnapshot(
+        order.getId(),
+        order.getOrderNumber(),
+        status.name(),
+        order.getSubtotal().toPlainString(),
+        order.getShippingFee().toPlainString(),
+        order.getTax().toPlainString(),
+        order.getTotalPrice().toPlainString(),
+        items);
+  }
+
+  private void enqueue(String topic, Object key, Object event) {
+    outboxMessageRepo.save(OutboxMessage.builder()
+        .topic(topic)
+        .messageKey(key.toString())
+        .payload(kafkaEventCodec.encode(event))
+        .build());
   }
 }
@@ -0,0 +1,179 @@
+package com.shintadev.shop_dev_be.kafka.producer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.shintadev.shop_dev_be.domain.model.entity.outbox.OutboxMessage;
+import com.shintadev.shop_dev_be.repository.outbox.OutboxMessageRepo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes the outbox to Kafka.
+ * <p>
+ * The oldest messages are read a batch at a time and their encoded payloads
+ * sent all at once, so the producer groups them per partition, then the
+ * acknowledged ones are deleted in a single statement. Delivery is at least
+ * once: a message whose deletion fails is sent again. One node relays at a
+ * time.
+ * <p>
+ * The messages of a key are kept in order. The idempotent producer never
+ * writes a message to a partition before its predecessor, and once a message
+ * of a key fails, the later messages of that key in the batch are kept in the
+ * outbox even if acknowledged, to be sent again after it.
+ * <p>
+ * Messages are read in id order, which is the order of their inserts, not of
+ * their commits: a transaction may commit after a later one, and its message
+ * is then relayed after the later one's. Messages of a key are only in commit
+ * order if their transactions are serialized, e.g. by the row lock of the
+ * order the key designates. Inventory adjustments, keyed by hot product
+ * without a row lock, may be reordered, which is harmless for deltas.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+  private static final String LOCK_KEY = "outbox:relay";
+
+  private final OutboxMessageRepo outboxMessageRepo;
+  private final KafkaTemplate<String, Object> kafkaTemplate;
+  private final RedissonClient redissonClient;
+  private final int batchSize;
+  private final long sendTimeout;
+
+  private final Counter sent;
+  private final Counter failed;
+  private final Timer latency;
+  private final DistributionSummary batchSizes;
+
+  public OutboxRelay(
+      OutboxMessageRepo outboxMessageRepo,
+      KafkaTemplate<String, Object> kafkaTemplate,
+      RedissonClient redissonClient,
+      MeterRegistry meterRegistry,
+      @Value("${app.outbox.batch-size:500}") int batchSize,
+      @Value("${app.outbox.send-timeout:10000}") long sendTimeout) {
+    this.outboxMessageRepo = outboxMessageRepo;
+    this.kafkaTemplate = kafkaTemplate;
+    this.redissonClient = redissonClient;
+    this.batchSize = batchSize;
+    this.sendTimeout = sendTimeout;
+
+    this.sent = Counter.builder("outbox.messages")
+        .tag("result", "sent")
+        .description("Outbox messages published")
+        .register(meterRegistry);
+    this.failed = Counter.builder("outbox.messages")
+        .tag("result", "failed")
+        .description("Outbox messages whose publication failed, retried on the next poll")
+        .register(meterRegistry);
+    this.latency = Timer.builder("outbox.latency")
+        .description("Time from the write of a message to its acknowledgement by Kafka")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+    this.batchSizes = DistributionSummary.builder("outbox.batch.size")
+        .description("Messages read per relay batch")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Publish the pending messages, batch after batch until the outbox is
+   * drained or a batch fails
+   */
+  @Scheduled(fixedDelayString = "${app.outbox.poll-interval:500}")
+  public void relay() {
+    RLock lock = redissonClient.getLock(LOCK_KEY);
+    if (!lock.tryLock()) {
+      // Another node is relaying
+      return;
+    }
+
+    try {
+      int published;
+      do {
+        published = relayBatch();
+      } while (published == batchSize);
+    } catch (Exception e) {
+      log.error("Failed to relay the outbox: {}", e.getMessage(), e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int relayBatch() {
+    List<OutboxMessage> messages = outboxMessageRepo.findOldest(PageRequest.of(0, batchSize));
+    if (messages.isEmpty()) {
+      return 0;
+    }
+    batchSizes.record(messages.size());
+
+    // 1. Send the whole batch before waiting for any acknowledgement
+    List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(messages.size());
+    for (OutboxMessage message : messages) {
+      futures.add(send(message));
+    }
+
+    // 2. Collect the acknowledgements, in order, up to the first failure of
+    // each key
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeout);
+    List<Long> acknowledged = new ArrayList<>(messages.size());
+    Set<String> failedKeys = new HashSet<>();
+    for (int i = 0; i < messages.size(); i++) {
+      OutboxMessage message = messages.get(i);
+      String key = message.getTopic() + ":" + message.getMessageKey();
+      if (failedKeys.contains(key)) {
+        failed.increment();
+        continue;
+      }
+      try {
+        futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        acknowledged.add(message.getId());
+        latency.record(Duration.between(message.getCreatedAt(), LocalDateTime.now()));
+      } catch (ExecutionException | TimeoutException e) {
+        failed.increment();
+        failedKeys.add(key);
+        log.warn("Failed to publish outbox message {} to topic {}: {}",
+            message.getId(), message.getTopic(), e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    // 3. Delete what was delivered
+    if (!acknowledged.isEmpty()) {
+      outboxMessageRepo.deleteAllByIdInBatch(acknowledged);
+      sent.increment(acknowledged.size());
+    }
+    return acknowledged.size();
+  }
+
+  private CompletableFuture<SendResult<String, Object>> send(OutboxMessage message) {
+    try {
+      return kafkaTemplate.send(message.getTopic(), message.getMessageKey(), message.getPayload());
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+}
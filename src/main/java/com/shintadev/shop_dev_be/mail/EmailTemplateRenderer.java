@@ -0,0 +1,115 @@
+package com.shintadev.shop_dev_be.mail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renders email templates, running Thymeleaf once per template.
+ * <p>
+ * On first use a template is rendered with a marker in place of each
+ * variable, fragments included, and the output split around the markers.
+ * Each email then only concatenates the static parts with its escaped
+ * variables. Variables must therefore be output as text or attribute values,
+ * never drive a condition or an iteration. Repeated content, such as the rows
+ * of a table, is rendered from its own template and passed as a variable
+ * whose name ends with "Html", output with {@code th:utext} and inserted as
+ * is.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailTemplateRenderer {
+
+  private static final String MARKER_PREFIX = "__emailvar_";
+  private static final String MARKER_SUFFIX = "__";
+  private static final String RAW_SUFFIX = "Html";
+  private static final Pattern MARKER = Pattern.compile(
+      Pattern.quote(MARKER_PREFIX) + "(\\w+)" + Pattern.quote(MARKER_SUFFIX));
+
+  private final TemplateEngine templateEngine;
+  private final ConcurrentMap<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
+
+  /**
+   * Render a template
+   *
+   * @param template  the name of the template
+   * @param variables the value of each variable, escaped when rendered unless
+   *                  its name ends with "Html", null values render as empty
+   * @return the HTML
+   * @throws IllegalStateException if a variable is not output by the template
+   */
+  public String render(String template, Map<String, String> variables) {
+    return templates.computeIfAbsent(template, name -> compile(name, variables.keySet()))
+        .render(variables);
+  }
+
+  private CompiledTemplate compile(String template, Set<String> variableNames) {
+    // 1. Render the template with markers as variables
+    Context context = new Context();
+    for (String variableName : variableNames) {
+      context.setVariable(variableName, MARKER_PREFIX + variableName + MARKER_SUFFIX);
+    }
+    String html = templateEngine.process(template, context);
+
+    // 2. Split the output around the markers
+    List<String> segments = new ArrayList<>();
+    List<String> slots = new ArrayList<>();
+    Matcher matcher = MARKER.matcher(html);
+    int from = 0;
+    while (matcher.find()) {
+      segments.add(html.substring(from, matcher.start()));
+      slots.add(matcher.group(1));
+      from = matcher.end();
+    }
+    segments.add(html.substring(from));
+
+    for (String variableName : variableNames) {
+      if (!slots.contains(variableName)) {
+        throw new IllegalStateException("Variable " + variableName + " is not output by template " + template);
+      }
+    }
+
+    log.debug("Compiled email template {} with {} variable slots", template, slots.size());
+    return new CompiledTemplate(segments, slots, segments.stream().mapToInt(String::length).sum());
+  }
+
+  /**
+   * A rendered template, split around its variables
+   *
+   * @param segments     the static parts, one more than the slots
+   * @param slots        the variable output between each two static parts
+   * @param staticLength the length of the static parts
+   */
+  private record CompiledTemplate(List<String> segments, List<String> slots, int staticLength) {
+
+    String render(Map<String, String> variables) {
+      StringBuilder html = new StringBuilder(staticLength + 256);
+      html.append(segments.get(0));
+      for (int i = 0; i < slots.size(); i++) {
+        String value = variables.get(slots.get(i));
+        if (value != null) {
+          html.append(slots.get(i).endsWith(RAW_SUFFIX)
+              ? value
+              : HtmlUtils.htmlEscape(value, StandardCharsets.UTF_8.name()));
+        }
+        html.append(segments.get(i + 1));
+      }
+      return html.toString();
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package com.shintadev.shop_dev_be.mail;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends emails over persistent SMTP connections.
+ * <p>
+ * Emails are queued and sent by a fixed number of workers, each keeping its
+ * own SMTP connection open and sending the emails queued meanwhile, up to a
+ * batch, one after the other on it. Sending is paced to the rate allowed by
+ * the SMTP provider, shared by all the connections. A full queue rejects new
+ * emails, for the caller to retry them later.
+ */
+@Slf4j
+@Component
+public class MailDispatcher {
+
+  private static final long IDLE_POLL_MILLIS = 1000;
+
+  private final JavaMailSenderImpl mailSender;
+  private final int connections;
+  private final int batchSize;
+  private final long sendIntervalNanos;
+  private final long idleTimeoutNanos;
+  private final BlockingQueue<PendingMail> queue;
+
+  private final Counter sent;
+  private final Counter failed;
+  private final Timer latency;
+  private final DistributionSummary batchSizes;
+
+  private final List<Thread> workers = new ArrayList<>();
+  private volatile boolean running;
+  private long nextSendAt = System.nanoTime();
+  private double lastReportedCount;
+  private long lastReportedAt = System.nanoTime();
+
+  public MailDispatcher(
+      JavaMailSenderImpl mailSender,
+      MeterRegistry meterRegistry,
+      @Value("${app.email.dispatcher.connections:2}") int connections,
+      @Value("${app.email.dispatcher.batch-size:50}") int batchSize,
+      @Value("${app.email.dispatcher.queue-capacity:1000}") int queueCapacity,
+      @Value("${app.email.dispatcher.rate-limit:10}") double rateLimit,
+      @Value("${app.email.dispatcher.idle-timeout:60000}") long idleTimeout) {
+    this.mailSender = mailSender;
+    this.connections = connections;
+    this.batchSize = batchSize;
+    this.sendIntervalNanos = rateLimit > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rateLimit) : 0;
+    this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+    this.sent = Counter.builder("mail.messages")
+        .tag("result", "sent")
+        .description("Emails sent")
+        .register(meterRegistry);
+    this.failed = Counter.builder("mail.messages")
+        .tag("result", "failed")
+        .description("Emails whose sending failed")
+        .register(meterRegistry);
+    this.latency = Timer.builder("mail.latency")
+        .description("Time from the queueing of an email to its acceptance by the SMTP server")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(meterRegistry);
+    this.batchSizes = DistributionSummary.builder("mail.batch.size")
+        .description("Emails sent per batch on a connection")
+        .register(meterRegistry);
+    Gauge.builder("mail.queue.size", queue, BlockingQueue::size)
+        .description("Emails waiting to be sent")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    running = true;
+    for (int i = 0; i < connections; i++) {
+      Thread worker = new Thread(this::work, "ShopDev-Mail-" + i);
+      worker.setDaemon(true);
+      worker.start();
+      workers.add(worker);
+    }
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    for (Thread worker : workers) {
+      worker.interrupt();
+    }
+    for (Thread worker : workers) {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // Left to the callers to retry
+    PendingMail mail;
+    while ((mail = queue.poll()) != null) {
+      mail.future().completeExceptionally(new TaskRejectedException("Mail dispatcher stopped"));
+    }
+  }
+
+  /**
+   * Queue an email
+   *
+   * @param message the email
+   * @return completes once the SMTP server accepted the email, exceptionally
+   *         if it failed, with a {@link TaskRejectedException} if the queue is
+   *         full
+   */
+  public CompletableFuture<Void> send(MimeMessage message) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    if (!queue.offer(new PendingMail(message, future, System.nanoTime()))) {
+      future.completeExceptionally(new TaskRejectedException("Mail queue is full"));
+    }
+    return future;
+  }
+
+  /**
+   * Log the sending rate since the last report
+   */
+  @Scheduled(fixedDelayString = "${app.email.dispatcher.report-interval:60000}")
+  public void report() {
+    long now = System.nanoTime();
+    double count = sent.count();
+    double delta = count - lastReportedCount;
+    if (delta > 0) {
+      log.info("Sent {} emails at {} emails/s, {} queued",
+          (long) delta, String.format("%.2f", delta * TimeUnit.SECONDS.toNanos(1) / (now - lastReportedAt)),
+          queue.size());
+    }
+    lastReportedCount = count;
+    lastReportedAt = now;
+  }
+
+  private void work() {
+    Transport transport = null;
+    long lastUsedAt = System.nanoTime();
+    try {
+      while (running) {
+        // 1. Wait for an email, closing the connection once idle
+        PendingMail first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          if (transport != null && System.nanoTime() - lastUsedAt > idleTimeoutNanos) {
+            close(transport);
+            transport = null;
+          }
+          continue;
+        }
+
+        // 2. Take the emails queued meanwhile, up to a batch
+        List<PendingMail> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        batchSizes.record(batch.size());
+
+        // 3. Send them one after the other on the connection
+        for (PendingMail mail : batch) {
+          transport = send(transport, mail);
+        }
+        lastUsedAt = System.nanoTime();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      close(transport);
+    }
+  }
+
+  /**
+   * Send an email, reconnecting once if the connection was lost
+   *
+   * @return the connection to use for the next email
+   */
+  private Transport send(Transport transport, PendingMail mail) throws InterruptedException {
+    acquirePermit();
+    try {
+      MimeMessage message = mail.message();
+      if (message.getSentDate() == null) {
+        message.setSentDate(new Date());
+      }
+      message.saveChanges();
+
+      if (transport == null || !transport.isConnected()) {
+        close(transport);
+        transport = connect();
+      }
+      try {
+        transport.sendMessage(message, message.getAllRecipients());
+      } catch (MessagingException e) {
+        if (transport.isConnected()) {
+          throw e;
+        }
+        // Closed by the server since the last email
+        transport = connect();
+        transport.sendMessage(message, message.getAllRecipients());
+      }
+
+      sent.increment();
+      latency.record(System.nanoTime() - mail.queuedAt(), TimeUnit.NANOSECONDS);
+      mail.future().complete(null);
+    } catch (MessagingException | RuntimeException e) {
+      failed.increment();
+      log.warn("Failed to send email: {}", e.getMessage());
+      mail.future().completeExceptionally(e);
+    }
+    return transport;
+  }
+
+  private Transport connect() throws MessagingException {
+    Transport transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+    transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+    return transport;
+  }
+
+  private void close(Transport transport) {
+    if (transport == null) {
+      return;
+    }
+    try {
+      transport.close();
+    } catch (MessagingException e) {
+      log.debug("Failed to close SMTP connection: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Wait for the turn of the next email under the rate limit of the provider
+   */
+  private void acquirePermit() throws InterruptedException {
+    if (sendIntervalNanos == 0) {
+      return;
+    }
+    long wait;
+    synchronized (this) {
+      long now = System.nanoTime();
+      long sendAt = Math.max(nextSendAt, now);
+      nextSendAt = sendAt + sendIntervalNanos;
+      wait = sendAt - now;
+    }
+    if (wait > 0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+
+  private record PendingMail(MimeMessage message, CompletableFuture<Void> future, long queuedAt) {
+  }
+}
@@ -0,0 +1,14 @@
+package com.shintadev.shop_dev_be.payment;
+
+import java.math.BigDecimal;
+
+/**
+ * A charge to make through the payment gateway
+ *
+ * @param idempotencyKey the key deduplicating the charge, the transaction id
+ *                       of the payment
+ * @param orderId        the id of the order
+ * @param amount         the amount to charge
+ */
+public record ChargeRequest(String idempotencyKey, Long orderId, BigDecimal amount) {
+}
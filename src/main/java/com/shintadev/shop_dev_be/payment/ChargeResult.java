@@ -0,0 +1,32 @@
+package com.shintadev.shop_dev_be.payment;
+
+/**
+ * The outcome of a charge
+ *
+ * @param approved  whether the charge was approved
+ * @param reference the reference of the charge at the gateway
+ * @param message   the reason of a decline
+ */
+public record ChargeResult(boolean approved, String reference, String message) {
+
+  /**
+   * Create the outcome of an approved charge
+   *
+   * @param reference the reference of the charge at the gateway
+   * @return the outcome
+   */
+  public static ChargeResult approved(String reference) {
+    return new ChargeResult(true, reference, null);
+  }
+
+  /**
+   * Create the outcome of a declined charge
+   *
+   * @param reference the reference of the charge at the gateway
+   * @param message   the reason of the decline
+   * @return the outcome
+   */
+  public static ChargeResult declined(String reference, String message) {
+    return new ChargeResult(false, reference, message);
+  }
+}
@@ -0,0 +1,32 @@
+package com.shintadev.shop_dev_be.payment;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A payment provider charging orders.
+ * <p>
+ * Charges are idempotent: charging again with the same idempotency key does
+ * not charge twice but returns the outcome of the first charge, so a charge
+ * whose outcome was lost can safely be retried.
+ */
+public interface PaymentGateway {
+
+  /**
+   * Charge a payment
+   *
+   * @param request the charge
+   * @return the outcome of the charge, completed exceptionally if it is
+   *         unknown
+   */
+  CompletableFuture<ChargeResult> charge(ChargeRequest request);
+
+  /**
+   * Refund an approved charge in full. Refunds are idempotent like charges.
+   *
+   * @param request   the charge
+   * @param reference the reference of the charge at the gateway
+   * @return the outcome of the refund, completed exceptionally if it is
+   *         unknown
+   */
+  CompletableFuture<ChargeResult> refund(ChargeRequest request, String reference);
+}
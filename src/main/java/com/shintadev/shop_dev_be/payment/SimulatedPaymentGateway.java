@@ -0,0 +1,73 @@
+package com.shintadev.shop_dev_be.payment;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local stand-in for a payment provider.
+ * <p>
+ * Charges complete after a fixed latency without holding a thread, and a
+ * share of them is declined. Outcomes are kept by idempotency key for a day,
+ * so retried charges get the same outcome.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.payment.gateway", havingValue = "simulated", matchIfMissing = true)
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+  private final long latency;
+  private final double declineRate;
+  private final Cache<String, CompletableFuture<ChargeResult>> charges = Caffeine.newBuilder()
+      .maximumSize(100_000)
+      .expireAfterWrite(Duration.ofDays(1))
+      .build();
+  private final Cache<String, CompletableFuture<ChargeResult>> refunds = Caffeine.newBuilder()
+      .maximumSize(100_000)
+      .expireAfterWrite(Duration.ofDays(1))
+      .build();
+
+  public SimulatedPaymentGateway(
+      @Value("${app.payment.simulated.latency:200}") long latency,
+      @Value("${app.payment.simulated.decline-rate:0.0}") double declineRate) {
+    this.latency = latency;
+    this.declineRate = declineRate;
+  }
+
+  @Override
+  public CompletableFuture<ChargeResult> charge(ChargeRequest request) {
+    return charges.get(request.idempotencyKey(), key -> simulate(request));
+  }
+
+  @Override
+  public CompletableFuture<ChargeResult> refund(ChargeRequest request, String reference) {
+    return refunds.get(request.idempotencyKey(), key -> {
+      log.debug("Simulating refund of charge {} for order {}", reference, request.orderId());
+      return CompletableFuture.supplyAsync(
+          () -> ChargeResult.approved("SIM-REFUND-" + UUID.randomUUID()),
+          CompletableFuture.delayedExecutor(latency, TimeUnit.MILLISECONDS));
+    });
+  }
+
+  private CompletableFuture<ChargeResult> simulate(ChargeRequest request) {
+    String reference = "SIM-" + UUID.randomUUID();
+    boolean declined = ThreadLocalRandom.current().nextDouble() < declineRate;
+    log.debug("Simulating charge {} of {} for order {}", reference, request.amount(), request.orderId());
+
+    return CompletableFuture.supplyAsync(
+        () -> declined ? ChargeResult.declined(reference, "Declined by the simulated gateway")
+            : ChargeResult.approved(reference),
+        CompletableFuture.delayedExecutor(latency, TimeUnit.MILLISECONDS));
+  }
+}
@@ -1,8 +1,10 @@
 package com.shintadev.shop_dev_be.repository.cart;
 
+import java.util.Collection;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -18,4 +20,8 @@ public interface CartItemRepo extends JpaRepository<CartItem, Long> {
 
   @Query("SELECT COUNT(ci) FROM CartItem ci WHERE ci.cart.user.id = :userId")
   Long countByUserId(Long userId);
+
+  @Modifying
+  @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId AND ci.id IN :ids")
+  int deleteByCartIdAndIdIn(Long cartId, Collection<Long> ids);
 }
@@ -0,0 +1,41 @@
+package com.shintadev.shop_dev_be.repository.inventory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.shintadev.shop_dev_be.domain.model.entity.inventory.InventoryAdjustment;
+
+import jakarta.persistence.LockModeType;
+
+/**
+ * Repository for managing the inventory adjustments of hot products
+ */
+@Repository
+public interface InventoryAdjustmentRepo extends JpaRepository<InventoryAdjustment, String> {
+
+  /**
+   * Mark a pending adjustment as applied. A concurrent update of the same
+   * adjustment waits for the first one to commit or roll back.
+   *
+   * @param adjustmentId the id of the adjustment
+   * @return 0 if the adjustment was already applied, or purged since
+   */
+  @Modifying
+  @Query("UPDATE InventoryAdjustment a SET a.appliedAt = CURRENT_TIMESTAMP " +
+      "WHERE a.adjustmentId = :adjustmentId AND a.appliedAt IS NULL")
+  int markApplied(String adjustmentId);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT a FROM InventoryAdjustment a WHERE a.productId = :productId AND a.appliedAt IS NULL")
+  List<InventoryAdjustment> findPendingByProductIdForUpdate(Long productId);
+
+  @Modifying
+  @Query("DELETE FROM InventoryAdjustment a WHERE a.appliedAt < :before")
+  int deleteByAppliedAtBefore(LocalDateTime before);
+}
@@ -1,6 +1,9 @@
 package com.shintadev.shop_dev_be.repository.order;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.shintadev.shop_dev_be.domain.model.entity.order.OrderItem;
@@ -10,4 +13,9 @@ import com.shintadev.shop_dev_be.domain.model.entity.order.OrderItem;
  */
 @Repository
 public interface OrderItemRepo extends JpaRepository<OrderItem, Long> {
+
+  @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi " +
+      "WHERE oi.order.status NOT IN ('CANCELLED', 'RETURNED', 'REFUNDED', 'PAYMENT_FAILED') " +
+      "GROUP BY oi.product.id")
+  List<Object[]> sumQuantitySoldByProduct();
 }
@@ -1,15 +1,23 @@
 package com.shintadev.shop_dev_be.repository.order;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.shintadev.shop_dev_be.domain.model.entity.order.Order;
+import com.shintadev.shop_dev_be.domain.model.enums.order.OrderStatus;
+
+import jakarta.persistence.LockModeType;
 
 /**
  * Repository for managing orders
@@ -19,6 +27,14 @@ public interface OrderRepo extends JpaRepository<Order, Long> {
 
   Page<Order> findByUserId(Long userId, Pageable pageable);
 
+  @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.orderAt DESC, o.id DESC")
+  List<Order> findByUserIdFirst(Long userId, Pageable pageable);
+
+  @Query("SELECT o FROM Order o WHERE o.user.id = :userId AND " +
+      "(o.orderAt < :orderAt OR (o.orderAt = :orderAt AND o.id < :id)) " +
+      "ORDER BY o.orderAt DESC, o.id DESC")
+  List<Order> findByUserIdAfter(Long userId, LocalDateTime orderAt, Long id, Pageable pageable);
+
   Page<Order> findByUserIdAndStatus(Long userId, String status, Pageable pageable);
 
   Optional<Order> findByOrderNumber(String orderNumber);
@@ -26,9 +42,22 @@ public interface OrderRepo extends JpaRepository<Order, Long> {
   @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.orderAt DESC LIMIT :limit")
   List<Order> findRecentOrdersByUserId(Long userId, Integer limit);
 
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
   @Query("SELECT o FROM Order o WHERE o.id = :id")
   Optional<Order> findByIdForUpdate(Long id);
 
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+  List<Order> findByIdInForUpdate(Collection<Long> ids);
+
+  @EntityGraph(attributePaths = { "items", "items.product", "user" })
+  @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+  List<Order> findWithItemsByIdIn(Collection<Long> ids);
+
   @Query("SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
   Long countByUserId(Long userId);
+
+  @Modifying
+  @Query("UPDATE Order o SET o.status = :status, o.paymentAt = :paymentAt WHERE o.id IN :ids AND o.status = :from")
+  int updatePaymentStatus(Collection<Long> ids, OrderStatus from, OrderStatus status, LocalDateTime paymentAt);
 }
@@ -1,9 +1,19 @@
 package com.shintadev.shop_dev_be.repository.order;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.shintadev.shop_dev_be.domain.model.entity.order.Payment;
+import com.shintadev.shop_dev_be.domain.model.enums.order.PaymentStatus;
+
+import jakarta.persistence.LockModeType;
 
 /**
  * Repository for managing payments
@@ -11,4 +21,21 @@ import com.shintadev.shop_dev_be.domain.model.entity.order.Payment;
 @Repository
 public interface PaymentRepo extends JpaRepository<Payment, Long> {
 
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT p FROM Payment p JOIN FETCH p.order " +
+      "WHERE p.transactionId IN :transactionIds AND p.status IN :statuses ORDER BY p.id")
+  List<Payment> findByTransactionIdInForUpdate(Collection<String> transactionIds, Collection<PaymentStatus> statuses);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT p FROM Payment p WHERE p.order.id IN :orderIds ORDER BY p.id")
+  List<Payment> findByOrderIdInForUpdate(Collection<Long> orderIds);
+
+  @Modifying
+  @Query("UPDATE Payment p SET p.status = :status, p.paymentDate = :now, p.updatedAt = :now " +
+      "WHERE p.transactionId IN :transactionIds AND p.status = :from")
+  int updateStatus(Collection<String> transactionIds, PaymentStatus from, PaymentStatus status, LocalDateTime now);
+
+  @Modifying
+  @Query("UPDATE Payment p SET p.status = :status, p.updatedAt = :now WHERE p.transactionId IN :transactionIds")
+  int overwriteStatus(Collection<String> transactionIds, PaymentStatus status, LocalDateTime now);
 }
@@ -0,0 +1,46 @@
+package com.shintadev.shop_dev_be.repository.order;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.shintadev.shop_dev_be.domain.model.entity.order.StockReservation;
+
+import jakarta.persistence.LockModeType;
+
+/**
+ * Repository for managing stock reservations
+ */
+@Repository
+public interface StockReservationRepo extends JpaRepository<StockReservation, Long> {
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT r FROM StockReservation r WHERE r.order.id = :orderId")
+  Optional<StockReservation> findByOrderIdForUpdate(Long orderId);
+
+  @Query("SELECT r.order.id FROM StockReservation r " +
+      "WHERE r.id IN :ids AND r.status = 'ACTIVE' AND r.expiresAt <= :now")
+  List<Long> findExpiredOrderIds(Collection<Long> ids, LocalDateTime now);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT r FROM StockReservation r JOIN FETCH r.order " +
+      "WHERE r.order.id IN :orderIds AND r.status = 'ACTIVE' AND r.expiresAt <= :now ORDER BY r.order.id")
+  List<StockReservation> findExpiredByOrderIdInForUpdate(Collection<Long> orderIds, LocalDateTime now);
+
+  @Query("SELECT r.id FROM StockReservation r WHERE r.status = 'ACTIVE' AND r.expiresAt <= :now " +
+      "ORDER BY r.expiresAt")
+  List<Long> findExpiredIds(LocalDateTime now, Pageable pageable);
+
+  @Modifying
+  @Query("UPDATE StockReservation r SET r.status = 'CONFIRMED', r.updatedAt = CURRENT_TIMESTAMP " +
+      "WHERE r.order.id IN :orderIds AND r.status = 'ACTIVE'")
+  int confirmByOrderIdIn(Collection<Long> orderIds);
+}
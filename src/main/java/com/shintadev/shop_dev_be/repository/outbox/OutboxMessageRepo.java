@@ -0,0 +1,20 @@
+package com.shintadev.shop_dev_be.repository.outbox;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.shintadev.shop_dev_be.domain.model.entity.outbox.OutboxMessage;
+
+/**
+ * Repository for managing outbox messages
+ */
+@Repository
+public interface OutboxMessageRepo extends JpaRepository<OutboxMessage, Long> {
+
+  @Query("SELECT m FROM OutboxMessage m ORDER BY m.id")
+  List<OutboxMessage> findOldest(Pageable pageable);
+}
@@ -1,5 +1,7 @@
 package com.shintadev.shop_dev_be.repository.product;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,6 +10,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -25,9 +28,32 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
   @Query("SELECT p FROM Product p WHERE p.id = :id")
   Optional<Product> findByIdForUpdate(Long id);
 
+  @Modifying
+  @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.updatedAt = CURRENT_TIMESTAMP " +
+      "WHERE p.id = :id AND p.status = 'ACTIVE' AND p.stock >= :quantity")
+  int decrementStock(Long id, int quantity);
+
+  @Modifying
+  @Query("UPDATE Product p SET p.stock = p.stock + :delta, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
+  int adjustStock(Long id, int delta);
+
+  @Query("SELECT p.id, p.name, p.stock, p.status FROM Product p WHERE p.id IN :ids")
+  List<Object[]> findStockByIdIn(Collection<Long> ids);
+
   @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' ORDER BY p.createdAt DESC")
   Page<Product> findAllActiveProducts(Pageable pageable);
 
+  @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' ORDER BY p.createdAt DESC, p.id DESC")
+  List<Product> findActiveProductsFirst(Pageable pageable);
+
+  @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' AND " +
+      "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+      "ORDER BY p.createdAt DESC, p.id DESC")
+  List<Product> findActiveProductsAfter(LocalDateTime createdAt, Long id, Pageable pageable);
+
+  @Query("SELECT COUNT(p) FROM Product p WHERE p.status = 'ACTIVE'")
+  long countActiveProducts();
+
   @Query("SELECT p FROM Product p WHERE p.featured = true AND p.status = 'ACTIVE' ORDER BY p.createdAt DESC LIMIT :limit")
   List<Product> findAllFeaturedProducts(int limit);
 
@@ -37,6 +63,18 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
   @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.status = 'ACTIVE' ORDER BY p.createdAt DESC")
   Page<Product> findByCategoryAndActive(Long categoryId, Pageable pageable);
 
+  @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.status = 'ACTIVE' " +
+      "ORDER BY p.createdAt DESC, p.id DESC")
+  List<Product> findByCategoryAndActiveFirst(Long categoryId, Pageable pageable);
+
+  @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.status = 'ACTIVE' AND " +
+      "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+      "ORDER BY p.createdAt DESC, p.id DESC")
+  List<Product> findByCategoryAndActiveAfter(Long categoryId, LocalDateTime createdAt, Long id, Pageable pageable);
+
+  @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId AND p.status = 'ACTIVE'")
+  long countByCategoryAndActive(Long categoryId);
+
   @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.id != :productId AND p.status = 'ACTIVE'")
   List<Product> findRelatedProducts(Long categoryId, Long productId, Pageable pageable);
 
@@ -50,4 +88,13 @@ public interface ProductRepo extends JpaRepository<Product, Long> {
   Page<Product> findByKeywordContainingIgnoreCaseAndActive(String keyword, Pageable pageable);
 
   Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
+  @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.status = 'ACTIVE'")
+  List<Product> findAllActiveWithCategory();
+
+  @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE c.id = :categoryId AND p.status = 'ACTIVE'")
+  List<Product> findAllActiveWithCategoryByCategoryId(Long categoryId);
+
+  @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.id = :id")
+  Optional<Product> findByIdWithCategory(Long id);
 }
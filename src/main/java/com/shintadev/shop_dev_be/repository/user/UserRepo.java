@@ -4,6 +4,7 @@ import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -23,5 +24,12 @@ public interface UserRepo extends JpaRepository<User, Long> {
 
   Optional<User> findByEmail(String email);
 
+  @Query("SELECT u.statusVersion FROM User u WHERE u.id = ?1")
+  Optional<Long> findStatusVersionById(Long id);
+
   boolean existsByEmail(String email);
+
+  @Modifying
+  @Query("UPDATE User u SET u.password = ?2 WHERE u.id = ?1 AND u.password = ?3")
+  int updatePassword(Long id, String password, String previousPassword);
 }
@@ -0,0 +1,10 @@
+package com.shintadev.shop_dev_be.search;
+
+/**
+ * Published when a category is updated, handled once the transaction commits
+ * so that the indexed products pick up its new name
+ *
+ * @param categoryId the id of the category
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
@@ -0,0 +1,11 @@
+package com.shintadev.shop_dev_be.search;
+
+/**
+ * Number of products having a value of a facet
+ *
+ * @param value the value to filter by
+ * @param label the value shown to the user
+ * @param count the number of products
+ */
+public record FacetCount(String value, String label, long count) {
+}
@@ -0,0 +1,23 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.util.List;
+
+/**
+ * Products matching a filter, with the facet counts of the filter.
+ * <p>
+ * Each facet is counted with every condition applied but its own, so that the
+ * counts tell how many products selecting another value would give.
+ *
+ * @param documents    the matching products
+ * @param categories   the count per category, largest first
+ * @param priceRanges  the count per price range, cheapest first
+ * @param inStockCount the number of products in stock
+ * @param onSaleCount  the number of products on sale
+ */
+public record FacetResult(
+    List<ProductDocument> documents,
+    List<FacetCount> categories,
+    List<FacetCount> priceRanges,
+    long inStockCount,
+    long onSaleCount) {
+}
@@ -0,0 +1,31 @@
+package com.shintadev.shop_dev_be.search;
+
+/**
+ * Published when a product is written, handled once the transaction commits
+ *
+ * @param productId the id of the product
+ * @param document  the product after the write, or null if it is no longer
+ *                  active
+ */
+public record ProductChangedEvent(Long productId, ProductDocument document) {
+
+  /**
+   * Create an event for a product that left the active products
+   *
+   * @param productId the id of the product
+   * @return the event
+   */
+  public static ProductChangedEvent removed(Long productId) {
+    return new ProductChangedEvent(productId, null);
+  }
+
+  /**
+   * Create an event for an added or updated product
+   *
+   * @param document the product
+   * @return the event
+   */
+  public static ProductChangedEvent upserted(ProductDocument document) {
+    return new ProductChangedEvent(document.id(), document);
+  }
+}
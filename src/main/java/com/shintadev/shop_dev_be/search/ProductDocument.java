@@ -0,0 +1,97 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.shintadev.shop_dev_be.domain.model.entity.product.Product;
+
+/**
+ * Immutable snapshot of the product fields the in-memory indexes need
+ *
+ * @param id            the id of the product
+ * @param name          the name of the product
+ * @param slug          the slug of the product
+ * @param description   the description of the product
+ * @param categoryId    the id of the category
+ * @param categoryName  the name of the category
+ * @param categorySlug  the slug of the category
+ * @param price         the price
+ * @param discountPrice the discount price, or null
+ * @param stock         the stock
+ * @param featured      whether the product is featured
+ * @param createdAt     when the product was created
+ */
+public record ProductDocument(
+    Long id,
+    String name,
+    String slug,
+    String description,
+    Long categoryId,
+    String categoryName,
+    String categorySlug,
+    BigDecimal price,
+    BigDecimal discountPrice,
+    int stock,
+    boolean featured,
+    LocalDateTime createdAt) {
+
+  /**
+   * Snapshot a product, its category must be loaded
+   *
+   * @param product the product
+   * @return the document
+   */
+  public static ProductDocument from(Product product) {
+    return new ProductDocument(
+        product.getId(),
+        product.getName(),
+        product.getSlug(),
+        product.getDescription(),
+        product.getCategory().getId(),
+        product.getCategory().getName(),
+        product.getCategory().getSlug(),
+        product.getPrice(),
+        product.getDiscountPrice(),
+        product.getStock(),
+        Boolean.TRUE.equals(product.getFeatured()),
+        product.getCreatedAt());
+  }
+
+  /**
+   * Copy the document with another stock
+   *
+   * @param stock the stock
+   * @return the document
+   */
+  public ProductDocument withStock(int stock) {
+    return new ProductDocument(id, name, slug, description, categoryId, categoryName, categorySlug,
+        price, discountPrice, stock, featured, createdAt);
+  }
+
+  /**
+   * Get the price the customer pays
+   *
+   * @return the discount price if any, otherwise the price
+   */
+  public BigDecimal effectivePrice() {
+    return discountPrice != null ? discountPrice : price;
+  }
+
+  /**
+   * Check if the product is in stock
+   *
+   * @return true if the stock is positive
+   */
+  public boolean inStock() {
+    return stock > 0;
+  }
+
+  /**
+   * Check if the product is on sale, same rule as {@code ProductMapper}
+   *
+   * @return true if the discount price is lower than the price
+   */
+  public boolean onSale() {
+    return discountPrice != null && discountPrice.compareTo(price) < 0;
+  }
+}
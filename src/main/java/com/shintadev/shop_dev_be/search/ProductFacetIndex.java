@@ -0,0 +1,266 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bitmap index over the filterable fields of the active products.
+ * <p>
+ * Every product gets a small integer ordinal, and every filter value (a
+ * category, a price range, in stock, on sale) a bitmap of the ordinals having
+ * it. Filtering a page and counting its facets is a handful of bitmap
+ * intersections instead of one SQL query per facet.
+ */
+@Slf4j
+@Component
+public class ProductFacetIndex implements ProductIndex {
+
+  private static final BitSet EMPTY = new BitSet();
+
+  private final BigDecimal[] priceBoundaries;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Long, Integer> ordinals = new HashMap<>();
+  private final List<ProductDocument> documents = new ArrayList<>();
+  private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+  private final BitSet live = new BitSet();
+  private final Map<Long, BitSet> byCategory = new HashMap<>();
+  private final Map<Long, String> categoryNames = new HashMap<>();
+  private final BitSet[] byPriceRange;
+  private final BitSet inStock = new BitSet();
+  private final BitSet onSale = new BitSet();
+
+  private volatile boolean ready;
+
+  public ProductFacetIndex(
+      @Value("${app.search.facet.price-ranges:50,100,200,500,1000}") BigDecimal[] priceBoundaries) {
+    this.priceBoundaries = priceBoundaries.clone();
+    Arrays.sort(this.priceBoundaries);
+    this.byPriceRange = new BitSet[this.priceBoundaries.length + 1];
+    Arrays.setAll(byPriceRange, i -> new BitSet());
+  }
+
+  @Override
+  public void upsert(ProductDocument document) {
+    lock.writeLock().lock();
+    try {
+      removeInternal(document.id());
+      addInternal(document);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void remove(Long productId) {
+    lock.writeLock().lock();
+    try {
+      removeInternal(productId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean updateStock(Long productId, int stock) {
+    lock.writeLock().lock();
+    try {
+      Integer ordinal = ordinals.get(productId);
+      if (ordinal == null) {
+        return false;
+      }
+      ProductDocument document = documents.get(ordinal).withStock(stock);
+      documents.set(ordinal, document);
+      boolean changed = inStock.get(ordinal) != document.inStock();
+      inStock.set(ordinal, document.inStock());
+      return changed;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void rebuild(Collection<ProductDocument> documents) {
+    lock.writeLock().lock();
+    try {
+      ordinals.clear();
+      this.documents.clear();
+      freeOrdinals.clear();
+      live.clear();
+      byCategory.clear();
+      categoryNames.clear();
+      Arrays.stream(byPriceRange).forEach(BitSet::clear);
+      inStock.clear();
+      onSale.clear();
+      documents.forEach(this::addInternal);
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("Facet index rebuilt with {} products", documents.size());
+  }
+
+  /**
+   * Check if the index has been built, until then callers should fall back to
+   * the database
+   *
+   * @return true once the first rebuild is done
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Filter products and count the facets of the filter
+   *
+   * @param candidateIds the products to filter, or null for every product
+   * @param filter       the filter
+   * @return the matching products, in no particular order, and the facets
+   */
+  public FacetResult filter(@Nullable Collection<Long> candidateIds, ProductFilter filter) {
+    lock.readLock().lock();
+    try {
+      // 1. Build the bitmap of every condition, null when it does not apply
+      BitSet base = candidateIds != null ? toBitSet(candidateIds) : live;
+      BitSet category = filter.categoryId() != null ? byCategory.getOrDefault(filter.categoryId(), EMPTY) : null;
+      BitSet price = filter.hasPriceRange() ? priceRange(base, filter) : null;
+      BitSet stock = filter.inStock() ? inStock : null;
+      BitSet sale = filter.onSale() ? onSale : null;
+
+      // 2. Intersect them all for the matching products
+      BitSet matches = and(base, category, price, stock, sale);
+      List<ProductDocument> matching = new ArrayList<>(matches.cardinality());
+      matches.stream().forEach(ordinal -> matching.add(documents.get(ordinal)));
+
+      // 3. Count each facet with every condition but its own
+      return new FacetResult(
+          matching,
+          categoryCounts(and(base, price, stock, sale)),
+          priceRangeCounts(and(base, category, stock, sale)),
+          and(base, category, price, sale, inStock).cardinality(),
+          and(base, category, price, stock, onSale).cardinality());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private List<FacetCount> categoryCounts(BitSet products) {
+    List<FacetCount> counts = new ArrayList<>();
+    byCategory.forEach((categoryId, bits) -> {
+      long count = and(products, bits).cardinality();
+      if (count > 0) {
+        counts.add(new FacetCount(String.valueOf(categoryId), categoryNames.get(categoryId), count));
+      }
+    });
+    counts.sort(Comparator.comparingLong(FacetCount::count).reversed().thenComparing(FacetCount::label));
+    return counts;
+  }
+
+  private List<FacetCount> priceRangeCounts(BitSet products) {
+    List<FacetCount> counts = new ArrayList<>(byPriceRange.length);
+    for (int i = 0; i < byPriceRange.length; i++) {
+      String lower = i == 0 ? "0" : priceBoundaries[i - 1].toPlainString();
+      String label = i == priceBoundaries.length
+          ? lower + "+"
+          : lower + "-" + priceBoundaries[i].toPlainString();
+      counts.add(new FacetCount(label, label, and(products, byPriceRange[i]).cardinality()));
+    }
+    return counts;
+  }
+
+  /**
+   * Select the products of a set whose price is within the range of a filter,
+   * the ranges of the facets rarely match the range asked for
+   */
+  private BitSet priceRange(BitSet products, ProductFilter filter) {
+    BitSet bits = new BitSet();
+    products.stream()
+        .filter(ordinal -> filter.matchesPrice(documents.get(ordinal).price()))
+        .forEach(bits::set);
+    return bits;
+  }
+
+  private BitSet toBitSet(Collection<Long> productIds) {
+    BitSet bits = new BitSet();
+    for (Long productId : productIds) {
+      Integer ordinal = ordinals.get(productId);
+      if (ordinal != null) {
+        bits.set(ordinal);
+      }
+    }
+    return bits;
+  }
+
+  private static BitSet and(BitSet base, BitSet... others) {
+    BitSet result = (BitSet) base.clone();
+    for (BitSet other : others) {
+      if (other != null) {
+        result.and(other);
+      }
+    }
+    return result;
+  }
+
+  private int priceRangeOf(BigDecimal price) {
+    int range = 0;
+    while (range < priceBoundaries.length && price.compareTo(priceBoundaries[range]) >= 0) {
+      range++;
+    }
+    return range;
+  }
+
+  private void addInternal(ProductDocument document) {
+    Integer free = freeOrdinals.poll();
+    int ordinal = free != null ? free : documents.size();
+    if (free != null) {
+      documents.set(ordinal, document);
+    } else {
+      documents.add(document);
+    }
+    ordinals.put(document.id(), ordinal);
+
+    live.set(ordinal);
+    byCategory.computeIfAbsent(document.categoryId(), id -> new BitSet()).set(ordinal);
+    categoryNames.put(document.categoryId(), document.categoryName());
+    byPriceRange[priceRangeOf(document.price())].set(ordinal);
+    inStock.set(ordinal, document.inStock());
+    onSale.set(ordinal, document.onSale());
+  }
+
+  private void removeInternal(Long productId) {
+    Integer ordinal = ordinals.remove(productId);
+    if (ordinal == null) {
+      return;
+    }
+    ProductDocument document = documents.set(ordinal, null);
+    freeOrdinals.push(ordinal);
+
+    live.clear(ordinal);
+    BitSet category = byCategory.get(document.categoryId());
+    category.clear(ordinal);
+    if (category.isEmpty()) {
+      byCategory.remove(document.categoryId());
+      categoryNames.remove(document.categoryId());
+    }
+    byPriceRange[priceRangeOf(document.price())].clear(ordinal);
+    inStock.clear(ordinal);
+    onSale.clear(ordinal);
+  }
+}
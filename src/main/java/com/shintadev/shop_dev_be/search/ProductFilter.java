@@ -0,0 +1,40 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.math.BigDecimal;
+
+/**
+ * Structured conditions products must meet, null or false means no condition
+ *
+ * @param categoryId the id of the category
+ * @param minPrice   the minimum price, inclusive
+ * @param maxPrice   the maximum price, inclusive
+ * @param inStock    whether the products must be in stock
+ * @param onSale     whether the products must be on sale
+ */
+public record ProductFilter(
+    Long categoryId,
+    BigDecimal minPrice,
+    BigDecimal maxPrice,
+    boolean inStock,
+    boolean onSale) {
+
+  /**
+   * Check if the filter restricts the price
+   *
+   * @return true if a minimum or a maximum price is set
+   */
+  public boolean hasPriceRange() {
+    return minPrice != null || maxPrice != null;
+  }
+
+  /**
+   * Check if a price is within the range of the filter
+   *
+   * @param price the price
+   * @return true if the price is within the range
+   */
+  public boolean matchesPrice(BigDecimal price) {
+    return (minPrice == null || price.compareTo(minPrice) >= 0)
+        && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+  }
+}
@@ -0,0 +1,42 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.util.Collection;
+
+/**
+ * An in-memory index over the active products, kept in sync by
+ * {@link ProductIndexSynchronizer}
+ */
+public interface ProductIndex {
+
+  /**
+   * Add or replace a product
+   *
+   * @param document the product
+   */
+  void upsert(ProductDocument document);
+
+  /**
+   * Remove a product, no-op if it is not indexed
+   *
+   * @param productId the id of the product
+   */
+  void remove(Long productId);
+
+  /**
+   * Update the stock of a product, for the indexes filtering on it
+   *
+   * @param productId the id of the product
+   * @param stock     the new stock
+   * @return true if the product ran out of stock or is back in stock
+   */
+  default boolean updateStock(Long productId, int stock) {
+    return false;
+  }
+
+  /**
+   * Replace the whole content of the index
+   *
+   * @param documents every active product
+   */
+  void rebuild(Collection<ProductDocument> documents);
+}
@@ -0,0 +1,181 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.shintadev.shop_dev_be.domain.model.enums.product.ProductStatus;
+import com.shintadev.shop_dev_be.repository.product.ProductRepo;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps every {@link ProductIndex} of this node in sync with the database.
+ * <p>
+ * Local writes are applied once their transaction commits and broadcast so
+ * that the other nodes reload the product, or every product of a category.
+ * Indexes are built from the database on startup and can be rebuilt on demand.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductIndexSynchronizer implements MessageListener {
+
+  private static final String SEPARATOR = "|";
+  private static final String PRODUCT = "product";
+  private static final String CATEGORY = "category";
+
+  private final List<ProductIndex> indexes;
+  private final ProductRepo productRepo;
+  private final StringRedisTemplate stringRedisTemplate;
+  private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+  private final String nodeId = UUID.randomUUID().toString();
+
+  @Value("${app.search.sync-channel:search:product-changed}")
+  private String syncChannel;
+
+  @PostConstruct
+  void subscribe() {
+    redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(syncChannel));
+  }
+
+  /**
+   * Build the indexes once the application is up
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    try {
+      rebuild();
+    } catch (Exception e) {
+      // Searches fall back to the database until a rebuild succeeds
+      log.error("Failed to build the product indexes: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Rebuild every index from the active products in the database
+   *
+   * @return the number of products indexed
+   */
+  @Transactional(readOnly = true)
+  public int rebuild() {
+    List<ProductDocument> documents = productRepo.findAllActiveWithCategory()
+        .stream()
+        .map(ProductDocument::from)
+        .toList();
+    indexes.forEach(index -> index.rebuild(documents));
+    return documents.size();
+  }
+
+  /**
+   * Apply a product write made on this node, then tell the other nodes
+   *
+   * @param event the event
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onProductChanged(ProductChangedEvent event) {
+    apply(event.productId(), event.document());
+    broadcast(PRODUCT, event.productId());
+  }
+
+  /**
+   * Apply a stock write made on this node, then tell the other nodes about
+   * the products that ran out of stock or are back in stock
+   *
+   * @param event the event
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onStockChanged(ProductStockChangedEvent event) {
+    event.stocks().forEach((productId, stock) -> {
+      boolean changed = false;
+      for (ProductIndex index : indexes) {
+        changed |= index.updateStock(productId, stock);
+      }
+      if (changed) {
+        broadcast(PRODUCT, productId);
+      }
+    });
+  }
+
+  /**
+   * Reindex the products of a category updated on this node, then tell the
+   * other nodes
+   *
+   * @param event the event
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onCategoryChanged(CategoryChangedEvent event) {
+    reloadCategory(event.categoryId());
+    broadcast(CATEGORY, event.categoryId());
+  }
+
+  /**
+   * Reload a product or a category written on another node
+   */
+  @Override
+  public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+    String body = new String(message.getBody(), StandardCharsets.UTF_8);
+    String[] parts = body.split("\\" + SEPARATOR, 3);
+    if (parts.length != 3 || parts[0].equals(nodeId)) {
+      return;
+    }
+
+    try {
+      Long id = Long.valueOf(parts[2]);
+      if (CATEGORY.equals(parts[1])) {
+        reloadCategory(id);
+      } else {
+        ProductDocument document = productRepo.findByIdWithCategory(id)
+            .filter(product -> product.getStatus() == ProductStatus.ACTIVE)
+            .map(ProductDocument::from)
+            .orElse(null);
+        apply(id, document);
+      }
+    } catch (Exception e) {
+      log.warn("Failed to apply change {}: {}", body, e.getMessage());
+    }
+  }
+
+  private void reloadCategory(Long categoryId) {
+    productRepo.findAllActiveWithCategoryByCategoryId(categoryId)
+        .stream()
+        .map(ProductDocument::from)
+        .forEach(document -> apply(document.id(), document));
+  }
+
+  private void broadcast(String type, Long id) {
+    try {
+      stringRedisTemplate.convertAndSend(syncChannel, nodeId + SEPARATOR + type + SEPARATOR + id);
+    } catch (Exception e) {
+      log.warn("Failed to broadcast change of {} {}: {}", type, id, e.getMessage());
+    }
+  }
+
+  private void apply(Long productId, @Nullable ProductDocument document) {
+    for (ProductIndex index : indexes) {
+      if (document != null) {
+        index.upsert(document);
+      } else {
+        index.remove(productId);
+      }
+    }
+  }
+}
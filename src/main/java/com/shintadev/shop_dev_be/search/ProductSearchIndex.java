@@ -0,0 +1,198 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inverted index over the names and descriptions of the active products.
+ * <p>
+ * Every query term must match (AND). The last characters of a term may be
+ * missing: a term also matches every indexed term it is a prefix of, for a
+ * lower score. Hits are ranked by a TF-IDF style score where name matches
+ * weigh more than description matches, newest first on ties.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex implements ProductIndex {
+
+  /**
+   * Sort property keeping the best matches first
+   */
+  public static final String RELEVANCE = "relevance";
+
+  private static final float NAME_WEIGHT = 3f;
+  private static final float DESCRIPTION_WEIGHT = 1f;
+  private static final float PREFIX_FACTOR = 0.5f;
+  private static final int MIN_PREFIX_LENGTH = 2;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // term -> product id -> weighted term frequency
+  private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+  private final Map<Long, ProductDocument> documents = new HashMap<>();
+  private final Map<Long, Set<String>> termsByDocument = new HashMap<>();
+
+  private volatile boolean ready;
+
+  @Override
+  public void upsert(ProductDocument document) {
+    lock.writeLock().lock();
+    try {
+      removeInternal(document.id());
+      addInternal(document);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void remove(Long productId) {
+    lock.writeLock().lock();
+    try {
+      removeInternal(productId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void rebuild(Collection<ProductDocument> documents) {
+    lock.writeLock().lock();
+    try {
+      postings.clear();
+      this.documents.clear();
+      termsByDocument.clear();
+      documents.forEach(this::addInternal);
+      ready = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("Search index rebuilt with {} products and {} terms", documents.size(), postings.size());
+  }
+
+  /**
+   * Check if the index has been built, until then callers should fall back to
+   * the database
+   *
+   * @return true once the first rebuild is done
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Search the products matching every term of a query
+   *
+   * @param query  the query
+   * @param filter the extra condition the products must meet
+   * @return the matching products, best match first
+   */
+  public List<ProductDocument> search(String query, Predicate<ProductDocument> filter) {
+    List<String> terms = TextAnalyzer.tokenize(query);
+    if (terms.isEmpty()) {
+      return List.of();
+    }
+
+    lock.readLock().lock();
+    try {
+      Map<Long, Float> scores = null;
+      for (String term : new HashSet<>(terms)) {
+        Map<Long, Float> termScores = score(term);
+        if (scores == null) {
+          scores = termScores;
+        } else {
+          // AND: keep only the products matching every term so far
+          scores.keySet().retainAll(termScores.keySet());
+          scores.replaceAll((id, score) -> score + termScores.get(id));
+        }
+        if (scores.isEmpty()) {
+          return List.of();
+        }
+      }
+
+      Map<Long, Float> finalScores = scores;
+      List<ProductDocument> hits = new ArrayList<>();
+      for (Long id : finalScores.keySet()) {
+        ProductDocument document = documents.get(id);
+        if (filter.test(document)) {
+          hits.add(document);
+        }
+      }
+      hits.sort(Comparator
+          .comparing((ProductDocument document) -> finalScores.get(document.id())).reversed()
+          .thenComparing(ProductDocument::createdAt, Comparator.nullsLast(Comparator.reverseOrder())));
+      return hits;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Score every product matching a term, exactly or by prefix
+   */
+  private Map<Long, Float> score(String term) {
+    Map<Long, Float> scores = new HashMap<>();
+    Map<String, Map<Long, Float>> matches = term.length() >= MIN_PREFIX_LENGTH
+        ? postings.subMap(term, true, term + Character.MAX_VALUE, false)
+        : exact(term);
+
+    matches.forEach((indexed, products) -> {
+      float idf = (float) Math.log(1 + (double) documents.size() / products.size());
+      float factor = indexed.equals(term) ? 1f : PREFIX_FACTOR;
+      products.forEach((id, weight) -> {
+        float score = factor * idf * weight / (weight + 1.2f);
+        // A product matching through several indexed terms keeps the best one
+        scores.merge(id, score, Math::max);
+      });
+    });
+    return scores;
+  }
+
+  private Map<String, Map<Long, Float>> exact(String term) {
+    Map<Long, Float> products = postings.get(term);
+    return products != null ? Map.of(term, products) : Map.of();
+  }
+
+  private void addInternal(ProductDocument document) {
+    Map<String, Float> weights = new HashMap<>();
+    TextAnalyzer.tokenize(document.name()).forEach(term -> weights.merge(term, NAME_WEIGHT, Float::sum));
+    TextAnalyzer.tokenize(document.description())
+        .forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Float::sum));
+
+    weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), weight));
+    documents.put(document.id(), document);
+    termsByDocument.put(document.id(), weights.keySet());
+  }
+
+  private void removeInternal(Long productId) {
+    Set<String> terms = termsByDocument.remove(productId);
+    documents.remove(productId);
+    if (terms == null) {
+      return;
+    }
+    for (String term : terms) {
+      Map<Long, Float> products = postings.get(term);
+      if (products != null) {
+        products.remove(productId);
+        if (products.isEmpty()) {
+          postings.remove(term);
+        }
+      }
+    }
+  }
+}
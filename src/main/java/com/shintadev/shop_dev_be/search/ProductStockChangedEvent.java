@@ -0,0 +1,13 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.util.Map;
+
+/**
+ * Published when the stock of products is written without the rest of the
+ * product, handled once the transaction commits so that the indexes pick up
+ * the products running out of stock or back in stock
+ *
+ * @param stocks the stock after the write by product id
+ */
+public record ProductStockChangedEvent(Map<Long, Integer> stocks) {
+}
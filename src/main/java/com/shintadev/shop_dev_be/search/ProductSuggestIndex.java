@@ -0,0 +1,149 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.shintadev.shop_dev_be.repository.order.OrderItemRepo;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Autocomplete over the names of the active products and of their categories.
+ * <p>
+ * Products are ranked by units sold, as of the last rebuild, and categories by
+ * their number of active products.
+ */
+@Slf4j
+@Component
+public class ProductSuggestIndex implements ProductIndex {
+
+  private final OrderItemRepo orderItemRepo;
+  private final int maxSize;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final SuggestTrie products;
+  private final SuggestTrie categories;
+  private final Map<Long, ProductDocument> documents = new HashMap<>();
+  private final Map<Long, Long> productCountByCategory = new HashMap<>();
+  private Map<Long, Long> unitsSold = Map.of();
+
+  public ProductSuggestIndex(
+      OrderItemRepo orderItemRepo,
+      @Value("${app.search.suggest.max-size:10}") int maxSize) {
+    this.orderItemRepo = orderItemRepo;
+    this.maxSize = maxSize;
+    this.products = new SuggestTrie(maxSize);
+    this.categories = new SuggestTrie(maxSize);
+  }
+
+  @Override
+  public void upsert(ProductDocument document) {
+    lock.writeLock().lock();
+    try {
+      removeInternal(document.id());
+      addInternal(document);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void remove(Long productId) {
+    lock.writeLock().lock();
+    try {
+      removeInternal(productId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void rebuild(Collection<ProductDocument> documents) {
+    // Load the popularity before blocking the lookups
+    Map<Long, Long> sold = new HashMap<>();
+    for (Object[] row : orderItemRepo.sumQuantitySoldByProduct()) {
+      sold.put((Long) row[0], ((Number) row[1]).longValue());
+    }
+
+    lock.writeLock().lock();
+    try {
+      products.clear();
+      categories.clear();
+      this.documents.clear();
+      productCountByCategory.clear();
+      unitsSold = sold;
+      documents.forEach(this::addInternal);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("Suggest index rebuilt with {} products and {} categories",
+        documents.size(), productCountByCategory.size());
+  }
+
+  /**
+   * Get the most popular products whose name has a word starting with a prefix
+   *
+   * @param prefix the prefix
+   * @param limit  the maximum number of products
+   * @return the products, most popular first
+   */
+  public List<Suggestion> suggestProducts(String prefix, int limit) {
+    return lookup(products, prefix, limit);
+  }
+
+  /**
+   * Get the largest categories whose name has a word starting with a prefix
+   *
+   * @param prefix the prefix
+   * @param limit  the maximum number of categories
+   * @return the categories, largest first
+   */
+  public List<Suggestion> suggestCategories(String prefix, int limit) {
+    return lookup(categories, prefix, limit);
+  }
+
+  private List<Suggestion> lookup(SuggestTrie trie, String prefix, int limit) {
+    String key = SuggestTrie.keyOf(prefix);
+    lock.readLock().lock();
+    try {
+      return trie.lookup(key, Math.min(limit, maxSize));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void addInternal(ProductDocument document) {
+    documents.put(document.id(), document);
+    products.put(new Suggestion(
+        document.id(), document.name(), document.slug(), unitsSold.getOrDefault(document.id(), 0L)));
+
+    long count = productCountByCategory.merge(document.categoryId(), 1L, Long::sum);
+    // Also picks up a renamed category
+    categories.put(new Suggestion(
+        document.categoryId(), document.categoryName(), document.categorySlug(), count));
+  }
+
+  private void removeInternal(Long productId) {
+    ProductDocument document = documents.remove(productId);
+    if (document == null) {
+      return;
+    }
+    products.remove(productId);
+
+    Long count = productCountByCategory.merge(document.categoryId(), -1L, Long::sum);
+    Suggestion category = categories.get(document.categoryId());
+    if (count <= 0) {
+      productCountByCategory.remove(document.categoryId());
+      categories.remove(document.categoryId());
+    } else if (category != null) {
+      categories.put(new Suggestion(category.id(), category.text(), category.slug(), count));
+    }
+  }
+}
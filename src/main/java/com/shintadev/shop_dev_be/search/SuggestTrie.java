@@ -0,0 +1,189 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prefix trie answering "the N most popular entries starting with this prefix"
+ * without visiting the whole subtree: every node keeps the top N of its
+ * subtree, recomputed along the path of each insertion or removal.
+ * <p>
+ * An entry is reachable from the start of every word of its text, so "shirt"
+ * finds "Blue Shirt". Not thread-safe, callers guard it.
+ */
+public class SuggestTrie {
+
+  private final int maxSize;
+  private final Node root = new Node();
+
+  // id -> the entry, and the keys it was inserted under
+  private final Map<Long, Suggestion> suggestions = new HashMap<>();
+  private final Map<Long, Set<String>> keysBySuggestion = new HashMap<>();
+
+  /**
+   * @param maxSize the number of entries kept per node, the largest limit a
+   *                lookup can use
+   */
+  public SuggestTrie(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Add or replace an entry
+   *
+   * @param suggestion the entry
+   */
+  public void put(Suggestion suggestion) {
+    remove(suggestion.id());
+    Set<String> keys = keysFor(suggestion.text());
+    for (String key : keys) {
+      insert(key, suggestion);
+    }
+    suggestions.put(suggestion.id(), suggestion);
+    keysBySuggestion.put(suggestion.id(), keys);
+  }
+
+  /**
+   * Remove an entry, no-op if absent
+   *
+   * @param id the id of the entry
+   */
+  public void remove(Long id) {
+    Set<String> keys = keysBySuggestion.remove(id);
+    suggestions.remove(id);
+    if (keys == null) {
+      return;
+    }
+    for (String key : keys) {
+      delete(key, id);
+    }
+  }
+
+  /**
+   * Get an entry
+   *
+   * @param id the id of the entry
+   * @return the entry, or null if absent
+   */
+  public Suggestion get(Long id) {
+    return suggestions.get(id);
+  }
+
+  /**
+   * Remove every entry
+   */
+  public void clear() {
+    root.children.clear();
+    root.terminals.clear();
+    root.top = List.of();
+    suggestions.clear();
+    keysBySuggestion.clear();
+  }
+
+  /**
+   * Find the most popular entries starting with a prefix
+   *
+   * @param prefix the prefix, normalized like the entries
+   * @param limit  the maximum number of entries, capped at the max size
+   * @return the entries, most popular first
+   */
+  public List<Suggestion> lookup(String prefix, int limit) {
+    if (prefix.isEmpty()) {
+      return List.of();
+    }
+    Node node = root;
+    for (int i = 0; i < prefix.length() && node != null; i++) {
+      node = node.children.get(prefix.charAt(i));
+    }
+    if (node == null) {
+      return List.of();
+    }
+    List<Suggestion> top = node.top;
+    return List.copyOf(top.subList(0, Math.max(0, Math.min(limit, top.size()))));
+  }
+
+  /**
+   * Build the key of a text: its terms joined by single spaces
+   *
+   * @param text the text
+   * @return the key
+   */
+  public static String keyOf(String text) {
+    return String.join(" ", TextAnalyzer.tokenize(text));
+  }
+
+  private static Set<String> keysFor(String text) {
+    List<String> terms = TextAnalyzer.tokenize(text);
+    Set<String> keys = new LinkedHashSet<>();
+    for (int i = 0; i < terms.size(); i++) {
+      keys.add(String.join(" ", terms.subList(i, terms.size())));
+    }
+    return keys;
+  }
+
+  private void insert(String key, Suggestion suggestion) {
+    List<Node> path = new ArrayList<>(key.length() + 1);
+    Node node = root;
+    path.add(node);
+    for (int i = 0; i < key.length(); i++) {
+      node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+      path.add(node);
+    }
+    node.terminals.put(suggestion.id(), suggestion);
+    recompute(path);
+  }
+
+  private void delete(String key, Long id) {
+    List<Node> path = new ArrayList<>(key.length() + 1);
+    Node node = root;
+    path.add(node);
+    for (int i = 0; i < key.length(); i++) {
+      node = node.children.get(key.charAt(i));
+      if (node == null) {
+        return;
+      }
+      path.add(node);
+    }
+    node.terminals.remove(id);
+
+    // Prune the nodes left without entries, deepest first
+    for (int i = path.size() - 1; i > 0; i--) {
+      Node child = path.get(i);
+      if (!child.terminals.isEmpty() || !child.children.isEmpty()) {
+        break;
+      }
+      path.get(i - 1).children.remove(key.charAt(i - 1));
+      path.remove(i);
+    }
+    recompute(path);
+  }
+
+  /**
+   * Recompute the top entries of the nodes of a path, deepest first
+   */
+  private void recompute(List<Node> path) {
+    for (int i = path.size() - 1; i >= 0; i--) {
+      Node node = path.get(i);
+      // The same entry can reach a node through several of its keys
+      Map<Long, Suggestion> candidates = new LinkedHashMap<>(node.terminals);
+      for (Node child : node.children.values()) {
+        child.top.forEach(suggestion -> candidates.putIfAbsent(suggestion.id(), suggestion));
+      }
+      node.top = candidates.values().stream()
+          .sorted(Suggestion.RANKING)
+          .limit(maxSize)
+          .toList();
+    }
+  }
+
+  private static final class Node {
+    private final Map<Character, Node> children = new HashMap<>(4);
+    private final Map<Long, Suggestion> terminals = new HashMap<>(2);
+    private List<Suggestion> top = List.of();
+  }
+}
@@ -0,0 +1,23 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.util.Comparator;
+
+/**
+ * An autocomplete entry
+ *
+ * @param id    the id of the product or category
+ * @param text  the text shown to the user
+ * @param slug  the slug to link to
+ * @param score the popularity, higher first
+ */
+public record Suggestion(Long id, String text, String slug, long score) {
+
+  /**
+   * Most popular first, then shortest, then alphabetical
+   */
+  public static final Comparator<Suggestion> RANKING = Comparator
+      .comparingLong(Suggestion::score).reversed()
+      .thenComparingInt((Suggestion suggestion) -> suggestion.text().length())
+      .thenComparing(Suggestion::text, String.CASE_INSENSITIVE_ORDER)
+      .thenComparing(Suggestion::id);
+}
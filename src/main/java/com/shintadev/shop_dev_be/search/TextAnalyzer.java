@@ -0,0 +1,54 @@
+package com.shintadev.shop_dev_be.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Turns text into search terms: lower case, accents removed (so "áo" matches
+ * "ao"), split on anything that is not a letter or a digit
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TextAnalyzer {
+
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  /**
+   * Normalize text for matching
+   *
+   * @param text the text
+   * @return the normalized text, empty if text is null
+   */
+  public static String normalize(String text) {
+    if (text == null) {
+      return "";
+    }
+    String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+    return MARKS.matcher(decomposed).replaceAll("")
+        .replace('đ', 'd')
+        .replace('Đ', 'D')
+        .toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Split text into normalized terms
+   *
+   * @param text the text
+   * @return the terms, in order, possibly repeated
+   */
+  public static List<String> tokenize(String text) {
+    List<String> terms = new ArrayList<>();
+    for (String term : SEPARATORS.split(normalize(text))) {
+      if (!term.isEmpty()) {
+        terms.add(term);
+      }
+    }
+    return terms;
+  }
+}
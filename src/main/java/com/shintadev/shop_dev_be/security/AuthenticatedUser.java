@@ -0,0 +1,64 @@
+package com.shintadev.shop_dev_be.security;
+
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The user of a request authenticated by a JWT, built from the claims of the
+ * token rather than loaded from the database
+ */
+@Getter
+@Builder
+@ToString
+public class AuthenticatedUser implements UserDetails {
+
+  private final Long id;
+  private final String tokenId;
+  private final String email;
+  private final long statusVersion;
+  private final Collection<? extends GrantedAuthority> authorities;
+
+  /**
+   * Tokens carry no password
+   *
+   * @return null
+   */
+  @Override
+  public String getPassword() {
+    return null;
+  }
+
+  @Override
+  public String getUsername() {
+    return email;
+  }
+
+  // A token stops being accepted once the status of its user changes, so the
+  // account of an accepted token is in good standing
+
+  @Override
+  public boolean isAccountNonExpired() {
+    return true;
+  }
+
+  @Override
+  public boolean isAccountNonLocked() {
+    return true;
+  }
+
+  @Override
+  public boolean isCredentialsNonExpired() {
+    return true;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return true;
+  }
+}
@@ -0,0 +1,82 @@
+package com.shintadev.shop_dev_be.security;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.shintadev.shop_dev_be.exception.TooManyRequestsException;
+
+/**
+ * Password encoder hashing on a dedicated bounded executor.
+ * <p>
+ * Adaptive hashes are deliberately CPU heavy: run on the request threads, a
+ * burst of logins would take every core and starve the other endpoints.
+ * Here at most one hash per thread of the executor runs at once, the callers
+ * wait for the result, and a hash that cannot be queued or is not done in
+ * time fails the request with a 429 instead of piling up. A hash given up on
+ * is cancelled, so that it leaves the queue instead of being computed for
+ * nobody.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+  private static final long RETRY_AFTER_SECONDS = 1;
+
+  private final PasswordEncoder delegate;
+  private final Executor executor;
+  private final Duration timeout;
+
+  /**
+   * @param delegate the encoder doing the hashing
+   * @param executor the executor to hash on
+   * @param timeout  how long a caller waits for a hash, queueing included
+   */
+  public BoundedPasswordEncoder(PasswordEncoder delegate, Executor executor, Duration timeout) {
+    this.delegate = delegate;
+    this.executor = executor;
+    this.timeout = timeout;
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return hash(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return hash(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private <T> T hash(Supplier<T> task) {
+    FutureTask<T> future = new FutureTask<>(task::get);
+    try {
+      executor.execute(future);
+      return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      throw new TooManyRequestsException("Too many requests, please try again later", RETRY_AFTER_SECONDS, e);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw new TooManyRequestsException("Too many requests, please try again later", RETRY_AFTER_SECONDS, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Failed to hash password", e.getCause());
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing password", e);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.shintadev.shop_dev_be.security;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import com.shintadev.shop_dev_be.exception.TooManyRequestsException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limits login attempts with a token bucket per client IP and one per email,
+ * kept in Redis so that every node shares them.
+ * <p>
+ * The IP bucket slows down a client trying many accounts, the email bucket
+ * many clients trying one account. An attempt takes a token from both
+ * buckets, and is refused without taking any when either is empty, so the
+ * attempts refused do not delay the next ones further. Attempts are let
+ * through when Redis is unavailable.
+ */
+@Slf4j
+@Component
+public class LoginRateLimiter {
+
+  private static final String IP_PREFIX = "auth:login-limit:ip:";
+  private static final String EMAIL_PREFIX = "auth:login-limit:email:";
+
+  /**
+   * KEYS are the buckets, ARGV their capacity and refill rate in tokens per
+   * millisecond, in pairs. Returns 0 if a token was taken from every bucket,
+   * otherwise the milliseconds until one is available in all of them.
+   */
+  private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+      local time = redis.call('TIME')
+      local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+      local tokens = {}
+      local wait = 0
+      for i, key in ipairs(KEYS) do
+        local capacity = tonumber(ARGV[2 * i - 1])
+        local rate = tonumber(ARGV[2 * i])
+        local bucket = redis.call('HMGET', key, 'tokens', 'ts')
+        local available = tonumber(bucket[1]) or capacity
+        local ts = tonumber(bucket[2]) or now
+        available = math.min(capacity, available + math.max(0, now - ts) * rate)
+        tokens[i] = available
+        if available < 1 then
+          wait = math.max(wait, math.ceil((1 - available) / rate))
+        end
+      end
+      if wait > 0 then
+        return wait
+      end
+      for i, key in ipairs(KEYS) do
+        local capacity = tonumber(ARGV[2 * i - 1])
+        local rate = tonumber(ARGV[2 * i])
+        redis.call('HSET', key, 'tokens', tostring(tokens[i] - 1), 'ts', now)
+        redis.call('PEXPIRE', key, math.ceil(capacity / rate))
+      end
+      return 0
+      """, Long.class);
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final String ipCapacity;
+  private final String ipRate;
+  private final String emailCapacity;
+  private final String emailRate;
+
+  public LoginRateLimiter(
+      StringRedisTemplate stringRedisTemplate,
+      @Value("${app.security.login-rate-limit.ip.capacity:20}") int ipCapacity,
+      @Value("${app.security.login-rate-limit.ip.refill-per-minute:10}") int ipRefillPerMinute,
+      @Value("${app.security.login-rate-limit.email.capacity:5}") int emailCapacity,
+      @Value("${app.security.login-rate-limit.email.refill-per-minute:1}") int emailRefillPerMinute) {
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.ipCapacity = String.valueOf(ipCapacity);
+    this.ipRate = String.valueOf(ipRefillPerMinute / 60_000.0);
+    this.emailCapacity = String.valueOf(emailCapacity);
+    this.emailRate = String.valueOf(emailRefillPerMinute / 60_000.0);
+  }
+
+  /**
+   * Take a login attempt from the buckets of a client and an email
+   *
+   * @param clientIp the IP address of the client
+   * @param email    the email to log in with
+   * @throws TooManyRequestsException if either bucket is empty
+   */
+  public void acquire(String clientIp, String email) {
+    Long wait;
+    try {
+      wait = stringRedisTemplate.execute(ACQUIRE_SCRIPT,
+          List.of(IP_PREFIX + clientIp, EMAIL_PREFIX + email.toLowerCase(Locale.ROOT)),
+          ipCapacity, ipRate, emailCapacity, emailRate);
+    } catch (Exception e) {
+      log.warn("Failed to check the login rate limit: {}", e.getMessage());
+      return;
+    }
+
+    if (wait != null && wait > 0) {
+      throw new TooManyRequestsException("Too many login attempts, please try again later",
+          Math.max(1, (wait + 999) / 1000));
+    }
+  }
+}
@@ -1,10 +1,13 @@
 package com.shintadev.shop_dev_be.security;
 
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.shintadev.shop_dev_be.domain.model.entity.user.User;
 import com.shintadev.shop_dev_be.repository.user.UserRepo;
 
 import lombok.RequiredArgsConstructor;
@@ -14,7 +17,7 @@ import lombok.RequiredArgsConstructor;
  */
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
   private final UserRepo userRepo;
 
@@ -30,4 +33,23 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     return userRepo.findByEmail(username)
         .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
   }
+
+  /**
+   * Store the password of a user hashed again after a successful login, e.g.
+   * a password stored in plain text or with a lower BCrypt strength. The
+   * password is left alone if it changed meanwhile.
+   * 
+   * @param user        the user details
+   * @param newPassword the new hash of the password
+   * @return the updated user details
+   */
+  @Override
+  @Transactional
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    User entity = (User) user;
+    if (userRepo.updatePassword(entity.getId(), newPassword, entity.getPassword()) > 0) {
+      entity.setPassword(newPassword);
+    }
+    return entity;
+  }
 }
@@ -0,0 +1,135 @@
+package com.shintadev.shop_dev_be.security;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shintadev.shop_dev_be.repository.user.UserRepo;
+import com.shintadev.shop_dev_be.service.user.UserStatusChangedEvent;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local cache of the status version of each user, used to reject the tokens
+ * issued before a status, password or role change.
+ * <p>
+ * Versions only grow: a token older than the cached version is rejected, and
+ * the database is only read on a miss or for a token newer than the cached
+ * version. Changes made on this node are applied once committed and
+ * broadcast to the other nodes over Redis pub/sub. The TTL bounds how long a
+ * lost broadcast goes unnoticed.
+ */
+@Slf4j
+@Component
+public class UserVersionCache implements MessageListener {
+
+  private static final String SEPARATOR = "|";
+
+  private final UserRepo userRepo;
+  private final StringRedisTemplate stringRedisTemplate;
+  private final RedisMessageListenerContainer redisMessageListenerContainer;
+  private final String channel;
+  private final Cache<Long, Long> versions;
+
+  private final String nodeId = UUID.randomUUID().toString();
+
+  public UserVersionCache(
+      UserRepo userRepo,
+      StringRedisTemplate stringRedisTemplate,
+      RedisMessageListenerContainer redisMessageListenerContainer,
+      @Value("${app.security.user-version.channel:security:user-version}") String channel,
+      @Value("${app.security.user-version.max-size:10000}") long maxSize,
+      @Value("${app.security.user-version.ttl:300000}") long timeToLive) {
+    this.userRepo = userRepo;
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.redisMessageListenerContainer = redisMessageListenerContainer;
+    this.channel = channel;
+    this.versions = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofMillis(timeToLive))
+        .build();
+  }
+
+  @PostConstruct
+  void subscribe() {
+    redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(channel));
+  }
+
+  /**
+   * Check if a token was issued at the current status version of its user
+   *
+   * @param userId        the id of the user
+   * @param statusVersion the status version of the token
+   * @return false if the token has been revoked or the user no longer exists
+   */
+  public boolean isCurrent(Long userId, long statusVersion) {
+    // 1. Answer from the cache when it knows the version of the token
+    Long cached = versions.getIfPresent(userId);
+    if (cached != null && cached >= statusVersion) {
+      return cached == statusVersion;
+    }
+
+    // 2. Missing, or older than the token: read the database
+    Long current = userRepo.findStatusVersionById(userId).orElse(null);
+    if (current == null) {
+      versions.invalidate(userId);
+      return false;
+    }
+    update(userId, current);
+    return current == statusVersion;
+  }
+
+  /**
+   * Apply a change made on this node, then tell the other nodes
+   *
+   * @param event the event
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onUserStatusChanged(UserStatusChangedEvent event) {
+    update(event.userId(), event.statusVersion());
+    try {
+      stringRedisTemplate.convertAndSend(channel,
+          nodeId + SEPARATOR + event.userId() + SEPARATOR + event.statusVersion());
+    } catch (Exception e) {
+      // The other nodes catch up once their entry expires
+      log.warn("Failed to broadcast the status version of user {}: {}", event.userId(), e.getMessage());
+    }
+  }
+
+  /**
+   * Apply a change made on another node
+   */
+  @Override
+  public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+    String body = new String(message.getBody(), StandardCharsets.UTF_8);
+    String[] parts = body.split("\\" + SEPARATOR, 3);
+    if (parts.length != 3 || parts[0].equals(nodeId)) {
+      return;
+    }
+
+    try {
+      update(Long.valueOf(parts[1]), Long.parseLong(parts[2]));
+    } catch (NumberFormatException e) {
+      log.warn("Malformed user version message: {}", body);
+    }
+  }
+
+  private void update(Long userId, long statusVersion) {
+    versions.asMap().merge(userId, statusVersion, Math::max);
+  }
+}
@@ -0,0 +1,80 @@
+package com.shintadev.shop_dev_be.security.jwt;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of token ids.
+ * <p>
+ * Token ids are random UUIDs, so their two halves are used as the two hashes
+ * of double hashing instead of hashing them again. Safe for concurrent use.
+ */
+class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  /**
+   * @param expectedInsertions the number of ids the filter is sized for
+   * @param falsePositiveRate  the false positive rate once that many ids are
+   *                           in the filter
+   */
+  BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(expectedInsertions, 1);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.bitCount = Math.max(Long.SIZE, (m + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+    this.bits = new AtomicLongArray((int) (bitCount / Long.SIZE));
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+  }
+
+  /**
+   * Add a token id
+   *
+   * @param id the token id
+   */
+  void put(String id) {
+    long[] hashes = hashes(id);
+    for (int i = 0; i < hashCount; i++) {
+      long index = index(hashes, i);
+      int word = (int) (index >>> 6);
+      long mask = 1L << index;
+      long current;
+      do {
+        current = bits.get(word);
+      } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  /**
+   * Check if a token id may have been added
+   *
+   * @param id the token id
+   * @return false if the id was never added, true if it probably was
+   */
+  boolean mightContain(String id) {
+    long[] hashes = hashes(id);
+    for (int i = 0; i < hashCount; i++) {
+      long index = index(hashes, i);
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long index(long[] hashes, int i) {
+    return Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+  }
+
+  private static long[] hashes(String id) {
+    try {
+      UUID uuid = UUID.fromString(id);
+      return new long[] { uuid.getMostSignificantBits(), uuid.getLeastSignificantBits() | 1 };
+    } catch (IllegalArgumentException e) {
+      // Not issued by us, spread the string hash instead
+      long hash = id.hashCode() * 0x9E3779B97F4A7C15L;
+      return new long[] { hash, Long.rotateLeft(hash, 32) | 1 };
+    }
+  }
+}
@@ -1,35 +1,85 @@
 package com.shintadev.shop_dev_be.security.jwt;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.shintadev.shop_dev_be.security.AuthenticatedUser;
+import com.shintadev.shop_dev_be.security.UserVersionCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * JWT authentication filter
+ * JWT authentication filter. The user is built from the claims of the token,
+ * the database is only read to check the status version of the user when it
+ * is not cached, and Redis only when the token may have been revoked.
+ * <p>
+ * Nothing is logged per request: the outcome of each authentication is
+ * counted and its steps timed instead, and neither tokens nor users are ever
+ * logged.
  */
 @Component
 @Slf4j
-@RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
   private final JwtTokenProvider jwtTokenProvider;
+  private final UserVersionCache userVersionCache;
+  private final TokenRevocationList tokenRevocationList;
+
+  private final Timer parseTimer;
+  private final Timer lookupTimer;
+  private final Counter anonymous;
+  private final Counter authenticated;
+  private final Counter invalid;
+  private final Counter revoked;
+  private final Counter failed;
+
+  public JwtAuthFilter(
+      JwtTokenProvider jwtTokenProvider,
+      UserVersionCache userVersionCache,
+      TokenRevocationList tokenRevocationList,
+      MeterRegistry meterRegistry) {
+    this.jwtTokenProvider = jwtTokenProvider;
+    this.userVersionCache = userVersionCache;
+    this.tokenRevocationList = tokenRevocationList;
+
+    this.parseTimer = Timer.builder("auth.jwt.parse")
+        .description("Time to verify a token and build its user, cached tokens included")
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+    this.lookupTimer = Timer.builder("auth.jwt.lookup")
+        .description("Time to check that a token and the status version of its user are not revoked")
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+    this.anonymous = result(meterRegistry, "anonymous", "Requests without a token");
+    this.authenticated = result(meterRegistry, "authenticated", "Requests authenticated by their token");
+    this.invalid = result(meterRegistry, "invalid", "Requests whose token is malformed, forged or expired");
+    this.revoked = result(meterRegistry, "revoked", "Requests whose token was revoked or issued before a status change");
+    this.failed = result(meterRegistry, "error", "Requests whose authentication failed unexpectedly");
+  }
 
-  private final UserDetailsService userDetailsService;
+  private static Counter result(MeterRegistry meterRegistry, String result, String description) {
+    return Counter.builder("auth.jwt.requests")
+        .tag("result", result)
+        .description(description)
+        .register(meterRegistry);
+  }
 
   /**
    * Filters the request
@@ -47,25 +97,54 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     try {
       // Extract the token from the request
       final String token = jwtTokenProvider.resolveToken(request);
-      log.info("Token: {}", token);
-      if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-        // Extract the username from the token
-        final String username = jwtTokenProvider.getUsernameFromToken(token);
-        log.info("Username: {}", username);
-        // Load the user details from the database
-        final UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        log.info("UserDetails: {}", userDetails.toString());
-        // Create an authentication token
-        final UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-            userDetails, null, userDetails.getAuthorities());
-        // Set the details of the authentication token
-        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-        // Set the authentication object in the security context
-        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+      if (StringUtils.hasText(token)) {
+        authenticate(token, request);
+      } else {
+        anonymous.increment();
       }
     } catch (Exception e) {
+      failed.increment();
       log.error("Error while processing authentication filter: {}", e.getMessage());
     }
     filterChain.doFilter(request, response);
   }
+
+  private void authenticate(String token, HttpServletRequest request) {
+    // 1. Build the user from the claims of the token
+    final AuthenticatedUser user;
+    long start = System.nanoTime();
+    try {
+      final Claims claims = jwtTokenProvider.getClaimsFromToken(token);
+      user = jwtTokenProvider.getAuthenticatedUser(claims);
+    } catch (JwtException | IllegalArgumentException e) {
+      invalid.increment();
+      return;
+    } finally {
+      parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // 2. Reject the tokens revoked, or issued before a status change of the
+    // user
+    start = System.nanoTime();
+    boolean current;
+    try {
+      current = !tokenRevocationList.isAccessTokenRevoked(user.getTokenId())
+          && userVersionCache.isCurrent(user.getId(), user.getStatusVersion());
+    } finally {
+      lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    if (!current) {
+      revoked.increment();
+      return;
+    }
+
+    // 3. Create an authentication token
+    final UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+        user, null, user.getAuthorities());
+    // Set the details of the authentication token
+    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+    // Set the authentication object in the security context
+    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    authenticated.increment();
+  }
 }
@@ -1,17 +1,32 @@
 package com.shintadev.shop_dev_be.security.jwt;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.shintadev.shop_dev_be.domain.model.entity.user.User;
+import com.shintadev.shop_dev_be.security.AuthenticatedUser;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -24,29 +39,58 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Provides JWT token generation and validation
+ * Provides JWT token generation and validation.
+ * <p>
+ * Verified claims are cached by the hash of their token until the token
+ * expires, so a token is parsed and its signature checked once rather than
+ * on every request. The cached claims are shared and must not be modified.
  */
 @Component
 @Slf4j
 @Getter
 public class JwtTokenProvider {
 
+  private static final String USER_ID_CLAIM = "uid";
+  private static final String ROLES_CLAIM = "roles";
+  private static final String STATUS_VERSION_CLAIM = "sv";
+  private static final String TYPE_CLAIM = "typ";
+  private static final String ACCESS_TYPE = "access";
+  private static final String REFRESH_TYPE = "refresh";
+
   @Value("${app.jwt.secret}")
   private String secret;
 
   @Value("${app.jwt.expiration-in-ms}")
   private Long expiration;
 
+  @Value("${app.jwt.refresh-expiration-in-ms:1209600000}")
+  private Long refreshExpiration;
+
+  @Value("${app.jwt.claims-cache.max-size:10000}")
+  private long claimsCacheMaxSize;
+
   private SecretKey secretKey;
 
+  private JwtParser jwtParser;
+
+  private Cache<String, Claims> claimsCache;
+
   /**
    * Initializes the JwtTokenProvider
    */
   @PostConstruct
   public void init() {
     try {
-      log.info("Initializing JwtTokenProvider with secret: {}", secret);
+      log.info("Initializing JwtTokenProvider");
       secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+      // The parser is immutable and thread-safe
+      jwtParser = Jwts.parserBuilder()
+          .setSigningKey(secretKey)
+          .build();
+      claimsCache = Caffeine.newBuilder()
+          .maximumSize(claimsCacheMaxSize)
+          .expireAfter(new ExpireAtTokenExpiration())
+          .build();
     } catch (Exception e) {
       log.error("Error initializing JwtTokenProvider", e);
       throw e;
@@ -54,22 +98,92 @@ public class JwtTokenProvider {
   }
 
   /**
-   * Generates a JWT token for a user
+   * Generates a short-lived access token for a user, carrying what is needed
+   * to authenticate its requests without loading the user
    * 
-   * @param userDetails the user details
+   * @param user the user
    * @return the JWT token
    */
-  public String generateToken(UserDetails userDetails) {
+  public String generateToken(User user) {
     long now = System.currentTimeMillis();
+    List<String> roles = user.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority)
+        .toList();
 
     return Jwts.builder()
-        .setSubject(userDetails.getUsername())
+        .setId(UUID.randomUUID().toString())
+        .setSubject(user.getUsername())
+        .claim(TYPE_CLAIM, ACCESS_TYPE)
+        .claim(USER_ID_CLAIM, user.getId())
+        .claim(ROLES_CLAIM, roles)
+        .claim(STATUS_VERSION_CLAIM, user.getStatusVersion())
         .setIssuedAt(new Date(now))
         .setExpiration(new Date(now + expiration))
         .signWith(secretKey, SignatureAlgorithm.HS256)
         .compact();
   }
 
+  /**
+   * Generates a refresh token for a user, exchanged once for a new access and
+   * refresh token
+   * 
+   * @param user the user
+   * @return the JWT token
+   */
+  public String generateRefreshToken(User user) {
+    long now = System.currentTimeMillis();
+
+    return Jwts.builder()
+        .setId(UUID.randomUUID().toString())
+        .setSubject(user.getUsername())
+        .claim(TYPE_CLAIM, REFRESH_TYPE)
+        .claim(USER_ID_CLAIM, user.getId())
+        .claim(STATUS_VERSION_CLAIM, user.getStatusVersion())
+        .setIssuedAt(new Date(now))
+        .setExpiration(new Date(now + refreshExpiration))
+        .signWith(secretKey, SignatureAlgorithm.HS256)
+        .compact();
+  }
+
+  /**
+   * Gets the claims from a refresh token. Refresh tokens are used once, so
+   * their claims are not cached.
+   * 
+   * @param token the refresh token
+   * @return the claims
+   * @throws JwtException if the token is invalid or not a refresh token
+   */
+  public Claims getClaimsFromRefreshToken(String token) {
+    Claims claims = jwtParser.parseClaimsJws(token)
+        .getBody();
+    if (!REFRESH_TYPE.equals(claims.get(TYPE_CLAIM, String.class))) {
+      throw new UnsupportedJwtException("Not a refresh token");
+    }
+    return claims;
+  }
+
+  /**
+   * Gets the id of the user from the claims of a token
+   * 
+   * @param claims the claims
+   * @return the id of the user
+   */
+  public Long getUserId(Claims claims) {
+    Number userId = claims.get(USER_ID_CLAIM, Number.class);
+    return userId != null ? userId.longValue() : null;
+  }
+
+  /**
+   * Gets the status version of the user from the claims of a token
+   * 
+   * @param claims the claims
+   * @return the status version
+   */
+  public long getStatusVersion(Claims claims) {
+    Number statusVersion = claims.get(STATUS_VERSION_CLAIM, Number.class);
+    return statusVersion != null ? statusVersion.longValue() : -1;
+  }
+
   /**
    * Resolves the JWT token from the request
    * 
@@ -77,7 +191,16 @@ public class JwtTokenProvider {
    * @return the JWT token
    */
   public String resolveToken(HttpServletRequest request) {
-    String bearerToken = request.getHeader("Authorization");
+    return resolveToken(request.getHeader("Authorization"));
+  }
+
+  /**
+   * Resolves the JWT token from an Authorization header
+   * 
+   * @param bearerToken the value of the header
+   * @return the JWT token
+   */
+  public String resolveToken(String bearerToken) {
     if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
       return bearerToken.substring(7);
     }
@@ -95,15 +218,15 @@ public class JwtTokenProvider {
       getClaimsFromToken(token);
       return true;
     } catch (SignatureException e) {
-      log.error("Invalid JWT signature: {}", e.getMessage());
+      log.debug("Invalid JWT signature: {}", e.getMessage());
     } catch (MalformedJwtException e) {
-      log.error("Invalid JWT token: {}", e.getMessage());
+      log.debug("Invalid JWT token: {}", e.getMessage());
     } catch (ExpiredJwtException e) {
-      log.error("JWT token is expired: {}", e.getMessage());
+      log.debug("JWT token is expired: {}", e.getMessage());
     } catch (UnsupportedJwtException e) {
-      log.error("JWT token is unsupported: {}", e.getMessage());
+      log.debug("JWT token is unsupported: {}", e.getMessage());
     } catch (IllegalArgumentException e) {
-      log.error("JWT claims string is empty: {}", e.getMessage());
+      log.debug("JWT claims string is empty: {}", e.getMessage());
     }
     return false;
   }
@@ -147,6 +270,35 @@ public class JwtTokenProvider {
         .getExpiration();
   }
 
+  /**
+   * Builds the user of a request from the claims of its token
+   * 
+   * @param claims the claims of a valid token
+   * @return the user
+   * @throws IllegalArgumentException if the token is not an access token
+   */
+  public AuthenticatedUser getAuthenticatedUser(Claims claims) {
+    if (!ACCESS_TYPE.equals(claims.get(TYPE_CLAIM, String.class))) {
+      throw new IllegalArgumentException("Not an access token");
+    }
+    Number userId = claims.get(USER_ID_CLAIM, Number.class);
+    Number statusVersion = claims.get(STATUS_VERSION_CLAIM, Number.class);
+    Collection<?> roles = claims.get(ROLES_CLAIM, Collection.class);
+    if (userId == null || statusVersion == null || roles == null) {
+      throw new IllegalArgumentException("JWT token has no user claims");
+    }
+
+    return AuthenticatedUser.builder()
+        .id(userId.longValue())
+        .tokenId(claims.getId())
+        .email(claims.getSubject())
+        .statusVersion(statusVersion.longValue())
+        .authorities(roles.stream()
+            .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+            .toList())
+        .build();
+  }
+
   /**
    * Gets the claims from a JWT token, throws an exception if the token is
    * invalid. Recommended to use {@link #validateToken(String)} instead or
@@ -156,15 +308,60 @@ public class JwtTokenProvider {
    * @return the claims
    */
   public Claims getClaimsFromToken(String token) {
+    // 1. A token already verified is served from the cache until it expires
+    String key = hash(token);
+    Claims claims = claimsCache.getIfPresent(key);
+    if (claims != null) {
+      return claims;
+    }
+
+    // 2. Otherwise parse it and verify its signature
     try {
-      return Jwts.parserBuilder()
-          .setSigningKey(secretKey)
-          .build()
-          .parseClaimsJws(token)
+      claims = jwtParser.parseClaimsJws(token)
           .getBody();
     } catch (JwtException e) {
-      log.error("Error getting claims from token: {}", e.getMessage());
+      log.debug("Error getting claims from token: {}", e.getMessage());
       throw e;
     }
+
+    if (claims.getExpiration() != null) {
+      claimsCache.put(key, claims);
+    }
+    return claims;
+  }
+
+  /**
+   * Hash a token, so that the cache holds no usable token
+   */
+  private static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      // Every JVM provides SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Expire the cached claims of a token when the token expires
+   */
+  private static class ExpireAtTokenExpiration implements Expiry<String, Claims> {
+
+    @Override
+    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+      long remaining = claims.getExpiration().getTime() - System.currentTimeMillis();
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, claims, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
   }
 }
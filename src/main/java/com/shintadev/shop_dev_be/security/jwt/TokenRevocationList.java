@@ -0,0 +1,182 @@
+package com.shintadev.shop_dev_be.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The revoked tokens, by token id.
+ * <p>
+ * Redis holds the exact list: one key per revoked token, expiring with the
+ * token. Each node also keeps a Bloom filter of the revoked access tokens, so
+ * checking a token that was not revoked, the common case, takes a single
+ * local probe; Redis is only asked about the tokens the filter matches.
+ * Revocations are broadcast to the other nodes over Redis pub/sub, and the
+ * filter is rebuilt from Redis periodically, which drops the expired tokens
+ * and catches up on lost broadcasts.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList implements MessageListener {
+
+  private static final String ACCESS_PREFIX = "auth:revoked:access:";
+  private static final String REFRESH_PREFIX = "auth:revoked:refresh:";
+  private static final String SEPARATOR = "|";
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final RedisMessageListenerContainer redisMessageListenerContainer;
+  private final String channel;
+  private final long expectedRevocations;
+  private final double falsePositiveRate;
+
+  private final String nodeId = UUID.randomUUID().toString();
+
+  private volatile BloomFilter accessFilter;
+  private volatile BloomFilter nextAccessFilter;
+
+  public TokenRevocationList(
+      StringRedisTemplate stringRedisTemplate,
+      RedisMessageListenerContainer redisMessageListenerContainer,
+      @Value("${app.jwt.revocation.channel:auth:token-revoked}") String channel,
+      @Value("${app.jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+      @Value("${app.jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.redisMessageListenerContainer = redisMessageListenerContainer;
+    this.channel = channel;
+    this.expectedRevocations = expectedRevocations;
+    this.falsePositiveRate = falsePositiveRate;
+    this.accessFilter = new BloomFilter(expectedRevocations, falsePositiveRate);
+  }
+
+  @PostConstruct
+  void subscribe() {
+    redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(channel));
+  }
+
+  /**
+   * Revoke an access token
+   *
+   * @param tokenId   the id of the token
+   * @param expiresAt when the token expires
+   */
+  public void revokeAccessToken(String tokenId, Date expiresAt) {
+    if (!store(ACCESS_PREFIX, tokenId, expiresAt)) {
+      return;
+    }
+    addToFilter(tokenId);
+    try {
+      stringRedisTemplate.convertAndSend(channel, nodeId + SEPARATOR + tokenId);
+    } catch (Exception e) {
+      // The other nodes catch up on their next rebuild
+      log.warn("Failed to broadcast a token revocation: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Revoke a refresh token, at most once
+   *
+   * @param tokenId   the id of the token
+   * @param expiresAt when the token expires
+   * @return false if the token was already revoked, e.g. it has already been
+   *         used
+   */
+  public boolean revokeRefreshToken(String tokenId, Date expiresAt) {
+    return store(REFRESH_PREFIX, tokenId, expiresAt);
+  }
+
+  /**
+   * Check if an access token has been revoked
+   *
+   * @param tokenId the id of the token
+   * @return true if the token has been revoked
+   */
+  public boolean isAccessTokenRevoked(String tokenId) {
+    if (!accessFilter.mightContain(tokenId)) {
+      return false;
+    }
+    return Boolean.TRUE.equals(stringRedisTemplate.hasKey(ACCESS_PREFIX + tokenId));
+  }
+
+  /**
+   * Rebuild the filter from the access tokens still revoked
+   */
+  @Scheduled(initialDelay = 0, fixedDelayString = "${app.jwt.revocation.rebuild-interval:60000}")
+  public void rebuild() {
+    BloomFilter filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+    // Revocations made during the scan go to both filters
+    nextAccessFilter = filter;
+    int count = 0;
+    try (Cursor<String> keys = stringRedisTemplate.scan(ScanOptions.scanOptions()
+        .match(ACCESS_PREFIX + "*")
+        .count(1000)
+        .build())) {
+      while (keys.hasNext()) {
+        filter.put(keys.next().substring(ACCESS_PREFIX.length()));
+        count++;
+      }
+      accessFilter = filter;
+    } catch (Exception e) {
+      // Keep the current filter, it only misses the expiries
+      log.error("Failed to rebuild the token revocation filter: {}", e.getMessage(), e);
+      return;
+    } finally {
+      nextAccessFilter = null;
+    }
+
+    if (count > expectedRevocations) {
+      log.warn("{} access tokens are revoked, more than the {} the filter is sized for",
+          count, expectedRevocations);
+    }
+  }
+
+  /**
+   * Add an access token revoked on another node to the filter
+   */
+  @Override
+  public void onMessage(@NonNull Message message, @Nullable byte[] pattern) {
+    String body = new String(message.getBody(), StandardCharsets.UTF_8);
+    String[] parts = body.split("\\" + SEPARATOR, 2);
+    if (parts.length != 2 || parts[0].equals(nodeId)) {
+      return;
+    }
+    addToFilter(parts[1]);
+  }
+
+  private void addToFilter(String tokenId) {
+    // Read the rebuilt filter first: if there is none, the current filter is
+    // either the one being replaced, whose scan finds the token, or the
+    // rebuilt one
+    BloomFilter next = nextAccessFilter;
+    if (next != null) {
+      next.put(tokenId);
+    }
+    accessFilter.put(tokenId);
+  }
+
+  private boolean store(String prefix, String tokenId, Date expiresAt) {
+    long ttl = expiresAt.getTime() - System.currentTimeMillis();
+    if (ttl <= 0) {
+      // Expired tokens are rejected anyway
+      return false;
+    }
+    return Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+        .setIfAbsent(prefix + tokenId, "1", Duration.ofMillis(ttl)));
+  }
+}
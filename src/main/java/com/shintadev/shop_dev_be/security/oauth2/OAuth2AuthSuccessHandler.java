@@ -60,9 +60,11 @@ public class OAuth2AuthSuccessHandler extends SimpleUrlAuthenticationSuccessHand
   private String determineTargetUrl(Authentication authentication) {
     User user = (User) authentication.getPrincipal();
     String token = jwtTokenProvider.generateToken(user);
+    String refreshToken = jwtTokenProvider.generateRefreshToken(user);
 
     return UriComponentsBuilder.fromUriString("/")
         .queryParam("token", token)
+        .queryParam("refreshToken", refreshToken)
         .build()
         .toUriString();
   }
@@ -1,6 +1,5 @@
 package com.shintadev.shop_dev_be.security.oauth2;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -18,11 +17,11 @@ import org.springframework.util.StringUtils;
 
 import com.shintadev.shop_dev_be.constant.ResourceName;
 import com.shintadev.shop_dev_be.constant.kafka.EmailNotificationType;
-import com.shintadev.shop_dev_be.constant.kafka.KafkaMessageDataAttribute;
 import com.shintadev.shop_dev_be.domain.model.entity.user.User;
 import com.shintadev.shop_dev_be.domain.model.enums.user.RoleName;
 import com.shintadev.shop_dev_be.domain.model.enums.user.UserStatus;
 import com.shintadev.shop_dev_be.exception.ResourceNotFoundException;
+import com.shintadev.shop_dev_be.kafka.event.EmailNotificationEvent;
 import com.shintadev.shop_dev_be.kafka.producer.MessageProducer;
 import com.shintadev.shop_dev_be.repository.user.UserRepo;
 import com.shintadev.shop_dev_be.repository.user.RoleRepo;
@@ -90,12 +89,12 @@ public class OAuth2UserService extends DefaultOAuth2UserService {
       user = userOpt.get();
     } else {
       user = registerOAuth2User(attributes);
-      Map<String, Object> emailData = new HashMap<>();
-      emailData.put(KafkaMessageDataAttribute.EMAIL_TYPE_KEY, EmailNotificationType.WELCOME);
-      emailData.put(KafkaMessageDataAttribute.RECIPIENT_EMAIL_KEY, user.getEmail());
-      emailData.put(KafkaMessageDataAttribute.RECIPIENT_NAME_KEY, user.getDisplayName());
-      emailData.put(KafkaMessageDataAttribute.SUBJECT_KEY, "Welcome to Shop Dev");
-      messageProducer.sendEmailNotification(emailData);
+      messageProducer.sendEmailNotification(EmailNotificationEvent.builder()
+          .type(EmailNotificationType.WELCOME)
+          .recipientEmail(user.getEmail())
+          .recipientName(user.getDisplayName())
+          .subject("Welcome to Shop Dev")
+          .build());
     }
 
     return new DefaultOAuth2User(
@@ -6,8 +6,12 @@ import java.util.concurrent.TimeUnit;
 
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.shintadev.shop_dev_be.constant.ResourceName;
 import com.shintadev.shop_dev_be.domain.dto.mapper.CartMapper;
@@ -25,6 +29,7 @@ import com.shintadev.shop_dev_be.repository.cart.CartItemRepo;
 import com.shintadev.shop_dev_be.repository.product.ProductRepo;
 import com.shintadev.shop_dev_be.repository.user.UserRepo;
 import com.shintadev.shop_dev_be.service.cart.CartService;
+import com.shintadev.shop_dev_be.service.order.OrderPlacedEvent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -308,6 +313,19 @@ public class CartServiceImpl implements CartService {
     return cartItemRepo.countByUserId(userId);
   }
 
+  /**
+   * Recalculate the total price of a cart once an order placed from it is
+   * committed, its items are already gone
+   * 
+   * @param event the event
+   */
+  @Async("cartExecutor")
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public void onOrderPlaced(OrderPlacedEvent event) {
+    cartRepo.findById(event.cartId()).ifPresent(this::updateCartTotalPrice);
+  }
+
   /**
    * Get the cart of the user
    * 
@@ -3,6 +3,7 @@ package com.shintadev.shop_dev_be.service.common;
 import com.shintadev.shop_dev_be.domain.dto.request.auth.ChangePasswordRequest;
 import com.shintadev.shop_dev_be.domain.dto.request.auth.LoginRequest;
 import com.shintadev.shop_dev_be.domain.dto.request.auth.RegisterRequest;
+import com.shintadev.shop_dev_be.domain.dto.response.auth.JwtResponse;
 
 public interface AuthService {
 
@@ -12,7 +13,11 @@ public interface AuthService {
 
   void resendVerification(String email);
 
-  String login(LoginRequest request);
+  JwtResponse login(LoginRequest request);
+
+  JwtResponse refresh(String refreshToken);
+
+  void logout(String accessToken, String refreshToken);
 
   void forgotPassword(String email);
 
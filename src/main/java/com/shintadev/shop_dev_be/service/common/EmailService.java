@@ -1,37 +1,44 @@
 package com.shintadev.shop_dev_be.service.common;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.shintadev.shop_dev_be.kafka.event.OrderSnapshot;
+
 public interface EmailService {
 
-  void sendVerificationEmail(
+  CompletableFuture<Void> sendVerificationEmail(
       String to,
       String name,
       String subject,
       String verificationLink);
 
-  void sendPasswordResetEmail(
+  CompletableFuture<Void> sendPasswordResetEmail(
       String to,
       String name,
       String subject,
       String resetLink);
 
-  void sendWelcomeEmail(
+  CompletableFuture<Void> sendWelcomeEmail(
       String to,
       String name,
       String subject);
 
-  void sendOrderConfirmationEmail(
+  CompletableFuture<Void> sendOrderConfirmationEmail(
       String to,
       String name,
-      String subject);
+      String subject,
+      OrderSnapshot order);
 
-  void sendOrderStatusUpdateEmail(
+  CompletableFuture<Void> sendOrderStatusUpdateEmail(
       String to,
       String name,
       String subject,
-      String orderStatus);
+      List<OrderSnapshot> orders);
 
-  void sendOrderCancelledEmail(
+  CompletableFuture<Void> sendOrderCancelledEmail(
       String to,
       String name,
-      String subject);
+      String subject,
+      OrderSnapshot order);
 }
@@ -1,10 +1,9 @@
 package com.shintadev.shop_dev_be.service.common.impl;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -15,23 +14,32 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.shintadev.shop_dev_be.constant.kafka.EmailNotificationType;
-import com.shintadev.shop_dev_be.constant.kafka.KafkaMessageDataAttribute;
 import com.shintadev.shop_dev_be.domain.dto.request.auth.ChangePasswordRequest;
 import com.shintadev.shop_dev_be.domain.dto.request.auth.LoginRequest;
 import com.shintadev.shop_dev_be.domain.dto.request.auth.RegisterRequest;
+import com.shintadev.shop_dev_be.domain.dto.response.auth.JwtResponse;
 import com.shintadev.shop_dev_be.domain.dto.response.user.UserResponse;
 import com.shintadev.shop_dev_be.domain.model.entity.user.EmailVerificationToken;
 import com.shintadev.shop_dev_be.domain.model.entity.user.ResetPasswordToken;
+import com.shintadev.shop_dev_be.domain.model.entity.user.Role;
 import com.shintadev.shop_dev_be.domain.model.entity.user.User;
 import com.shintadev.shop_dev_be.domain.model.enums.user.UserStatus;
 import com.shintadev.shop_dev_be.exception.BadRequestException;
+import com.shintadev.shop_dev_be.exception.ResourceNotFoundException;
+import com.shintadev.shop_dev_be.kafka.event.EmailNotificationEvent;
 import com.shintadev.shop_dev_be.kafka.producer.MessageProducer;
 import com.shintadev.shop_dev_be.repository.user.EmailVerificationTokenRepo;
 import com.shintadev.shop_dev_be.repository.user.ResetPasswordTokenRepo;
+import com.shintadev.shop_dev_be.repository.user.UserRepo;
+import com.shintadev.shop_dev_be.security.AuthenticatedUser;
+import com.shintadev.shop_dev_be.security.UserVersionCache;
 import com.shintadev.shop_dev_be.security.jwt.JwtTokenProvider;
+import com.shintadev.shop_dev_be.security.jwt.TokenRevocationList;
 import com.shintadev.shop_dev_be.service.common.AuthService;
 import com.shintadev.shop_dev_be.service.user.UserService;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -50,8 +58,11 @@ public class AuthServiceImpl implements AuthService {
   private final AuthenticationManager authenticationManager;
   private final EmailVerificationTokenRepo emailVerificationTokenRepo;
   private final ResetPasswordTokenRepo resetPasswordTokenRepo;
+  private final UserRepo userRepo;
   private final PasswordEncoder passwordEncoder;
   private final MessageProducer messageProducer;
+  private final TokenRevocationList tokenRevocationList;
+  private final UserVersionCache userVersionCache;
 
   /**
    * Registers a new user
@@ -72,14 +83,14 @@ public class AuthServiceImpl implements AuthService {
     emailVerificationTokenRepo.save(emailVerificationToken);
 
     // 3. Create email data
-    Map<String, Object> emailData = createEmailData(user, "Verify your email", EmailNotificationType.VERIFICATION);
+    EmailNotificationEvent.EmailNotificationEventBuilder emailData = createEmailData(user, "Verify your email", EmailNotificationType.VERIFICATION);
 
     // 4. Add verification link to email data
-    emailData.put(KafkaMessageDataAttribute.VERIFICATION_LINK_KEY,
+    emailData.verificationLink(
         "http://localhost:8080/api/auth/verify?token=" + emailVerificationToken.getId().toString());
 
     // 5. Send verification email
-    messageProducer.sendEmailNotification(emailData);
+    messageProducer.sendEmailNotification(emailData.build());
     log.info("Verification email sent to {}", user.getEmail());
     log.info("Link: {}", "http://localhost:8080/api/auth/verify?token=" + emailVerificationToken.getId().toString());
   }
@@ -107,10 +118,10 @@ public class AuthServiceImpl implements AuthService {
     emailVerificationTokenRepo.delete(emailVerificationToken);
 
     // 5. Create welcome email data
-    Map<String, Object> emailData = createEmailData(user, "Welcome to our shop!", EmailNotificationType.WELCOME);
+    EmailNotificationEvent.EmailNotificationEventBuilder emailData = createEmailData(user, "Welcome to our shop!", EmailNotificationType.WELCOME);
 
     // 6. Send welcome email
-    messageProducer.sendEmailNotification(emailData);
+    messageProducer.sendEmailNotification(emailData.build());
     log.info("Welcome email sent to {}", user.getEmail());
     log.info("Welcome to our shop!");
   }
@@ -131,7 +142,7 @@ public class AuthServiceImpl implements AuthService {
     }
 
     // 3. Create email data
-    Map<String, Object> emailData = createEmailData(user, "Verify your email", EmailNotificationType.VERIFICATION);
+    EmailNotificationEvent.EmailNotificationEventBuilder emailData = createEmailData(user, "Verify your email", EmailNotificationType.VERIFICATION);
 
     // 4. Check if any token exists, if exists, delete all expired tokens
     List<EmailVerificationToken> emailVerificationTokens = emailVerificationTokenRepo.findByUserId(user.getId())
@@ -147,9 +158,9 @@ public class AuthServiceImpl implements AuthService {
               .toList());
       // If valid token exists, add verification link to email data and send email
       if (validToken != null) {
-        emailData.put(KafkaMessageDataAttribute.VERIFICATION_LINK_KEY,
+        emailData.verificationLink(
             "http://localhost:8080/api/auth/verify?token=" + validToken.getId().toString());
-        messageProducer.sendEmailNotification(emailData);
+        messageProducer.sendEmailNotification(emailData.build());
         log.info("Verification email sent to {}", user.getEmail());
         log.info("Link: {}", "http://localhost:8080/api/auth/verify?token=" + validToken.getId().toString());
         return;
@@ -164,29 +175,31 @@ public class AuthServiceImpl implements AuthService {
     emailVerificationTokenRepo.save(emailVerificationToken);
 
     // 6. Add verification link to email data
-    emailData.put(KafkaMessageDataAttribute.VERIFICATION_LINK_KEY,
+    emailData.verificationLink(
         "http://localhost:8080/api/auth/verify?token=" + emailVerificationToken.getId().toString());
 
     // 7. Send verification email
-    messageProducer.sendEmailNotification(emailData);
+    messageProducer.sendEmailNotification(emailData.build());
     log.info("Verification email sent to {}", user.getEmail());
     log.info("Link: {}", "http://localhost:8080/api/auth/verify?token=" + emailVerificationToken.getId().toString());
   }
 
   /**
-   * Authenticates a user
+   * Authenticates a user. Runs outside a transaction, so that no connection is
+   * held while the password is hashed.
    * 
    * @param request the login request DTO
-   * @return the JWT token
+   * @return the access and refresh tokens
    */
   @Override
-  public String login(LoginRequest request) {
+  @Transactional(Transactional.TxType.NOT_SUPPORTED)
+  public JwtResponse login(LoginRequest request) {
     Authentication authentication = authenticationManager.authenticate(
         new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
     SecurityContextHolder.getContext().setAuthentication(authentication);
 
     User user = (User) authentication.getPrincipal();
-    log.info("User: {}", user);
+    log.debug("User {} authenticated", user.getId());
     if (user.getStatus() != UserStatus.ACTIVE) {
       if (user.getStatus() == UserStatus.INACTIVE) {
         throw new BadRequestException("Please verify your email to login");
@@ -194,7 +207,71 @@ public class AuthServiceImpl implements AuthService {
         throw new BadRequestException("User is not active");
       }
     }
-    return jwtTokenProvider.generateToken(user);
+    return issueTokens(user);
+  }
+
+  /**
+   * Exchanges a refresh token for a new access and refresh token. A refresh
+   * token is used once: presenting it again means it was stolen, and every
+   * token of the user is revoked.
+   * 
+   * @param refreshToken the refresh token
+   * @return the new access and refresh tokens
+   */
+  @Override
+  public JwtResponse refresh(String refreshToken) {
+    // 1. Verify the refresh token
+    Claims claims;
+    try {
+      claims = jwtTokenProvider.getClaimsFromRefreshToken(refreshToken);
+    } catch (JwtException | IllegalArgumentException e) {
+      throw new BadCredentialsException("Invalid refresh token");
+    }
+    Long userId = jwtTokenProvider.getUserId(claims);
+    if (userId == null || !userVersionCache.isCurrent(userId, jwtTokenProvider.getStatusVersion(claims))) {
+      throw new BadCredentialsException("Refresh token has been revoked");
+    }
+
+    // 2. Use it up, a refresh token already used is being replayed
+    if (!tokenRevocationList.revokeRefreshToken(claims.getId(), claims.getExpiration())) {
+      log.warn("Refresh token of user {} reused, revoking all its tokens", userId);
+      userService.revokeAllTokens(userId);
+      throw new BadCredentialsException("Refresh token has been revoked");
+    }
+
+    // 3. Issue new tokens from the current state of the user
+    User user = userRepo.findById(userId)
+        .orElseThrow(() -> new BadCredentialsException("Refresh token has been revoked"));
+    if (user.getStatus() != UserStatus.ACTIVE) {
+      throw new BadRequestException("User is not active");
+    }
+    return issueTokens(user);
+  }
+
+  /**
+   * Revokes the tokens of a session
+   * 
+   * @param accessToken  the access token, if any
+   * @param refreshToken the refresh token, if any
+   */
+  @Override
+  public void logout(String accessToken, String refreshToken) {
+    if (accessToken != null) {
+      try {
+        Claims claims = jwtTokenProvider.getClaimsFromToken(accessToken);
+        tokenRevocationList.revokeAccessToken(claims.getId(), claims.getExpiration());
+      } catch (JwtException | IllegalArgumentException e) {
+        // Invalid tokens are rejected anyway
+      }
+    }
+    if (refreshToken != null) {
+      try {
+        Claims claims = jwtTokenProvider.getClaimsFromRefreshToken(refreshToken);
+        tokenRevocationList.revokeRefreshToken(claims.getId(), claims.getExpiration());
+      } catch (JwtException | IllegalArgumentException e) {
+        // Invalid tokens are rejected anyway
+      }
+    }
   }
 
   /**
@@ -208,7 +285,7 @@ public class AuthServiceImpl implements AuthService {
     UserResponse user = userService.getUserByEmail(email);
 
     // 2. Create email data
-    Map<String, Object> emailData = createEmailData(user, "Reset your password", EmailNotificationType.PASSWORD_RESET);
+    EmailNotificationEvent.EmailNotificationEventBuilder emailData = createEmailData(user, "Reset your password", EmailNotificationType.PASSWORD_RESET);
 
     // 3. Check if any token exists
     List<ResetPasswordToken> resetPasswordTokens = resetPasswordTokenRepo.findByUserId(user.getId())
@@ -223,9 +300,9 @@ public class AuthServiceImpl implements AuthService {
               .filter(token -> !token.equals(validToken))
               .toList());
       if (validToken != null) {
-        emailData.put(KafkaMessageDataAttribute.RESET_LINK_KEY,
+        emailData.resetLink(
             "http://localhost:8080/api/auth/reset-password?token=" + validToken.getId().toString());
-        messageProducer.sendEmailNotification(emailData);
+        messageProducer.sendEmailNotification(emailData.build());
         log.info("Reset password email sent to {}", user.getEmail());
         log.info("Link: {}", "http://localhost:8080/api/auth/reset-password?token=" + validToken.getId().toString());
         return;
@@ -240,11 +317,11 @@ public class AuthServiceImpl implements AuthService {
     resetPasswordTokenRepo.save(resetPasswordToken);
 
     // 5. Add reset password link to email data
-    emailData.put(KafkaMessageDataAttribute.RESET_LINK_KEY,
+    emailData.resetLink(
         "http://localhost:8080/api/auth/reset-password?token=" + resetPasswordToken.getId().toString());
 
     // 6. Send reset password email
-    messageProducer.sendEmailNotification(emailData);
+    messageProducer.sendEmailNotification(emailData.build());
     log.info("Reset password email sent to {}", user.getEmail());
     log.info("Link: {}",
         "http://localhost:8080/api/auth/reset-password?token=" + resetPasswordToken.getId().toString());
@@ -283,8 +360,11 @@ public class AuthServiceImpl implements AuthService {
    */
   @Override
   public void changePassword(ChangePasswordRequest request) {
-    // 1. Check if password is correct
-    User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    // 1. Check if password is correct, the token carries no password
+    AuthenticatedUser principal = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication()
+        .getPrincipal();
+    User user = userRepo.findById(principal.getId())
+        .orElseThrow(() -> ResourceNotFoundException.create("User", "id", principal.getId()));
     if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
       throw new BadCredentialsException("Invalid password");
     }
@@ -295,12 +375,28 @@ public class AuthServiceImpl implements AuthService {
     // TODO: Send email to notify that password is changed
   }
 
-  private Map<String, Object> createEmailData(UserResponse user, String subject, String type) {
-    Map<String, Object> emailData = new HashMap<>();
-    emailData.put(KafkaMessageDataAttribute.EMAIL_TYPE_KEY, type);
-    emailData.put(KafkaMessageDataAttribute.RECIPIENT_EMAIL_KEY, user.getEmail());
-    emailData.put(KafkaMessageDataAttribute.RECIPIENT_NAME_KEY, user.getDisplayName());
-    emailData.put(KafkaMessageDataAttribute.SUBJECT_KEY, subject);
-    return emailData;
+  private JwtResponse issueTokens(User user) {
+    return JwtResponse.builder()
+        .token(jwtTokenProvider.generateToken(user))
+        .refreshToken(jwtTokenProvider.generateRefreshToken(user))
+        .expiresIn(jwtTokenProvider.getExpiration())
+        .id(user.getId())
+        .email(user.getEmail())
+        .firstName(user.getFirstName())
+        .lastName(user.getLastName())
+        .displayName(user.getDisplayName())
+        .roles(user.getRoles().stream()
+            .map(Role::getName)
+            .collect(Collectors.toSet()))
+        .build();
+  }
+
+  private EmailNotificationEvent.EmailNotificationEventBuilder createEmailData(
+      UserResponse user, String subject, String type) {
+    return EmailNotificationEvent.builder()
+        .type(type)
+        .recipientEmail(user.getEmail())
+        .recipientName(user.getDisplayName())
+        .subject(subject);
   }
 }
@@ -1,14 +1,18 @@
 package com.shintadev.shop_dev_be.service.common.impl;
 
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
+import com.shintadev.shop_dev_be.kafka.event.OrderSnapshot;
+import com.shintadev.shop_dev_be.mail.EmailTemplateRenderer;
+import com.shintadev.shop_dev_be.mail.MailDispatcher;
 import com.shintadev.shop_dev_be.service.common.EmailService;
 
 import jakarta.mail.MessagingException;
@@ -17,7 +21,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Service for sending emails
+ * Service for sending emails. Emails are rendered on the calling thread and
+ * handed over to the {@link MailDispatcher}.
  */
 @Service
 @RequiredArgsConstructor
@@ -25,19 +30,20 @@ import lombok.extern.slf4j.Slf4j;
 public class EmailServiceImpl implements EmailService {
 
   private final JavaMailSender mailSender;
-  private final TemplateEngine templateEngine;
+  private final MailDispatcher mailDispatcher;
+  private final EmailTemplateRenderer emailTemplateRenderer;
 
   /**
-   * Sends a verification email asynchronously
+   * Sends a verification email
    * 
    * @param to               the email address
    * @param name             the name
    * @param subject          the subject
    * @param verificationLink the verification link
+   * @return completes once the email is sent, exceptionally if it failed
    */
-  @Async("emailExecutor")
   @Override
-  public void sendVerificationEmail(
+  public CompletableFuture<Void> sendVerificationEmail(
       String to,
       String name,
       String subject,
@@ -46,34 +52,35 @@ public class EmailServiceImpl implements EmailService {
       MimeMessage mimeMessage = mailSender.createMimeMessage();
       MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, StandardCharsets.UTF_8.name());
 
-      Context context = new Context();
-      context.setVariable("name", name);
-      context.setVariable("verificationLink", verificationLink);
+      Map<String, String> variables = new HashMap<>();
+      variables.put("name", name);
+      variables.put("verificationLink", verificationLink);
 
-      String htmlContent = templateEngine.process("email/verification", context);
+      String htmlContent = emailTemplateRenderer.render("email/verification", variables);
 
       helper.setTo(to);
       helper.setSubject(subject);
       helper.setText(htmlContent, true);
 
-      mailSender.send(mimeMessage);
-      log.info("Verification email sent to: {}", to);
+      return mailDispatcher.send(mimeMessage)
+          .thenRun(() -> log.info("Verification email sent to: {}", to));
     } catch (MessagingException e) {
       log.error("Failed to send verification email", e);
+      return CompletableFuture.failedFuture(e);
     }
   }
 
   /**
-   * Sends a password reset email asynchronously
+   * Sends a password reset email
    * 
    * @param to        the email address
    * @param name      the name
    * @param subject   the subject
    * @param resetLink the reset link
+   * @return completes once the email is sent, exceptionally if it failed
    */
-  @Async("emailExecutor")
   @Override
-  public void sendPasswordResetEmail(
+  public CompletableFuture<Void> sendPasswordResetEmail(
       String to,
       String name,
       String subject,
@@ -82,33 +89,34 @@ public class EmailServiceImpl implements EmailService {
       MimeMessage mimeMessage = mailSender.createMimeMessage();
       MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, StandardCharsets.UTF_8.name());
 
-      Context context = new Context();
-      context.setVariable("name", name);
-      context.setVariable("resetLink", resetLink);
+      Map<String, String> variables = new HashMap<>();
+      variables.put("name", name);
+      variables.put("resetLink", resetLink);
 
-      String htmlContent = templateEngine.process("email/password-reset", context);
+      String htmlContent = emailTemplateRenderer.render("email/password-reset", variables);
 
       helper.setTo(to);
       helper.setSubject(subject);
       helper.setText(htmlContent, true);
 
-      mailSender.send(mimeMessage);
-      log.info("Password reset email sent to: {}", to);
+      return mailDispatcher.send(mimeMessage)
+          .thenRun(() -> log.info("Password reset email sent to: {}", to));
     } catch (MessagingException e) {
       log.error("Failed to send password reset email", e);
+      return CompletableFuture.failedFuture(e);
     }
   }
 
   /**
-   * Sends a welcome email asynchronously
+   * Sends a welcome email
    * 
    * @param to      the email address
    * @param name    the name
    * @param subject the subject
+   * @return completes once the email is sent, exceptionally if it failed
    */
-  @Async("emailExecutor")
   @Override
-  public void sendWelcomeEmail(
+  public CompletableFuture<Void> sendWelcomeEmail(
       String to,
       String name,
       String subject) {
@@ -116,37 +124,170 @@ public class EmailServiceImpl implements EmailService {
       MimeMessage mimeMessage = mailSender.createMimeMessage();
       MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, StandardCharsets.UTF_8.name());
 
-      Context context = new Context();
-      context.setVariable("name", name);
+      Map<String, String> variables = new HashMap<>();
+      variables.put("name", name);
 
-      String htmlContent = templateEngine.process("email/welcome", context);
+      String htmlContent = emailTemplateRenderer.render("email/welcome", variables);
 
       helper.setTo(to);
       helper.setSubject(subject);
       helper.setText(htmlContent, true);
 
-      mailSender.send(mimeMessage);
-      log.info("Welcome email sent to: {}", to);
+      return mailDispatcher.send(mimeMessage)
+          .thenRun(() -> log.info("Welcome email sent to: {}", to));
     } catch (MessagingException e) {
       log.error("Failed to send welcome email", e);
+      return CompletableFuture.failedFuture(e);
     }
   }
 
+  /**
+   * Sends an order confirmation email
+   * 
+   * @param to      the email address
+   * @param name    the name
+   * @param subject the subject
+   * @param order   the order
+   * @return completes once the email is sent, exceptionally if it failed
+   */
   @Override
-  public void sendOrderConfirmationEmail(String to, String name, String subject) {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException("Unimplemented method 'sendOrderConfirmationEmail'");
+  public CompletableFuture<Void> sendOrderConfirmationEmail(
+      String to,
+      String name,
+      String subject,
+      OrderSnapshot order) {
+    try {
+      MimeMessage mimeMessage = mailSender.createMimeMessage();
+      MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, StandardCharsets.UTF_8.name());
+
+      Map<String, String> variables = new HashMap<>();
+      variables.put("name", name);
+      variables.put("orderNumber", order.orderNumber());
+      variables.put("itemsHtml", renderItems(order));
+      variables.put("subtotal", order.subtotal());
+      variables.put("shippingFee", order.shippingFee());
+      variables.put("tax", order.tax());
+      variables.put("totalPrice", order.totalPrice());
+
+      String htmlContent = emailTemplateRenderer.render("email/order-confirmation", variables);
+
+      helper.setTo(to);
+      helper.setSubject(subject);
+      helper.setText(htmlContent, true);
+
+      return mailDispatcher.send(mimeMessage)
+          .thenRun(() -> log.info("Order confirmation email for order {} sent to: {}", order.id(), to));
+    } catch (MessagingException e) {
+      log.error("Failed to send order confirmation email", e);
+      return CompletableFuture.failedFuture(e);
+    }
   }
 
+  /**
+   * Sends a single email with the latest status of several orders
+   * 
+   * @param to      the email address
+   * @param name    the name
+   * @param subject the subject
+   * @param orders  the orders
+   * @return completes once the email is sent, exceptionally if it failed
+   */
   @Override
-  public void sendOrderStatusUpdateEmail(String to, String name, String subject, String orderStatus) {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException("Unimplemented method 'sendOrderStatusUpdateEmail'");
+  public CompletableFuture<Void> sendOrderStatusUpdateEmail(
+      String to,
+      String name,
+      String subject,
+      List<OrderSnapshot> orders) {
+    try {
+      MimeMessage mimeMessage = mailSender.createMimeMessage();
+      MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, StandardCharsets.UTF_8.name());
+
+      StringBuilder rows = new StringBuilder();
+      for (OrderSnapshot order : orders) {
+        Map<String, String> row = new HashMap<>();
+        row.put("orderNumber", order.orderNumber());
+        row.put("status", formatStatus(order.status()));
+        row.put("totalPrice", order.totalPrice());
+        rows.append(emailTemplateRenderer.render("email/order-status-row", row));
+      }
+
+      Map<String, String> variables = new HashMap<>();
+      variables.put("name", name);
+      variables.put("ordersHtml", rows.toString());
+
+      String htmlContent = emailTemplateRenderer.render("email/order-status-update", variables);
+
+      helper.setTo(to);
+      helper.setSubject(subject);
+      helper.setText(htmlContent, true);
+
+      return mailDispatcher.send(mimeMessage)
+          .thenRun(() -> log.info("Order status update email for {} orders sent to: {}", orders.size(), to));
+    } catch (MessagingException e) {
+      log.error("Failed to send order status update email", e);
+      return CompletableFuture.failedFuture(e);
+    }
   }
 
+  /**
+   * Sends an order cancellation email
+   * 
+   * @param to      the email address
+   * @param name    the name
+   * @param subject the subject
+   * @param order   the order
+   * @return completes once the email is sent, exceptionally if it failed
+   */
   @Override
-  public void sendOrderCancelledEmail(String to, String name, String subject) {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException("Unimplemented method 'sendOrderCancelledEmail'");
+  public CompletableFuture<Void> sendOrderCancelledEmail(
+      String to,
+      String name,
+      String subject,
+      OrderSnapshot order) {
+    try {
+      MimeMessage mimeMessage = mailSender.createMimeMessage();
+      MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, StandardCharsets.UTF_8.name());
+
+      Map<String, String> variables = new HashMap<>();
+      variables.put("name", name);
+      variables.put("orderNumber", order.orderNumber());
+      variables.put("totalPrice", order.totalPrice());
+      variables.put("itemsHtml", renderItems(order));
+
+      String htmlContent = emailTemplateRenderer.render("email/order-cancelled", variables);
+
+      helper.setTo(to);
+      helper.setSubject(subject);
+      helper.setText(htmlContent, true);
+
+      return mailDispatcher.send(mimeMessage)
+          .thenRun(() -> log.info("Order cancelled email for order {} sent to: {}", order.id(), to));
+    } catch (MessagingException e) {
+      log.error("Failed to send order cancelled email", e);
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private String renderItems(OrderSnapshot order) {
+    StringBuilder rows = new StringBuilder();
+    for (OrderSnapshot.Item item : order.items()) {
+      Map<String, String> row = new HashMap<>();
+      row.put("productName", item.productName());
+      row.put("quantity", String.valueOf(item.quantity()));
+      row.put("subtotal", item.subtotal());
+      rows.append(emailTemplateRenderer.render("email/order-item", row));
+    }
+    return rows.toString();
+  }
+
+  /**
+   * Format a status for display, e.g. PAYMENT_PENDING as "Payment pending"
+   */
+  private static String formatStatus(String status) {
+    if (status == null || status.isEmpty()) {
+      return status;
+    }
+    String words = status.replace('_', ' ').toLowerCase();
+    return Character.toUpperCase(words.charAt(0)) + words.substring(1);
   }
 }
@@ -0,0 +1,11 @@
+package com.shintadev.shop_dev_be.service.order;
+
+/**
+ * Published when an order is placed, handled once the transaction commits
+ *
+ * @param orderId the id of the order
+ * @param userId  the id of the user
+ * @param cartId  the id of the cart the order was placed from
+ */
+public record OrderPlacedEvent(Long orderId, Long userId, Long cartId) {
+}
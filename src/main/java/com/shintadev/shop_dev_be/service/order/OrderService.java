@@ -6,6 +6,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import com.shintadev.shop_dev_be.domain.dto.request.order.OrderRequest;
+import com.shintadev.shop_dev_be.domain.dto.response.CursorPageResponse;
 import com.shintadev.shop_dev_be.domain.dto.response.order.OrderResponse;
 import com.shintadev.shop_dev_be.domain.model.enums.order.OrderStatus;
 
@@ -13,6 +14,8 @@ public interface OrderService {
 
   Page<OrderResponse> getOrdersByUserId(Long userId, Pageable pageable);
 
+  CursorPageResponse<OrderResponse> getOrdersByUserIdByCursor(Long userId, String cursor, int size, boolean withTotal);
+
   OrderResponse getOrderById(Long id);
 
   Page<OrderResponse> getUserOrdersByStatus(Long userId, String status, Pageable pageable);
@@ -0,0 +1,17 @@
+package com.shintadev.shop_dev_be.service.order;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.shintadev.shop_dev_be.payment.ChargeRequest;
+import com.shintadev.shop_dev_be.payment.ChargeResult;
+
+public interface PaymentService {
+
+  List<ChargeRequest> startProcessing(Collection<Long> orderIds, Collection<String> transactionIds);
+
+  Map<ChargeRequest, ChargeResult> completeProcessing(Map<ChargeRequest, ChargeResult> results);
+
+  void recordRefunds(Collection<String> transactionIds);
+}
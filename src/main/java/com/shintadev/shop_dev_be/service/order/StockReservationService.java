@@ -0,0 +1,21 @@
+package com.shintadev.shop_dev_be.service.order;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.shintadev.shop_dev_be.domain.model.entity.order.Order;
+
+public interface StockReservationService {
+
+  void hold(Order order);
+
+  void confirm(Long orderId);
+
+  int confirmAll(Collection<Long> orderIds);
+
+  void release(Order order);
+
+  int expire(Collection<Long> reservationIds);
+
+  List<Long> findExpiredIds(int limit);
+}
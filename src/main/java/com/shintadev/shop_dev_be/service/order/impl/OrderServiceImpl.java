@@ -4,22 +4,33 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.shintadev.shop_dev_be.constant.ResourceName;
+import com.shintadev.shop_dev_be.constant.kafka.EmailNotificationType;
 import com.shintadev.shop_dev_be.domain.dto.mapper.OrderMapper;
 import com.shintadev.shop_dev_be.domain.dto.request.order.OrderRequest;
+import com.shintadev.shop_dev_be.domain.dto.response.CursorPageResponse;
 import com.shintadev.shop_dev_be.domain.dto.response.order.OrderResponse;
 import com.shintadev.shop_dev_be.domain.model.entity.cart.Cart;
 import com.shintadev.shop_dev_be.domain.model.entity.cart.CartItem;
@@ -28,12 +39,12 @@ import com.shintadev.shop_dev_be.domain.model.entity.order.OrderItem;
 import com.shintadev.shop_dev_be.domain.model.entity.order.Payment;
 import com.shintadev.shop_dev_be.domain.model.entity.product.Product;
 import com.shintadev.shop_dev_be.domain.model.entity.user.Address;
-import com.shintadev.shop_dev_be.domain.model.entity.user.User;
 import com.shintadev.shop_dev_be.domain.model.enums.order.OrderStatus;
 import com.shintadev.shop_dev_be.domain.model.enums.order.PaymentStatus;
-import com.shintadev.shop_dev_be.domain.model.enums.product.ProductStatus;
 import com.shintadev.shop_dev_be.exception.BadRequestException;
 import com.shintadev.shop_dev_be.exception.ResourceNotFoundException;
+import com.shintadev.shop_dev_be.kafka.event.PaymentProcessingEvent;
+import com.shintadev.shop_dev_be.kafka.producer.MessageProducer;
 import com.shintadev.shop_dev_be.repository.cart.CartItemRepo;
 import com.shintadev.shop_dev_be.repository.cart.CartRepo;
 import com.shintadev.shop_dev_be.repository.order.OrderRepo;
@@ -41,7 +52,11 @@ import com.shintadev.shop_dev_be.repository.order.PaymentRepo;
 import com.shintadev.shop_dev_be.repository.product.ProductRepo;
 import com.shintadev.shop_dev_be.repository.user.AddressRepo;
 import com.shintadev.shop_dev_be.repository.user.UserRepo;
+import com.shintadev.shop_dev_be.service.order.OrderPlacedEvent;
 import com.shintadev.shop_dev_be.service.order.OrderService;
+import com.shintadev.shop_dev_be.service.order.StockReservationService;
+import com.shintadev.shop_dev_be.service.product.InventoryService;
+import com.shintadev.shop_dev_be.util.CursorUtils;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -57,13 +72,18 @@ public class OrderServiceImpl implements OrderService {
 
   private final OrderRepo orderRepo;
   private final OrderMapper orderMapper;
-  private final ProductRepo productRepo;
+  private final InventoryService inventoryService;
+  private final StockReservationService stockReservationService;
   private final UserRepo userRepo;
   private final AddressRepo addressRepo;
   private final CartRepo cartRepo;
   private final CartItemRepo cartItemRepo;
   private final PaymentRepo paymentRepo;
+  private final ProductRepo productRepo;
   private final RedissonClient redissonClient;
+  private final MessageProducer messageProducer;
+  private final ApplicationEventPublisher eventPublisher;
+  private final PlatformTransactionManager transactionManager;
 
   /**
    * Get all orders of a user
@@ -79,6 +99,29 @@ public class OrderServiceImpl implements OrderService {
     return orders.map(orderMapper::toOrderResponse);
   }
 
+  /**
+   * Get the orders of a user, newest first, after a cursor
+   * 
+   * @param userId    the id of the user
+   * @param cursor    the cursor returned with the previous page, null for the
+   *                  first page
+   * @param size      the number of orders
+   * @param withTotal whether to count all orders of the user
+   * @return the page of orders
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPageResponse<OrderResponse> getOrdersByUserIdByCursor(
+      Long userId, String cursor, int size, boolean withTotal) {
+    CursorUtils.Cursor position = CursorUtils.decode(cursor);
+    List<Order> orders = position == null
+        ? orderRepo.findByUserIdFirst(userId, CursorUtils.limitOf(size))
+        : orderRepo.findByUserIdAfter(userId, position.timestamp(), position.id(), CursorUtils.limitOf(size));
+
+    return CursorUtils.toPage(orders, size, Order::getOrderAt, Order::getId,
+        orderMapper::toOrderResponse, withTotal ? () -> orderRepo.countByUserId(userId) : null);
+  }
+
   /**
    * Get an order by its id
    * 
@@ -138,129 +181,30 @@ public class OrderServiceImpl implements OrderService {
   }
 
   /**
-   * Create an order
+   * Create an order.
+   * <p>
+   * Checkout runs in stages so that the user lock and the write transaction
+   * only cover the stock reservation and the inserts: the cart is validated
+   * beforehand in a read-only transaction, and the cart total is recalculated
+   * once the order is committed.
    * 
    * @param userId       the id of the user
    * @param orderRequest the order request
    * @return the order
    */
   @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public OrderResponse createOrder(Long userId, OrderRequest orderRequest) {
-    // 1. Get lock
-    String lockKey = "order:" + userId;
-    RLock lock = redissonClient.getLock(lockKey);
-
-    try {
-      // 2. Try to acquire lock
-      boolean acquired = lock.tryLock(15, 30, TimeUnit.SECONDS);
-      if (!acquired) {
-        throw new BadRequestException("Unable to create order. Please try again later");
-      }
-
-      try {
-        // 3. Get user and shipping address
-        User user = userRepo.findById(userId)
-            .orElseThrow(() -> ResourceNotFoundException.create(ResourceName.USER, "id", userId));
-
-        Address shippingAddress = addressRepo.findById(orderRequest.getAddressId())
-            .orElseThrow(
-                () -> ResourceNotFoundException.create(ResourceName.ADDRESS, "id", orderRequest.getAddressId()));
-
-        // 4. Check if shipping address belongs to user
-        if (!shippingAddress.getUser().getId().equals(userId)) {
-          throw new AccessDeniedException("You do not have permission to create order with this address");
-        }
-
-        // 5. Get cart
-        Cart cart = cartRepo.findByUserId(userId)
-            .orElseThrow(() -> ResourceNotFoundException.create(ResourceName.CART, "userId", userId));
-
-        if (cart.getItems().isEmpty()) {
-          throw new BadRequestException("Cannot create order with empty cart");
-        }
-
-        // 6. Get checked out items
-        Set<CartItem> checkedOutItems = new HashSet<>();
-
-        // 7. If cart item ids are provided, get only the selected items
-        if (orderRequest.getCartItemIds() != null && orderRequest.getCartItemIds().length > 0) {
-          Set<Long> selectedItemIds = new HashSet<>(Arrays.asList(orderRequest.getCartItemIds()));
-
-          for (CartItem item : cart.getItems()) {
-            if (selectedItemIds.contains(item.getId())) {
-              checkedOutItems.add(item);
-            }
-          }
-
-          // 8. If no valid items are selected, throw an error
-          if (checkedOutItems.isEmpty()) {
-            throw new BadRequestException("No valid items selected for checkout");
-          }
-        } else {
-          // 8. If no cart item ids are provided, get all items
-          checkedOutItems.addAll(cart.getItems());
-        }
-
-        // 9. Verify and lock product stock
-        verifyAndLockProductStock(checkedOutItems);
-
-        // 10. Calculate subtotal, shipping cost and total
-        BigDecimal subtotal = checkedOutItems.stream()
-            .map(item -> {
-              BigDecimal itemPrice = item.getProduct().getDiscountPrice() != null
-                  ? item.getProduct().getDiscountPrice()
-                  : item.getProduct().getPrice();
-
-              return itemPrice.multiply(BigDecimal.valueOf(item.getQuantity()));
-            })
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal shippingCost = calculateShippingCost(checkedOutItems, shippingAddress);
-
-        // 11. Create order
-        Order order = Order.builder()
-            .subtotal(subtotal)
-            .shippingFee(shippingCost)
-            .notes(orderRequest.getNotes())
-            .status(OrderStatus.PENDING)
-            .shippingAddress(shippingAddress)
-            .user(user)
-            .build();
-
-        order = orderRepo.save(order);
-
-        // 12. Create order items
-        List<OrderItem> orderItems = createOrderItems(order, checkedOutItems);
-        order.setItems(new HashSet<>(orderItems));
-
-        // 13. Create payment
-        Payment payment = Payment.builder()
-            .order(order)
-            .amount(order.getTotalPrice())
-            .status(PaymentStatus.PENDING)
-            .build();
-
-        payment = paymentRepo.save(payment);
-
-        // 14. Update product stock
-        updateProductStock(checkedOutItems);
-
-        // 15. Remove items from cart
-        removeItemsFromCart(cart, checkedOutItems);
-
-        // TODO: Send order created message to customer
+    // 1. Validate the checkout, without any lock
+    Checkout checkout = inTransaction(true, status -> prepareCheckout(userId, orderRequest));
 
-        initiatePaymentProcess(payment);
+    // 2. Reserve the stock and insert the order under the user lock
+    Long orderId = placeOrderLocked(checkout);
 
-        return orderMapper.toOrderResponse(order);
-      } finally {
-        // 12. Release lock
-        lock.unlock();
-      }
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      throw new BadRequestException("Operation interrupted. Please try again later.");
-    }
+    // 3. Read the order back for the response, outside of the lock
+    return inTransaction(true, status -> orderRepo.findById(orderId)
+        .map(orderMapper::toOrderResponse)
+        .orElseThrow(() -> ResourceNotFoundException.create(ResourceName.ORDER, "id", orderId)));
   }
 
   /**
@@ -269,12 +213,23 @@ public class OrderServiceImpl implements OrderService {
    * @param id     the id of the order
    * @param status the status of the order
    * @return the order
+   * @throws BadRequestException if the order is cancelled and would be reopened
    */
   @Override
   public OrderResponse updateOrderStatus(Long id, OrderStatus status) {
     Order order = orderRepo.findByIdForUpdate(id)
         .orElseThrow(() -> ResourceNotFoundException.create(ResourceName.ORDER, "id", id));
 
+    OrderStatus previousStatus = order.getStatus();
+    if (previousStatus == OrderStatus.CANCELLED && status != OrderStatus.CANCELLED) {
+      // Its stock has been given back and its payment cancelled
+      log.error("Order {} is cancelled, cannot move it to {}", id, status);
+      throw new BadRequestException("A cancelled order cannot be reopened");
+    }
+    if (status == OrderStatus.CANCELLED && previousStatus != OrderStatus.CANCELLED
+        && order.getPayment() != null && order.getPayment().getStatus() == PaymentStatus.PROCESSING) {
+      throw new BadRequestException("The payment of this order is being processed. Please try again later");
+    }
     order.setStatus(status);
 
     switch (status) {
@@ -291,9 +246,24 @@ public class OrderServiceImpl implements OrderService {
         break;
     }
 
+    // Give back the stock of a cancelled order, keep it once the order moves on
+    if (status == OrderStatus.CANCELLED) {
+      if (previousStatus != OrderStatus.CANCELLED) {
+        stockReservationService.release(order);
+        cancelPendingPayment(order);
+      }
+    } else if (status != OrderStatus.PENDING && status != OrderStatus.PAYMENT_PENDING
+        && status != OrderStatus.PAYMENT_FAILED) {
+      stockReservationService.confirm(order.getId());
+    }
+
     order = orderRepo.save(order);
 
-    // TODO: Send order status updated message to customer
+    if (status == OrderStatus.CANCELLED && previousStatus != OrderStatus.CANCELLED) {
+      messageProducer.sendOrderNotification(EmailNotificationType.ORDER_CANCELLED, order);
+    } else if (status != previousStatus) {
+      messageProducer.sendOrderNotification(EmailNotificationType.ORDER_STATUS_UPDATE, order);
+    }
 
     return orderMapper.toOrderResponse(order);
   }
@@ -320,21 +290,19 @@ public class OrderServiceImpl implements OrderService {
       throw new BadRequestException("Order cannot be cancelled in this state");
     }
 
+    if (order.getPayment() != null && order.getPayment().getStatus() == PaymentStatus.PROCESSING) {
+      throw new BadRequestException("The payment of this order is being processed. Please try again later");
+    }
+
     order.setStatus(OrderStatus.CANCELLED);
     order.setCancelledAt(LocalDateTime.now());
 
-    restoreProductStock(order);
-
-    if (order.getPayment() != null &&
-        (order.getPayment().getStatus() == PaymentStatus.PENDING ||
-            order.getPayment().getStatus() == PaymentStatus.PROCESSING)) {
-      order.getPayment().setStatus(PaymentStatus.CANCELLED);
-      order.getPayment().setUpdatedAt(LocalDateTime.now());
-    }
+    stockReservationService.release(order);
+    cancelPendingPayment(order);
 
     order = orderRepo.save(order);
 
-    // TODO: Send order cancelled message to customer
+    messageProducer.sendOrderNotification(EmailNotificationType.ORDER_CANCELLED, order);
 
     return orderMapper.toOrderResponse(order);
   }
@@ -350,41 +318,213 @@ public class OrderServiceImpl implements OrderService {
     return orderRepo.countByUserId(userId);
   }
 
-  private void verifyAndLockProductStock(Set<CartItem> cartItems) {
-    List<String> outOfStockProducts = new ArrayList<>();
+  /**
+   * Cancel the payment of an order if it has not been charged. The order must
+   * be locked, which keeps the payment from being charged meanwhile.
+   * 
+   * @param order the order
+   */
+  private void cancelPendingPayment(Order order) {
+    Payment payment = order.getPayment();
+    if (payment != null && payment.getStatus() == PaymentStatus.PENDING) {
+      payment.setStatus(PaymentStatus.CANCELLED);
+      payment.setUpdatedAt(LocalDateTime.now());
+    }
+  }
+
+  /**
+   * Validate a checkout: the user, the shipping address and the items
+   * 
+   * @param userId       the id of the user
+   * @param orderRequest the order request
+   * @return the checkout
+   */
+  private Checkout prepareCheckout(Long userId, OrderRequest orderRequest) {
+    // 1. Get user and shipping address
+    if (!userRepo.existsById(userId)) {
+      throw ResourceNotFoundException.create(ResourceName.USER, "id", userId);
+    }
+
+    Address shippingAddress = addressRepo.findById(orderRequest.getAddressId())
+        .orElseThrow(
+            () -> ResourceNotFoundException.create(ResourceName.ADDRESS, "id", orderRequest.getAddressId()));
+
+    // 2. Check if shipping address belongs to user
+    if (!shippingAddress.getUser().getId().equals(userId)) {
+      throw new AccessDeniedException("You do not have permission to create order with this address");
+    }
+
+    // 3. Get cart
+    Cart cart = cartRepo.findByUserId(userId)
+        .orElseThrow(() -> ResourceNotFoundException.create(ResourceName.CART, "userId", userId));
 
-    for (CartItem cartItem : cartItems) {
-      Product product = cartItem.getProduct();
+    if (cart.getItems().isEmpty()) {
+      throw new BadRequestException("Cannot create order with empty cart");
+    }
+
+    // 4. Get checked out items
+    Set<CartItem> checkedOutItems = new HashSet<>();
+
+    // 5. If cart item ids are provided, get only the selected items
+    if (orderRequest.getCartItemIds() != null && orderRequest.getCartItemIds().length > 0) {
+      Set<Long> selectedItemIds = new HashSet<>(Arrays.asList(orderRequest.getCartItemIds()));
 
-      if (!product.getStatus().equals(ProductStatus.ACTIVE)) {
-        outOfStockProducts.add(product.getName() + " is not available");
-        continue;
+      for (CartItem item : cart.getItems()) {
+        if (selectedItemIds.contains(item.getId())) {
+          checkedOutItems.add(item);
+        }
       }
 
-      if (product.getStock() < cartItem.getQuantity()) {
-        outOfStockProducts.add(product.getName() + " has only " + product.getStock() + " in stock");
-        continue;
+      // 6. If no valid items are selected, throw an error
+      if (checkedOutItems.isEmpty()) {
+        throw new BadRequestException("No valid items selected for checkout");
       }
+    } else {
+      // 6. If no cart item ids are provided, get all items
+      checkedOutItems.addAll(cart.getItems());
     }
 
-    if (!outOfStockProducts.isEmpty()) {
-      throw new BadRequestException("Cannot complete order: "
-          + String.join(",\n", outOfStockProducts));
+    return new Checkout(userId, shippingAddress.getId(), cart.getId(), orderRequest.getNotes(),
+        checkedOutItems.stream().map(CartItem::getId).collect(Collectors.toSet()),
+        quantitiesOf(checkedOutItems));
+  }
+
+  /**
+   * Place an order while holding the order lock of its user
+   * 
+   * @param checkout the checkout
+   * @return the id of the order
+   */
+  private Long placeOrderLocked(Checkout checkout) {
+    // 1. Get lock
+    String lockKey = "order:" + checkout.userId();
+    RLock lock = redissonClient.getLock(lockKey);
+
+    try {
+      // 2. Try to acquire lock
+      boolean acquired = lock.tryLock(15, 30, TimeUnit.SECONDS);
+      if (!acquired) {
+        throw new BadRequestException("Unable to create order. Please try again later");
+      }
+
+      try {
+        // 3. Place the order in a single transaction
+        return inTransaction(false, status -> placeOrder(checkout));
+      } finally {
+        // 4. Release lock
+        lock.unlock();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BadRequestException("Operation interrupted. Please try again later.");
     }
   }
 
+  /**
+   * Reserve the stock of a checkout and insert its order, order items and
+   * payment
+   * 
+   * @param checkout the checkout
+   * @return the id of the order
+   */
+  private Long placeOrder(Checkout checkout) {
+    // 1. Take the items off the cart, a concurrent checkout of the same items
+    // finds them gone
+    int removed = cartItemRepo.deleteByCartIdAndIdIn(checkout.cartId(), checkout.cartItemIds());
+    if (removed != checkout.cartItemIds().size()) {
+      throw new BadRequestException("Your cart has changed. Please review it and try again");
+    }
+
+    // 2. Reserve product stock, failing with every line that cannot be served
+    inventoryService.reserveStock(checkout.quantities());
+
+    // 3. Calculate subtotal and shipping cost at the current prices
+    List<Product> products = productRepo.findAllById(checkout.quantities().keySet());
+    BigDecimal subtotal = products.stream()
+        .map(product -> {
+          BigDecimal itemPrice = product.getDiscountPrice() != null
+              ? product.getDiscountPrice()
+              : product.getPrice();
+
+          return itemPrice.multiply(BigDecimal.valueOf(checkout.quantities().get(product.getId())));
+        })
+        .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+    BigDecimal shippingCost = calculateShippingCost(checkout.quantities().values());
+
+    // 4. Create order with its items, inserted together
+    Order order = Order.builder()
+        .subtotal(subtotal)
+        .shippingFee(shippingCost)
+        .notes(checkout.notes())
+        .status(OrderStatus.PENDING)
+        .shippingAddress(addressRepo.getReferenceById(checkout.addressId()))
+        .user(userRepo.getReferenceById(checkout.userId()))
+        .build();
+
+    order.setItems(new HashSet<>(createOrderItems(order, products, checkout.quantities())));
+    order = orderRepo.save(order);
+
+    // 5. Create payment
+    Payment payment = Payment.builder()
+        .order(order)
+        .amount(order.getTotalPrice())
+        .status(PaymentStatus.PENDING)
+        .transactionId(UUID.randomUUID().toString())
+        .build();
+
+    payment = paymentRepo.save(payment);
+
+    // 6. Hold the stock until the order is paid, it is given back if the
+    // order expires unpaid
+    stockReservationService.hold(order);
+
+    // 7. Recalculate the cart once the order is committed
+    eventPublisher.publishEvent(new OrderPlacedEvent(order.getId(), checkout.userId(), checkout.cartId()));
+
+    // 8. Confirm the order to the customer and charge it
+    messageProducer.sendOrderNotification(EmailNotificationType.ORDER_CONFIRMATION, order);
+
+    initiatePaymentProcess(payment);
+
+    return order.getId();
+  }
+
+  /**
+   * Run an action in a new transaction
+   * 
+   * @param readOnly whether the transaction is read-only
+   * @param action   the action
+   * @return the result of the action
+   */
+  private <T> T inTransaction(boolean readOnly, TransactionCallback<T> action) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(readOnly);
+    return transactionTemplate.execute(action);
+  }
+
+  /**
+   * Get the quantity of each product in cart items
+   * 
+   * @param cartItems the items in the cart
+   * @return the quantity by product id
+   */
+  private Map<Long, Integer> quantitiesOf(Set<CartItem> cartItems) {
+    return cartItems.stream()
+        .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity, Integer::sum));
+  }
+
   /**
    * Calculate the shipping cost of an order
    * 
-   * @param cartItems       the items in the cart
-   * @param shippingAddress the shipping address
+   * @param quantities the quantity of each item
    * @return the shipping cost
    */
-  private BigDecimal calculateShippingCost(Set<CartItem> cartItems, Address shippingAddress) {
+  private BigDecimal calculateShippingCost(Collection<Integer> quantities) {
     BigDecimal baseShippingCost = BigDecimal.TEN;
 
-    int totalQuantity = cartItems.stream()
-        .mapToInt(CartItem::getQuantity)
+    int totalQuantity = quantities.stream()
+        .mapToInt(Integer::intValue)
         .sum();
 
     BigDecimal itemBasedShippingCost = new BigDecimal(Math.ceil(totalQuantity / 5.0) * 2);
@@ -392,36 +532,22 @@ public class OrderServiceImpl implements OrderService {
     return baseShippingCost.add(itemBasedShippingCost);
   }
 
-  /**
-   * Restore the stock of a product
-   * 
-   * @param order the order
-   */
-  private void restoreProductStock(Order order) {
-    for (OrderItem item : order.getItems()) {
-      Product product = item.getProduct();
-      product.setStock(product.getStock() + item.getQuantity());
-      productRepo.save(product);
-    }
-  }
-
   /**
    * Create order items
    * 
-   * @param order     the order
-   * @param cartItems the items in the cart
+   * @param order      the order
+   * @param products   the products
+   * @param quantities the quantity by product id
    * @return the list of order items
    */
-  private List<OrderItem> createOrderItems(Order order, Set<CartItem> cartItems) {
+  private List<OrderItem> createOrderItems(Order order, List<Product> products, Map<Long, Integer> quantities) {
     List<OrderItem> orderItems = new ArrayList<>();
 
-    for (CartItem cartItem : cartItems) {
-      Product product = cartItem.getProduct();
-
+    for (Product product : products) {
       OrderItem orderItem = OrderItem.builder()
           .order(order)
           .product(product)
-          .quantity(cartItem.getQuantity())
+          .quantity(quantities.get(product.getId()))
           .build();
 
       orderItems.add(orderItem);
@@ -431,47 +557,33 @@ public class OrderServiceImpl implements OrderService {
   }
 
   /**
-   * Update the stock of a product
-   * 
-   * @param cartItems the items in the cart
-   */
-  private void updateProductStock(Set<CartItem> cartItems) {
-    for (CartItem cartItem : cartItems) {
-      Product product = cartItem.getProduct();
-      product.setStock(product.getStock() - cartItem.getQuantity());
-      productRepo.save(product);
-    }
-  }
-
-  /**
-   * Remove items from cart
+   * Initiate the payment process, the payment is charged once the order is
+   * committed
    * 
-   * @param cart      the cart
-   * @param cartItems the items in the cart
+   * @param payment the payment
    */
-  private void removeItemsFromCart(Cart cart, Set<CartItem> cartItems) {
-    for (CartItem cartItem : cartItems) {
-      cart.getItems().remove(cartItem);
-      cartItemRepo.delete(cartItem);
-    }
-
-    // Re-calculate cart total
-    BigDecimal total = cart.getItems().stream()
-        .map(item -> item.getProduct().getDiscountPrice() != null
-            ? item.getProduct().getDiscountPrice().multiply(BigDecimal.valueOf(item.getQuantity()))
-            : item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-    cart.setTotalPrice(total);
-    cartRepo.save(cart);
+  private void initiatePaymentProcess(Payment payment) {
+    messageProducer.sendPaymentProcessingMessage(
+        new PaymentProcessingEvent(payment.getOrder().getId(), payment.getTransactionId()));
   }
 
   /**
-   * Initiate the payment process
+   * A validated checkout, carried from the validation to the placement of the
+   * order
    * 
-   * @param payment the payment
+   * @param userId      the id of the user
+   * @param addressId   the id of the shipping address
+   * @param cartId      the id of the cart
+   * @param notes       the notes of the order
+   * @param cartItemIds the ids of the checked out cart items
+   * @param quantities  the quantity by product id
    */
-  private void initiatePaymentProcess(Payment payment) {
-
+  private record Checkout(
+      Long userId,
+      Long addressId,
+      Long cartId,
+      String notes,
+      Set<Long> cartItemIds,
+      Map<Long, Integer> quantities) {
   }
 }
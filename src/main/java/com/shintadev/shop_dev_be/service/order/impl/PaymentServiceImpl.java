@@ -0,0 +1,197 @@
+package com.shintadev.shop_dev_be.service.order.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.shintadev.shop_dev_be.constant.kafka.EmailNotificationType;
+import com.shintadev.shop_dev_be.domain.model.entity.order.Order;
+import com.shintadev.shop_dev_be.domain.model.entity.order.Payment;
+import com.shintadev.shop_dev_be.domain.model.enums.order.OrderStatus;
+import com.shintadev.shop_dev_be.domain.model.enums.order.PaymentStatus;
+import com.shintadev.shop_dev_be.kafka.producer.MessageProducer;
+import com.shintadev.shop_dev_be.payment.ChargeRequest;
+import com.shintadev.shop_dev_be.payment.ChargeResult;
+import com.shintadev.shop_dev_be.repository.order.OrderRepo;
+import com.shintadev.shop_dev_be.repository.order.PaymentRepo;
+import com.shintadev.shop_dev_be.service.order.PaymentService;
+import com.shintadev.shop_dev_be.service.order.StockReservationService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service for recording the processing of payments.
+ * <p>
+ * Payments are identified by their transaction id, which is also the
+ * idempotency key of their charge: a payment already completed, failed or
+ * cancelled is never charged again, and one left processing is charged again
+ * with the same key.
+ * <p>
+ * The orders are locked before their payments, like when they are cancelled
+ * or expire, so a payment being charged cannot be cancelled and a cancelled
+ * payment is not charged.
+ */
+@Service
+@Slf4j
+@Transactional
+@RequiredArgsConstructor
+public class PaymentServiceImpl implements PaymentService {
+
+  private static final List<PaymentStatus> CHARGEABLE_STATUSES = List.of(
+      PaymentStatus.PENDING, PaymentStatus.PROCESSING);
+
+  private final PaymentRepo paymentRepo;
+  private final OrderRepo orderRepo;
+  private final StockReservationService stockReservationService;
+  private final MessageProducer messageProducer;
+
+  /**
+   * Claim the payments still to charge, marking them as processing
+   *
+   * @param orderIds       the ids of the orders of the payments
+   * @param transactionIds the transaction ids of the payments
+   * @return the charges to make, for the payments neither settled nor
+   *         cancelled
+   */
+  @Override
+  public List<ChargeRequest> startProcessing(Collection<Long> orderIds, Collection<String> transactionIds) {
+    if (transactionIds.isEmpty()) {
+      return List.of();
+    }
+
+    // 1. Lock the orders so that they cannot be cancelled meanwhile, then
+    // their payments
+    orderRepo.findByIdInForUpdate(orderIds);
+    List<Payment> payments = paymentRepo.findByTransactionIdInForUpdate(transactionIds, CHARGEABLE_STATUSES);
+
+    // 2. Mark them as processing
+    List<ChargeRequest> charges = new ArrayList<>(payments.size());
+    for (Payment payment : payments) {
+      if (payment.getOrder().getStatus() == OrderStatus.CANCELLED) {
+        continue;
+      }
+      payment.setStatus(PaymentStatus.PROCESSING);
+      charges.add(new ChargeRequest(payment.getTransactionId(), payment.getOrder().getId(), payment.getAmount()));
+    }
+
+    if (charges.size() < transactionIds.size()) {
+      log.debug("Skipped {} payments already processed", transactionIds.size() - charges.size());
+    }
+    return charges;
+  }
+
+  /**
+   * Record the outcome of charges, with one update per outcome for the
+   * payments, the orders and the stock reservations
+   *
+   * @param results the outcome of each charge
+   * @return the approved charges whose payment is no longer processing, e.g.
+   *         given up on while the outcome was unknown, to refund
+   */
+  @Override
+  public Map<ChargeRequest, ChargeResult> completeProcessing(Map<ChargeRequest, ChargeResult> results) {
+    // 1. Lock the orders first, then read their payments
+    Map<Long, Order> orders = orderRepo.findByIdInForUpdate(
+        results.keySet().stream().map(ChargeRequest::orderId).collect(Collectors.toSet()))
+        .stream()
+        .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+    // 2. Split the charges by outcome, setting aside those of the payments no
+    // longer processing
+    Map<ChargeRequest, ChargeResult> toRefund = new LinkedHashMap<>();
+    List<String> approvedTransactionIds = new ArrayList<>();
+    List<Long> approvedOrderIds = new ArrayList<>();
+    List<String> declinedTransactionIds = new ArrayList<>();
+    List<Long> declinedOrderIds = new ArrayList<>();
+    results.forEach((request, result) -> {
+      Order order = orders.get(request.orderId());
+      Payment payment = order != null ? order.getPayment() : null;
+      if (payment == null || payment.getStatus() != PaymentStatus.PROCESSING
+          || !request.idempotencyKey().equals(payment.getTransactionId())) {
+        if (result.approved()) {
+          log.error("Payment {} of order {} was charged after it stopped processing, refunding it",
+              request.idempotencyKey(), request.orderId());
+          toRefund.put(request, result);
+        }
+        return;
+      }
+      if (result.approved()) {
+        approvedTransactionIds.add(request.idempotencyKey());
+        approvedOrderIds.add(request.orderId());
+      } else {
+        log.info("Payment {} of order {} declined: {}",
+            request.idempotencyKey(), request.orderId(), result.message());
+        declinedTransactionIds.add(request.idempotencyKey());
+        declinedOrderIds.add(request.orderId());
+      }
+    });
+
+    LocalDateTime now = LocalDateTime.now();
+
+    // 3. Keep the stock of the paid orders, before their reservation expires
+    stockReservationService.confirmAll(approvedOrderIds);
+
+    // 4. Settle the payments and their orders
+    if (!approvedTransactionIds.isEmpty()) {
+      paymentRepo.updateStatus(approvedTransactionIds, PaymentStatus.PROCESSING, PaymentStatus.COMPLETED, now);
+      orderRepo.updatePaymentStatus(approvedOrderIds, OrderStatus.PENDING, OrderStatus.PAYMENT_COMPLETED, now);
+    }
+    if (!declinedTransactionIds.isEmpty()) {
+      // The stock stays reserved until the reservation expires
+      paymentRepo.updateStatus(declinedTransactionIds, PaymentStatus.PROCESSING, PaymentStatus.FAILED, now);
+      orderRepo.updatePaymentStatus(declinedOrderIds, OrderStatus.PENDING, OrderStatus.PAYMENT_FAILED, null);
+    }
+
+    // 5. Tell the customers of the orders updated, reading their items and
+    // customers in one query. The loaded orders still hold the status they
+    // had before the updates.
+    List<Long> updatedOrderIds = new ArrayList<>(approvedOrderIds);
+    updatedOrderIds.addAll(declinedOrderIds);
+    if (!updatedOrderIds.isEmpty()) {
+      orderRepo.findWithItemsByIdIn(updatedOrderIds);
+    }
+    notifyStatusUpdate(orders, approvedOrderIds, OrderStatus.PAYMENT_COMPLETED);
+    notifyStatusUpdate(orders, declinedOrderIds, OrderStatus.PAYMENT_FAILED);
+
+    log.info("Processed {} payments, {} approved and {} declined",
+        results.size(), approvedTransactionIds.size(), declinedTransactionIds.size());
+    return toRefund;
+  }
+
+  /**
+   * Record the refund of charges
+   *
+   * @param transactionIds the transaction ids of the refunded payments
+   */
+  @Override
+  public void recordRefunds(Collection<String> transactionIds) {
+    if (!transactionIds.isEmpty()) {
+      paymentRepo.overwriteStatus(transactionIds, PaymentStatus.REFUNDED, LocalDateTime.now());
+    }
+  }
+
+  /**
+   * Email the customers of the orders moved from pending to a status
+   *
+   * @param orders   the locked orders, by id
+   * @param orderIds the ids of the orders to move
+   * @param status   the status the orders were moved to
+   */
+  private void notifyStatusUpdate(Map<Long, Order> orders, List<Long> orderIds, OrderStatus status) {
+    for (Long orderId : orderIds) {
+      Order order = orders.get(orderId);
+      if (order.getStatus() == OrderStatus.PENDING) {
+        messageProducer.sendOrderNotification(EmailNotificationType.ORDER_STATUS_UPDATE, order, status);
+      }
+    }
+  }
+}
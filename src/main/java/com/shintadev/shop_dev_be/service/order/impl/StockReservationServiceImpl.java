@@ -0,0 +1,264 @@
+package com.shintadev.shop_dev_be.service.order.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.shintadev.shop_dev_be.constant.kafka.EmailNotificationType;
+import com.shintadev.shop_dev_be.domain.model.entity.order.Order;
+import com.shintadev.shop_dev_be.domain.model.entity.order.OrderItem;
+import com.shintadev.shop_dev_be.domain.model.entity.order.Payment;
+import com.shintadev.shop_dev_be.domain.model.entity.order.StockReservation;
+import com.shintadev.shop_dev_be.domain.model.enums.order.OrderStatus;
+import com.shintadev.shop_dev_be.domain.model.enums.order.PaymentStatus;
+import com.shintadev.shop_dev_be.domain.model.enums.order.ReservationStatus;
+import com.shintadev.shop_dev_be.exception.BadRequestException;
+import com.shintadev.shop_dev_be.inventory.ReservationChangedEvent;
+import com.shintadev.shop_dev_be.kafka.producer.MessageProducer;
+import com.shintadev.shop_dev_be.repository.order.OrderRepo;
+import com.shintadev.shop_dev_be.repository.order.PaymentRepo;
+import com.shintadev.shop_dev_be.repository.order.StockReservationRepo;
+import com.shintadev.shop_dev_be.service.order.StockReservationService;
+import com.shintadev.shop_dev_be.service.product.InventoryService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service for managing the stock held by unpaid orders.
+ * <p>
+ * Stock is taken when the order is created and held until the order is paid.
+ * Orders still pending when their reservation expires are cancelled and their
+ * stock given back.
+ * <p>
+ * Like every other change of an order, its reservation and its payment, the
+ * order row is locked first, then the reservation, then the payment.
+ */
+@Service
+@Slf4j
+@Transactional
+@RequiredArgsConstructor
+public class StockReservationServiceImpl implements StockReservationService {
+
+  /**
+   * The states of an order still waiting for its payment
+   */
+  private static final Set<OrderStatus> UNPAID_STATUSES = Set.of(
+      OrderStatus.PENDING, OrderStatus.PAYMENT_PENDING, OrderStatus.PAYMENT_FAILED);
+
+  private final StockReservationRepo stockReservationRepo;
+  private final OrderRepo orderRepo;
+  private final PaymentRepo paymentRepo;
+  private final InventoryService inventoryService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final PlatformTransactionManager transactionManager;
+  private final MessageProducer messageProducer;
+
+  @Value("${app.inventory.reservation.ttl:900000}")
+  private long ttl;
+
+  @Value("${app.inventory.reservation.max-extensions:3}")
+  private int maxExtensions;
+
+  /**
+   * Hold the stock already reserved for a new order until it is paid
+   *
+   * @param order the order
+   */
+  @Override
+  public void hold(Order order) {
+    StockReservation reservation = StockReservation.builder()
+        .order(order)
+        .status(ReservationStatus.ACTIVE)
+        .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(ttl)))
+        .build();
+
+    reservation = stockReservationRepo.save(reservation);
+
+    eventPublisher.publishEvent(ReservationChangedEvent.created(reservation.getId(), reservation.getExpiresAt()));
+  }
+
+  /**
+   * Keep the stock of an order for good, once it is paid or processed
+   *
+   * @param orderId the id of the order
+   * @throws BadRequestException if the reservation has already expired or
+   *                             been released
+   */
+  @Override
+  public void confirm(Long orderId) {
+    stockReservationRepo.findByOrderIdForUpdate(orderId).ifPresent(reservation -> {
+      if (reservation.getStatus() == ReservationStatus.EXPIRED) {
+        throw new BadRequestException("The stock reservation of this order has expired");
+      }
+      if (reservation.getStatus() == ReservationStatus.RELEASED) {
+        throw new BadRequestException("The stock of this order has been given back");
+      }
+      if (reservation.getStatus() == ReservationStatus.ACTIVE) {
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        eventPublisher.publishEvent(ReservationChangedEvent.closed(reservation.getId()));
+      }
+    });
+  }
+
+  /**
+   * Keep the stock of paid orders for good, in a single update
+   *
+   * @param orderIds the ids of the orders, those without an active
+   *                 reservation are skipped
+   * @return the number of reservations confirmed
+   */
+  @Override
+  public int confirmAll(Collection<Long> orderIds) {
+    if (orderIds.isEmpty()) {
+      return 0;
+    }
+    // The timing wheel may still fire for these, expiring only active
+    // reservations
+    return stockReservationRepo.confirmByOrderIdIn(orderIds);
+  }
+
+  /**
+   * Give back the stock of a cancelled order, unless it has already been given
+   * back
+   *
+   * @param order the order
+   */
+  @Override
+  public void release(Order order) {
+    // 1. Lock the reservation so that it cannot expire meanwhile
+    StockReservation reservation = stockReservationRepo.findByOrderIdForUpdate(order.getId()).orElse(null);
+
+    // 2. Orders placed before reservations existed have none
+    if (reservation != null) {
+      if (reservation.getStatus() == ReservationStatus.EXPIRED
+          || reservation.getStatus() == ReservationStatus.RELEASED) {
+        return;
+      }
+      reservation.setStatus(ReservationStatus.RELEASED);
+      eventPublisher.publishEvent(ReservationChangedEvent.closed(reservation.getId()));
+    }
+
+    // 3. Give back the stock
+    inventoryService.releaseStock(order.getItems().stream()
+        .collect(Collectors.toMap(item -> item.getProduct().getId(), OrderItem::getQuantity, Integer::sum)));
+  }
+
+  /**
+   * Expire reservations, cancelling their orders and giving back their stock
+   * in a single update per product
+   *
+   * @param reservationIds the ids of the reservations, those no longer active
+   *                       or not yet due are skipped
+   * @return the number of reservations expired
+   */
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int expire(Collection<Long> reservationIds) {
+    if (reservationIds.isEmpty()) {
+      return 0;
+    }
+
+    // 1. Find the orders of the reservations due, before the transaction so
+    // that it only reads rows once they are locked
+    List<Long> orderIds = stockReservationRepo.findExpiredOrderIds(reservationIds, LocalDateTime.now());
+    if (orderIds.isEmpty()) {
+      return 0;
+    }
+
+    Integer expired = new TransactionTemplate(transactionManager).execute(status -> expireOrders(orderIds));
+    log.info("Expired {} of {} stock reservations", expired, reservationIds.size());
+    return expired;
+  }
+
+  /**
+   * Get the reservations due, oldest first
+   *
+   * @param limit the maximum number of reservations
+   * @return the ids of the reservations
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public List<Long> findExpiredIds(int limit) {
+    return stockReservationRepo.findExpiredIds(LocalDateTime.now(), PageRequest.of(0, limit));
+  }
+
+  private int expireOrders(List<Long> orderIds) {
+    // 1. Lock the orders, then their reservations still due, the others were
+    // paid or released meanwhile, then the payments of those
+    orderRepo.findByIdInForUpdate(orderIds);
+    List<StockReservation> reservations = stockReservationRepo.findExpiredByOrderIdInForUpdate(
+        orderIds, LocalDateTime.now());
+    if (reservations.isEmpty()) {
+      return 0;
+    }
+    List<Long> dueOrderIds = reservations.stream()
+        .map(reservation -> reservation.getOrder().getId())
+        .toList();
+    paymentRepo.findByOrderIdInForUpdate(dueOrderIds);
+
+    // 2. Load their items and customers in one query rather than per order
+    orderRepo.findWithItemsByIdIn(dueOrderIds);
+
+    // 3. Cancel the orders still unpaid, add up their stock and tell their
+    // customers
+    Map<Long, Integer> quantities = new HashMap<>();
+    for (StockReservation reservation : reservations) {
+      Order order = reservation.getOrder();
+      Payment payment = order.getPayment();
+      if (payment != null && payment.getStatus() == PaymentStatus.PROCESSING) {
+        if (reservation.getExtensions() < maxExtensions) {
+          // Being charged, the outcome of the charge closes the reservation
+          reservation.setExtensions(reservation.getExtensions() + 1);
+          reservation.setExpiresAt(LocalDateTime.now().plus(Duration.ofMillis(ttl)));
+          eventPublisher.publishEvent(ReservationChangedEvent.created(reservation.getId(), reservation.getExpiresAt()));
+          log.warn("Order {} expired while its payment is processing, extending its reservation", order.getId());
+          continue;
+        }
+        // Its outcome never came, an approval arriving later is refunded
+        log.error("Payment {} of order {} is still processing after {} extensions, failing it",
+            payment.getTransactionId(), order.getId(), reservation.getExtensions());
+        payment.setStatus(PaymentStatus.FAILED);
+        payment.setUpdatedAt(LocalDateTime.now());
+      }
+      if (!UNPAID_STATUSES.contains(order.getStatus())) {
+        // Moved on without being confirmed, keep its stock
+        log.warn("Order {} is in {} state with an active reservation", order.getId(), order.getStatus());
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        continue;
+      }
+
+      reservation.setStatus(ReservationStatus.EXPIRED);
+      order.setStatus(OrderStatus.CANCELLED);
+      order.setCancelledAt(LocalDateTime.now());
+      if (payment != null && payment.getStatus() == PaymentStatus.PENDING) {
+        payment.setStatus(PaymentStatus.CANCELLED);
+        payment.setUpdatedAt(LocalDateTime.now());
+      }
+      for (OrderItem item : order.getItems()) {
+        quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+      }
+      messageProducer.sendOrderNotification(EmailNotificationType.ORDER_CANCELLED, order);
+    }
+
+    // 4. Give back the stock of every expired order at once
+    if (!quantities.isEmpty()) {
+      inventoryService.releaseStock(quantities);
+    }
+    return reservations.size();
+  }
+}
@@ -0,0 +1,21 @@
+package com.shintadev.shop_dev_be.service.product;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public interface InventoryService {
+
+  void reserveStock(Map<Long, Integer> quantities);
+
+  void releaseStock(Map<Long, Integer> quantities);
+
+  boolean applyAdjustment(String adjustmentId, Long productId, int delta);
+
+  int purgeAppliedAdjustments(LocalDateTime before);
+
+  boolean markHot(Long productId);
+
+  boolean unmarkHot(Long productId);
+
+  boolean drainHot(Long productId);
+}
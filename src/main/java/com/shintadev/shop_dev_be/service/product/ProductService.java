@@ -7,7 +7,10 @@ import org.springframework.data.domain.Pageable;
 
 import com.shintadev.shop_dev_be.domain.dto.request.product.ProductSearchCriteria;
 import com.shintadev.shop_dev_be.domain.dto.request.product.ProductRequest;
+import com.shintadev.shop_dev_be.domain.dto.response.CursorPageResponse;
+import com.shintadev.shop_dev_be.domain.dto.response.product.ProductFilterResponse;
 import com.shintadev.shop_dev_be.domain.dto.response.product.ProductResponse;
+import com.shintadev.shop_dev_be.domain.dto.response.product.SuggestionResponse;
 
 public interface ProductService {
 
@@ -15,15 +18,22 @@ public interface ProductService {
 
   List<ProductResponse> getFeaturedProducts(int limit);
 
+  CursorPageResponse<ProductResponse> getActiveProductsByCursor(String cursor, int size, boolean withTotal);
+
   ProductResponse getProductBySlug(String slug);
 
   Page<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable);
 
+  CursorPageResponse<ProductResponse> getProductsByCategoryByCursor(
+      Long categoryId, String cursor, int size, boolean withTotal);
+
   List<ProductResponse> getRelatedProducts(Long id, int limit);
 
   Page<ProductResponse> searchProducts(String keyword, Pageable pageable);
 
-  Page<ProductResponse> filterProducts(ProductSearchCriteria searchCriteria, Pageable pageable);
+  ProductFilterResponse filterProducts(ProductSearchCriteria searchCriteria, Pageable pageable);
+
+  List<SuggestionResponse> suggest(String keyword, int limit);
 
   // ==================== Admin Methods ====================
 
@@ -38,4 +48,6 @@ public interface ProductService {
   void refreshProductCache(String slug);
 
   void clearProductCaches();
+
+  int rebuildSearchIndex();
 }
@@ -5,6 +5,7 @@ import java.util.List;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,6 +19,7 @@ import com.shintadev.shop_dev_be.domain.dto.response.product.CategoryResponse;
 import com.shintadev.shop_dev_be.domain.model.entity.product.Category;
 import com.shintadev.shop_dev_be.exception.ResourceNotFoundException;
 import com.shintadev.shop_dev_be.repository.product.CategoryRepo;
+import com.shintadev.shop_dev_be.search.CategoryChangedEvent;
 import com.shintadev.shop_dev_be.service.product.CategoryService;
 
 import lombok.RequiredArgsConstructor;
@@ -35,6 +37,7 @@ public class CategoryServiceImpl implements CategoryService {
   private final CategoryRepo categoryRepo;
   private final CategoryMapper categoryMapper;
   private final Slugify slugify;
+  private final ApplicationEventPublisher eventPublisher;
 
   /**
    * Get all active categories
@@ -178,6 +181,10 @@ public class CategoryServiceImpl implements CategoryService {
 
     category = categoryRepo.save(category);
     log.info("Updated category: {}", category);
+
+    // 4. Reindex its products once the transaction commits
+    eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+
     return categoryMapper.toCategoryResponse(category);
   }
 
@@ -0,0 +1,323 @@
+package com.shintadev.shop_dev_be.service.product.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.shintadev.shop_dev_be.constant.ResourceName;
+import com.shintadev.shop_dev_be.domain.model.entity.inventory.InventoryAdjustment;
+import com.shintadev.shop_dev_be.domain.model.entity.product.Product;
+import com.shintadev.shop_dev_be.domain.model.enums.product.ProductStatus;
+import com.shintadev.shop_dev_be.exception.BadRequestException;
+import com.shintadev.shop_dev_be.exception.InsufficientStockException;
+import com.shintadev.shop_dev_be.exception.ResourceNotFoundException;
+import com.shintadev.shop_dev_be.inventory.HotStockStore;
+import com.shintadev.shop_dev_be.kafka.event.InventoryAdjustmentEvent;
+import com.shintadev.shop_dev_be.kafka.producer.MessageProducer;
+import com.shintadev.shop_dev_be.repository.inventory.InventoryAdjustmentRepo;
+import com.shintadev.shop_dev_be.repository.product.ProductRepo;
+import com.shintadev.shop_dev_be.search.ProductStockChangedEvent;
+import com.shintadev.shop_dev_be.service.product.InventoryService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service for managing product stock.
+ * <p>
+ * Hot products (e.g. flash sale items) are served from Redis counters, and the
+ * database is reconciled through Kafka, with adjustments written to the outbox
+ * in the same transaction. Cold products are updated in the database directly.
+ * Every write to the stock in the database is published for the search
+ * indexes, which track the products in stock.
+ */
+@Service
+@Slf4j
+@Transactional
+@RequiredArgsConstructor
+public class InventoryServiceImpl implements InventoryService {
+
+  private final ProductRepo productRepo;
+  private final InventoryAdjustmentRepo inventoryAdjustmentRepo;
+  private final HotStockStore hotStockStore;
+  private final MessageProducer messageProducer;
+  private final ApplicationEventPublisher eventPublisher;
+
+  /**
+   * Reserve the stock of several products, all or nothing. Each line is a
+   * single atomic operation, so concurrent reservations cannot oversell.
+   *
+   * @param quantities the quantity to reserve by product id
+   * @throws InsufficientStockException if any product is unavailable or short
+   *                                    of stock, listing all of them
+   */
+  @Override
+  public void reserveStock(Map<Long, Integer> quantities) {
+    // 1. Reserve the hot products in Redis, all or nothing
+    List<Long> productIds = new ArrayList<>(new TreeSet<>(quantities.keySet()));
+    List<Long> results = hotStockStore.reserve(productIds, productIds.stream().map(quantities::get).toList());
+
+    Map<Long, Integer> hotDeltas = new LinkedHashMap<>();
+    Map<Long, Integer> hotShortages = new LinkedHashMap<>();
+    List<Long> coldProductIds = new ArrayList<>();
+    for (int i = 0; i < productIds.size(); i++) {
+      long result = results.get(i);
+      if (result == HotStockStore.COLD) {
+        coldProductIds.add(productIds.get(i));
+      } else if (result < HotStockStore.COLD) {
+        hotShortages.put(productIds.get(i), (int) (-2 - result));
+      } else {
+        hotDeltas.put(productIds.get(i), -quantities.get(productIds.get(i)));
+      }
+    }
+    onHotStockChanged(hotDeltas);
+
+    // 2. Decrement the cold products in product id order so that concurrent
+    // reservations lock the rows in the same order and cannot deadlock
+    List<Long> failedProductIds = new ArrayList<>(hotShortages.keySet());
+    for (Long productId : coldProductIds) {
+      if (productRepo.decrementStock(productId, quantities.get(productId)) == 0) {
+        failedProductIds.add(productId);
+      }
+    }
+
+    if (failedProductIds.isEmpty()) {
+      onStockChanged(coldProductIds);
+      return;
+    }
+
+    // 3. Explain every failed line, the reserved ones are given back when the
+    // transaction rolls back
+    List<String> reasons = new ArrayList<>();
+    for (Object[] row : productRepo.findStockByIdIn(failedProductIds)) {
+      Long productId = (Long) row[0];
+      String name = (String) row[1];
+      int stock = hotShortages.getOrDefault(productId, (Integer) row[2]);
+      ProductStatus status = (ProductStatus) row[3];
+      reasons.add(status != ProductStatus.ACTIVE
+          ? name + " is not available"
+          : name + " has only " + stock + " in stock");
+    }
+    log.info("Failed to reserve stock of products {}", failedProductIds);
+    throw new InsufficientStockException(failedProductIds, "Cannot complete order: "
+        + String.join(",\n", reasons));
+  }
+
+  /**
+   * Give back reserved stock
+   *
+   * @param quantities the quantity to give back by product id
+   */
+  @Override
+  public void releaseStock(Map<Long, Integer> quantities) {
+    List<Long> productIds = new ArrayList<>(new TreeSet<>(quantities.keySet()));
+    List<Long> results = hotStockStore.adjust(productIds, productIds.stream().map(quantities::get).toList());
+
+    Map<Long, Integer> hotDeltas = new LinkedHashMap<>();
+    List<Long> coldProductIds = new ArrayList<>();
+    for (int i = 0; i < productIds.size(); i++) {
+      Long productId = productIds.get(i);
+      if (results.get(i) == HotStockStore.COLD) {
+        productRepo.adjustStock(productId, quantities.get(productId));
+        coldProductIds.add(productId);
+      } else {
+        hotDeltas.put(productId, quantities.get(productId));
+      }
+    }
+    onHotStockChanged(hotDeltas);
+    onStockChanged(coldProductIds);
+  }
+
+  /**
+   * Apply a stock change of a hot product to the database, once. The
+   * adjustment is marked applied in the same transaction as the stock.
+   *
+   * @param adjustmentId the id of the adjustment
+   * @param productId    the id of the product
+   * @param delta        the quantity to add, negative to remove
+   * @return false if the adjustment was already applied
+   */
+  @Override
+  public boolean applyAdjustment(String adjustmentId, Long productId, int delta) {
+    // Product row first, like a drain, so that the two cannot deadlock
+    productRepo.findByIdForUpdate(productId);
+    if (inventoryAdjustmentRepo.markApplied(adjustmentId) == 0) {
+      return false;
+    }
+    productRepo.adjustStock(productId, delta);
+    onStockChanged(List.of(productId));
+    return true;
+  }
+
+  /**
+   * Forget the adjustments applied long enough ago not to be redelivered
+   *
+   * @param before the time before which adjustments are forgotten
+   * @return the number of adjustments forgotten
+   */
+  @Override
+  public int purgeAppliedAdjustments(LocalDateTime before) {
+    return inventoryAdjustmentRepo.deleteByAppliedAtBefore(before);
+  }
+
+  /**
+   * Serve the stock of a product from Redis from now on. Marking happens under
+   * the product row lock, so the counter starts from the committed stock, and
+   * cannot race with the product being deactivated, which unmarks it.
+   *
+   * @param productId the id of the product
+   * @return false if the product was already hot
+   * @throws BadRequestException if the product is not active, or still being
+   *                             made cold
+   */
+  @Override
+  public boolean markHot(Long productId) {
+    Product product = productRepo.findByIdForUpdate(productId)
+        .orElseThrow(() -> ResourceNotFoundException.create(ResourceName.PRODUCT, "id", productId));
+    if (product.getStatus() != ProductStatus.ACTIVE) {
+      throw new BadRequestException("Product " + productId + " is not active");
+    }
+    if (hotStockStore.isFrozen(productId)) {
+      throw new BadRequestException("Product " + productId + " is still being made cold");
+    }
+    log.info("Marking product {} as hot with stock {}", productId, product.getStock());
+    return hotStockStore.markHot(productId, product.getStock());
+  }
+
+  /**
+   * Stop selling the hot stock of a product, in the transaction deactivating
+   * it. The product is frozen at once and thawed if the transaction rolls
+   * back; it is served from the database again once drained, see
+   * {@link #drainHot(Long)}.
+   *
+   * @param productId the id of the product
+   * @return false if the product was not hot, or already frozen
+   */
+  @Override
+  public boolean unmarkHot(Long productId) {
+    if (!hotStockStore.freeze(productId)) {
+      return false;
+    }
+    log.info("Froze the hot stock of product {}", productId);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status != STATUS_COMMITTED) {
+          hotStockStore.thaw(productId);
+        }
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Make a frozen product cold once the database has caught up with its
+   * counter. Under the product row lock, the pending adjustments of the
+   * product are applied here rather than waiting for Kafka, then the counter
+   * must match the stock: otherwise a transaction that reserved before the
+   * freeze has not committed yet, and the product stays frozen until the next
+   * attempt. The counter is dropped once the stock is committed.
+   *
+   * @param productId the id of the product
+   * @return false if the product is not frozen or not drained yet
+   */
+  @Override
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public boolean drainHot(Long productId) {
+    if (!hotStockStore.isFrozen(productId)) {
+      return false;
+    }
+
+    // 1. Apply the pending adjustments, under the product row lock
+    Product product = productRepo.findByIdForUpdate(productId)
+        .orElseThrow(() -> ResourceNotFoundException.create(ResourceName.PRODUCT, "id", productId));
+    int delta = 0;
+    for (InventoryAdjustment adjustment : inventoryAdjustmentRepo.findPendingByProductIdForUpdate(productId)) {
+      adjustment.setAppliedAt(LocalDateTime.now());
+      delta += adjustment.getDelta();
+    }
+    if (delta != 0) {
+      productRepo.adjustStock(productId, delta);
+      onStockChanged(List.of(productId));
+    }
+
+    // 2. Compare with the counter, given back stock still lands on it
+    Long counter = hotStockStore.stock(productId);
+    int stock = product.getStock() + delta;
+    if (counter != null && counter != stock) {
+      log.info("Product {} not drained yet, stock {} but counter {}", productId, stock, counter);
+      return false;
+    }
+
+    // 3. Drop the counter once the stock is committed
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        hotStockStore.unmarkHot(productId);
+        log.info("Marked product {} as cold with stock {}", productId, stock);
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Reconcile the database with the transaction, or undo the Redis change if
+   * it rolls back
+   *
+   * @param deltas the quantity added to each hot product, negative if removed
+   */
+  private void onHotStockChanged(Map<Long, Integer> deltas) {
+    if (deltas.isEmpty()) {
+      return;
+    }
+    deltas.forEach(this::publishAdjustment);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status != STATUS_COMMITTED) {
+          Map<Long, Integer> undo = new HashMap<>();
+          deltas.forEach((productId, delta) -> undo.put(productId, -delta));
+          hotStockStore.adjust(undo);
+        }
+      }
+    });
+  }
+
+  /**
+   * Publish the stock written to products, read back under their row locks
+   *
+   * @param productIds the ids of the products written
+   */
+  private void onStockChanged(List<Long> productIds) {
+    if (productIds.isEmpty()) {
+      return;
+    }
+    Map<Long, Integer> stocks = new HashMap<>();
+    for (Object[] row : productRepo.findStockByIdIn(productIds)) {
+      stocks.put((Long) row[0], (Integer) row[2]);
+    }
+    eventPublisher.publishEvent(new ProductStockChangedEvent(stocks));
+  }
+
+  private void publishAdjustment(Long productId, Integer delta) {
+    String adjustmentId = UUID.randomUUID().toString();
+    inventoryAdjustmentRepo.save(InventoryAdjustment.builder()
+        .adjustmentId(adjustmentId)
+        .productId(productId)
+        .delta(delta)
+        .build());
+    messageProducer.sendInventoryAdjustment(new InventoryAdjustmentEvent(adjustmentId, productId, delta));
+  }
+}
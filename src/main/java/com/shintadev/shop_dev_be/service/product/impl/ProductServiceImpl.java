@@ -1,32 +1,62 @@
 package com.shintadev.shop_dev_be.service.product.impl;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import com.github.slugify.Slugify;
+import com.shintadev.shop_dev_be.cache.ProductCacheInvalidator;
 import com.shintadev.shop_dev_be.constant.ResourceName;
 import com.shintadev.shop_dev_be.domain.dto.mapper.ProductMapper;
 import com.shintadev.shop_dev_be.domain.dto.request.product.ProductSearchCriteria;
 import com.shintadev.shop_dev_be.domain.dto.request.product.ProductRequest;
+import com.shintadev.shop_dev_be.domain.dto.response.CursorPageResponse;
+import com.shintadev.shop_dev_be.domain.dto.response.product.FacetCountResponse;
+import com.shintadev.shop_dev_be.domain.dto.response.product.ProductFilterResponse;
 import com.shintadev.shop_dev_be.domain.dto.response.product.ProductResponse;
+import com.shintadev.shop_dev_be.domain.dto.response.product.SuggestionResponse;
 import com.shintadev.shop_dev_be.domain.model.entity.product.Category;
 import com.shintadev.shop_dev_be.domain.model.entity.product.Product;
 import com.shintadev.shop_dev_be.domain.model.enums.product.ProductStatus;
+import com.shintadev.shop_dev_be.domain.model.enums.product.SuggestionType;
 import com.shintadev.shop_dev_be.exception.ResourceNotFoundException;
 import com.shintadev.shop_dev_be.repository.product.CategoryRepo;
 import com.shintadev.shop_dev_be.repository.product.ProductRepo;
+import com.shintadev.shop_dev_be.search.FacetCount;
+import com.shintadev.shop_dev_be.search.FacetResult;
+import com.shintadev.shop_dev_be.search.ProductChangedEvent;
+import com.shintadev.shop_dev_be.search.ProductDocument;
+import com.shintadev.shop_dev_be.search.ProductFacetIndex;
+import com.shintadev.shop_dev_be.search.ProductFilter;
+import com.shintadev.shop_dev_be.search.ProductIndexSynchronizer;
+import com.shintadev.shop_dev_be.search.ProductSearchIndex;
+import com.shintadev.shop_dev_be.search.ProductSuggestIndex;
+import com.shintadev.shop_dev_be.search.Suggestion;
+import com.shintadev.shop_dev_be.service.product.InventoryService;
 import com.shintadev.shop_dev_be.service.product.ProductService;
+import com.shintadev.shop_dev_be.util.CursorUtils;
 
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
@@ -46,6 +76,13 @@ public class ProductServiceImpl implements ProductService {
   private final ProductMapper productMapper;
   private final CategoryRepo categoryRepo;
   private final Slugify slugify;
+  private final ProductCacheInvalidator productCacheInvalidator;
+  private final ProductSearchIndex productSearchIndex;
+  private final ProductFacetIndex productFacetIndex;
+  private final ProductSuggestIndex productSuggestIndex;
+  private final ProductIndexSynchronizer productIndexSynchronizer;
+  private final InventoryService inventoryService;
+  private final ApplicationEventPublisher eventPublisher;
 
   /**
    * Get all active products
@@ -55,7 +92,7 @@ public class ProductServiceImpl implements ProductService {
    */
   @Override
   @Transactional(readOnly = true)
-  @Cacheable(value = "activeProducts", key = "#pageable.pageNumber + '_' + #pageable.pageSize")
+  @Cacheable(value = "activeProducts", key = "#pageable.pageNumber + '_' + #pageable.pageSize", sync = true)
   public Page<ProductResponse> getActiveProducts(Pageable pageable) {
     log.info("Fetching all active products for page {} with size {}",
         pageable.getPageNumber(), pageable.getPageSize());
@@ -63,6 +100,28 @@ public class ProductServiceImpl implements ProductService {
         .map(productMapper::toProductResponse);
   }
 
+  /**
+   * Get active products, newest first, after a cursor
+   * 
+   * @param cursor    the cursor returned with the previous page, null for the
+   *                  first page
+   * @param size      the number of products
+   * @param withTotal whether to count all active products
+   * @return the page of active products
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPageResponse<ProductResponse> getActiveProductsByCursor(String cursor, int size, boolean withTotal) {
+    log.info("Fetching active products after cursor {} with size {}", cursor, size);
+    CursorUtils.Cursor position = CursorUtils.decode(cursor);
+    List<Product> products = position == null
+        ? productRepo.findActiveProductsFirst(CursorUtils.limitOf(size))
+        : productRepo.findActiveProductsAfter(position.timestamp(), position.id(), CursorUtils.limitOf(size));
+
+    return CursorUtils.toPage(products, size, Product::getCreatedAt, Product::getId,
+        productMapper::toProductResponse, withTotal ? productRepo::countActiveProducts : null);
+  }
+
   /**
    * Get all featured products
    * 
@@ -71,7 +130,7 @@ public class ProductServiceImpl implements ProductService {
    */
   @Override
   @Transactional(readOnly = true)
-  @Cacheable(value = "featuredProducts", key = "#limit")
+  @Cacheable(value = "featuredProducts", key = "#limit", sync = true)
   public List<ProductResponse> getFeaturedProducts(int limit) {
     log.info("Fetching featured products with limit {}", limit);
 
@@ -89,7 +148,7 @@ public class ProductServiceImpl implements ProductService {
    */
   @Override
   @Transactional(readOnly = true)
-  @Cacheable(value = "productDetails", key = "#slug", unless = "#result == null")
+  @Cacheable(value = "productDetails", key = "#slug", sync = true)
   public ProductResponse getProductBySlug(String slug) {
     log.info("Fetching product details for slug: {}", slug);
     return productRepo.findBySlugAndActive(slug)
@@ -106,7 +165,7 @@ public class ProductServiceImpl implements ProductService {
    */
   @Override
   @Transactional(readOnly = true)
-  @Cacheable(value = "productsByCategory", key = "#categoryId + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
+  @Cacheable(value = "productsByCategory", key = "#categoryId + '_' + #pageable.pageNumber + '_' + #pageable.pageSize", sync = true)
   public Page<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable) {
     log.info("Fetching products by category ID: {} for page {} with size {}", categoryId,
         pageable.getPageNumber(), pageable.getPageSize());
@@ -118,6 +177,35 @@ public class ProductServiceImpl implements ProductService {
         .map(productMapper::toProductResponse);
   }
 
+  /**
+   * Get products by category, newest first, after a cursor
+   * 
+   * @param categoryId the id of the category
+   * @param cursor     the cursor returned with the previous page, null for the
+   *                   first page
+   * @param size       the number of products
+   * @param withTotal  whether to count all products of the category
+   * @return the page of products by category
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public CursorPageResponse<ProductResponse> getProductsByCategoryByCursor(
+      Long categoryId, String cursor, int size, boolean withTotal) {
+    log.info("Fetching products by category ID: {} after cursor {} with size {}", categoryId, cursor, size);
+    if (!categoryRepo.existsById(categoryId)) {
+      throw ResourceNotFoundException.create(ResourceName.CATEGORY, "id", categoryId);
+    }
+
+    CursorUtils.Cursor position = CursorUtils.decode(cursor);
+    List<Product> products = position == null
+        ? productRepo.findByCategoryAndActiveFirst(categoryId, CursorUtils.limitOf(size))
+        : productRepo.findByCategoryAndActiveAfter(
+            categoryId, position.timestamp(), position.id(), CursorUtils.limitOf(size));
+
+    return CursorUtils.toPage(products, size, Product::getCreatedAt, Product::getId,
+        productMapper::toProductResponse, withTotal ? () -> productRepo.countByCategoryAndActive(categoryId) : null);
+  }
+
   /**
    * Get related products
    * 
@@ -153,7 +241,8 @@ public class ProductServiceImpl implements ProductService {
   }
 
   /**
-   * Search products by keyword
+   * Search products by keyword, best match first unless another sort is
+   * requested
    * 
    * @param keyword  the keyword to search for
    * @param pageable the pageable object
@@ -163,28 +252,82 @@ public class ProductServiceImpl implements ProductService {
   @Transactional(readOnly = true)
   public Page<ProductResponse> searchProducts(String keyword, Pageable pageable) {
     log.info("Searching for products with keyword {} on page {}", keyword, pageable.getPageNumber());
-    return productRepo.findByKeywordContainingIgnoreCaseAndActive(keyword, pageable)
-        .map(productMapper::toProductResponse);
+    // 1. Fall back to the database until the search index is built
+    if (!productSearchIndex.isReady()) {
+      return productRepo.findByKeywordContainingIgnoreCaseAndActive(keyword, withoutRelevance(pageable))
+          .map(productMapper::toProductResponse);
+    }
+
+    // 2. Search the index
+    List<ProductDocument> hits = productSearchIndex.search(keyword, document -> true);
+
+    // 3. Load the requested page
+    return toPage(hits, pageable);
   }
 
   /**
-   * Filter products by criteria
+   * Filter products by criteria, with the facet counts of the criteria
    * 
    * @param searchCriteria the search criteria
    * @param pageable       the pageable object
-   * @return the page of products by criteria
+   * @return the page of products by criteria and the facet counts
    */
   @Override
   @Transactional(readOnly = true)
-  public Page<ProductResponse> filterProducts(ProductSearchCriteria searchCriteria, Pageable pageable) {
+  public ProductFilterResponse filterProducts(ProductSearchCriteria searchCriteria, Pageable pageable) {
     log.info("Filtering products with criteria {} on page {}", searchCriteria, pageable.getPageNumber());
 
-    // 1. Build the specification
-    Specification<Product> spec = buildSpecification(searchCriteria);
+    // 1. Fall back to the database, without facets, until the indexes are built
+    if (!productSearchIndex.isReady() || !productFacetIndex.isReady()) {
+      Page<ProductResponse> products = productRepo
+          .findAll(buildSpecification(searchCriteria), withoutRelevance(pageable))
+          .map(productMapper::toProductResponse);
+      return ProductFilterResponse.builder().products(products).build();
+    }
 
-    // 2. Execute the query
-    return productRepo.findAll(spec, pageable)
-        .map(productMapper::toProductResponse);
+    // 2. Match keywords against the search index
+    List<ProductDocument> hits = StringUtils.hasText(searchCriteria.getKeyword())
+        ? productSearchIndex.search(searchCriteria.getKeyword(), document -> true)
+        : null;
+
+    // 3. Intersect the conditions and count the facets
+    FacetResult result = productFacetIndex.filter(
+        hits != null ? hits.stream().map(ProductDocument::id).toList() : null,
+        toProductFilter(searchCriteria));
+
+    // 4. Keep the relevance order of keyword matches
+    List<ProductDocument> matches = result.documents();
+    if (hits != null) {
+      Set<Long> ids = matches.stream().map(ProductDocument::id).collect(Collectors.toSet());
+      matches = hits.stream().filter(hit -> ids.contains(hit.id())).toList();
+    }
+
+    return ProductFilterResponse.builder()
+        .products(toPage(matches, pageable))
+        .categories(toFacetCountResponses(result.categories()))
+        .priceRanges(toFacetCountResponses(result.priceRanges()))
+        .inStockCount(result.inStockCount())
+        .onSaleCount(result.onSaleCount())
+        .build();
+  }
+
+  /**
+   * Suggest categories and products as the user types, served from memory only
+   * 
+   * @param keyword the text typed so far
+   * @param limit   the maximum number of categories and of products
+   * @return the matching categories, then the matching products, most popular
+   *         first
+   */
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public List<SuggestionResponse> suggest(String keyword, int limit) {
+    List<SuggestionResponse> suggestions = new ArrayList<>();
+    productSuggestIndex.suggestCategories(keyword, limit)
+        .forEach(suggestion -> suggestions.add(toSuggestionResponse(SuggestionType.CATEGORY, suggestion)));
+    productSuggestIndex.suggestProducts(keyword, limit)
+        .forEach(suggestion -> suggestions.add(toSuggestionResponse(SuggestionType.PRODUCT, suggestion)));
+    return suggestions;
   }
 
   // ==================== Admin Methods ====================
@@ -197,7 +340,7 @@ public class ProductServiceImpl implements ProductService {
    */
   @Override
   @Transactional(readOnly = true)
-  @Cacheable(value = "products", key = "#pageable.pageNumber + '_' + #pageable.pageSize")
+  @Cacheable(value = "products", key = "#pageable.pageNumber + '_' + #pageable.pageSize", sync = true)
   public Page<ProductResponse> getAllProducts(Pageable pageable) {
     log.info("Fetching all products for page {} with size {}", pageable.getPageNumber(),
         pageable.getPageSize());
@@ -211,12 +354,7 @@ public class ProductServiceImpl implements ProductService {
    * @return the created product
    */
   @Override
-  @Caching(evict = {
-      @CacheEvict(value = "products", allEntries = true),
-      @CacheEvict(value = "activeProducts", allEntries = true),
-      @CacheEvict(value = "featuredProducts", condition = "#productRequest.featured"),
-      @CacheEvict(value = "productsByCategory", allEntries = true),
-  })
+  @CacheEvict(value = "featuredProducts", condition = "#productRequest.featured")
   public ProductResponse createProduct(ProductRequest productRequest) {
     log.info("Creating new product: {}", productRequest);
     // 1. Check if the category exists
@@ -232,9 +370,15 @@ public class ProductServiceImpl implements ProductService {
     // 3. Save the product
     product = productRepo.save(product);
 
-    // 4. Refresh the product cache
+    // 4. Evict the listings the new product shows up in
+    productCacheInvalidator.onProductCreated(category.getId());
+
+    // 5. Refresh the product cache
     refreshProductCache(product.getSlug());
 
+    // 6. Index the product once the transaction commits
+    eventPublisher.publishEvent(ProductChangedEvent.upserted(ProductDocument.from(product)));
+
     return productMapper.toProductResponse(product);
   }
 
@@ -249,16 +393,14 @@ public class ProductServiceImpl implements ProductService {
   @Caching(put = {
       @CachePut(value = "productDetails", key = "#result.slug")
   }, evict = {
-      @CacheEvict(value = "products", allEntries = true),
-      @CacheEvict(value = "activeProducts", allEntries = true),
       @CacheEvict(value = "featuredProducts", condition = "#productRequest.featured"),
-      @CacheEvict(value = "productsByCategory", allEntries = true),
   })
   public ProductResponse updateProduct(Long id, ProductRequest productRequest) {
     log.info("Updating product with ID {} to {}", id, productRequest);
     // 1. Check if the product exists
     Product product = productRepo.findByIdForUpdate(id)
         .orElseThrow(() -> ResourceNotFoundException.create(ResourceName.PRODUCT, "id", id));
+    Long oldCategoryId = product.getCategory().getId();
 
     // 2. Update the product
     productMapper.updateProductFromRequest(productRequest, product);
@@ -281,6 +423,19 @@ public class ProductServiceImpl implements ProductService {
     product = productRepo.save(product);
     log.info("Updated product: {}", product);
 
+    // 5. Evict only the cached pages affected by the update
+    productCacheInvalidator.onProductUpdated(product.getId(), oldCategoryId, product.getCategory().getId());
+
+    // 6. Reindex the product once the transaction commits, an inactive product
+    // must not be sold from its hot stock either: it is frozen now and made
+    // cold after the commit
+    if (product.getStatus() == ProductStatus.ACTIVE) {
+      eventPublisher.publishEvent(ProductChangedEvent.upserted(ProductDocument.from(product)));
+    } else {
+      inventoryService.unmarkHot(product.getId());
+      eventPublisher.publishEvent(ProductChangedEvent.removed(product.getId()));
+    }
+
     return productMapper.toProductResponse(product);
   }
 
@@ -291,11 +446,7 @@ public class ProductServiceImpl implements ProductService {
    */
   @Override
   @Caching(evict = {
-      @CacheEvict(value = "products", allEntries = true),
-      @CacheEvict(value = "activeProducts", allEntries = true),
       @CacheEvict(value = "featuredProducts", allEntries = true),
-      @CacheEvict(value = "productsByCategory", allEntries = true),
-      @CacheEvict(value = "productDetails", key = "#productRepo.findById(id).get().slug"),
       @CacheEvict(value = "relatedProducts", allEntries = true),
   })
   public void deleteProduct(Long id) {
@@ -307,8 +458,15 @@ public class ProductServiceImpl implements ProductService {
     // 2. Set the status to deleted
     product.setStatus(ProductStatus.DELETED);
 
-    // 3. Save the product
+    // 3. Save the product and freeze its hot stock, made cold after the commit
     productRepo.save(product);
+    inventoryService.unmarkHot(product.getId());
+
+    // 4. Evict its details, the pages containing it and the pages after them
+    productCacheInvalidator.onProductDeleted(product.getId(), product.getSlug(), product.getCategory().getId());
+
+    // 5. Remove it from the search index once the transaction commits
+    eventPublisher.publishEvent(ProductChangedEvent.removed(product.getId()));
   }
 
   /**
@@ -338,6 +496,123 @@ public class ProductServiceImpl implements ProductService {
     log.info("Clearing product caches");
   }
 
+  /**
+   * Rebuild the search index from the database
+   * 
+   * @return the number of products indexed
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public int rebuildSearchIndex() {
+    log.info("Rebuilding the search index");
+    return productIndexSynchronizer.rebuild();
+  }
+
+  private SuggestionResponse toSuggestionResponse(SuggestionType type, Suggestion suggestion) {
+    return SuggestionResponse.builder()
+        .type(type)
+        .id(suggestion.id())
+        .name(suggestion.text())
+        .slug(suggestion.slug())
+        .build();
+  }
+
+  /**
+   * Sort search hits, load the requested page of them and keep their order
+   * 
+   * @param hits     the search hits, best match first
+   * @param pageable the pageable object
+   * @return the page of products
+   */
+  private Page<ProductResponse> toPage(List<ProductDocument> hits, Pageable pageable) {
+    // 1. Sort the hits, they stay in relevance order for "relevance" or ties
+    Comparator<ProductDocument> comparator = comparatorFor(pageable.getSort());
+    if (comparator != null) {
+      hits = hits.stream().sorted(comparator).toList();
+    }
+
+    // 2. Slice the requested page
+    int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), hits.size()) : 0;
+    int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), hits.size()) : hits.size();
+    List<Long> ids = hits.subList(from, to).stream().map(ProductDocument::id).toList();
+
+    // 3. Load the products of the page, in the order of the hits
+    Map<Long, Product> products = productRepo.findAllById(ids).stream()
+        .collect(Collectors.toMap(Product::getId, Function.identity()));
+    List<ProductResponse> content = ids.stream()
+        .map(products::get)
+        .filter(Objects::nonNull)
+        .map(productMapper::toProductResponse)
+        .toList();
+
+    return new PageImpl<>(content, pageable, hits.size());
+  }
+
+  /**
+   * Build the comparator matching a sort, ignoring unknown properties
+   * 
+   * @param sort the sort
+   * @return the comparator, or null to keep the relevance order
+   */
+  private Comparator<ProductDocument> comparatorFor(Sort sort) {
+    Comparator<ProductDocument> comparator = null;
+    for (Sort.Order order : sort) {
+      Comparator<ProductDocument> next = switch (order.getProperty()) {
+        case "createdAt" -> Comparator.comparing(ProductDocument::createdAt,
+            Comparator.nullsLast(Comparator.naturalOrder()));
+        case "price" -> Comparator.comparing(ProductDocument::price);
+        case "name" -> Comparator.comparing(ProductDocument::name, String.CASE_INSENSITIVE_ORDER);
+        default -> null;
+      };
+      if (next == null) {
+        continue;
+      }
+      next = order.isDescending() ? next.reversed() : next;
+      comparator = comparator == null ? next : comparator.thenComparing(next);
+    }
+    return comparator;
+  }
+
+  /**
+   * Replace a relevance sort, which only the search index knows, by newest
+   * first
+   * 
+   * @param pageable the pageable object
+   * @return the pageable object the database can run
+   */
+  private Pageable withoutRelevance(Pageable pageable) {
+    if (pageable.getSort().getOrderFor(ProductSearchIndex.RELEVANCE) == null) {
+      return pageable;
+    }
+    return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(Sort.Direction.DESC, "createdAt"));
+  }
+
+  /**
+   * Build the in-memory equivalent of {@link #buildSpecification}, without the
+   * keyword
+   * 
+   * @param searchCriteria the search criteria
+   * @return the filter
+   */
+  private ProductFilter toProductFilter(ProductSearchCriteria searchCriteria) {
+    return new ProductFilter(
+        searchCriteria.getCategoryId(),
+        searchCriteria.getMinPrice(),
+        searchCriteria.getMaxPrice(),
+        Boolean.TRUE.equals(searchCriteria.getInStock()),
+        Boolean.TRUE.equals(searchCriteria.getOnSale()));
+  }
+
+  private List<FacetCountResponse> toFacetCountResponses(List<FacetCount> facetCounts) {
+    return facetCounts.stream()
+        .map(facetCount -> FacetCountResponse.builder()
+            .value(facetCount.value())
+            .label(facetCount.label())
+            .count(facetCount.count())
+            .build())
+        .toList();
+  }
+
   /**
    * Build the specification for filtering products
    * 
@@ -18,6 +18,8 @@ public interface UserService {
 
   void updateUserPassword(Long id, String newPassword);
 
+  void revokeAllTokens(Long id);
+
   void deleteUser(Long id);
 
   boolean isEmailExists(String email);
@@ -0,0 +1,11 @@
+package com.shintadev.shop_dev_be.service.user;
+
+/**
+ * Published when the status version of a user is incremented, handled once
+ * the transaction commits
+ *
+ * @param userId        the id of the user
+ * @param statusVersion the new status version
+ */
+public record UserStatusChangedEvent(Long userId, long statusVersion) {
+}
@@ -3,8 +3,10 @@ package com.shintadev.shop_dev_be.service.user.impl;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.shintadev.shop_dev_be.domain.dto.mapper.UserMapper;
@@ -17,6 +19,7 @@ import com.shintadev.shop_dev_be.exception.ResourceNotFoundException;
 import com.shintadev.shop_dev_be.repository.user.RoleRepo;
 import com.shintadev.shop_dev_be.repository.user.UserRepo;
 import com.shintadev.shop_dev_be.service.user.UserService;
+import com.shintadev.shop_dev_be.service.user.UserStatusChangedEvent;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +37,7 @@ public class UserServiceImpl implements UserService {
   private final UserMapper userMapper;
   private final PasswordEncoder passwordEncoder;
   private final RoleRepo roleRepo;
+  private final ApplicationEventPublisher eventPublisher;
 
   /**
    * Gets a user by their ID
@@ -123,6 +127,7 @@ public class UserServiceImpl implements UserService {
       return userMapper.toUserResponse(user);
     }
     user.setStatus(status);
+    revokeTokens(user);
     return userMapper.toUserResponse(userRepo.save(user));
   }
 
@@ -137,6 +142,22 @@ public class UserServiceImpl implements UserService {
     User user = userRepo.findByIdForUpdate(id)
         .orElseThrow(() -> ResourceNotFoundException.create("User", "id", id));
     user.setPassword(passwordEncoder.encode(newPassword));
+    revokeTokens(user);
+    userRepo.save(user);
+  }
+
+  /**
+   * Stops accepting every token issued to a user so far, in a transaction of
+   * its own so that it holds even if the caller fails
+   * 
+   * @param id the ID of the user
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  @Override
+  public void revokeAllTokens(Long id) {
+    User user = userRepo.findByIdForUpdate(id)
+        .orElseThrow(() -> ResourceNotFoundException.create("User", "id", id));
+    revokeTokens(user);
     userRepo.save(user);
   }
 
@@ -163,4 +184,14 @@ public class UserServiceImpl implements UserService {
     return userRepo.existsByEmail(email);
   }
 
+  /**
+   * Stop accepting the tokens issued to a user so far, the user must have
+   * been read for update
+   * 
+   * @param user the user
+   */
+  private void revokeTokens(User user) {
+    user.setStatusVersion(user.getStatusVersion() + 1);
+    eventPublisher.publishEvent(new UserStatusChangedEvent(user.getId(), user.getStatusVersion()));
+  }
 }
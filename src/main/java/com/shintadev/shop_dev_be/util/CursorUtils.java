@@ -0,0 +1,125 @@
+package com.shintadev.shop_dev_be.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.StringUtils;
+
+import com.shintadev.shop_dev_be.domain.dto.response.CursorPageResponse;
+import com.shintadev.shop_dev_be.exception.BadRequestException;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Utility class for keyset pagination over (timestamp, id), newest first
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CursorUtils {
+
+  public static final int MAX_PAGE_SIZE = 100;
+
+  private static final String SEPARATOR = ",";
+
+  /**
+   * Position after which the next page starts
+   *
+   * @param timestamp the timestamp of the last item returned
+   * @param id        the id of the last item returned
+   */
+  public record Cursor(LocalDateTime timestamp, Long id) {
+  }
+
+  /**
+   * Encode a cursor into an opaque string
+   *
+   * @param timestamp the timestamp of the last item returned
+   * @param id        the id of the last item returned
+   * @return the encoded cursor
+   */
+  public static String encode(LocalDateTime timestamp, Long id) {
+    String raw = timestamp + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a cursor
+   *
+   * @param cursor the encoded cursor, null or blank for the first page
+   * @return the cursor, or null for the first page
+   * @throws BadRequestException if the cursor is malformed
+   */
+  public static Cursor decode(String cursor) {
+    if (!StringUtils.hasText(cursor)) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = raw.lastIndexOf(SEPARATOR);
+      return new Cursor(
+          LocalDateTime.parse(raw.substring(0, separator)),
+          Long.valueOf(raw.substring(separator + 1)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+      throw new BadRequestException("Invalid cursor", e);
+    }
+  }
+
+  /**
+   * Build the pageable fetching one item more than the page size, to tell if
+   * there is a next page without counting
+   *
+   * @param size the requested page size
+   * @return the pageable
+   */
+  public static Pageable limitOf(int size) {
+    return Pageable.ofSize(clamp(size) + 1);
+  }
+
+  /**
+   * Build a page from the rows fetched with {@link #limitOf(int)}
+   *
+   * @param rows      the rows
+   * @param size      the requested page size
+   * @param timestamp the timestamp of a row
+   * @param id        the id of a row
+   * @param mapper    the mapper from row to item
+   * @param total     the total count, or null to skip counting
+   * @param <E>       the row type
+   * @param <R>       the item type
+   * @return the page
+   */
+  public static <E, R> CursorPageResponse<R> toPage(
+      List<E> rows,
+      int size,
+      Function<E, LocalDateTime> timestamp,
+      Function<E, Long> id,
+      Function<E, R> mapper,
+      Supplier<Long> total) {
+    int pageSize = clamp(size);
+    boolean hasNext = rows.size() > pageSize;
+    List<E> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+    String nextCursor = null;
+    if (hasNext) {
+      E last = page.get(page.size() - 1);
+      nextCursor = encode(timestamp.apply(last), id.apply(last));
+    }
+
+    return CursorPageResponse.<R>builder()
+        .content(page.stream().map(mapper).toList())
+        .nextCursor(nextCursor)
+        .hasNext(hasNext)
+        .totalElements(total != null ? total.get() : null)
+        .build();
+  }
+
+  private static int clamp(int size) {
+    return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+  }
+}
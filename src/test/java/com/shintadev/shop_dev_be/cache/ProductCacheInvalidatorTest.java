@@ -0,0 +1,82 @@
+package com.shintadev.shop_dev_be.cache;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.shintadev.shop_dev_be.cache.CacheTagRegistry.CacheEntry;
+import com.shintadev.shop_dev_be.domain.dto.response.product.ProductResponse;
+
+class ProductCacheInvalidatorTest {
+
+  private CacheTagRegistry cacheTagRegistry;
+  private ProductCacheInvalidator productCacheInvalidator;
+
+  @BeforeEach
+  void setUp() {
+    cacheTagRegistry = mock(CacheTagRegistry.class);
+    productCacheInvalidator = new ProductCacheInvalidator(cacheTagRegistry, mock(TwoLevelCacheManager.class));
+  }
+
+  @Test
+  void afterPutTagsThePageWithItsProductsAndListing() {
+    when(cacheTagRegistry.generation()).thenReturn(3L);
+
+    productCacheInvalidator.afterPut(ProductCacheInvalidator.ACTIVE_PRODUCTS, "0_2", page(1L, 2L), 3L);
+
+    verify(cacheTagRegistry).tag(ProductCacheInvalidator.ACTIVE_PRODUCTS, "0_2",
+        List.of("product:1", "product:2", "listing:activeProducts"));
+    verify(cacheTagRegistry, never()).evict(any());
+  }
+
+  @Test
+  void afterPutTagsACategoryPageWithItsCategory() {
+    when(cacheTagRegistry.generation()).thenReturn(3L);
+
+    productCacheInvalidator.afterPut(ProductCacheInvalidator.PRODUCTS_BY_CATEGORY, "7_0_2", page(1L), 3L);
+
+    verify(cacheTagRegistry).tag(ProductCacheInvalidator.PRODUCTS_BY_CATEGORY, "7_0_2",
+        List.of("product:1", "category:7"));
+  }
+
+  @Test
+  void afterPutEvictsAPageLoadedWhileAnInvalidationRan() {
+    when(cacheTagRegistry.generation()).thenReturn(4L);
+
+    productCacheInvalidator.afterPut(ProductCacheInvalidator.ACTIVE_PRODUCTS, "0_2", page(1L), 3L);
+
+    // Tagged first, so an invalidation after the check evicts it instead
+    InOrder inOrder = inOrder(cacheTagRegistry);
+    inOrder.verify(cacheTagRegistry).tag(any(), any(), any());
+    inOrder.verify(cacheTagRegistry).generation();
+    inOrder.verify(cacheTagRegistry).evict(new CacheEntry(ProductCacheInvalidator.ACTIVE_PRODUCTS, "0_2"));
+  }
+
+  @Test
+  void afterPutEvictsAPageWhoseLoadGenerationIsUnknown() {
+    when(cacheTagRegistry.generation()).thenReturn(4L);
+
+    productCacheInvalidator.afterPut(ProductCacheInvalidator.PRODUCTS, "0_2", page(1L), -1L);
+
+    verify(cacheTagRegistry).evict(new CacheEntry(ProductCacheInvalidator.PRODUCTS, "0_2"));
+  }
+
+  private static PageImpl<ProductResponse> page(Long... ids) {
+    List<ProductResponse> products = Arrays.stream(ids)
+        .map(id -> ProductResponse.builder().id(id).build())
+        .toList();
+    return new PageImpl<>(products, PageRequest.of(0, 2), products.size());
+  }
+}
@@ -0,0 +1,90 @@
+package com.shintadev.shop_dev_be.inventory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+  private static final long TICK = 100;
+  private static final int SLOTS = 8;
+  private static final long START = 1_000_000;
+
+  private TimingWheel wheel;
+
+  @BeforeEach
+  void setUp() {
+    wheel = new TimingWheel(TICK, SLOTS, START);
+  }
+
+  @Test
+  void advanceExpiresIdsOnceTheirTickIsReached() {
+    // Rounded up to the tick at 300
+    wheel.schedule(1L, START + 250);
+
+    assertThat(wheel.advance(START + 299)).isEmpty();
+    assertThat(wheel.advance(START + 300)).containsExactly(1L);
+    assertThat(wheel.advance(START + 400)).isEmpty();
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void advanceKeepsIdsDueOnALaterTurnOfTheirSlot() {
+    // Tick 10 shares slot 2 with tick 2
+    wheel.schedule(1L, START + 1_000);
+    wheel.schedule(2L, START + 200);
+
+    assertThat(wheel.advance(START + 250)).containsExactly(2L);
+    assertThat(wheel.advance(START + 900)).isEmpty();
+    assertThat(wheel.advance(START + 1_000)).containsExactly(1L);
+  }
+
+  @Test
+  void advanceOverSeveralTurnsVisitsEverySlot() {
+    wheel.schedule(1L, START + 300);
+    wheel.schedule(2L, START + 5_000);
+    wheel.schedule(3L, START + 20_000);
+
+    assertThat(wheel.advance(START + 10_000)).containsExactlyInAnyOrder(1L, 2L);
+    assertThat(wheel.size()).isEqualTo(1);
+    assertThat(wheel.advance(START + 20_000)).containsExactly(3L);
+  }
+
+  @Test
+  void schedulePastDeadlinesOnTheNextTick() {
+    wheel.advance(START + 500);
+    wheel.schedule(1L, START);
+
+    assertThat(wheel.advance(START + 599)).isEmpty();
+    assertThat(wheel.advance(START + 600)).containsExactly(1L);
+  }
+
+  @Test
+  void scheduleReplacesThePreviousDeadline() {
+    wheel.schedule(1L, START + 200);
+    wheel.schedule(1L, START + 700);
+
+    assertThat(wheel.size()).isEqualTo(1);
+    assertThat(wheel.advance(START + 600)).isEmpty();
+    assertThat(wheel.advance(START + 700)).containsExactly(1L);
+  }
+
+  @Test
+  void cancelRemovesTheId() {
+    wheel.schedule(1L, START + 200);
+    wheel.schedule(2L, START + 200);
+
+    assertThat(wheel.cancel(1L)).isTrue();
+    assertThat(wheel.cancel(1L)).isFalse();
+    assertThat(wheel.cancel(3L)).isFalse();
+    assertThat(wheel.advance(START + 200)).containsExactly(2L);
+  }
+
+  @Test
+  void constructorRejectsAnEmptyWheel() {
+    assertThatThrownBy(() -> new TimingWheel(0, SLOTS, START)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new TimingWheel(TICK, 0, START)).isInstanceOf(IllegalArgumentException.class);
+  }
+}
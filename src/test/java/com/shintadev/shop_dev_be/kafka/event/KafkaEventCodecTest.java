@@ -0,0 +1,98 @@
+package com.shintadev.shop_dev_be.kafka.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+class KafkaEventCodecTest {
+
+  private final KafkaEventCodec codec = new KafkaEventCodec();
+
+  @Test
+  void decodeReturnsEveryEncodedEventType() {
+    List<Object> events = List.of(
+        EmailNotificationEvent.builder()
+            .type("VERIFICATION")
+            .recipientEmail("jane@example.com")
+            .recipientName("Jane")
+            .subject("Verify your email")
+            .verificationLink("https://example.com/verify?token=abc")
+            .attempts(2)
+            .retryAt(1_700_000_000_000L)
+            .build(),
+        new PaymentProcessingEvent(42L, "TXN-1"),
+        new InventoryAdjustmentEvent("6f1c0e1e-5d7a-4c55-9d36-0f0c3b1b7f43", 7L, -3),
+        OrderNotificationEvent.builder()
+            .type("ORDER_CONFIRMATION")
+            .userId(9L)
+            .recipientEmail("jane@example.com")
+            .recipientName("Jane")
+            .order(new OrderSnapshot(42L, "ORD-42", "PAID", "10.00", "1.00", "0.50", "11.50",
+                List.of(new OrderSnapshot.Item("Shirt", 2, "10.00"))))
+            .occurredAt(1_700_000_000_000L)
+            .build());
+
+    for (Object event : events) {
+      assertThat(codec.decode(codec.encode(event))).isEqualTo(event);
+    }
+  }
+
+  @Test
+  void encodeStartsWithTheMagicByteAndTheSchemaId() {
+    byte[] data = codec.encode(new PaymentProcessingEvent(42L, "TXN-1"));
+
+    assertThat(data[0]).isZero();
+    assertThat(data[1]).isEqualTo((byte) 1);
+  }
+
+  @Test
+  void encodeRejectsUnknownTypes() {
+    assertThatThrownBy(() -> codec.encode("not an event")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void decodeRejectsABadMagicByte() {
+    byte[] data = codec.encode(new PaymentProcessingEvent(42L, "TXN-1"));
+    data[0] = 1;
+
+    assertThatThrownBy(() -> codec.decode(data))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Not an encoded Kafka event");
+  }
+
+  @Test
+  void decodeRejectsDataShorterThanTheHeader() {
+    assertThatThrownBy(() -> codec.decode(new byte[] { 0 })).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void decodeRejectsAnUnknownSchemaId() {
+    byte[] data = codec.encode(new PaymentProcessingEvent(42L, "TXN-1"));
+    data[1] = (byte) 200;
+
+    assertThatThrownBy(() -> codec.decode(data))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("200");
+  }
+
+  @Test
+  void decodeRejectsATruncatedBody() {
+    byte[] data = codec.encode(new PaymentProcessingEvent(42L, "TXN-1"));
+
+    assertThatThrownBy(() -> codec.decode(Arrays.copyOf(data, data.length - 3))).isInstanceOf(RuntimeException.class);
+  }
+
+  @Test
+  void deserializerWrapsDecodingFailures() {
+    try (KafkaEventDeserializer deserializer = new KafkaEventDeserializer(codec)) {
+      assertThat(deserializer.deserialize("payment-processing", null)).isNull();
+      assertThatThrownBy(() -> deserializer.deserialize("payment-processing", new byte[] { 1, 1 }))
+          .isInstanceOf(SerializationException.class);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.shintadev.shop_dev_be.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductFacetIndexTest {
+
+  private static final ProductFilter NO_FILTER = new ProductFilter(null, null, null, false, false);
+
+  private ProductFacetIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new ProductFacetIndex(new BigDecimal[] { new BigDecimal("100"), new BigDecimal("50") });
+    index.rebuild(List.of(
+        document(1L, 1L, "Shirts", "30", "20", 5),
+        document(2L, 1L, "Shirts", "80", null, 0),
+        document(3L, 2L, "Shoes", "120", null, 3),
+        document(4L, 2L, "Shoes", "60", "50", 2),
+        document(5L, 1L, "Shirts", "150", null, 1)));
+  }
+
+  @Test
+  void filterIntersectsEveryCondition() {
+    FacetResult result = index.filter(null, new ProductFilter(1L, null, null, true, false));
+
+    assertThat(ids(result)).containsExactlyInAnyOrder(1L, 5L);
+  }
+
+  @Test
+  void filterCountsEachFacetWithoutItsOwnCondition() {
+    FacetResult result = index.filter(null, new ProductFilter(1L, null, null, true, false));
+
+    // Every category of the products in stock, not only the selected one
+    assertThat(result.categories()).containsExactly(
+        new FacetCount("1", "Shirts", 2),
+        new FacetCount("2", "Shoes", 2));
+    assertThat(result.priceRanges()).containsExactly(
+        new FacetCount("0-50", "0-50", 1),
+        new FacetCount("50-100", "50-100", 0),
+        new FacetCount("100+", "100+", 1));
+    // The shirts whether in stock or not
+    assertThat(result.inStockCount()).isEqualTo(2);
+    assertThat(result.onSaleCount()).isEqualTo(1);
+  }
+
+  @Test
+  void filterCountsPriceRangesWithoutThePriceCondition() {
+    FacetResult result = index.filter(null, new ProductFilter(null, new BigDecimal("50"), new BigDecimal("100"),
+        false, false));
+
+    assertThat(ids(result)).containsExactlyInAnyOrder(2L, 4L);
+    assertThat(result.priceRanges()).extracting(FacetCount::count).containsExactly(1L, 2L, 2L);
+    assertThat(result.categories()).extracting(FacetCount::count).containsExactly(1L, 1L);
+    assertThat(result.inStockCount()).isEqualTo(1);
+    assertThat(result.onSaleCount()).isEqualTo(1);
+  }
+
+  @Test
+  void filterRestrictsToTheCandidates() {
+    FacetResult result = index.filter(List.of(1L, 3L, 42L), NO_FILTER);
+
+    assertThat(ids(result)).containsExactlyInAnyOrder(1L, 3L);
+    assertThat(result.categories()).extracting(FacetCount::count).containsExactly(1L, 1L);
+  }
+
+  @Test
+  void updateStockMovesTheProductInAndOutOfStock() {
+    ProductFilter inStock = new ProductFilter(null, null, null, true, false);
+
+    assertThat(index.updateStock(2L, 3)).isTrue();
+    assertThat(index.updateStock(2L, 4)).isFalse();
+    assertThat(ids(index.filter(null, inStock))).contains(2L);
+
+    assertThat(index.updateStock(5L, 0)).isTrue();
+    assertThat(ids(index.filter(null, inStock))).doesNotContain(5L);
+    assertThat(index.updateStock(42L, 1)).isFalse();
+  }
+
+  @Test
+  void removeDropsTheProductFromEveryFacet() {
+    index.remove(3L);
+    index.remove(4L);
+
+    FacetResult result = index.filter(null, NO_FILTER);
+    assertThat(ids(result)).containsExactlyInAnyOrder(1L, 2L, 5L);
+    assertThat(result.categories()).containsExactly(new FacetCount("1", "Shirts", 3));
+    assertThat(result.inStockCount()).isEqualTo(2);
+    assertThat(result.onSaleCount()).isEqualTo(1);
+  }
+
+  @Test
+  void upsertReusesTheOrdinalsOfRemovedProducts() {
+    index.remove(1L);
+    index.upsert(document(6L, 3L, "Hats", "10", null, 1));
+
+    FacetResult result = index.filter(null, new ProductFilter(3L, null, null, false, false));
+    assertThat(ids(result)).containsExactly(6L);
+  }
+
+  private static List<Long> ids(FacetResult result) {
+    return result.documents().stream().map(ProductDocument::id).toList();
+  }
+
+  private static ProductDocument document(Long id, Long categoryId, String categoryName, String price,
+      String discountPrice, int stock) {
+    return new ProductDocument(id, "Product " + id, "product-" + id, null, categoryId, categoryName,
+        categoryName.toLowerCase(), new BigDecimal(price), discountPrice != null ? new BigDecimal(discountPrice) : null,
+        stock, false, LocalDateTime.of(2024, 1, 1, 0, 0));
+  }
+}
@@ -0,0 +1,91 @@
+package com.shintadev.shop_dev_be.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProductSearchIndexTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+  private ProductSearchIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new ProductSearchIndex();
+    index.rebuild(List.of(
+        document(1L, "Áo thun nam", "Cotton t-shirt", NOW),
+        document(2L, "Quần jean", "Goes well with an áo thun", NOW.plusDays(1)),
+        document(3L, "Áo khoác", "Warm jacket", NOW.plusDays(2)),
+        document(4L, "Giày thể thao", "Running shoes", NOW.plusDays(3))));
+  }
+
+  @Test
+  void isReadyOnceRebuilt() {
+    assertThat(new ProductSearchIndex().isReady()).isFalse();
+    assertThat(index.isReady()).isTrue();
+  }
+
+  @Test
+  void searchRanksNameMatchesAboveDescriptionMatches() {
+    assertThat(ids(index.search("ao thun", document -> true))).containsExactly(1L, 2L);
+  }
+
+  @Test
+  void searchRequiresEveryTerm() {
+    assertThat(ids(index.search("ao jacket", document -> true))).containsExactly(3L);
+    assertThat(ids(index.search("ao shoes", document -> true))).isEmpty();
+  }
+
+  @Test
+  void searchMatchesPrefixesBelowExactTerms() {
+    index.upsert(document(5L, "Thunder", "Speaker", NOW.plusDays(4)));
+
+    // Both in the name, "thun" matches itself exactly and "thunder" by prefix
+    assertThat(ids(index.search("thun", document -> true)))
+        .containsExactlyInAnyOrder(1L, 2L, 5L)
+        .containsSubsequence(1L, 5L);
+  }
+
+  @Test
+  void searchBreaksTiesNewestFirst() {
+    index.upsert(document(5L, "Áo khoác", "Warm jacket", NOW.plusDays(5)));
+
+    assertThat(ids(index.search("khoac", document -> true))).containsExactly(5L, 3L);
+  }
+
+  @Test
+  void searchAppliesTheFilter() {
+    assertThat(ids(index.search("ao", document -> document.id() != 1L))).containsExactly(3L, 2L);
+  }
+
+  @Test
+  void removeDropsTheProductFromEveryTerm() {
+    index.remove(1L);
+
+    assertThat(ids(index.search("ao thun", document -> true))).containsExactly(2L);
+    assertThat(ids(index.search("cotton", document -> true))).isEmpty();
+  }
+
+  @Test
+  void upsertReplacesTheTermsOfTheProduct() {
+    index.upsert(document(4L, "Dép", "Sandals", NOW.plusDays(3)));
+
+    assertThat(ids(index.search("giay", document -> true))).isEmpty();
+    assertThat(ids(index.search("dep", document -> true))).containsExactly(4L);
+  }
+
+  private static List<Long> ids(List<ProductDocument> documents) {
+    return documents.stream().map(ProductDocument::id).toList();
+  }
+
+  private static ProductDocument document(Long id, String name, String description, LocalDateTime createdAt) {
+    return new ProductDocument(id, name, "product-" + id, description, 1L, "Category", "category",
+        BigDecimal.TEN, null, 1, false, createdAt);
+  }
+}
@@ -0,0 +1,86 @@
+package com.shintadev.shop_dev_be.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SuggestTrieTest {
+
+  private SuggestTrie trie;
+
+  @BeforeEach
+  void setUp() {
+    trie = new SuggestTrie(2);
+    trie.put(suggestion(1L, "Blue Shirt", 10));
+    trie.put(suggestion(2L, "Shirt", 30));
+    trie.put(suggestion(3L, "Shoes", 20));
+  }
+
+  @Test
+  void lookupReturnsTheMostPopularFirst() {
+    assertThat(ids(trie.lookup("sh", 10))).containsExactly(2L, 3L);
+    assertThat(ids(trie.lookup("sh", 1))).containsExactly(2L);
+  }
+
+  @Test
+  void lookupFindsEntriesFromTheStartOfEveryWord() {
+    assertThat(ids(trie.lookup("shirt", 10))).containsExactly(2L, 1L);
+    assertThat(ids(trie.lookup("blue s", 10))).containsExactly(1L);
+    assertThat(trie.lookup("irt", 10)).isEmpty();
+  }
+
+  @Test
+  void lookupReturnsNothingForAnEmptyOrUnknownPrefix() {
+    assertThat(trie.lookup("", 10)).isEmpty();
+    assertThat(trie.lookup("hat", 10)).isEmpty();
+  }
+
+  @Test
+  void putReplacesAnEntry() {
+    trie.put(suggestion(1L, "Blue Shirt", 40));
+
+    assertThat(ids(trie.lookup("sh", 10))).containsExactly(1L, 2L);
+    assertThat(trie.get(1L).score()).isEqualTo(40);
+  }
+
+  @Test
+  void removeBringsBackEntriesBelowTheTop() {
+    // Blue Shirt is third under "sh", past the two kept per node
+    trie.remove(2L);
+
+    assertThat(ids(trie.lookup("sh", 10))).containsExactly(3L, 1L);
+    assertThat(trie.get(2L)).isNull();
+  }
+
+  @Test
+  void removePrunesTheNodesLeftEmpty() {
+    trie.remove(3L);
+
+    assertThat(trie.lookup("sho", 10)).isEmpty();
+    assertThat(ids(trie.lookup("sh", 10))).containsExactly(2L, 1L);
+
+    trie.remove(1L);
+    trie.remove(2L);
+    assertThat(trie.lookup("s", 10)).isEmpty();
+    assertThat(trie.lookup("b", 10)).isEmpty();
+  }
+
+  @Test
+  void clearRemovesEveryEntry() {
+    trie.clear();
+
+    assertThat(trie.lookup("s", 10)).isEmpty();
+    assertThat(trie.get(1L)).isNull();
+  }
+
+  private static List<Long> ids(List<Suggestion> suggestions) {
+    return suggestions.stream().map(Suggestion::id).toList();
+  }
+
+  private static Suggestion suggestion(Long id, String text, long score) {
+    return new Suggestion(id, text, "slug-" + id, score);
+  }
+}
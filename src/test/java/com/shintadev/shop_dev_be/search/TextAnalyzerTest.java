@@ -0,0 +1,42 @@
+package com.shintadev.shop_dev_be.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TextAnalyzerTest {
+
+  @Test
+  void normalizeRemovesAccentsAndLowerCases() {
+    assertThat(TextAnalyzer.normalize("Áo Sơ Mi Nữ")).isEqualTo("ao so mi nu");
+    assertThat(TextAnalyzer.normalize("Café Crème")).isEqualTo("cafe creme");
+  }
+
+  @Test
+  void normalizeFoldsDStroke() {
+    // đ is a letter of its own, not d with a combining mark
+    assertThat(TextAnalyzer.normalize("Đồng hồ đeo tay")).isEqualTo("dong ho deo tay");
+  }
+
+  @Test
+  void normalizeReturnsEmptyForNull() {
+    assertThat(TextAnalyzer.normalize(null)).isEmpty();
+  }
+
+  @Test
+  void tokenizeSplitsOnAnythingButLettersAndDigits() {
+    assertThat(TextAnalyzer.tokenize("  T-shirt, size:XL/2XL -- 100% cotton!  "))
+        .containsExactly("t", "shirt", "size", "xl", "2xl", "100", "cotton");
+  }
+
+  @Test
+  void tokenizeKeepsRepeatedTermsInOrder() {
+    assertThat(TextAnalyzer.tokenize("Giày giày GIÀY")).containsExactly("giay", "giay", "giay");
+  }
+
+  @Test
+  void tokenizeReturnsNoTermsForBlankText() {
+    assertThat(TextAnalyzer.tokenize(" ,.- ")).isEmpty();
+    assertThat(TextAnalyzer.tokenize(null)).isEmpty();
+  }
+}
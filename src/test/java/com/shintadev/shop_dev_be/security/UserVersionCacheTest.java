@@ -0,0 +1,119 @@
+package com.shintadev.shop_dev_be.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.shintadev.shop_dev_be.repository.user.UserRepo;
+import com.shintadev.shop_dev_be.service.user.UserStatusChangedEvent;
+
+class UserVersionCacheTest {
+
+  private static final String CHANNEL = "security:user-version";
+
+  private UserRepo userRepo;
+  private StringRedisTemplate stringRedisTemplate;
+  private UserVersionCache userVersionCache;
+
+  @BeforeEach
+  void setUp() {
+    userRepo = mock(UserRepo.class);
+    stringRedisTemplate = mock(StringRedisTemplate.class);
+    userVersionCache = new UserVersionCache(userRepo, stringRedisTemplate, mock(RedisMessageListenerContainer.class),
+        CHANNEL, 100, 60_000);
+  }
+
+  @Test
+  void isCurrentReadsTheDatabaseOnceOnAMiss() {
+    when(userRepo.findStatusVersionById(1L)).thenReturn(Optional.of(2L));
+
+    assertThat(userVersionCache.isCurrent(1L, 2L)).isTrue();
+    assertThat(userVersionCache.isCurrent(1L, 2L)).isTrue();
+    assertThat(userVersionCache.isCurrent(1L, 1L)).isFalse();
+
+    verify(userRepo, times(1)).findStatusVersionById(1L);
+  }
+
+  @Test
+  void isCurrentReadsTheDatabaseForATokenNewerThanTheCache() {
+    when(userRepo.findStatusVersionById(1L)).thenReturn(Optional.of(2L)).thenReturn(Optional.of(3L));
+    userVersionCache.isCurrent(1L, 2L);
+
+    // Issued after a change whose broadcast was missed
+    assertThat(userVersionCache.isCurrent(1L, 3L)).isTrue();
+
+    verify(userRepo, times(2)).findStatusVersionById(1L);
+  }
+
+  @Test
+  void isCurrentRejectsTheTokensOfAMissingUser() {
+    when(userRepo.findStatusVersionById(1L)).thenReturn(Optional.empty());
+
+    assertThat(userVersionCache.isCurrent(1L, 0L)).isFalse();
+  }
+
+  @Test
+  void onUserStatusChangedRevokesOlderTokensAndBroadcasts() {
+    userVersionCache.onUserStatusChanged(new UserStatusChangedEvent(1L, 5L));
+
+    assertThat(userVersionCache.isCurrent(1L, 4L)).isFalse();
+    assertThat(userVersionCache.isCurrent(1L, 5L)).isTrue();
+    verify(userRepo, never()).findStatusVersionById(anyLong());
+    verify(stringRedisTemplate).convertAndSend(eq(CHANNEL), anyString());
+  }
+
+  @Test
+  void onUserStatusChangedSurvivesAFailedBroadcast() {
+    when(stringRedisTemplate.convertAndSend(eq(CHANNEL), anyString())).thenThrow(new IllegalStateException("down"));
+
+    userVersionCache.onUserStatusChanged(new UserStatusChangedEvent(1L, 5L));
+
+    assertThat(userVersionCache.isCurrent(1L, 4L)).isFalse();
+  }
+
+  @Test
+  void onMessageAppliesTheChangesOfOtherNodes() {
+    userVersionCache.onMessage(message("other-node|1|5"), null);
+
+    assertThat(userVersionCache.isCurrent(1L, 4L)).isFalse();
+    verify(userRepo, never()).findStatusVersionById(anyLong());
+  }
+
+  @Test
+  void onMessageNeverMovesAVersionBack() {
+    userVersionCache.onMessage(message("other-node|1|5"), null);
+    userVersionCache.onMessage(message("other-node|1|3"), null);
+
+    assertThat(userVersionCache.isCurrent(1L, 5L)).isTrue();
+    assertThat(userVersionCache.isCurrent(1L, 3L)).isFalse();
+  }
+
+  @Test
+  void onMessageIgnoresMalformedMessages() {
+    when(userRepo.findStatusVersionById(1L)).thenReturn(Optional.of(0L));
+
+    userVersionCache.onMessage(message("other-node|1|x"), null);
+    userVersionCache.onMessage(message("garbage"), null);
+
+    assertThat(userVersionCache.isCurrent(1L, 0L)).isTrue();
+  }
+
+  private static DefaultMessage message(String body) {
+    return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+  }
+}
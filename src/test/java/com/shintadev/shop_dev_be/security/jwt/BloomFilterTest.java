@@ -0,0 +1,97 @@
+package com.shintadev.shop_dev_be.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  private static final int INSERTIONS = 10_000;
+  private static final double FALSE_POSITIVE_RATE = 0.01;
+
+  @Test
+  void mightContainEveryIdAdded() {
+    BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+    List<String> ids = randomIds(INSERTIONS);
+    ids.forEach(filter::put);
+
+    assertThat(ids).allMatch(filter::mightContain);
+  }
+
+  @Test
+  void mightContainEveryIdAddedPastTheExpectedInsertions() {
+    BloomFilter filter = new BloomFilter(100, FALSE_POSITIVE_RATE);
+    List<String> ids = randomIds(INSERTIONS);
+    ids.forEach(filter::put);
+
+    assertThat(ids).allMatch(filter::mightContain);
+  }
+
+  @Test
+  void mightContainIdsThatAreNotUuids() {
+    BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      ids.add("token-" + i);
+    }
+    ids.add("");
+    ids.forEach(filter::put);
+
+    assertThat(ids).allMatch(filter::mightContain);
+  }
+
+  @Test
+  void mightContainEveryIdAddedConcurrently() throws Exception {
+    BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+    List<String> ids = randomIds(INSERTIONS);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        List<String> share = ids.subList(thread * INSERTIONS / 8, (thread + 1) * INSERTIONS / 8);
+        futures.add(executor.submit(() -> share.forEach(filter::put)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(ids).allMatch(filter::mightContain);
+  }
+
+  @Test
+  void mightContainFewIdsNeverAdded() {
+    BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+    randomIds(INSERTIONS).forEach(filter::put);
+
+    long falsePositives = randomIds(100_000).stream().filter(filter::mightContain).count();
+
+    // Well above the expected 1000, to keep the test stable
+    assertThat(falsePositives).isLessThan(2_000);
+  }
+
+  @Test
+  void mightContainNothingWhenEmpty() {
+    BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+
+    assertThat(randomIds(1_000)).noneMatch(filter::mightContain);
+  }
+
+  private static List<String> randomIds(int count) {
+    List<String> ids = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      ids.add(UUID.randomUUID().toString());
+    }
+    return ids;
+  }
+}
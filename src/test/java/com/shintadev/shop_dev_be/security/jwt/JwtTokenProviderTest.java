@@ -0,0 +1,116 @@
+package com.shintadev.shop_dev_be.security.jwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.shintadev.shop_dev_be.domain.model.entity.user.User;
+import com.shintadev.shop_dev_be.security.AuthenticatedUser;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+class JwtTokenProviderTest {
+
+  private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef";
+
+  private JwtTokenProvider jwtTokenProvider;
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    jwtTokenProvider = provider(SECRET, 60_000L);
+
+    user = mock(User.class);
+    doReturn(7L).when(user).getId();
+    doReturn("jane@example.com").when(user).getUsername();
+    doReturn(3L).when(user).getStatusVersion();
+    doReturn(List.of(new SimpleGrantedAuthority("ROLE_USER"))).when(user).getAuthorities();
+  }
+
+  @Test
+  void getClaimsFromTokenServesAVerifiedTokenFromTheCache() {
+    String token = jwtTokenProvider.generateToken(user);
+
+    Claims claims = jwtTokenProvider.getClaimsFromToken(token);
+
+    assertThat(jwtTokenProvider.getClaimsFromToken(token)).isSameAs(claims);
+  }
+
+  @Test
+  void getClaimsFromTokenRejectsATamperedTokenOfACachedOne() {
+    String token = jwtTokenProvider.generateToken(user);
+    jwtTokenProvider.getClaimsFromToken(token);
+
+    String[] parts = token.split("\\.");
+    String forged = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+
+    assertThatThrownBy(() -> jwtTokenProvider.getClaimsFromToken(forged)).isInstanceOf(SignatureException.class);
+    assertThat(jwtTokenProvider.validateToken(forged)).isFalse();
+  }
+
+  @Test
+  void getClaimsFromTokenRejectsATokenSignedWithAnotherKey() {
+    String token = provider(SECRET.toUpperCase(), 60_000L).generateToken(user);
+
+    assertThat(jwtTokenProvider.validateToken(token)).isFalse();
+  }
+
+  @Test
+  void getClaimsFromTokenRejectsAnExpiredToken() {
+    JwtTokenProvider expiring = provider(SECRET, -1_000L);
+    String token = expiring.generateToken(user);
+
+    assertThatThrownBy(() -> expiring.getClaimsFromToken(token)).isInstanceOf(ExpiredJwtException.class);
+    assertThat(expiring.validateToken(token)).isFalse();
+  }
+
+  @Test
+  void getAuthenticatedUserReadsTheClaimsOfAnAccessToken() {
+    Claims claims = jwtTokenProvider.getClaimsFromToken(jwtTokenProvider.generateToken(user));
+
+    AuthenticatedUser authenticatedUser = jwtTokenProvider.getAuthenticatedUser(claims);
+
+    assertThat(authenticatedUser.getId()).isEqualTo(7L);
+    assertThat(authenticatedUser.getEmail()).isEqualTo("jane@example.com");
+    assertThat(authenticatedUser.getStatusVersion()).isEqualTo(3L);
+    assertThat(authenticatedUser.getTokenId()).isEqualTo(claims.getId());
+    assertThat(authenticatedUser.getAuthorities()).extracting("authority").containsExactly("ROLE_USER");
+  }
+
+  @Test
+  void accessAndRefreshTokensAreNotInterchangeable() {
+    String accessToken = jwtTokenProvider.generateToken(user);
+    String refreshToken = jwtTokenProvider.generateRefreshToken(user);
+
+    assertThatThrownBy(() -> jwtTokenProvider.getClaimsFromRefreshToken(accessToken))
+        .isInstanceOf(UnsupportedJwtException.class);
+    Claims refreshClaims = jwtTokenProvider.getClaimsFromToken(refreshToken);
+    assertThatThrownBy(() -> jwtTokenProvider.getAuthenticatedUser(refreshClaims))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    Claims claims = jwtTokenProvider.getClaimsFromRefreshToken(refreshToken);
+    assertThat(jwtTokenProvider.getUserId(claims)).isEqualTo(7L);
+    assertThat(jwtTokenProvider.getStatusVersion(claims)).isEqualTo(3L);
+  }
+
+  private static JwtTokenProvider provider(String secret, long expiration) {
+    JwtTokenProvider provider = new JwtTokenProvider();
+    ReflectionTestUtils.setField(provider, "secret", secret);
+    ReflectionTestUtils.setField(provider, "expiration", expiration);
+    ReflectionTestUtils.setField(provider, "refreshExpiration", 120_000L);
+    ReflectionTestUtils.setField(provider, "claimsCacheMaxSize", 100L);
+    provider.init();
+    return provider;
+  }
+}
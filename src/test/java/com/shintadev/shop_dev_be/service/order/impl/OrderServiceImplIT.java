@@ -0,0 +1,245 @@
+package com.shintadev.shop_dev_be.service.order.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.shintadev.shop_dev_be.constant.kafka.KafkaTopic;
+import com.shintadev.shop_dev_be.domain.dto.mapper.OrderMapperImpl;
+import com.shintadev.shop_dev_be.domain.dto.request.order.OrderRequest;
+import com.shintadev.shop_dev_be.domain.model.entity.cart.CartItem;
+import com.shintadev.shop_dev_be.domain.model.entity.outbox.OutboxMessage;
+import com.shintadev.shop_dev_be.domain.model.entity.product.Category;
+import com.shintadev.shop_dev_be.domain.model.entity.product.Product;
+import com.shintadev.shop_dev_be.domain.model.entity.user.Address;
+import com.shintadev.shop_dev_be.domain.model.entity.user.User;
+import com.shintadev.shop_dev_be.exception.InsufficientStockException;
+import com.shintadev.shop_dev_be.inventory.HotStockStore;
+import com.shintadev.shop_dev_be.kafka.event.KafkaEventCodec;
+import com.shintadev.shop_dev_be.kafka.producer.MessageProducer;
+import com.shintadev.shop_dev_be.repository.cart.CartItemRepo;
+import com.shintadev.shop_dev_be.repository.order.OrderRepo;
+import com.shintadev.shop_dev_be.repository.order.PaymentRepo;
+import com.shintadev.shop_dev_be.repository.order.StockReservationRepo;
+import com.shintadev.shop_dev_be.repository.outbox.OutboxMessageRepo;
+import com.shintadev.shop_dev_be.repository.product.CategoryRepo;
+import com.shintadev.shop_dev_be.repository.product.ProductRepo;
+import com.shintadev.shop_dev_be.repository.user.AddressRepo;
+import com.shintadev.shop_dev_be.repository.user.UserRepo;
+import com.shintadev.shop_dev_be.service.order.OrderService;
+import com.shintadev.shop_dev_be.service.product.impl.InventoryServiceImpl;
+
+/**
+ * Customers racing to check out the last unit of a cold product, through the
+ * user lock, the cart, the stock reservation and the outbox
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:checkout;MODE=MySQL;LOCK_TIMEOUT=30000",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.hikari.maximum-pool-size=40",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ OrderServiceImpl.class, StockReservationServiceImpl.class, InventoryServiceImpl.class,
+    MessageProducer.class, KafkaEventCodec.class, OrderMapperImpl.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceImplIT {
+
+  private static final int CHECKOUTS = 300;
+  private static final int THREADS = 32;
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private UserRepo userRepo;
+
+  @Autowired
+  private AddressRepo addressRepo;
+
+  @Autowired
+  private CartItemRepo cartItemRepo;
+
+  @Autowired
+  private CategoryRepo categoryRepo;
+
+  @Autowired
+  private ProductRepo productRepo;
+
+  @Autowired
+  private OrderRepo orderRepo;
+
+  @Autowired
+  private PaymentRepo paymentRepo;
+
+  @Autowired
+  private StockReservationRepo stockReservationRepo;
+
+  @Autowired
+  private OutboxMessageRepo outboxMessageRepo;
+
+  @MockBean
+  private HotStockStore hotStockStore;
+
+  @MockBean
+  private RedissonClient redissonClient;
+
+  private Product product;
+  private final List<Long> userIds = new ArrayList<>();
+  private final List<Long> addressIds = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // Every product is cold
+    when(hotStockStore.reserve(anyList(), anyList()))
+        .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), HotStockStore.COLD));
+    when(hotStockStore.adjust(anyList(), anyList()))
+        .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), HotStockStore.COLD));
+
+    // The user locks are local locks
+    Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    when(redissonClient.getLock(anyString())).thenAnswer(invocation -> {
+      ReentrantLock local = locks.computeIfAbsent(invocation.getArgument(0), key -> new ReentrantLock());
+      RLock lock = mock(RLock.class);
+      when(lock.tryLock(anyLong(), anyLong(), any(TimeUnit.class)))
+          .thenAnswer(tryLock -> local.tryLock(tryLock.getArgument(0), tryLock.getArgument(2)));
+      doAnswer(unlock -> {
+        local.unlock();
+        return null;
+      }).when(lock).unlock();
+      return lock;
+    });
+
+    Category category = categoryRepo.save(Category.builder()
+        .name("Shirts")
+        .slug("shirts")
+        .build());
+    product = productRepo.save(Product.builder()
+        .name("Shirt")
+        .slug("shirt")
+        .price(new BigDecimal("10.00"))
+        .stock(1)
+        .category(category)
+        .build());
+
+    for (int i = 0; i < CHECKOUTS; i++) {
+      User user = userRepo.save(User.builder()
+          .firstName("Customer")
+          .lastName(String.valueOf(i))
+          .displayName("Customer " + i)
+          .email("customer" + i + "@example.com")
+          .password("password")
+          .build());
+      Address address = addressRepo.save(Address.builder()
+          .user(user)
+          .recipientName("Customer " + i)
+          .phoneNumber("0123456789")
+          .addressLine1("1 Main Street")
+          .ward("Ward")
+          .district("District")
+          .provinceCity("City")
+          .postalCode("10000")
+          .build());
+      // The cart is created with the user
+      cartItemRepo.save(CartItem.builder()
+          .cart(user.getCart())
+          .product(product)
+          .quantity(1)
+          .build());
+      userIds.add(user.getId());
+      addressIds.add(address.getId());
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    outboxMessageRepo.deleteAll();
+    stockReservationRepo.deleteAll();
+    paymentRepo.deleteAll();
+    orderRepo.deleteAll();
+    cartItemRepo.deleteAll();
+    addressRepo.deleteAll();
+    userRepo.deleteAll();
+    productRepo.deleteAll();
+    categoryRepo.deleteAll();
+  }
+
+  @Test
+  void lastUnitIsSoldOnce() throws Exception {
+    AtomicInteger placed = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>(CHECKOUTS);
+      for (int i = 0; i < CHECKOUTS; i++) {
+        OrderRequest request = new OrderRequest();
+        request.setAddressId(addressIds.get(i));
+        Long userId = userIds.get(i);
+        futures.add(executor.submit(() -> {
+          start.await();
+          try {
+            orderService.createOrder(userId, request);
+            placed.incrementAndGet();
+          } catch (InsufficientStockException e) {
+            rejected.incrementAndGet();
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(placed.get()).isOne();
+    assertThat(rejected.get()).isEqualTo(CHECKOUTS - 1);
+    assertThat(productRepo.findById(product.getId()).orElseThrow().getStock()).isZero();
+    assertThat(orderRepo.count()).isOne();
+    assertThat(paymentRepo.count()).isOne();
+    assertThat(stockReservationRepo.count()).isOne();
+
+    // Only the winner's cart was emptied, the others rolled back
+    assertThat(cartItemRepo.count()).isEqualTo(CHECKOUTS - 1);
+
+    // Only the placed order was written to the outbox
+    assertThat(outboxMessageRepo.findAll()).extracting(OutboxMessage::getTopic)
+        .containsExactlyInAnyOrder(KafkaTopic.ORDER_NOTIFICATIONS_TOPIC, KafkaTopic.PAYMENT_PROCESSING_TOPIC);
+  }
+}
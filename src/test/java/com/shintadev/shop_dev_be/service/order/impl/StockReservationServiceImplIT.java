@@ -0,0 +1,242 @@
+package com.shintadev.shop_dev_be.service.order.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.shintadev.shop_dev_be.constant.kafka.KafkaTopic;
+import com.shintadev.shop_dev_be.domain.dto.mapper.OrderMapperImpl;
+import com.shintadev.shop_dev_be.domain.dto.request.order.OrderRequest;
+import com.shintadev.shop_dev_be.domain.model.entity.cart.CartItem;
+import com.shintadev.shop_dev_be.domain.model.entity.order.Order;
+import com.shintadev.shop_dev_be.domain.model.entity.order.Payment;
+import com.shintadev.shop_dev_be.domain.model.entity.order.StockReservation;
+import com.shintadev.shop_dev_be.domain.model.entity.product.Category;
+import com.shintadev.shop_dev_be.domain.model.entity.product.Product;
+import com.shintadev.shop_dev_be.domain.model.entity.user.Address;
+import com.shintadev.shop_dev_be.domain.model.entity.user.User;
+import com.shintadev.shop_dev_be.domain.model.enums.order.OrderStatus;
+import com.shintadev.shop_dev_be.domain.model.enums.order.PaymentStatus;
+import com.shintadev.shop_dev_be.domain.model.enums.order.ReservationStatus;
+import com.shintadev.shop_dev_be.exception.BadRequestException;
+import com.shintadev.shop_dev_be.inventory.HotStockStore;
+import com.shintadev.shop_dev_be.kafka.event.KafkaEventCodec;
+import com.shintadev.shop_dev_be.kafka.producer.MessageProducer;
+import com.shintadev.shop_dev_be.repository.cart.CartItemRepo;
+import com.shintadev.shop_dev_be.repository.order.OrderRepo;
+import com.shintadev.shop_dev_be.repository.order.PaymentRepo;
+import com.shintadev.shop_dev_be.repository.order.StockReservationRepo;
+import com.shintadev.shop_dev_be.repository.outbox.OutboxMessageRepo;
+import com.shintadev.shop_dev_be.repository.product.CategoryRepo;
+import com.shintadev.shop_dev_be.repository.product.ProductRepo;
+import com.shintadev.shop_dev_be.repository.user.AddressRepo;
+import com.shintadev.shop_dev_be.repository.user.UserRepo;
+import com.shintadev.shop_dev_be.service.order.OrderService;
+import com.shintadev.shop_dev_be.service.order.StockReservationService;
+import com.shintadev.shop_dev_be.service.product.impl.InventoryServiceImpl;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Unpaid orders whose reservation expires, cancelled in one batch
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:expiry;MODE=MySQL;LOCK_TIMEOUT=30000",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ OrderServiceImpl.class, StockReservationServiceImpl.class, InventoryServiceImpl.class,
+    MessageProducer.class, KafkaEventCodec.class, OrderMapperImpl.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationServiceImplIT {
+
+  private static final int ORDERS = 5;
+  private static final int STOCK = 10;
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private StockReservationService stockReservationService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private UserRepo userRepo;
+
+  @Autowired
+  private AddressRepo addressRepo;
+
+  @Autowired
+  private CartItemRepo cartItemRepo;
+
+  @Autowired
+  private CategoryRepo categoryRepo;
+
+  @Autowired
+  private ProductRepo productRepo;
+
+  @Autowired
+  private OrderRepo orderRepo;
+
+  @Autowired
+  private PaymentRepo paymentRepo;
+
+  @Autowired
+  private StockReservationRepo stockReservationRepo;
+
+  @Autowired
+  private OutboxMessageRepo outboxMessageRepo;
+
+  @MockBean
+  private HotStockStore hotStockStore;
+
+  @MockBean
+  private RedissonClient redissonClient;
+
+  private Product product;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // Every product is cold, every user lock is free
+    when(hotStockStore.reserve(anyList(), anyList()))
+        .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), HotStockStore.COLD));
+    when(hotStockStore.adjust(anyList(), anyList()))
+        .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), HotStockStore.COLD));
+    RLock lock = mock(RLock.class);
+    when(lock.tryLock(anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+    when(redissonClient.getLock(anyString())).thenReturn(lock);
+
+    Category category = categoryRepo.save(Category.builder()
+        .name("Shirts")
+        .slug("shirts")
+        .build());
+    product = productRepo.save(Product.builder()
+        .name("Shirt")
+        .slug("shirt")
+        .price(new BigDecimal("10.00"))
+        .stock(STOCK)
+        .category(category)
+        .build());
+
+    for (int i = 0; i < ORDERS; i++) {
+      User user = userRepo.save(User.builder()
+          .firstName("Customer")
+          .lastName(String.valueOf(i))
+          .displayName("Customer " + i)
+          .email("customer" + i + "@example.com")
+          .password("password")
+          .build());
+      Address address = addressRepo.save(Address.builder()
+          .user(user)
+          .recipientName("Customer " + i)
+          .phoneNumber("0123456789")
+          .addressLine1("1 Main Street")
+          .ward("Ward")
+          .district("District")
+          .provinceCity("City")
+          .postalCode("10000")
+          .build());
+      cartItemRepo.save(CartItem.builder()
+          .cart(user.getCart())
+          .product(product)
+          .quantity(1)
+          .build());
+
+      OrderRequest request = new OrderRequest();
+      request.setAddressId(address.getId());
+      orderService.createOrder(user.getId(), request);
+    }
+
+    // Every reservation is due
+    List<StockReservation> reservations = stockReservationRepo.findAll();
+    reservations.forEach(reservation -> reservation.setExpiresAt(LocalDateTime.now().minusMinutes(1)));
+    stockReservationRepo.saveAll(reservations);
+  }
+
+  @AfterEach
+  void tearDown() {
+    outboxMessageRepo.deleteAll();
+    stockReservationRepo.deleteAll();
+    paymentRepo.deleteAll();
+    orderRepo.deleteAll();
+    cartItemRepo.deleteAll();
+    addressRepo.deleteAll();
+    userRepo.deleteAll();
+    productRepo.deleteAll();
+    categoryRepo.deleteAll();
+  }
+
+  @Test
+  void expireCancelsTheOrdersAndGivesBackTheirStock() {
+    List<Long> reservationIds = new ArrayList<>();
+    stockReservationRepo.findAll().forEach(reservation -> reservationIds.add(reservation.getId()));
+    long notificationsBefore = countNotifications();
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    assertThat(stockReservationService.expire(reservationIds)).isEqualTo(ORDERS);
+
+    // The items of the orders are read with the orders, not one order at a time
+    assertThat(statistics.getCollectionFetchCount()).isZero();
+
+    assertThat(stockReservationRepo.findAll()).extracting(StockReservation::getStatus)
+        .containsOnly(ReservationStatus.EXPIRED);
+    assertThat(orderRepo.findAll()).extracting(Order::getStatus)
+        .containsOnly(OrderStatus.CANCELLED);
+    assertThat(paymentRepo.findAll()).extracting(Payment::getStatus)
+        .containsOnly(PaymentStatus.CANCELLED);
+    assertThat(productRepo.findById(product.getId()).orElseThrow().getStock()).isEqualTo(STOCK);
+    assertThat(countNotifications() - notificationsBefore).isEqualTo(ORDERS);
+  }
+
+  @Test
+  void expiredOrderCannotBeReopened() {
+    List<Long> reservationIds = new ArrayList<>();
+    stockReservationRepo.findAll().forEach(reservation -> reservationIds.add(reservation.getId()));
+    stockReservationService.expire(reservationIds);
+    Long orderId = orderRepo.findAll().get(0).getId();
+
+    assertThatThrownBy(() -> orderService.updateOrderStatus(orderId, OrderStatus.PROCESSING))
+        .isInstanceOf(BadRequestException.class);
+
+    assertThat(orderRepo.findById(orderId).orElseThrow().getStatus()).isEqualTo(OrderStatus.CANCELLED);
+    assertThat(productRepo.findById(product.getId()).orElseThrow().getStock()).isEqualTo(STOCK);
+  }
+
+  private long countNotifications() {
+    return outboxMessageRepo.findAll().stream()
+        .filter(message -> KafkaTopic.ORDER_NOTIFICATIONS_TOPIC.equals(message.getTopic()))
+        .count();
+  }
+}
@@ -0,0 +1,153 @@
+package com.shintadev.shop_dev_be.service.product.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.shintadev.shop_dev_be.domain.model.entity.product.Category;
+import com.shintadev.shop_dev_be.domain.model.entity.product.Product;
+import com.shintadev.shop_dev_be.exception.InsufficientStockException;
+import com.shintadev.shop_dev_be.inventory.HotStockStore;
+import com.shintadev.shop_dev_be.kafka.producer.MessageProducer;
+import com.shintadev.shop_dev_be.repository.product.CategoryRepo;
+import com.shintadev.shop_dev_be.repository.product.ProductRepo;
+import com.shintadev.shop_dev_be.service.product.InventoryService;
+
+/**
+ * Reservations racing for the last units of a cold product, each in its own
+ * transaction
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:inventory;MODE=MySQL;LOCK_TIMEOUT=30000",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.hikari.maximum-pool-size=40",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(InventoryServiceImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceImplIT {
+
+  private static final int STOCK = 7;
+  private static final int RESERVATIONS = 32;
+
+  @Autowired
+  private InventoryService inventoryService;
+
+  @Autowired
+  private ProductRepo productRepo;
+
+  @Autowired
+  private CategoryRepo categoryRepo;
+
+  @MockBean
+  private HotStockStore hotStockStore;
+
+  @MockBean
+  private MessageProducer messageProducer;
+
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    // Every product is cold
+    when(hotStockStore.reserve(anyList(), anyList()))
+        .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), HotStockStore.COLD));
+    when(hotStockStore.adjust(anyList(), anyList()))
+        .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), HotStockStore.COLD));
+
+    Category category = categoryRepo.save(Category.builder()
+        .name("Shirts")
+        .slug("shirts")
+        .build());
+    product = productRepo.save(Product.builder()
+        .name("Shirt")
+        .slug("shirt")
+        .price(new BigDecimal("10.00"))
+        .stock(STOCK)
+        .category(category)
+        .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    productRepo.deleteAll();
+    categoryRepo.deleteAll();
+  }
+
+  @Test
+  void reserveStockNeverOversells() throws Exception {
+    AtomicInteger reserved = new AtomicInteger();
+    AtomicInteger rejected = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(RESERVATIONS);
+    try {
+      List<Future<?>> futures = new ArrayList<>(RESERVATIONS);
+      for (int i = 0; i < RESERVATIONS; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          try {
+            inventoryService.reserveStock(Map.of(product.getId(), 1));
+            reserved.incrementAndGet();
+          } catch (InsufficientStockException e) {
+            rejected.incrementAndGet();
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(reserved.get()).isEqualTo(STOCK);
+    assertThat(rejected.get()).isEqualTo(RESERVATIONS - STOCK);
+    assertThat(productRepo.findById(product.getId()).orElseThrow().getStock()).isZero();
+  }
+
+  @Test
+  void reserveStockIsAllOrNothing() {
+    Product other = productRepo.save(Product.builder()
+        .name("Hat")
+        .slug("hat")
+        .price(new BigDecimal("5.00"))
+        .stock(1)
+        .category(product.getCategory())
+        .build());
+
+    assertThatThrownBy(() -> inventoryService.reserveStock(Map.of(product.getId(), 2, other.getId(), 2)))
+        .isInstanceOf(InsufficientStockException.class)
+        .hasMessageContaining("Hat has only 1 in stock");
+
+    // The line reserved before the shortage was rolled back
+    assertThat(productRepo.findById(product.getId()).orElseThrow().getStock()).isEqualTo(STOCK);
+    assertThat(productRepo.findById(other.getId()).orElseThrow().getStock()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,89 @@
+package com.shintadev.shop_dev_be.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.shintadev.shop_dev_be.domain.dto.response.CursorPageResponse;
+import com.shintadev.shop_dev_be.exception.BadRequestException;
+
+class CursorUtilsTest {
+
+  private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_000_000);
+
+  @Test
+  void decodeReturnsTheEncodedPosition() {
+    String cursor = CursorUtils.encode(TIMESTAMP, 42L);
+
+    assertThat(CursorUtils.decode(cursor)).isEqualTo(new CursorUtils.Cursor(TIMESTAMP, 42L));
+  }
+
+  @Test
+  void encodeIsUrlSafe() {
+    assertThat(CursorUtils.encode(TIMESTAMP, Long.MAX_VALUE)).matches("[A-Za-z0-9_-]+");
+  }
+
+  @Test
+  void decodeReturnsNullForTheFirstPage() {
+    assertThat(CursorUtils.decode(null)).isNull();
+    assertThat(CursorUtils.decode(" ")).isNull();
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { "not a cursor!", "abc", "MjAyNC0wMy0wMVQxMDoxNTozMA" })
+  void decodeRejectsMalformedCursors(String cursor) {
+    assertThatThrownBy(() -> CursorUtils.decode(cursor)).isInstanceOf(BadRequestException.class);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { "2024-03-01T10:15:30,4x2", "2024-13-01T10:15:30,42", "yesterday,42", ",42", "2024-03-01T10:15:30," })
+  void decodeRejectsTamperedCursors(String raw) {
+    String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+    assertThatThrownBy(() -> CursorUtils.decode(cursor)).isInstanceOf(BadRequestException.class);
+  }
+
+  @Test
+  void limitOfFetchesOneMoreThanTheClampedSize() {
+    assertThat(CursorUtils.limitOf(20).getPageSize()).isEqualTo(21);
+    assertThat(CursorUtils.limitOf(0).getPageSize()).isEqualTo(2);
+    assertThat(CursorUtils.limitOf(1000).getPageSize()).isEqualTo(CursorUtils.MAX_PAGE_SIZE + 1);
+  }
+
+  @Test
+  void toPagePointsTheCursorAtTheLastItemReturned() {
+    List<Long> rows = List.of(5L, 4L, 3L);
+
+    CursorPageResponse<String> page = CursorUtils.toPage(rows, 2, CursorUtilsTest::timestampOf,
+        Function.identity(), String::valueOf, null);
+
+    assertThat(page.getContent()).containsExactly("5", "4");
+    assertThat(page.isHasNext()).isTrue();
+    assertThat(CursorUtils.decode(page.getNextCursor())).isEqualTo(new CursorUtils.Cursor(timestampOf(4L), 4L));
+    assertThat(page.getTotalElements()).isNull();
+  }
+
+  @Test
+  void toPageHasNoCursorOnTheLastPage() {
+    CursorPageResponse<String> page = CursorUtils.toPage(List.of(2L, 1L), 2, CursorUtilsTest::timestampOf,
+        Function.identity(), String::valueOf, () -> 2L);
+
+    assertThat(page.getContent()).containsExactly("2", "1");
+    assertThat(page.isHasNext()).isFalse();
+    assertThat(page.getNextCursor()).isNull();
+    assertThat(page.getTotalElements()).isEqualTo(2L);
+  }
+
+  private static LocalDateTime timestampOf(Long id) {
+    return TIMESTAMP.plusMinutes(id);
+  }
+}